@@ -477,19 +477,8 @@ public class DataInitializer {
         log.info("Checking and updating existing papers viewability status...");
         
         try {
-            // Find all papers and ensure they are viewable
-            var allPapers = researchPaperRepository.findAll();
-            int updatedCount = 0;
-            
-            for (var paper : allPapers) {
-                // Set to true if null or false (as requested by user - all papers should be viewable)
-                if (paper.getViewable() == null || !paper.getViewable()) {
-                    paper.setViewable(true);
-                    researchPaperRepository.save(paper);
-                    updatedCount++;
-                    log.debug("Updated paper '{}' to be viewable", paper.getTitle());
-                }
-            }
+            // Set to true where null or false (as requested by user - all papers should be viewable)
+            long updatedCount = researchPaperRepository.markAllViewable();
             
             if (updatedCount > 0) {
                 log.info("Updated {} papers to be publicly viewable", updatedCount);
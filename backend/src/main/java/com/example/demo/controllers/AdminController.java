@@ -5,6 +5,7 @@ import com.example.demo.dto.AdminResponse;
 import com.example.demo.dto.JwtResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.services.AdminService;
+import com.example.demo.services.MongoIndexService;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -25,9 +26,11 @@ import java.util.Map;
 public class AdminController {
     
     private final AdminService adminService;
+    private final MongoIndexService mongoIndexService;
     
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, MongoIndexService mongoIndexService) {
         this.adminService = adminService;
+        this.mongoIndexService = mongoIndexService;
     }
     
     @PostMapping("/validate")
@@ -127,6 +130,25 @@ public class AdminController {
         return ResponseEntity.ok(stats);
     }
     
+    /**
+     * Declared Mongo indexes, whether they exist, and how often each index has been used
+     */
+    @GetMapping("/indexes")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getIndexReport() {
+        return ResponseEntity.ok(mongoIndexService.getIndexReport());
+    }
+    
+    /**
+     * Create any declared index that is missing and report the result
+     */
+    @PostMapping("/indexes/reconcile")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> reconcileIndexes() {
+        mongoIndexService.reconcile();
+        return ResponseEntity.ok(mongoIndexService.getIndexReport());
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public ResponseEntity<AdminResponse> updateAdmin(
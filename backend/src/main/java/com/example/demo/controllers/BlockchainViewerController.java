@@ -123,11 +123,11 @@ public class BlockchainViewerController {
                 detailedRecord.put("blockchainData", blockchainData);
                 
                 // AI/ML embeddings (if available)
-                if (paper.getDocumentEmbedding() != null && !paper.getDocumentEmbedding().isEmpty()) {
+                if (paper.getDocumentEmbedding() != null && paper.getDocumentEmbedding().length > 0) {
                     Map<String, Object> aiData = new HashMap<>();
                     aiData.put("hasDocumentEmbedding", true);
-                    aiData.put("embeddingDimensions", paper.getDocumentEmbedding().size());
-                    aiData.put("hasTitleEmbedding", paper.getTitleEmbedding() != null && !paper.getTitleEmbedding().isEmpty());
+                    aiData.put("embeddingDimensions", paper.getDocumentEmbedding().length);
+                    aiData.put("hasTitleEmbedding", paper.getTitleEmbedding() != null && paper.getTitleEmbedding().length > 0);
                     detailedRecord.put("aiProcessing", aiData);
                 }
                 
@@ -1,7 +1,7 @@
 package com.example.demo.controllers;
 
-import com.example.demo.models.ResearchPaper;
 import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.services.PaperSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
@@ -16,20 +16,18 @@ public class DataMigrationController {
     @Autowired
     private ResearchPaperRepository researchPaperRepository;
     
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
     @PostMapping("/make-papers-viewable")
     public ResponseEntity<Map<String, Object>> makePapersViewable() {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            // Get all papers
-            var allPapers = researchPaperRepository.findAll();
-            int updatedCount = 0;
-            
-            // Update all papers to be viewable
-            for (ResearchPaper paper : allPapers) {
-                paper.setViewable(true);
-                researchPaperRepository.save(paper);
-                updatedCount++;
+            // Update all papers to be viewable in one statement, without loading them
+            long updatedCount = researchPaperRepository.markAllViewable();
+            if (updatedCount > 0) {
+                paperSearchService.rebuildCompletions();
             }
             
             // Get statistics
@@ -2,6 +2,9 @@ package com.example.demo.controllers;
 
 import com.example.demo.models.ResearchPaper;
 import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.services.HybridSearchService;
+import com.example.demo.services.PaperSearchService;
+import com.example.demo.services.ResearchPaperService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +28,15 @@ public class RealPapersController {
     @Autowired
     private ResearchPaperRepository researchPaperRepository;
     
+    @Autowired
+    private ResearchPaperService researchPaperService;
+    
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
+    @Autowired
+    private HybridSearchService hybridSearchService;
+    
     @GetMapping("/working")
     public ResponseEntity<Map<String, Object>> working() {
         Map<String, Object> response = new HashMap<>();
@@ -33,67 +45,48 @@ public class RealPapersController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Viewable papers, newest first. Pass the returned nextCursor to get the following page.
+     */
     @GetMapping("/papers")
-    public ResponseEntity<Map<String, Object>> getPapers() {
+    public ResponseEntity<Map<String, Object>> getPapers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         Map<String, Object> response = new HashMap<>();
         try {
             logger.info("Fetching papers from database...");
             
-            // Get all papers from database
-            List<ResearchPaper> allPapers = researchPaperRepository.findAll();
-            logger.info("Found {} total papers in database", allPapers.size());
+            // One page of viewable papers, without their embeddings; the counts come from the indexes
+            ResearchPaperService.PaperPage page = researchPaperService.getViewablePapersPage(cursor, size);
+            long totalPapers = researchPaperRepository.count();
+            long viewableCount = researchPaperRepository.countByViewableTrue();
+            logger.info("Found {} viewable of {} total papers in database", viewableCount, totalPapers);
             
-            // Filter viewable papers and convert to simple format
+            // Convert to simple format
             List<Map<String, Object>> simplePapers = new ArrayList<>();
-            int viewableCount = 0;
             
-            for (ResearchPaper paper : allPapers) {
-                if (paper.getViewable() != null && paper.getViewable()) {
-                    viewableCount++;
-                    
-                    // Convert to simple format to avoid serialization issues
-                    Map<String, Object> simplePaper = new HashMap<>();
-                    simplePaper.put("id", paper.getId());
-                    simplePaper.put("title", paper.getTitle() != null ? paper.getTitle() : "Untitled");
-                    simplePaper.put("author", paper.getAuthor() != null ? paper.getAuthor() : "Unknown Author");
-                    simplePaper.put("department", paper.getDepartment() != null ? paper.getDepartment() : "N/A");
-                    simplePaper.put("institution", paper.getInstitution() != null ? paper.getInstitution() : "N/A");
-                    simplePaper.put("supervisor", paper.getSupervisor() != null ? paper.getSupervisor() : "N/A");
-                    simplePaper.put("status", paper.getStatus() != null ? paper.getStatus() : "PENDING");
-                    simplePaper.put("viewable", true);
-                    
-                    // Handle abstract safely
-                    String abstractText = paper.getAbstractText();
-                    if (abstractText != null && abstractText.length() > 300) {
-                        abstractText = abstractText.substring(0, 300) + "...";
-                    }
-                    simplePaper.put("abstractText", abstractText != null ? abstractText : "No abstract available");
-                    
-                    // Handle keywords safely
-                    List<String> keywords = paper.getKeywords();
-                    simplePaper.put("keywords", keywords != null ? keywords : new ArrayList<>());
-                    
-                    // Handle dates safely
-                    if (paper.getSubmissionDate() != null) {
-                        simplePaper.put("submissionDate", paper.getSubmissionDate().format(DATE_FORMATTER));
-                    }
-                    
-                    simplePapers.add(simplePaper);
-                }
+            for (ResearchPaper paper : page.getPapers()) {
+                simplePapers.add(toSimplePaper(paper));
             }
             
-            logger.info("Converted {} viewable papers to simple format", viewableCount);
+            logger.info("Converted {} viewable papers to simple format", simplePapers.size());
             
             // Build response
             response.put("papers", simplePapers);
-            response.put("total", allPapers.size());
+            response.put("total", totalPapers);
             response.put("viewable", viewableCount);
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasNext", page.hasNext());
             response.put("status", "success");
             response.put("message", "Real papers fetched from database");
             
-            logger.info("Successfully returning {} viewable papers out of {} total", viewableCount, allPapers.size());
+            logger.info("Successfully returning {} of {} viewable papers", simplePapers.size(), viewableCount);
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             logger.error("Error fetching papers from database: ", e);
             response.put("status", "error");
@@ -104,4 +97,149 @@ public class RealPapersController {
             return ResponseEntity.status(500).body(response);
         }
     }
+    
+    /**
+     * Full-text search over viewable papers, best match first. Titles and snippets come back
+     * HTML-escaped with the matching words in &lt;mark&gt;.
+     */
+    @GetMapping("/papers/search")
+    public ResponseEntity<Map<String, Object>> searchPapers(
+            @RequestParam String q,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Map<String, Object> response = new HashMap<>();
+        if (q.trim().isEmpty()) {
+            response.put("status", "error");
+            response.put("message", "Search query is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            PaperSearchService.SearchPage results = paperSearchService.search(q, department, page, size);
+            
+            List<Map<String, Object>> simplePapers = new ArrayList<>();
+            for (PaperSearchService.SearchHit hit : results.getHits()) {
+                Map<String, Object> simplePaper = toSimplePaper(hit.getPaper());
+                simplePaper.put("score", hit.getScore());
+                simplePaper.put("highlightedTitle", hit.getHighlightedTitle());
+                simplePaper.put("snippet", hit.getSnippet());
+                simplePapers.add(simplePaper);
+            }
+            
+            response.put("papers", simplePapers);
+            response.put("page", results.getPage());
+            response.put("size", results.getSize());
+            response.put("total", results.getTotal());
+            response.put("totalPages", results.getTotalPages());
+            response.put("hasNext", results.hasNext());
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error searching papers: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to search papers: " + e.getMessage());
+            response.put("papers", new ArrayList<>());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    /**
+     * Search by meaning as well as wording: vector matches on the paper embeddings fused with
+     * the keyword ranking. Falls back to keywords alone (semantic=false) when Ollama is slow or down.
+     */
+    @GetMapping("/papers/semantic-search")
+    public ResponseEntity<Map<String, Object>> semanticSearch(
+            @RequestParam String q,
+            @RequestParam(required = false) String department,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Map<String, Object> response = new HashMap<>();
+        if (q.trim().isEmpty()) {
+            response.put("status", "error");
+            response.put("message", "Search query is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        try {
+            HybridSearchService.HybridPage results = hybridSearchService.search(q, department, page, size);
+            
+            List<Map<String, Object>> simplePapers = new ArrayList<>();
+            for (HybridSearchService.HybridHit hit : results.getHits()) {
+                Map<String, Object> simplePaper = toSimplePaper(hit.getHit().getPaper());
+                simplePaper.put("score", hit.getScore());
+                simplePaper.put("keywordRank", hit.getKeywordRank());
+                simplePaper.put("documentRank", hit.getDocumentRank());
+                simplePaper.put("titleRank", hit.getTitleRank());
+                simplePaper.put("similarity", hit.getSimilarity());
+                simplePaper.put("highlightedTitle", hit.getHit().getHighlightedTitle());
+                simplePaper.put("snippet", hit.getHit().getSnippet());
+                simplePapers.add(simplePaper);
+            }
+            
+            response.put("papers", simplePapers);
+            response.put("page", results.getPage());
+            response.put("size", results.getSize());
+            response.put("total", results.getTotal());
+            response.put("totalPages", results.getTotalPages());
+            response.put("hasNext", results.hasNext());
+            response.put("keyword", results.isKeyword());
+            response.put("semantic", results.isSemantic());
+            response.put("tookMs", results.getTookMs());
+            response.put("status", "success");
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error in semantic paper search: ", e);
+            response.put("status", "error");
+            response.put("message", "Failed to search papers: " + e.getMessage());
+            response.put("papers", new ArrayList<>());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+    
+    /**
+     * Type-ahead completions for the search box from title words and keywords
+     */
+    @GetMapping("/papers/suggest")
+    public ResponseEntity<Map<String, Object>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("suggestions", paperSearchService.suggest(prefix, limit));
+        response.put("status", "success");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Listing fields of a paper, with placeholders for missing values
+     */
+    private static Map<String, Object> toSimplePaper(ResearchPaper paper) {
+        Map<String, Object> simplePaper = new HashMap<>();
+        simplePaper.put("id", paper.getId());
+        simplePaper.put("title", paper.getTitle() != null ? paper.getTitle() : "Untitled");
+        simplePaper.put("author", paper.getAuthor() != null ? paper.getAuthor() : "Unknown Author");
+        simplePaper.put("department", paper.getDepartment() != null ? paper.getDepartment() : "N/A");
+        simplePaper.put("institution", paper.getInstitution() != null ? paper.getInstitution() : "N/A");
+        simplePaper.put("supervisor", paper.getSupervisor() != null ? paper.getSupervisor() : "N/A");
+        simplePaper.put("status", paper.getStatus() != null ? paper.getStatus() : "PENDING");
+        simplePaper.put("viewable", true);
+        
+        // Handle abstract safely
+        String abstractText = paper.getAbstractText();
+        if (abstractText != null && abstractText.length() > 300) {
+            abstractText = abstractText.substring(0, 300) + "...";
+        }
+        simplePaper.put("abstractText", abstractText != null ? abstractText : "No abstract available");
+        
+        // Handle keywords safely
+        List<String> keywords = paper.getKeywords();
+        simplePaper.put("keywords", keywords != null ? keywords : new ArrayList<>());
+        
+        // Handle dates safely
+        if (paper.getSubmissionDate() != null) {
+            simplePaper.put("submissionDate", paper.getSubmissionDate().format(DATE_FORMATTER));
+        }
+        
+        return simplePaper;
+    }
 }
\ No newline at end of file
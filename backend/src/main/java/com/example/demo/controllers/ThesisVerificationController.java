@@ -2,6 +2,12 @@ package com.example.demo.controllers;
 
 import com.example.demo.dto.ThesisVerificationRequest;
 import com.example.demo.dto.ThesisVerificationResponse;
+import com.example.demo.services.DocumentTextExtractorService;
+import com.example.demo.services.HybridSearchService;
+import com.example.demo.services.EmbeddingCacheService;
+import com.example.demo.services.OllamaBatchEmbeddingClient;
+import com.example.demo.services.OllamaHealthMonitor;
+import com.example.demo.services.PaperSearchService;
 import com.example.demo.services.ThesisVerificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -26,6 +32,24 @@ public class ThesisVerificationController {
     @Autowired
     private ThesisVerificationService thesisVerificationService;
     
+    @Autowired
+    private OllamaHealthMonitor ollamaHealthMonitor;
+    
+    @Autowired
+    private EmbeddingCacheService embeddingCacheService;
+    
+    @Autowired
+    private OllamaBatchEmbeddingClient batchEmbeddingClient;
+    
+    @Autowired
+    private DocumentTextExtractorService documentTextExtractorService;
+    
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
+    @Autowired
+    private HybridSearchService hybridSearchService;
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     /**
@@ -44,7 +68,9 @@ public class ThesisVerificationController {
             @RequestParam(value = "keywords", required = false) String keywordsJson,
             @RequestParam(value = "supervisor", required = false) String supervisor,
             @RequestParam(value = "coSupervisor", required = false) String coSupervisor,
-            @RequestParam(value = "userType", required = false, defaultValue = "STUDENT") String userType) {
+            @RequestParam(value = "userType", required = false, defaultValue = "STUDENT") String userType,
+            @RequestParam(value = "matchesPage", required = false) Integer matchesPage,
+            @RequestParam(value = "matchesPageSize", required = false) Integer matchesPageSize) {
         
         try {
             log.info("📄 Received thesis verification request for: {} by {}", title, author);
@@ -59,6 +85,8 @@ public class ThesisVerificationController {
             request.setAbstractText(abstractText);
             request.setSupervisor(supervisor);
             request.setCoSupervisor(coSupervisor);
+            request.setMatchesPage(matchesPage);
+            request.setMatchesPageSize(matchesPageSize);
             
             // Parse keywords JSON array if provided
             if (keywordsJson != null && !keywordsJson.trim().isEmpty()) {
@@ -170,18 +198,34 @@ public class ThesisVerificationController {
             Map<String, Object> healthStatus = new java.util.HashMap<>();
             
             // Check if services are available
-            boolean ollamaAvailable = false;
             boolean servicesAvailable = true;
             
             try {
-                // Test Ollama connection
-                ollamaAvailable = thesisVerificationService != null;
-                healthStatus.put("thesisVerificationService", "available");
+                healthStatus.put("thesisVerificationService", thesisVerificationService != null ? "available" : "unavailable");
             } catch (Exception e) {
                 healthStatus.put("thesisVerificationService", "error: " + e.getMessage());
                 servicesAvailable = false;
             }
             
+            // Ollama circuit breaker state (cached by the background monitor, no round trip here)
+            boolean ollamaAvailable = ollamaHealthMonitor.isAvailable();
+            healthStatus.put("ollama", ollamaHealthMonitor.getStatus());
+            if (!ollamaAvailable) {
+                servicesAvailable = false;
+            }
+            
+            Map<String, Object> embeddingStatus = new java.util.HashMap<>(embeddingCacheService.getStats());
+            embeddingStatus.put("batchingEnabled", batchEmbeddingClient.isEnabled());
+            embeddingStatus.put("batchesSent", batchEmbeddingClient.getBatchesSent());
+            embeddingStatus.put("promptsSent", batchEmbeddingClient.getPromptsSent());
+            embeddingStatus.put("queueDepth", batchEmbeddingClient.getQueueDepth());
+            embeddingStatus.put("queueCapacity", batchEmbeddingClient.getQueueCapacity());
+            embeddingStatus.put("rejected", batchEmbeddingClient.getRejected());
+            healthStatus.put("embeddings", embeddingStatus);
+            healthStatus.put("extraction", documentTextExtractorService.getStats());
+            healthStatus.put("search", paperSearchService.getStats());
+            healthStatus.put("semanticSearch", hybridSearchService.getStats());
+            
             // Check database connection
             try {
                 // This will throw an exception if MongoDB is not connected
@@ -34,6 +34,10 @@ public class ThesisVerificationRequest {
     private Long fileSize;
     private String fileHash;
     
+    // Optional paging of the similar-paper matches in the response (0-based page)
+    private Integer matchesPage;
+    private Integer matchesPageSize;
+    
     // Constructors
     public ThesisVerificationRequest() {}
     
@@ -74,6 +78,12 @@ public class ThesisVerificationRequest {
     public String getFileHash() { return fileHash; }
     public void setFileHash(String fileHash) { this.fileHash = fileHash; }
     
+    public Integer getMatchesPage() { return matchesPage; }
+    public void setMatchesPage(Integer matchesPage) { this.matchesPage = matchesPage; }
+    
+    public Integer getMatchesPageSize() { return matchesPageSize; }
+    public void setMatchesPageSize(Integer matchesPageSize) { this.matchesPageSize = matchesPageSize; }
+    
     @Override
     public String toString() {
         return "ThesisVerificationRequest{" +
@@ -12,6 +12,7 @@ public class ThesisVerificationResponse {
     private String matchType; // EXACT_MATCH, PARTIAL_MATCH, NO_MATCH
     private Double plagiarismScore;
     private AIAnalysis aiAnalysis;
+    private List<SourcePassages> matchedPassages; // Passages shared with existing papers (fingerprint matches)
     private String message;
     private LocalDateTime verificationTimestamp;
     
@@ -56,6 +57,9 @@ public class ThesisVerificationResponse {
     public AIAnalysis getAiAnalysis() { return aiAnalysis; }
     public void setAiAnalysis(AIAnalysis aiAnalysis) { this.aiAnalysis = aiAnalysis; }
     
+    public List<SourcePassages> getMatchedPassages() { return matchedPassages; }
+    public void setMatchedPassages(List<SourcePassages> matchedPassages) { this.matchedPassages = matchedPassages; }
+    
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
     
@@ -70,6 +74,11 @@ public class ThesisVerificationResponse {
         private Integer matchedPapersCount;
         private List<SimilarPaper> topMatches;
         
+        // Paging of topMatches (only set when the request asked for a page)
+        private Integer totalMatches;
+        private Integer matchesPage;
+        private Integer matchesPageSize;
+        
         // AI Detection results
         private Double aiDetectionScore;
         private String aiDetectionConclusion;
@@ -99,6 +108,15 @@ public class ThesisVerificationResponse {
         public List<SimilarPaper> getTopMatches() { return topMatches; }
         public void setTopMatches(List<SimilarPaper> topMatches) { this.topMatches = topMatches; }
         
+        public Integer getTotalMatches() { return totalMatches; }
+        public void setTotalMatches(Integer totalMatches) { this.totalMatches = totalMatches; }
+        
+        public Integer getMatchesPage() { return matchesPage; }
+        public void setMatchesPage(Integer matchesPage) { this.matchesPage = matchesPage; }
+        
+        public Integer getMatchesPageSize() { return matchesPageSize; }
+        public void setMatchesPageSize(Integer matchesPageSize) { this.matchesPageSize = matchesPageSize; }
+        
         // Getters and Setters for AI Detection
         public Double getAiDetectionScore() { return aiDetectionScore; }
         public void setAiDetectionScore(Double aiDetectionScore) { this.aiDetectionScore = aiDetectionScore; }
@@ -148,6 +166,77 @@ public class ThesisVerificationResponse {
         public void setSubmissionDate(LocalDateTime submissionDate) { this.submissionDate = submissionDate; }
     }
     
+    // Inner class for the passages one existing paper shares with the submission
+    public static class SourcePassages {
+        private String paperId;
+        private String title;
+        private String textSource; // DOCUMENT or ABSTRACT: which text of the existing paper the offsets refer to
+        private Double overlapPercentage; // Share of the submission's fingerprints inside these passages
+        private List<MatchedPassage> passages;
+        
+        public SourcePassages() {}
+        
+        public SourcePassages(String paperId, String title, String textSource, Double overlapPercentage, 
+                              List<MatchedPassage> passages) {
+            this.paperId = paperId;
+            this.title = title;
+            this.textSource = textSource;
+            this.overlapPercentage = overlapPercentage;
+            this.passages = passages;
+        }
+        
+        // Getters and Setters
+        public String getPaperId() { return paperId; }
+        public void setPaperId(String paperId) { this.paperId = paperId; }
+        
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        
+        public String getTextSource() { return textSource; }
+        public void setTextSource(String textSource) { this.textSource = textSource; }
+        
+        public Double getOverlapPercentage() { return overlapPercentage; }
+        public void setOverlapPercentage(Double overlapPercentage) { this.overlapPercentage = overlapPercentage; }
+        
+        public List<MatchedPassage> getPassages() { return passages; }
+        public void setPassages(List<MatchedPassage> passages) { this.passages = passages; }
+    }
+    
+    // Inner class for one shared passage; offsets are character positions, end exclusive
+    public static class MatchedPassage {
+        private int submissionStart;
+        private int submissionEnd;
+        private int sourceStart;
+        private int sourceEnd;
+        private String excerpt; // Passage text from the submission
+        
+        public MatchedPassage() {}
+        
+        public MatchedPassage(int submissionStart, int submissionEnd, int sourceStart, int sourceEnd, String excerpt) {
+            this.submissionStart = submissionStart;
+            this.submissionEnd = submissionEnd;
+            this.sourceStart = sourceStart;
+            this.sourceEnd = sourceEnd;
+            this.excerpt = excerpt;
+        }
+        
+        // Getters and Setters
+        public int getSubmissionStart() { return submissionStart; }
+        public void setSubmissionStart(int submissionStart) { this.submissionStart = submissionStart; }
+        
+        public int getSubmissionEnd() { return submissionEnd; }
+        public void setSubmissionEnd(int submissionEnd) { this.submissionEnd = submissionEnd; }
+        
+        public int getSourceStart() { return sourceStart; }
+        public void setSourceStart(int sourceStart) { this.sourceStart = sourceStart; }
+        
+        public int getSourceEnd() { return sourceEnd; }
+        public void setSourceEnd(int sourceEnd) { this.sourceEnd = sourceEnd; }
+        
+        public String getExcerpt() { return excerpt; }
+        public void setExcerpt(String excerpt) { this.excerpt = excerpt; }
+    }
+    
     @Override
     public String toString() {
         return "ThesisVerificationResponse{" +
@@ -3,6 +3,7 @@ package com.example.demo.models;
 import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -11,12 +12,15 @@ public class BlockchainRecord {
     
     @Id
     private String id;
+    @Indexed
     private String paperHash;
     private String previousHash;
+    @Indexed
     private LocalDateTime timestamp;
     
     @DBRef
     private User author;
+    @Indexed
     private String authorId; // Reference to User ID
     
     private PaperData paperData;
@@ -0,0 +1,47 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Persisted embedding keyed by model name and SHA-256 of the normalized input text;
+ * expires 30 days after it was cached
+ */
+@Document(collection = "embeddingCache")
+public class CachedEmbedding {
+
+    @Id
+    private String id; // "<model>:<textHash>"
+    private String model;
+    private String textHash;
+    private float[] embedding;
+    @Indexed(name = "embedding_cache_ttl", expireAfter = "30d")
+    private LocalDateTime createdAt; // TTL: MongoDB removes the entry 30 days after it was cached
+
+    public CachedEmbedding() {}
+
+    public CachedEmbedding(String id, String model, String textHash, float[] embedding, LocalDateTime createdAt) {
+        this.id = id;
+        this.model = model;
+        this.textHash = textHash;
+        this.embedding = embedding;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getModel() { return model; }
+    public String getTextHash() { return textHash; }
+    public float[] getEmbedding() { return embedding; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    // Setters
+    public void setId(String id) { this.id = id; }
+    public void setModel(String model) { this.model = model; }
+    public void setTextHash(String textHash) { this.textHash = textHash; }
+    public void setEmbedding(float[] embedding) { this.embedding = embedding; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
\ No newline at end of file
@@ -6,6 +6,7 @@ import java.util.List;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "institutes")
@@ -14,6 +15,7 @@ public class Institute {
     @Id
     private String id;
     
+    @Indexed
     private String name;
     private String address;
     private String city;
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -20,6 +21,7 @@ public class Paper {
     private String authorId; // Reference to User ID
     private String abstract_;
     private String pdfUrl;
+    @Indexed
     private String hash; // Paper hash for blockchain
     private String status; // pending, verified, rejected
     
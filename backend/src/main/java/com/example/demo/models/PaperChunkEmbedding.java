@@ -0,0 +1,54 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Embedding of one overlapping window of a paper's extracted text
+ */
+@Document(collection = "paperChunks")
+@CompoundIndex(name = "paper_chunk_idx", def = "{'paperId': 1, 'chunkIndex': 1}")
+public class PaperChunkEmbedding {
+
+    @Id
+    private String id;
+    private String paperId;
+    private int chunkIndex;
+    private int startOffset;
+    private int endOffset;
+    private float[] embedding;
+    private LocalDateTime createdAt;
+
+    public PaperChunkEmbedding() {}
+
+    public PaperChunkEmbedding(String paperId, int chunkIndex, int startOffset, int endOffset,
+                               float[] embedding, LocalDateTime createdAt) {
+        this.paperId = paperId;
+        this.chunkIndex = chunkIndex;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.embedding = embedding;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getPaperId() { return paperId; }
+    public int getChunkIndex() { return chunkIndex; }
+    public int getStartOffset() { return startOffset; }
+    public int getEndOffset() { return endOffset; }
+    public float[] getEmbedding() { return embedding; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    // Setters
+    public void setId(String id) { this.id = id; }
+    public void setPaperId(String paperId) { this.paperId = paperId; }
+    public void setChunkIndex(int chunkIndex) { this.chunkIndex = chunkIndex; }
+    public void setStartOffset(int startOffset) { this.startOffset = startOffset; }
+    public void setEndOffset(int endOffset) { this.endOffset = endOffset; }
+    public void setEmbedding(float[] embedding) { this.embedding = embedding; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.example.demo.models;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Winnowing fingerprints of one paper's text, stored as parallel arrays; each entry is a
+ * k-gram hash with its word position and character span in the fingerprinted text
+ */
+@Document(collection = "paperFingerprints")
+public class PaperFingerprints {
+
+    public static final String SOURCE_DOCUMENT = "DOCUMENT";
+    public static final String SOURCE_ABSTRACT = "ABSTRACT";
+
+    @Id
+    private String paperId;
+    private String textSource; // DOCUMENT (extracted text) or ABSTRACT (legacy papers without stored text)
+    private int textLength;
+    private long[] hashes;
+    private int[] positions;
+    private int[] startOffsets;
+    private int[] endOffsets;
+    private LocalDateTime createdAt;
+
+    public PaperFingerprints() {}
+
+    public PaperFingerprints(String paperId, String textSource, int textLength, long[] hashes, int[] positions,
+                             int[] startOffsets, int[] endOffsets, LocalDateTime createdAt) {
+        this.paperId = paperId;
+        this.textSource = textSource;
+        this.textLength = textLength;
+        this.hashes = hashes;
+        this.positions = positions;
+        this.startOffsets = startOffsets;
+        this.endOffsets = endOffsets;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public String getPaperId() { return paperId; }
+    public String getTextSource() { return textSource; }
+    public int getTextLength() { return textLength; }
+    public long[] getHashes() { return hashes; }
+    public int[] getPositions() { return positions; }
+    public int[] getStartOffsets() { return startOffsets; }
+    public int[] getEndOffsets() { return endOffsets; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    // Setters
+    public void setPaperId(String paperId) { this.paperId = paperId; }
+    public void setTextSource(String textSource) { this.textSource = textSource; }
+    public void setTextLength(int textLength) { this.textLength = textLength; }
+    public void setHashes(long[] hashes) { this.hashes = hashes; }
+    public void setPositions(int[] positions) { this.positions = positions; }
+    public void setStartOffsets(int[] startOffsets) { this.startOffsets = startOffsets; }
+    public void setEndOffsets(int[] endOffsets) { this.endOffsets = endOffsets; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
\ No newline at end of file
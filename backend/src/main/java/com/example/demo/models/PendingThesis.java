@@ -4,12 +4,20 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.VectorMath;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "pending_thesis")
+@CompoundIndex(name = "status_uploader_approvals", def = "{ 'status': 1, 'uploadedBy': 1, 'approvals': 1 }")
 public class PendingThesis {
     
     @Id
@@ -24,6 +32,7 @@ public class PendingThesis {
     private String supervisor;
     private String coSupervisor;
     private LocalDateTime submissionDate;
+    @Indexed
     private String fileHash; // SHA-256 hash of thesis PDF
     private String fileName;
     private Long fileSize;
@@ -38,7 +47,9 @@ public class PendingThesis {
     private Long validationDocumentSize; // Size of validation document
     
     // Approval Workflow
+    @Indexed
     private String uploadedBy; // Admin ID who uploaded this thesis
+    @Indexed
     private List<String> approvals; // List of admin IDs who have approved
     private String status; // PENDING_APPROVAL, APPROVED, REJECTED
     private String rejectionReason; // If rejected, reason provided
@@ -51,11 +62,24 @@ public class PendingThesis {
     private Boolean requiresUnanimous; // Whether all admins must approve (default: true)
     
     // AI Analysis (copied from verification)
-    private List<Double> documentEmbedding; // Document embedding for similarity check
-    private List<Double> titleEmbedding; // Title embedding
+    private float[] documentEmbedding; // Document embedding for similarity check
+    private float[] titleEmbedding; // Title embedding
     private String embeddingModel; // Ollama model used
     private LocalDateTime embeddingGeneratedAt;
     
+    // Content fingerprint of the extracted thesis text
+    @Indexed
+    private String contentHash; // SHA-256 of the normalized extracted text
+    private Long contentSimHash; // 64-bit SimHash of the extracted text
+    @Indexed
+    private List<Integer> contentSimHashBlocks; // SimHash split into tagged 16-bit blocks for Hamming-radius lookup
+    
+    // Norms cached alongside the primitive vectors so similarity checks don't recompute them
+    @Transient
+    private float documentEmbeddingNorm = -1.0f;
+    @Transient
+    private float titleEmbeddingNorm = -1.0f;
+    
     @CreatedDate
     private LocalDateTime createdAt;
     
@@ -99,10 +123,32 @@ public class PendingThesis {
     public int getTotalAdminsRequired() { return totalAdminsRequired; }
     public int getCurrentApprovals() { return currentApprovals; }
     public Boolean getRequiresUnanimous() { return requiresUnanimous; }
-    public List<Double> getDocumentEmbedding() { return documentEmbedding; }
-    public List<Double> getTitleEmbedding() { return titleEmbedding; }
+    public float[] getDocumentEmbedding() { return documentEmbedding; }
+    public float[] getTitleEmbedding() { return titleEmbedding; }
+    
+    @JsonIgnore
+    public float getDocumentEmbeddingNorm() {
+        if (documentEmbeddingNorm < 0.0f && documentEmbedding != null) {
+            documentEmbeddingNorm = VectorMath.norm(documentEmbedding);
+        }
+        return documentEmbeddingNorm;
+    }
+    
+    @JsonIgnore
+    public float getTitleEmbeddingNorm() {
+        if (titleEmbeddingNorm < 0.0f && titleEmbedding != null) {
+            titleEmbeddingNorm = VectorMath.norm(titleEmbedding);
+        }
+        return titleEmbeddingNorm;
+    }
+    
     public String getEmbeddingModel() { return embeddingModel; }
     public LocalDateTime getEmbeddingGeneratedAt() { return embeddingGeneratedAt; }
+    public String getContentHash() { return contentHash; }
+    @JsonIgnore
+    public Long getContentSimHash() { return contentSimHash; }
+    @JsonIgnore
+    public List<Integer> getContentSimHashBlocks() { return contentSimHashBlocks; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     
@@ -135,13 +181,23 @@ public class PendingThesis {
     public void setTotalAdminsRequired(int totalAdminsRequired) { this.totalAdminsRequired = totalAdminsRequired; }
     public void setCurrentApprovals(int currentApprovals) { this.currentApprovals = currentApprovals; }
     public void setRequiresUnanimous(Boolean requiresUnanimous) { this.requiresUnanimous = requiresUnanimous; }
-    public void setDocumentEmbedding(List<Double> documentEmbedding) { this.documentEmbedding = documentEmbedding; }
-    public void setTitleEmbedding(List<Double> titleEmbedding) { this.titleEmbedding = titleEmbedding; }
+    public void setDocumentEmbedding(float[] documentEmbedding) { this.documentEmbedding = documentEmbedding; this.documentEmbeddingNorm = -1.0f; }
+    public void setTitleEmbedding(float[] titleEmbedding) { this.titleEmbedding = titleEmbedding; this.titleEmbeddingNorm = -1.0f; }
     public void setEmbeddingModel(String embeddingModel) { this.embeddingModel = embeddingModel; }
     public void setEmbeddingGeneratedAt(LocalDateTime embeddingGeneratedAt) { this.embeddingGeneratedAt = embeddingGeneratedAt; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public void setContentSimHash(Long contentSimHash) { this.contentSimHash = contentSimHash; }
+    public void setContentSimHashBlocks(List<Integer> contentSimHashBlocks) { this.contentSimHashBlocks = contentSimHashBlocks; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    @JsonIgnore
+    public void setContentFingerprint(ContentFingerprint fingerprint) {
+        this.contentHash = fingerprint != null ? fingerprint.getContentHash() : null;
+        this.contentSimHash = fingerprint != null ? fingerprint.getSimHash() : null;
+        this.contentSimHashBlocks = fingerprint != null ? fingerprint.getSimHashBlocks() : null;
+    }
+    
     // Utility Methods
     public boolean canApprove(String adminId) {
         // Admin cannot approve their own submission
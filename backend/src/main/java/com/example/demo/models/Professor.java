@@ -7,6 +7,7 @@ import java.util.Collections;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -19,6 +20,7 @@ public class Professor implements UserDetails {
     private String id;
     private String departmentId;
     private String name;
+    @Indexed
     private String email;
     private String password;
     private String departmentName;
@@ -29,6 +31,7 @@ public class Professor implements UserDetails {
     private String specialization; // Field of expertise
     private String phoneNumber;
     private String officeLocation;
+    @Indexed
     private String employeeId;
     private String experience; // Years of experience
     private String researchInterests;
@@ -3,18 +3,44 @@ package com.example.demo.models;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.VectorMath;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
 
 @Document(collection = "research_papers")
+@CompoundIndexes({
+    // Keyset pages of public and per-institute listings, newest first
+    @CompoundIndex(name = "viewable_submission_page", def = "{ 'viewable': 1, 'submissionDate': -1, '_id': -1 }"),
+    @CompoundIndex(name = "institute_submission_page", def = "{ 'instituteId': 1, 'submissionDate': -1, '_id': -1 }"),
+    // Public department filter and the admin status listings
+    @CompoundIndex(name = "viewable_department", def = "{ 'viewable': 1, 'department': 1 }"),
+    @CompoundIndex(name = "status_uploaded", def = "{ 'status': 1, 'uploadedDate': -1 }")
+})
 public class ResearchPaper {
     
+    // How documentEmbedding was built; papers without a kind predate chunking and hold the prefix form
+    public static final String EMBEDDING_KIND_CHUNKED = "chunked"; // Mean of the normalized chunk vectors
+    public static final String EMBEDDING_KIND_PREFIX = "prefix"; // One vector of the first 8000 characters
+    
     @Id
     private String id;
+    // Weighted text index for public search: a hit in the title counts ten times one in the abstract
+    @TextIndexed(weight = 10)
     private String title;
+    @TextIndexed(weight = 3)
     private String author;
+    @TextIndexed(weight = 2)
     private String department;
     private String institution;
     private String instituteId; // Reference to Institute model
@@ -22,26 +48,49 @@ public class ResearchPaper {
     private String coSupervisor;
     private LocalDateTime submissionDate;
     private LocalDateTime uploadedDate;
+    @Indexed
     private String fileHash; // SHA-256 hash of PDF
     private String fileName;
     private Long fileSize;
     private String filePath; // Storage path/URL
+    @TextIndexed
     private String abstractText;
+    @TextIndexed(weight = 5)
     private List<String> keywords;
     private String status; // PENDING, VERIFIED, REJECTED
     private String uploadedBy; // Admin user ID who uploaded
     private List<String> verifiedBy; // List of admin IDs who verified/approved this thesis
     private String validationDocumentPath; // Path to university/government signed validation document
+    @Indexed
     private String blockchainTxId; // Blockchain transaction ID
     private String blockchainHash; // Blockchain verification hash
     private LocalDateTime verificationDate;
     private Boolean viewable = true; // Whether this paper is publicly viewable (default: true)
     
     // Embedding fields for AI-powered search and similarity
-    private List<Double> documentEmbedding; // Document/PDF content embedding generated by Ollama
-    private List<Double> titleEmbedding; // Title embedding for semantic search
+    private float[] documentEmbedding; // Document/PDF content embedding generated by Ollama
+    private float[] titleEmbedding; // Title embedding for semantic search
     private String embeddingModel; // Name of the Ollama model used (e.g., "nomic-embed-text")
     private LocalDateTime embeddingGeneratedAt; // When embeddings were generated
+    private String documentEmbeddingKind; // EMBEDDING_KIND_CHUNKED, or absent/EMBEDDING_KIND_PREFIX for legacy vectors
+    private int[] contentMinHash; // MinHash signature of the text's word shingles for near-duplicate lookup
+    @Indexed
+    private String contentHash; // SHA-256 of the normalized extracted text
+    private Long contentSimHash; // 64-bit SimHash of the extracted text
+    @Indexed
+    private List<Integer> contentSimHashBlocks; // SimHash split into tagged 16-bit blocks for Hamming-radius lookup
+    private String extractedTextId; // GridFS id of the gzip-compressed extracted text
+    private Integer extractedTextLength; // Length of the extracted text in characters
+    
+    // Norms cached alongside the primitive vectors so similarity checks don't recompute them
+    @Transient
+    private float documentEmbeddingNorm = -1.0f;
+    @Transient
+    private float titleEmbeddingNorm = -1.0f;
+    
+    // Relevance of a text search result; only set on papers loaded by a text query, never stored
+    @TextScore
+    private Float score;
     
     @CreatedDate
     private LocalDateTime createdAt;
@@ -57,7 +106,7 @@ public class ResearchPaper {
                         LocalDateTime uploadedDate, String fileHash, String fileName, Long fileSize,
                         String filePath, String abstractText, List<String> keywords, String status,
                         String uploadedBy, List<String> verifiedBy, String validationDocumentPath, String blockchainTxId, String blockchainHash,
-                        LocalDateTime verificationDate, Boolean viewable, List<Double> documentEmbedding, List<Double> titleEmbedding,
+                        LocalDateTime verificationDate, Boolean viewable, float[] documentEmbedding, float[] titleEmbedding,
                         String embeddingModel, LocalDateTime embeddingGeneratedAt, LocalDateTime createdAt, LocalDateTime updatedAt) {
         this.id = id;
         this.title = title;
@@ -116,10 +165,53 @@ public class ResearchPaper {
     public String getBlockchainHash() { return blockchainHash; }
     public LocalDateTime getVerificationDate() { return verificationDate; }
     public Boolean getViewable() { return viewable; }
-    public List<Double> getDocumentEmbedding() { return documentEmbedding; }
-    public List<Double> getTitleEmbedding() { return titleEmbedding; }
+    public float[] getDocumentEmbedding() { return documentEmbedding; }
+    public float[] getTitleEmbedding() { return titleEmbedding; }
+    
+    @JsonIgnore
+    public float getDocumentEmbeddingNorm() {
+        if (documentEmbeddingNorm < 0.0f && documentEmbedding != null) {
+            documentEmbeddingNorm = VectorMath.norm(documentEmbedding);
+        }
+        return documentEmbeddingNorm;
+    }
+    
+    @JsonIgnore
+    public float getTitleEmbeddingNorm() {
+        if (titleEmbeddingNorm < 0.0f && titleEmbedding != null) {
+            titleEmbeddingNorm = VectorMath.norm(titleEmbedding);
+        }
+        return titleEmbeddingNorm;
+    }
+    
+    @JsonIgnore
+    public int[] getContentMinHash() { return contentMinHash; }
+    
+    public String getContentHash() { return contentHash; }
+    @JsonIgnore
+    public Long getContentSimHash() { return contentSimHash; }
+    @JsonIgnore
+    public List<Integer> getContentSimHashBlocks() { return contentSimHashBlocks; }
+    @JsonIgnore
+    public String getExtractedTextId() { return extractedTextId; }
+    public Integer getExtractedTextLength() { return extractedTextLength; }
+    
+    @JsonIgnore
+    public Float getScore() { return score; }
+    
     public String getEmbeddingModel() { return embeddingModel; }
     public LocalDateTime getEmbeddingGeneratedAt() { return embeddingGeneratedAt; }
+    public String getDocumentEmbeddingKind() { return documentEmbeddingKind; }
+    
+    /**
+     * Whether documentEmbedding is the pooled chunk vector rather than the legacy prefix vector;
+     * the two are not comparable with each other
+     */
+    @JsonIgnore
+    public boolean hasChunkedDocumentEmbedding() {
+        return EMBEDDING_KIND_CHUNKED.equals(documentEmbeddingKind);
+    }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     
@@ -148,13 +240,27 @@ public class ResearchPaper {
     public void setBlockchainHash(String blockchainHash) { this.blockchainHash = blockchainHash; }
     public void setVerificationDate(LocalDateTime verificationDate) { this.verificationDate = verificationDate; }
     public void setViewable(Boolean viewable) { this.viewable = viewable; }
-    public void setDocumentEmbedding(List<Double> documentEmbedding) { this.documentEmbedding = documentEmbedding; }
-    public void setTitleEmbedding(List<Double> titleEmbedding) { this.titleEmbedding = titleEmbedding; }
+    public void setDocumentEmbedding(float[] documentEmbedding) { this.documentEmbedding = documentEmbedding; this.documentEmbeddingNorm = -1.0f; }
+    public void setTitleEmbedding(float[] titleEmbedding) { this.titleEmbedding = titleEmbedding; this.titleEmbeddingNorm = -1.0f; }
+    public void setContentMinHash(int[] contentMinHash) { this.contentMinHash = contentMinHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public void setContentSimHash(Long contentSimHash) { this.contentSimHash = contentSimHash; }
+    public void setContentSimHashBlocks(List<Integer> contentSimHashBlocks) { this.contentSimHashBlocks = contentSimHashBlocks; }
+    public void setExtractedTextId(String extractedTextId) { this.extractedTextId = extractedTextId; }
+    public void setExtractedTextLength(Integer extractedTextLength) { this.extractedTextLength = extractedTextLength; }
     public void setEmbeddingModel(String embeddingModel) { this.embeddingModel = embeddingModel; }
     public void setEmbeddingGeneratedAt(LocalDateTime embeddingGeneratedAt) { this.embeddingGeneratedAt = embeddingGeneratedAt; }
+    public void setDocumentEmbeddingKind(String documentEmbeddingKind) { this.documentEmbeddingKind = documentEmbeddingKind; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    @JsonIgnore
+    public void setContentFingerprint(ContentFingerprint fingerprint) {
+        this.contentHash = fingerprint != null ? fingerprint.getContentHash() : null;
+        this.contentSimHash = fingerprint != null ? fingerprint.getSimHash() : null;
+        this.contentSimHashBlocks = fingerprint != null ? fingerprint.getSimHashBlocks() : null;
+    }
+    
     // Builder pattern
     public static ResearchPaperBuilder builder() {
         return new ResearchPaperBuilder();
@@ -185,8 +291,8 @@ public class ResearchPaper {
         private String blockchainHash;
         private LocalDateTime verificationDate;
         private Boolean viewable = true;
-        private List<Double> documentEmbedding;
-        private List<Double> titleEmbedding;
+        private float[] documentEmbedding;
+        private float[] titleEmbedding;
         private String embeddingModel;
         private LocalDateTime embeddingGeneratedAt;
         private LocalDateTime createdAt;
@@ -216,8 +322,8 @@ public class ResearchPaper {
         public ResearchPaperBuilder blockchainHash(String blockchainHash) { this.blockchainHash = blockchainHash; return this; }
         public ResearchPaperBuilder verificationDate(LocalDateTime verificationDate) { this.verificationDate = verificationDate; return this; }
         public ResearchPaperBuilder viewable(Boolean viewable) { this.viewable = viewable; return this; }
-        public ResearchPaperBuilder documentEmbedding(List<Double> documentEmbedding) { this.documentEmbedding = documentEmbedding; return this; }
-        public ResearchPaperBuilder titleEmbedding(List<Double> titleEmbedding) { this.titleEmbedding = titleEmbedding; return this; }
+        public ResearchPaperBuilder documentEmbedding(float[] documentEmbedding) { this.documentEmbedding = documentEmbedding; return this; }
+        public ResearchPaperBuilder titleEmbedding(float[] titleEmbedding) { this.titleEmbedding = titleEmbedding; return this; }
         public ResearchPaperBuilder embeddingModel(String embeddingModel) { this.embeddingModel = embeddingModel; return this; }
         public ResearchPaperBuilder embeddingGeneratedAt(LocalDateTime embeddingGeneratedAt) { this.embeddingGeneratedAt = embeddingGeneratedAt; return this; }
         public ResearchPaperBuilder createdAt(LocalDateTime createdAt) { this.createdAt = createdAt; return this; }
@@ -0,0 +1,8 @@
+package com.example.demo.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.demo.models.CachedEmbedding;
+
+public interface CachedEmbeddingRepository extends MongoRepository<CachedEmbedding, String> {
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.demo.repositories;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import com.example.demo.models.PaperChunkEmbedding;
+
+public interface PaperChunkEmbeddingRepository extends MongoRepository<PaperChunkEmbedding, String> {
+    List<PaperChunkEmbedding> findByPaperIdOrderByChunkIndexAsc(String paperId);
+    void deleteByPaperId(String paperId);
+
+    // Cursor-backed so the chunk index can be rebuilt without loading every vector at once
+    @Query("{}")
+    Stream<PaperChunkEmbedding> streamAll();
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.example.demo.repositories;
+
+import java.util.stream.Stream;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import com.example.demo.models.PaperFingerprints;
+
+public interface PaperFingerprintsRepository extends MongoRepository<PaperFingerprints, String> {
+
+    // Cursor-backed so the passage index can be rebuilt one paper at a time
+    @Query("{}")
+    Stream<PaperFingerprints> streamAll();
+}
\ No newline at end of file
@@ -28,6 +28,9 @@ public interface PendingThesisRepository extends MongoRepository<PendingThesis,
     // Find thesis by file hash (to prevent duplicates)
     Optional<PendingThesis> findByFileHash(String fileHash);
     
+    // Find thesis by SHA-256 of its normalized extracted text
+    Optional<PendingThesis> findFirstByContentHash(String contentHash);
+    
     // Find thesis that have been approved by a specific admin
     @Query("{ 'approvals': ?0 }")
     List<PendingThesis> findApprovedByAdmin(String adminId);
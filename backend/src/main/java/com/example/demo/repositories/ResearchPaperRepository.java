@@ -5,39 +5,79 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ResearchPaperRepository extends MongoRepository<ResearchPaper, String> {
     
+    /**
+     * Field projection for list, search and statistics views: everything except the embeddings
+     * and fingerprint arrays, which make up nearly all of a paper's size. Papers loaded with it
+     * are for reading only; saving one would clear the excluded fields.
+     */
+    String SUMMARY_FIELDS = "{ 'documentEmbedding': 0, 'titleEmbedding': 0, " +
+                            "'contentMinHash': 0, 'contentSimHashBlocks': 0 }";
+    
     /**
      * Find research paper by file hash (to prevent duplicates)
      */
     Optional<ResearchPaper> findByFileHash(String fileHash);
     
+    /**
+     * Find a research paper whose normalized extracted text has this SHA-256
+     */
+    Optional<ResearchPaper> findFirstByContentHash(String contentHash);
+    
+    /**
+     * Papers sharing at least one SimHash block key; only the id, title and fingerprint are loaded
+     */
+    @Query(value = "{ 'contentSimHashBlocks': { $in: ?0 } }", fields = "{ 'title': 1, 'contentSimHash': 1 }")
+    List<ResearchPaper> findSimHashCandidates(Collection<Integer> blockKeys);
+    
+    /**
+     * All research papers without embeddings
+     */
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    Page<ResearchPaper> findAllSummaries(Pageable pageable);
+    @Query(value = "{}", fields = SUMMARY_FIELDS)
+    List<ResearchPaper> findAllSummaries();
+    
     /**
      * Find research papers by status
      */
+    @Query(fields = SUMMARY_FIELDS)
     Page<ResearchPaper> findByStatus(String status, Pageable pageable);
     
     /**
      * Find research papers by author
      */
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByAuthorContainingIgnoreCase(String author);
     
     /**
      * Find research papers by title
      */
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByTitleContainingIgnoreCase(String title);
     
     /**
      * Search by title or author
      */
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByTitleContainingIgnoreCaseOrAuthorContainingIgnoreCase(String title, String author);
     
+    /**
+     * Find the research paper recorded under a blockchain transaction
+     */
+    @Query(fields = SUMMARY_FIELDS)
+    Optional<ResearchPaper> findFirstByBlockchainTxId(String blockchainTxId);
+    
     /**
      * Find research papers by department
      */
@@ -64,6 +104,33 @@ public interface ResearchPaperRepository extends MongoRepository<ResearchPaper,
     @Query("{ 'documentEmbedding': { $exists: true, $ne: null } }")
     List<ResearchPaper> findPapersWithEmbeddings();
     
+    /**
+     * Papers with embeddings, without loading the embeddings themselves
+     */
+    @Query(value = "{ 'documentEmbedding': { $exists: true, $ne: null } }", fields = SUMMARY_FIELDS)
+    List<ResearchPaper> findSummariesWithEmbeddings();
+    
+    /**
+     * Count papers with embeddings
+     */
+    @Query(value = "{ 'documentEmbedding': { $exists: true, $ne: null } }", count = true)
+    long countPapersWithEmbeddings();
+    
+    /**
+     * Title, embeddings and embedding timestamp of every paper with a non-empty document
+     * embedding, streamed from a cursor for rebuilding the segment and the vector index
+     */
+    @Query(value = "{ 'documentEmbedding.0': { $exists: true } }",
+           fields = "{ 'title': 1, 'documentEmbedding': 1, 'titleEmbedding': 1, 'documentEmbeddingKind': 1, 'embeddingGeneratedAt': 1 }")
+    Stream<ResearchPaper> streamPapersWithEmbeddings();
+    
+    /**
+     * Ids of papers whose document vector still has the legacy prefix form, streamed from a cursor
+     */
+    @Query(value = "{ 'documentEmbedding': { $exists: true, $ne: null }, 'documentEmbeddingKind': { $ne: 'chunked' } }",
+           fields = "{ '_id': 1 }")
+    Stream<ResearchPaper> streamPrefixEmbeddingIds();
+    
     /**
      * Find papers without embeddings
      */
@@ -73,49 +140,41 @@ public interface ResearchPaperRepository extends MongoRepository<ResearchPaper,
     /**
      * Find viewable papers (public papers)
      */
+    @Query(fields = SUMMARY_FIELDS)
     Page<ResearchPaper> findByViewableTrue(Pageable pageable);
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByViewableTrue();
     
     /**
      * Find viewable papers by department
      */
+    @Query(fields = SUMMARY_FIELDS)
     Page<ResearchPaper> findByViewableTrueAndDepartmentContainingIgnoreCase(String department, Pageable pageable);
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByViewableTrueAndDepartmentContainingIgnoreCase(String department);
     
     /**
      * Find viewable papers by search in title, author, abstract
      */
+    @Query(fields = SUMMARY_FIELDS)
     List<ResearchPaper> findByViewableTrueAndTitleContainingIgnoreCaseOrAuthorContainingIgnoreCaseOrAbstractTextContainingIgnoreCase(
         String title, String author, String abstractText);
     
-    /**
-     * Search viewable papers by title, author, or keywords
-     */
-    @Query("{ 'viewable': true, $or: [ " +
-           "{ 'title': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'author': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'department': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'keywords': { $regex: ?0, $options: 'i' } }, " +
-           "{ 'abstractText': { $regex: ?0, $options: 'i' } } ] }")
-    Page<ResearchPaper> findViewablePapersBySearchTerm(String searchTerm, Pageable pageable);
-    
-    /**
-     * Search viewable papers by department and search term
-     */
-    @Query("{ 'viewable': true, 'department': { $regex: ?0, $options: 'i' }, $or: [ " +
-           "{ 'title': { $regex: ?1, $options: 'i' } }, " +
-           "{ 'author': { $regex: ?1, $options: 'i' } }, " +
-           "{ 'keywords': { $regex: ?1, $options: 'i' } }, " +
-           "{ 'abstractText': { $regex: ?1, $options: 'i' } } ] }")
-    Page<ResearchPaper> findViewablePapersByDepartmentAndSearchTerm(String department, String searchTerm, Pageable pageable);
-    
     /**
      * Find viewable papers by institution
      */
+    @Query(fields = SUMMARY_FIELDS)
     Page<ResearchPaper> findByViewableTrueAndInstitutionContainingIgnoreCase(String institution, Pageable pageable);
     
     /**
      * Count viewable papers
      */
     long countByViewableTrue();
+    
+    /**
+     * Make every paper that is not yet viewable viewable, in place; returns the number changed
+     */
+    @Query("{ 'viewable': { $ne: true } }")
+    @Update("{ '$set': { 'viewable': true }, '$currentDate': { 'updatedAt': true } }")
+    long markAllViewable();
 }
\ No newline at end of file
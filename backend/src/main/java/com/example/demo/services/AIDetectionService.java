@@ -1,5 +1,6 @@
 package com.example.demo.services;
 
+import com.example.demo.utils.TextProfile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,10 @@ import java.util.regex.Pattern;
 /**
  * Service for detecting AI-generated content in academic papers
  * Uses multiple heuristics to identify potential AI assistance
+ *
+ * The text is read once into a {@link TextProfile} (word, sentence and paragraph statistics,
+ * punctuation and detail markers) while a single Aho–Corasick automaton counts every phrase
+ * of every list, so the heuristics below only look at the profile.
  */
 @Service
 public class AIDetectionService {
@@ -35,6 +40,46 @@ public class AIDetectionService {
         "unprecedented", "revolutionary breakthrough", "groundbreaking research"
     );
     
+    private static final List<String> COMPLEX_WORDS = Arrays.asList(
+        "utilize", "facilitate", "demonstrate", "comprehensive", "substantial",
+        "significant", "innovative", "substantial", "extensive", "inherent"
+    );
+    
+    private static final List<String> TRANSITIONS = Arrays.asList(
+        "furthermore", "moreover", "additionally", "consequently", "therefore", "however"
+    );
+    
+    // "in conclusion" followed somewhere by one of the others
+    private static final List<String> CONCLUSION_PHRASES = Arrays.asList(
+        "in conclusion", "it is evident", "we can conclude", "it becomes clear"
+    );
+    
+    private static final List<String> GENERIC_PHRASES = Arrays.asList(
+        "it is important to note", "it should be mentioned", "one must consider",
+        "it is worth highlighting", "it cannot be denied"
+    );
+    
+    private static final List<String> SUPERLATIVES = Arrays.asList(
+        "revolutionary", "groundbreaking", "unprecedented", "extraordinary",
+        "remarkable", "exceptional", "outstanding", "phenomenal"
+    );
+    
+    // Matched case-sensitively
+    private static final List<String> DETAIL_TERMS = Arrays.asList(
+        "algorithm", "methodology", "experiment", "results", "analysis"
+    );
+    
+    private static final int AI_PHRASE_GROUP = 0;
+    private static final int COMPLEX_WORD_GROUP = 1;
+    private static final int TRANSITION_GROUP = 2;
+    private static final int CONCLUSION_GROUP = 3;
+    private static final int GENERIC_PHRASE_GROUP = 4;
+    private static final int SUPERLATIVE_GROUP = 5;
+    private static final int DETAIL_TERM_GROUP = 6;
+    
+    // Consecutive sentence pairs checked for topic changes
+    private static final int TOPIC_SENTENCES = 20;
+    
     // Common AI writing patterns
     private static final List<Pattern> AI_PATTERNS = Arrays.asList(
         Pattern.compile("\\b(furthermore|moreover|additionally|consequently)\\s+,?\\s*it\\s+(is|should|can|must)\\b", Pattern.CASE_INSENSITIVE),
@@ -44,6 +89,11 @@ public class AIDetectionService {
         Pattern.compile("\\b(seamlessly|effortlessly|inherently|fundamentally|intrinsically)\\s+(integrated|connected|linked|established)\\b", Pattern.CASE_INSENSITIVE)
     );
     
+    // Every phrase list in one automaton, indexed by the *_GROUP constants
+    private static final TextProfile.Phrases PHRASES = new TextProfile.Phrases(Arrays.asList(
+        AI_PHRASES, COMPLEX_WORDS, TRANSITIONS, CONCLUSION_PHRASES, GENERIC_PHRASES, SUPERLATIVES, DETAIL_TERMS
+    ), DETAIL_TERM_GROUP);
+    
     /**
      * Analyze text for AI-generated content indicators
      * Returns probability percentage (0-100) that content was AI-generated
@@ -62,25 +112,26 @@ public class AIDetectionService {
             
             double aiProbability = 0.0;
             List<String> indicators = new ArrayList<>();
+            TextProfile profile = TextProfile.of(fullText, title, PHRASES, TOPIC_SENTENCES);
             
             // 1. Vocabulary and phrase analysis (25% weight)
-            double vocabularyScore = analyzeVocabularyPatterns(fullText, indicators);
+            double vocabularyScore = analyzeVocabularyPatterns(profile, indicators);
             aiProbability += vocabularyScore * 0.25;
             
             // 2. Writing style analysis (30% weight)
-            double styleScore = analyzeWritingStyle(fullText, indicators);
+            double styleScore = analyzeWritingStyle(profile, indicators);
             aiProbability += styleScore * 0.30;
             
             // 3. Structure and flow analysis (20% weight)
-            double structureScore = analyzeStructuralPatterns(fullText, indicators);
+            double structureScore = analyzeStructuralPatterns(profile, indicators);
             aiProbability += structureScore * 0.20;
             
             // 4. Content consistency analysis (15% weight)
-            double consistencyScore = analyzeContentConsistency(fullText, indicators);
+            double consistencyScore = analyzeContentConsistency(profile, indicators);
             aiProbability += consistencyScore * 0.15;
             
             // 5. Academic authenticity check (10% weight)
-            double authenticityScore = analyzeAcademicAuthenticity(fullText, title, indicators);
+            double authenticityScore = analyzeAcademicAuthenticity(profile, title, indicators);
             aiProbability += authenticityScore * 0.10;
             
             // Apply confidence adjustments based on text length and quality
@@ -137,15 +188,13 @@ public class AIDetectionService {
     /**
      * Analyze vocabulary patterns for AI indicators
      */
-    private double analyzeVocabularyPatterns(String text, List<String> indicators) {
+    private double analyzeVocabularyPatterns(TextProfile profile, List<String> indicators) {
         double score = 0.0;
-        String lowerText = text.toLowerCase();
         
         // Check for explicit AI phrases
-        int aiPhraseCount = 0;
-        for (String phrase : AI_PHRASES) {
-            if (lowerText.contains(phrase.toLowerCase())) {
-                aiPhraseCount++;
+        for (int i = 0; i < AI_PHRASES.size(); i++) {
+            if (profile.count(AI_PHRASE_GROUP, i) > 0) {
+                String phrase = AI_PHRASES.get(i);
                 indicators.add("AI phrase detected: '" + phrase + "'");
                 if (phrase.contains("ai") || phrase.contains("artificial")) {
                     score += 30.0; // Heavy penalty for explicit AI mentions
@@ -157,21 +206,15 @@ public class AIDetectionService {
         
         // Check for AI writing patterns
         for (Pattern pattern : AI_PATTERNS) {
-            if (pattern.matcher(text).find()) {
+            if (pattern.matcher(profile.getText()).find()) {
                 score += 8.0;
                 indicators.add("AI writing pattern detected");
             }
         }
         
         // Overuse of complex vocabulary (AI tends to use unnecessarily complex words)
-        String[] complexWords = {"utilize", "facilitate", "demonstrate", "comprehensive", "substantial", 
-                               "significant", "innovative", "substantial", "extensive", "inherent"};
-        int complexWordCount = 0;
-        for (String word : complexWords) {
-            complexWordCount += countOccurrences(lowerText, word.toLowerCase());
-        }
-        
-        int totalWords = text.split("\\s+").length;
+        int complexWordCount = profile.total(COMPLEX_WORD_GROUP);
+        int totalWords = profile.getWordCount();
         double complexityRatio = totalWords > 0 ? (double) complexWordCount / totalWords : 0;
         if (complexityRatio > 0.05) { // More than 5% complex words
             score += complexityRatio * 200; // Scale up the penalty
@@ -184,19 +227,12 @@ public class AIDetectionService {
     /**
      * Analyze writing style for AI characteristics
      */
-    private double analyzeWritingStyle(String text, List<String> indicators) {
+    private double analyzeWritingStyle(TextProfile profile, List<String> indicators) {
         double score = 0.0;
         
         // Sentence length analysis - AI often produces uniform sentence lengths
-        String[] sentences = text.split("[.!?]+");
-        if (sentences.length > 5) {
-            List<Integer> sentenceLengths = new ArrayList<>();
-            for (String sentence : sentences) {
-                String trimmed = sentence.trim();
-                if (trimmed.length() > 10) { // Skip very short sentences
-                    sentenceLengths.add(trimmed.split("\\s+").length);
-                }
-            }
+        if (profile.getSentenceCount() > 5) {
+            List<Integer> sentenceLengths = profile.getSentenceLengths();
             
             if (sentenceLengths.size() > 3) {
                 double avgLength = sentenceLengths.stream().mapToInt(Integer::intValue).average().orElse(0.0);
@@ -217,13 +253,8 @@ public class AIDetectionService {
         }
         
         // Repetitive transition usage
-        String[] transitions = {"furthermore", "moreover", "additionally", "consequently", "therefore", "however"};
-        int transitionCount = 0;
-        for (String transition : transitions) {
-            transitionCount += countOccurrences(text.toLowerCase(), transition);
-        }
-        
-        int totalSentences = sentences.length;
+        int transitionCount = profile.total(TRANSITION_GROUP);
+        int totalSentences = profile.getSentenceCount();
         if (totalSentences > 0) {
             double transitionRatio = (double) transitionCount / totalSentences;
             if (transitionRatio > 0.3) { // More than 30% of sentences have transitions
@@ -233,7 +264,7 @@ public class AIDetectionService {
         }
         
         // Perfect grammar indicators (too perfect can indicate AI)
-        if (hasUniformPunctuation(text)) {
+        if (hasUniformPunctuation(profile)) {
             score += 10.0;
             indicators.add("Suspiciously uniform punctuation patterns");
         }
@@ -244,39 +275,36 @@ public class AIDetectionService {
     /**
      * Analyze structural patterns
      */
-    private double analyzeStructuralPatterns(String text, List<String> indicators) {
+    private double analyzeStructuralPatterns(TextProfile profile, List<String> indicators) {
         double score = 0.0;
         
         // Check for overly structured paragraphs (AI tends to be very organized)
-        String[] paragraphs = text.split("\n\n+");
-        if (paragraphs.length > 3) {
+        List<int[]> paragraphs = profile.getParagraphs();
+        if (paragraphs.size() > 3) {
             int similarStartCount = 0;
-            for (int i = 1; i < paragraphs.length; i++) {
-                if (paragraphs[i].trim().length() > 50) {
-                    String start1 = getFirstWords(paragraphs[i-1], 3);
-                    String start2 = getFirstWords(paragraphs[i], 3);
-                    if (start1.length() > 0 && start2.length() > 0) {
-                        // Check if paragraphs start with similar patterns
-                        if (start1.toLowerCase().startsWith("the") && start2.toLowerCase().startsWith("the") ||
-                            start1.toLowerCase().startsWith("in") && start2.toLowerCase().startsWith("in") ||
-                            start1.toLowerCase().startsWith("this") && start2.toLowerCase().startsWith("this")) {
-                            similarStartCount++;
-                        }
+            for (int i = 1; i < paragraphs.size(); i++) {
+                int[] previous = paragraphs.get(i - 1);
+                int[] current = paragraphs.get(i);
+                if (current[1] - current[0] > 50 && previous[1] > previous[0] && current[1] > current[0]) {
+                    // Check if paragraphs start with similar patterns
+                    if (profile.startsWith(previous, "the") && profile.startsWith(current, "the") ||
+                        profile.startsWith(previous, "in") && profile.startsWith(current, "in") ||
+                        profile.startsWith(previous, "this") && profile.startsWith(current, "this")) {
+                        similarStartCount++;
                     }
                 }
             }
             
-            if (similarStartCount > paragraphs.length * 0.4) {
+            if (similarStartCount > paragraphs.size() * 0.4) {
                 score += 15.0;
                 indicators.add("Repetitive paragraph structure detected");
             }
         }
         
         // Check for formulaic conclusions
-        String lowerText = text.toLowerCase();
-        if (lowerText.contains("in conclusion") && 
-            (lowerText.contains("it is evident") || lowerText.contains("we can conclude") || 
-             lowerText.contains("it becomes clear"))) {
+        if (profile.count(CONCLUSION_GROUP, 0) > 0 &&
+            (profile.count(CONCLUSION_GROUP, 1) > 0 || profile.count(CONCLUSION_GROUP, 2) > 0 ||
+             profile.count(CONCLUSION_GROUP, 3) > 0)) {
             score += 12.0;
             indicators.add("Formulaic conclusion structure detected");
         }
@@ -287,17 +315,17 @@ public class AIDetectionService {
     /**
      * Analyze content consistency
      */
-    private double analyzeContentConsistency(String text, List<String> indicators) {
+    private double analyzeContentConsistency(TextProfile profile, List<String> indicators) {
         double score = 0.0;
         
         // Check for topic drift (AI sometimes lacks focus)
         // This is a simplified check - in practice, you'd use more sophisticated NLP
-        String[] sentences = text.split("[.!?]+");
-        if (sentences.length > 10) {
+        if (profile.getSentenceCount() > 10) {
             // Look for abrupt topic changes without proper transitions
             int abruptChanges = 0;
-            for (int i = 1; i < Math.min(sentences.length, 20); i++) {
-                if (hasAbruptTopicChange(sentences[i-1], sentences[i])) {
+            List<List<String>> sentenceWords = profile.getLeadingSentenceWords();
+            for (int i = 1; i < Math.min(profile.getSentenceCount(), TOPIC_SENTENCES); i++) {
+                if (hasAbruptTopicChange(sentenceWords.get(i - 1), sentenceWords.get(i))) {
                     abruptChanges++;
                 }
             }
@@ -309,14 +337,7 @@ public class AIDetectionService {
         }
         
         // Check for overly generic statements
-        String[] genericPhrases = {"it is important to note", "it should be mentioned", "one must consider",
-                                 "it is worth highlighting", "it cannot be denied"};
-        int genericCount = 0;
-        for (String phrase : genericPhrases) {
-            if (text.toLowerCase().contains(phrase)) {
-                genericCount++;
-            }
-        }
+        int genericCount = profile.distinct(GENERIC_PHRASE_GROUP);
         
         if (genericCount > 2) {
             score += genericCount * 5.0;
@@ -329,30 +350,25 @@ public class AIDetectionService {
     /**
      * Analyze academic authenticity
      */
-    private double analyzeAcademicAuthenticity(String text, String title, List<String> indicators) {
+    private double analyzeAcademicAuthenticity(TextProfile profile, String title, List<String> indicators) {
         double score = 0.0;
         
         // Check for lack of specific details (AI often generates vague content)
-        if (!containsSpecificDetails(text)) {
+        if (!containsSpecificDetails(profile)) {
             score += 15.0;
             indicators.add("Lack of specific technical details or examples");
         }
         
         // Check for title-content mismatch
         if (title != null && title.trim().length() > 0) {
-            if (!isContentRelevantToTitle(text, title)) {
+            if (!isContentRelevantToTitle(profile)) {
                 score += 10.0;
                 indicators.add("Content may not fully align with stated title");
             }
         }
         
         // Check for overuse of superlatives (AI tends to be overly enthusiastic)
-        String[] superlatives = {"revolutionary", "groundbreaking", "unprecedented", "extraordinary", 
-                               "remarkable", "exceptional", "outstanding", "phenomenal"};
-        int superlativeCount = 0;
-        for (String superlative : superlatives) {
-            superlativeCount += countOccurrences(text.toLowerCase(), superlative);
-        }
+        int superlativeCount = profile.total(SUPERLATIVE_GROUP);
         
         if (superlativeCount > 2) {
             score += superlativeCount * 3.0;
@@ -399,16 +415,6 @@ public class AIDetectionService {
     }
     
     // Helper methods
-    private int countOccurrences(String text, String substring) {
-        int count = 0;
-        int index = 0;
-        while ((index = text.indexOf(substring, index)) != -1) {
-            count++;
-            index += substring.length();
-        }
-        return count;
-    }
-    
     private double calculateVariance(List<Integer> values, double mean) {
         if (values.size() <= 1) return 0.0;
         
@@ -419,74 +425,41 @@ public class AIDetectionService {
         return sum / (values.size() - 1);
     }
     
-    private boolean hasUniformPunctuation(String text) {
-        // Count different types of punctuation
-        int periods = countOccurrences(text, ".");
-        int commas = countOccurrences(text, ",");
-        int semicolons = countOccurrences(text, ";");
-        
+    private boolean hasUniformPunctuation(TextProfile profile) {
         // Check if punctuation usage is suspiciously uniform
+        int periods = profile.getPeriods();
+        int commas = profile.getCommas();
         return (periods > 5 && commas > 5 && Math.abs(periods - commas) < 2);
     }
     
-    private String getFirstWords(String text, int wordCount) {
-        String[] words = text.trim().split("\\s+");
-        if (words.length < wordCount) return text.trim();
-        
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < wordCount && i < words.length; i++) {
-            if (i > 0) result.append(" ");
-            result.append(words[i]);
-        }
-        return result.toString();
-    }
-    
-    private boolean hasAbruptTopicChange(String sentence1, String sentence2) {
+    private boolean hasAbruptTopicChange(List<String> words1, List<String> words2) {
         // Simplified topic change detection
         // In practice, you'd use more sophisticated NLP techniques
         
-        String[] words1 = sentence1.toLowerCase().split("\\s+");
-        String[] words2 = sentence2.toLowerCase().split("\\s+");
-        
-        if (words1.length < 3 || words2.length < 3) return false;
+        if (words1.size() < 3 || words2.size() < 3) return false;
         
         // Check for common words between consecutive sentences
-        Set<String> set1 = new HashSet<>(Arrays.asList(words1));
-        Set<String> set2 = new HashSet<>(Arrays.asList(words2));
+        Set<String> set1 = new HashSet<>(words1);
+        Set<String> set2 = new HashSet<>(words2);
         
         set1.retainAll(set2);
         
         // If less than 10% word overlap, might be abrupt change
-        return (double) set1.size() / Math.min(words1.length, words2.length) < 0.1;
+        return (double) set1.size() / Math.min(words1.size(), words2.size()) < 0.1;
     }
     
-    private boolean containsSpecificDetails(String text) {
+    private boolean containsSpecificDetails(TextProfile profile) {
         // Check for numbers, dates, specific technical terms
-        return text.matches(".*\\b\\d{4}\\b.*") || // Years
-               text.matches(".*\\d+\\.\\d+.*") ||   // Decimal numbers
-               text.matches(".*\\b[A-Z]{2,}\\b.*") || // Acronyms
-               text.contains("%") ||
-               text.contains("algorithm") ||
-               text.contains("methodology") ||
-               text.contains("experiment") ||
-               text.contains("results") ||
-               text.contains("analysis");
+        return profile.hasYear() ||      // Years
+               profile.hasDecimal() ||   // Decimal numbers
+               profile.hasAcronym() ||   // Acronyms
+               profile.hasPercent() ||
+               profile.distinct(DETAIL_TERM_GROUP) > 0;
     }
     
-    private boolean isContentRelevantToTitle(String text, String title) {
-        // Extract key terms from title
-        String[] titleWords = title.toLowerCase().split("\\s+");
-        String textLower = text.toLowerCase();
-        
-        int relevantCount = 0;
-        for (String word : titleWords) {
-            if (word.length() > 3 && textLower.contains(word)) {
-                relevantCount++;
-            }
-        }
-        
+    private boolean isContentRelevantToTitle(TextProfile profile) {
         // At least 50% of significant title words should appear in content
-        return titleWords.length > 0 && (double) relevantCount / titleWords.length >= 0.5;
+        return profile.getTitleWordCount() > 0 && (double) profile.getTitleWordsFound() / profile.getTitleWordCount() >= 0.5;
     }
     
     /**
@@ -0,0 +1,125 @@
+package com.example.demo.services;
+
+import com.example.demo.models.PendingThesis;
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.PendingThesisRepository;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.SimHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Exact and near-exact content lookups backed by the fingerprint stored on each paper.
+ *
+ * The normalized-text SHA-256 is matched through its index in one query; the SimHash is
+ * matched by querying the indexed block keys and keeping candidates within the configured
+ * Hamming radius. Both run before any embedding work, so re-uploads and re-saved copies of
+ * an existing document are answered without calling Ollama.
+ */
+@Service
+public class ContentFingerprintService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentFingerprintService.class);
+
+    @Autowired
+    private ResearchPaperRepository researchPaperRepository;
+
+    @Autowired
+    private PendingThesisRepository pendingThesisRepository;
+
+    @Value("${verification.fingerprint.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.fingerprint.simhash-max-distance:3}")
+    private int simHashMaxDistance;
+
+    /**
+     * The fingerprint indexes declared on the models are created by {@link MongoIndexService}
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Content fingerprint lookups disabled");
+            return;
+        }
+        if (simHashMaxDistance > SimHash.MAX_BLOCK_RADIUS) {
+            log.warn("SimHash radius {} exceeds what the block keys cover, using {}", simHashMaxDistance, SimHash.MAX_BLOCK_RADIUS);
+            simHashMaxDistance = SimHash.MAX_BLOCK_RADIUS;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Fingerprint of extracted text, or null when lookups are disabled or the text has no words
+     */
+    public ContentFingerprint fingerprint(String documentText) {
+        return enabled ? ContentFingerprint.of(documentText) : null;
+    }
+
+    /**
+     * Fingerprint accumulated while the text was extracted, or null as for {@link #fingerprint(String)}
+     */
+    public ContentFingerprint fingerprint(ContentFingerprint.Accumulator accumulator) {
+        return enabled ? accumulator.result() : null;
+    }
+
+    /**
+     * Paper whose normalized text is identical to the fingerprinted document
+     */
+    public Optional<ResearchPaper> findExactMatch(ContentFingerprint fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        return researchPaperRepository.findFirstByContentHash(fingerprint.getContentHash());
+    }
+
+    /**
+     * Closest paper whose SimHash is within the configured Hamming radius
+     */
+    public Optional<ResearchPaper> findNearMatch(ContentFingerprint fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        List<ResearchPaper> candidates = researchPaperRepository.findSimHashCandidates(fingerprint.getSimHashBlocks());
+        ResearchPaper best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (ResearchPaper candidate : candidates) {
+            if (candidate.getContentSimHash() == null) {
+                continue;
+            }
+            int distance = SimHash.hammingDistance(fingerprint.getSimHash(), candidate.getContentSimHash());
+            if (distance <= simHashMaxDistance && distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        if (best == null) {
+            return Optional.empty();
+        }
+        log.info("SimHash match '{}' at Hamming distance {} ({} block candidates)", best.getTitle(), bestDistance, candidates.size());
+        // Candidates are projections; load the full document for the response
+        return researchPaperRepository.findById(best.getId());
+    }
+
+    /**
+     * Pending thesis whose normalized text is identical to the fingerprinted document
+     */
+    public Optional<PendingThesis> findPendingExactMatch(ContentFingerprint fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        return pendingThesisRepository.findFirstByContentHash(fingerprint.getContentHash());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,192 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ResearchPaper;
+import com.mongodb.client.result.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Re-embeds papers stored before documents were embedded in chunks.
+ *
+ * Their document vector covers only the first 8000 characters and is marked as the prefix
+ * kind, so verification compares it only with a prefix vector of the submission. This worker
+ * chunk-embeds each such paper from its stored text, one paper at a time with a pause in
+ * between so uploads and verifications keep priority on Ollama. It saves the chunk vectors
+ * and the pooled vector and updates the embedding segment and the vector index. A paper
+ * whose embedding fails keeps its prefix vector and is retried on the next start.
+ */
+@Service
+public class DocumentEmbeddingBackfillService {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentEmbeddingBackfillService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OllamaEmbeddingService ollamaEmbeddingService;
+
+    @Autowired
+    private ExtractedTextService extractedTextService;
+
+    @Autowired
+    private ResearchPaperService researchPaperService;
+
+    @Autowired
+    private EmbeddingSegmentService embeddingSegmentService;
+
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+
+    @Value("${embedding.backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${embedding.backfill.delay-ms:2000}")
+    private long delayMs;
+
+    @Value("${embedding.backfill.unavailable-retry-ms:60000}")
+    private long unavailableRetryMs;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled || !extractedTextService.isEnabled()) {
+            return;
+        }
+
+        Thread worker = new Thread(this::backfillChunkedEmbeddings, "document-embedding-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Chunk-embed every paper that has stored text but still holds a prefix document vector
+     */
+    public void backfillChunkedEmbeddings() {
+        // Papers stored before text was kept only get their text from the extracted-text backfill
+        if (!waitFor(() -> !extractedTextService.isBackfilling(), 1000)) {
+            return;
+        }
+
+        Query query = Query.query(Criteria.where("extractedTextId").exists(true).ne(null)
+            .and("documentEmbeddingKind").ne(ResearchPaper.EMBEDDING_KIND_CHUNKED));
+        query.fields().include("_id");
+
+        // Ids only, so no cursor stays open across the throttled embedding calls
+        List<String> paperIds = new ArrayList<>();
+        try (Stream<ResearchPaper> papers = mongoTemplate.stream(query, ResearchPaper.class)) {
+            papers.forEach(paper -> paperIds.add(paper.getId()));
+        } catch (Exception e) {
+            log.error("❌ Document embedding backfill could not list papers: {}", e.getMessage());
+            return;
+        }
+        if (paperIds.isEmpty()) {
+            return;
+        }
+
+        log.info("🔨 Re-embedding {} papers in chunks from their stored text...", paperIds.size());
+        int embedded = 0;
+        int failed = 0;
+        long start = System.currentTimeMillis();
+        for (String paperId : paperIds) {
+            if (!waitFor(ollamaEmbeddingService::isOllamaAvailable, unavailableRetryMs)) {
+                break;
+            }
+            try {
+                if (backfillPaper(paperId)) {
+                    embedded++;
+                } else {
+                    failed++;
+                }
+            } catch (Exception e) {
+                failed++;
+                log.warn("⚠️ Could not re-embed paper {}: {}", paperId, e.getMessage());
+            }
+            if (!pause(delayMs)) {
+                break;
+            }
+        }
+        log.info("✅ Document embedding backfill: {} papers re-embedded, {} left for the next start, in {} ms",
+            embedded, paperIds.size() - embedded, System.currentTimeMillis() - start);
+        if (failed > 0) {
+            log.warn("⚠️ {} papers could not be re-embedded and keep their prefix vector", failed);
+        }
+    }
+
+    /**
+     * Re-embed one paper; false when it has no text or no chunk could be embedded
+     */
+    private boolean backfillPaper(String paperId) {
+        ResearchPaper paper = mongoTemplate.findById(paperId, ResearchPaper.class);
+        if (paper == null || paper.hasChunkedDocumentEmbedding()) {
+            return false;
+        }
+        Optional<String> text = extractedTextService.loadText(paper);
+        if (text.isEmpty() || text.get().isBlank()) {
+            return false;
+        }
+
+        OllamaEmbeddingService.ChunkedDocumentEmbedding chunkedEmbedding =
+            ollamaEmbeddingService.generateChunkedDocumentEmbeddingAsync(text.get()).join();
+        if (chunkedEmbedding.getChunks().isEmpty()) {
+            // Only the dummy fallback came back; keep the prefix vector rather than replace it with noise
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Update update = Update.update("documentEmbedding", chunkedEmbedding.getPooledEmbedding())
+            .set("documentEmbeddingKind", ResearchPaper.EMBEDDING_KIND_CHUNKED)
+            .set("embeddingGeneratedAt", now);
+        UpdateResult result = mongoTemplate.updateFirst(
+            Query.query(Criteria.where("_id").is(paperId)), update, ResearchPaper.class);
+        if (result.getMatchedCount() == 0) {
+            // Deleted while it was being embedded
+            return false;
+        }
+
+        paper.setDocumentEmbedding(chunkedEmbedding.getPooledEmbedding());
+        paper.setDocumentEmbeddingKind(ResearchPaper.EMBEDDING_KIND_CHUNKED);
+        paper.setEmbeddingGeneratedAt(now);
+        embeddingSegmentService.append(paper);
+        paperVectorIndexService.addPaper(paper);
+        researchPaperService.storeDocumentChunks(paperId, chunkedEmbedding);
+        return true;
+    }
+
+    /**
+     * Poll until the condition holds; false when the thread was interrupted meanwhile
+     */
+    private boolean waitFor(BooleanSupplier condition, long pollMs) {
+        while (!condition.getAsBoolean()) {
+            if (!pause(pollMs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
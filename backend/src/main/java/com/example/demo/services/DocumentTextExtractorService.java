@@ -1,18 +1,63 @@
 package com.example.demo.services;
 
+import com.example.demo.utils.TextNormalizer;
+import com.example.demo.utils.TextSink;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFFooter;
+import org.apache.poi.xwpf.usermodel.XWPFHeader;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFSDT;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Text extraction from uploaded and stored documents.
+ *
+ * Extraction streams: PDFs are parsed with bounded main memory (larger documents spill to a
+ * scratch file) and stripped a range of pages at a time, DOCX bodies element by element, and
+ * everything is cleaned in one pass into a reusable buffer that is handed to the caller's
+ * {@link TextSink}s as it fills, so fingerprints can be computed while the document is read.
+ *
+ * PDFs with at least {@code extraction.pdf.parallel.min-pages} pages are split into one span
+ * of pages per thread: the calling thread strips the first span from the document it already
+ * opened while workers of a dedicated bounded pool open their own copy and strip the others,
+ * and the spans are written back in page order.
+ *
+ * Callers that already hashed the file pass the hash, and results are reused through the
+ * {@link ExtractionCacheService}; a cached text is replayed to the sinks as if extracted.
+ */
 @Service
 public class DocumentTextExtractorService {
     
@@ -26,10 +71,80 @@ public class DocumentTextExtractorService {
         "application/msword"
     );
     
+    @Autowired
+    private ExtractionCacheService extractionCacheService;
+    
+    @Value("${extraction.pdf.max-main-memory-mb:64}")
+    private long maxMainMemoryMb;
+    
+    @Value("${extraction.pdf.pages-per-range:16}")
+    private int pagesPerRange;
+    
+    @Value("${extraction.pdf.parallel.enabled:true}")
+    private boolean parallelEnabled;
+    
+    @Value("${extraction.pdf.parallel.min-pages:64}")
+    private int parallelMinPages;
+    
+    @Value("${extraction.pdf.parallel.threads:4}")
+    private int parallelThreads;
+    
+    @Value("${extraction.pdf.parallel.queue-capacity:32}")
+    private int parallelQueueCapacity;
+    
+    private ThreadPoolExecutor pageWorkers;
+    
+    // Extraction metrics
+    private final AtomicLong pdfDocuments = new AtomicLong();
+    private final AtomicLong parallelDocuments = new AtomicLong();
+    private final AtomicLong pdfPages = new AtomicLong();
+    private final AtomicLong pdfNanos = new AtomicLong();
+    private volatile double lastPagesPerSecond = 0.0;
+    
+    @PostConstruct
+    public void startPageWorkers() {
+        // More spans than cores only adds the cost of opening the document again
+        parallelThreads = Math.min(parallelThreads, Runtime.getRuntime().availableProcessors());
+        if (!parallelEnabled || parallelThreads < 2) {
+            parallelEnabled = false;
+            log.info("Parallel PDF extraction disabled, PDFs are stripped on the calling thread");
+            return;
+        }
+        // The calling thread strips one span itself, the pool takes the rest; when the queue is
+        // full a span runs on the caller, which slows submissions down instead of queueing more
+        AtomicInteger threadCounter = new AtomicInteger();
+        pageWorkers = new ThreadPoolExecutor(parallelThreads - 1, parallelThreads - 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, parallelQueueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "pdf-extract-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        pageWorkers.allowCoreThreadTimeOut(true);
+        log.info("🚀 Parallel PDF extraction enabled ({} threads, from {} pages)", parallelThreads, parallelMinPages);
+    }
+    
+    @PreDestroy
+    public void stopPageWorkers() {
+        if (pageWorkers != null) {
+            pageWorkers.shutdownNow();
+        }
+    }
+    
+    /**
+     * Extract text content from supported document types (PDF, DOCX); the cleaned text is also
+     * streamed to the given sinks while it is extracted
+     */
+    public String extractTextFromDocument(MultipartFile file, TextSink... sinks) throws IOException {
+        return extractTextFromDocument(file, null, sinks);
+    }
+    
     /**
-     * Extract text content from supported document types (PDF, DOCX)
+     * As {@link #extractTextFromDocument(MultipartFile, TextSink...)}, reusing the cached result
+     * for a file with the same SHA-256 hash
      */
-    public String extractTextFromDocument(MultipartFile file) throws IOException {
+    public String extractTextFromDocument(MultipartFile file, String fileHash, TextSink... sinks) throws IOException {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File is required");
         }
@@ -48,29 +163,20 @@ public class DocumentTextExtractorService {
         // Validate file type
         validateFileType(extension, contentType);
         
-        String extractedText;
+        String cachedText = cachedText(fileHash, filename, sinks);
+        if (cachedText != null) {
+            return cachedText;
+        }
         
-        try {
-            switch (extension) {
-                case "pdf":
-                    extractedText = extractTextFromPDF(file);
-                    break;
-                case "docx":
-                    extractedText = extractTextFromDOCX(file);
-                    break;
-                case "doc":
-                    throw new IOException("Legacy DOC format is not supported. Please convert to DOCX format.");
-                default:
-                    throw new IOException("Unsupported file format: " + extension);
-            }
-            
-            // Clean and validate extracted text
-            extractedText = cleanText(extractedText);
+        try (InputStream inputStream = file.getInputStream()) {
+            ExtractionCacheService.Extraction extraction = extractText(extension, inputStream, null, sinks);
+            String extractedText = extraction.getText();
             
             if (extractedText.isEmpty()) {
                 throw new IOException("No text content could be extracted from the document");
             }
             
+            extractionCacheService.put(fileHash, extraction);
             log.info("✅ Successfully extracted {} characters from {}", extractedText.length(), filename);
             return extractedText;
             
@@ -81,12 +187,117 @@ public class DocumentTextExtractorService {
     }
     
     /**
-     * Extract text from PDF file
+     * Extract text from a stored document (e.g. an approved thesis saved on disk)
+     */
+    public String extractTextFromFile(Path path, TextSink... sinks) throws IOException {
+        return extractTextFromFile(path, null, sinks);
+    }
+    
+    /**
+     * As {@link #extractTextFromFile(Path, TextSink...)}, reusing the cached result for a file
+     * with the same SHA-256 hash
+     */
+    public String extractTextFromFile(Path path, String fileHash, TextSink... sinks) throws IOException {
+        String filename = path.getFileName().toString();
+        String extension = getFileExtension(filename).toLowerCase();
+        validateFileType(extension, null);
+        
+        String cachedText = cachedText(fileHash, filename, sinks);
+        if (cachedText != null) {
+            return cachedText;
+        }
+        
+        ExtractionCacheService.Extraction extraction = extractText(extension, null, path, sinks);
+        String extractedText = extraction.getText();
+        if (extractedText.isEmpty()) {
+            throw new IOException("No text content could be extracted from " + filename);
+        }
+        extractionCacheService.put(fileHash, extraction);
+        log.info("✅ Successfully extracted {} characters from {}", extractedText.length(), filename);
+        return extractedText;
+    }
+    
+    /**
+     * Cached text of the file, replayed to the sinks, or null when it has not been extracted yet
+     */
+    private String cachedText(String fileHash, String filename, TextSink[] sinks) {
+        ExtractionCacheService.Extraction cached = fileHash != null ? extractionCacheService.get(fileHash) : null;
+        if (cached == null) {
+            return null;
+        }
+        String text = cached.getText();
+        char[] buffer = new char[8192];
+        for (int offset = 0; offset < text.length(); offset += buffer.length) {
+            int length = Math.min(buffer.length, text.length() - offset);
+            text.getChars(offset, offset + length, buffer, 0);
+            for (TextSink sink : sinks) {
+                sink.write(buffer, 0, length);
+            }
+        }
+        for (TextSink sink : sinks) {
+            sink.finish();
+        }
+        log.info("✅ Reused cached extraction of {}: {} characters", filename, text.length());
+        return text;
+    }
+    
+    /**
+     * Stream the document's text through the normalizer into a string and the given sinks;
+     * the sinks are finished only when extraction succeeded. The document is read from the
+     * stream, or from the stored file when there is no stream.
+     */
+    private ExtractionCacheService.Extraction extractText(String extension, InputStream inputStream, Path storedFile,
+                                                          TextSink[] sinks) throws IOException {
+        int pageCount = 0;
+        StringBuilder text = new StringBuilder();
+        TextSink[] targets = Arrays.copyOf(sinks, sinks.length + 1);
+        targets[sinks.length] = text::append;
+        TextNormalizer.CleaningWriter writer = TextNormalizer.cleaningWriter(targets);
+        
+        switch (extension) {
+            case "pdf":
+                if (storedFile != null) {
+                    pageCount = writeTextFromPDF(storedFile, writer);
+                } else {
+                    // Spooled to disk so page spans can be opened independently and memory stays bounded
+                    Path spooled = Files.createTempFile("extract-", ".pdf");
+                    try {
+                        Files.copy(inputStream, spooled, StandardCopyOption.REPLACE_EXISTING);
+                        pageCount = writeTextFromPDF(spooled, writer);
+                    } finally {
+                        Files.deleteIfExists(spooled);
+                    }
+                }
+                break;
+            case "docx":
+                try (InputStream docxStream = inputStream != null ? inputStream : Files.newInputStream(storedFile)) {
+                    writeTextFromDOCX(docxStream, writer);
+                }
+                break;
+            case "doc":
+                throw new IOException("Legacy DOC format is not supported. Please convert to DOCX format.");
+            default:
+                throw new IOException("Unsupported file format: " + extension);
+        }
+        writer.close();
+        return new ExtractionCacheService.Extraction(text.toString(), pageCount);
+    }
+    
+    /**
+     * Extract text from PDF file, in parallel page spans for large documents; returns the page count
      */
-    private String extractTextFromPDF(MultipartFile file) throws IOException {
-        try (PDDocument document = PDDocument.load(file.getInputStream())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+    private int writeTextFromPDF(Path file, Writer writer) throws IOException {
+        long start = System.nanoTime();
+        try (PDDocument document = PDDocument.load(file.toFile(), pdfMemoryUsage())) {
+            int pageCount = document.getNumberOfPages();
+            boolean parallel = parallelEnabled && pageCount >= Math.max(2, parallelMinPages);
+            if (parallel) {
+                writePagesInParallel(document, file, pageCount, writer);
+            } else {
+                writePages(document, 1, pageCount, writer);
+            }
+            recordPdfExtraction(pageCount, System.nanoTime() - start, parallel);
+            return pageCount;
         } catch (IOException e) {
             log.error("❌ Failed to extract text from PDF: {}", e.getMessage(), e);
             throw new IOException("Failed to extract text from PDF: " + e.getMessage(), e);
@@ -94,20 +305,123 @@ public class DocumentTextExtractorService {
     }
     
     /**
-     * Extract text from DOCX file
+     * Strip pages [first, last] a range at a time
      */
-    private String extractTextFromDOCX(MultipartFile file) throws IOException {
-        try (XWPFDocument document = new XWPFDocument(file.getInputStream());
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-            
-            return extractor.getText();
-            
+    private void writePages(PDDocument document, int first, int last, Writer writer) throws IOException {
+        int rangeSize = Math.max(1, pagesPerRange);
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int rangeStart = first; rangeStart <= last; rangeStart += rangeSize) {
+            stripper.setStartPage(rangeStart);
+            stripper.setEndPage(Math.min(last, rangeStart + rangeSize - 1));
+            stripper.writeText(document, writer);
+            writer.write(' ');
+        }
+    }
+    
+    private void writePagesInParallel(PDDocument document, Path file, int pageCount, Writer writer) throws IOException {
+        // PDDocument is not thread-safe: every worker strips its span from its own copy of the file
+        int spanSize = (pageCount + parallelThreads - 1) / parallelThreads;
+        List<Future<String>> spans = new ArrayList<>();
+        try {
+            for (int first = spanSize + 1; first <= pageCount; first += spanSize) {
+                int spanFirst = first;
+                int spanLast = Math.min(pageCount, first + spanSize - 1);
+                spans.add(pageWorkers.submit(() -> stripSpan(file, spanFirst, spanLast)));
+            }
+            writePages(document, 1, Math.min(pageCount, spanSize), writer);
+            for (Future<String> span : spans) {
+                writer.write(span.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting PDF pages", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+        } finally {
+            for (Future<String> span : spans) {
+                span.cancel(true);
+            }
+        }
+    }
+    
+    private String stripSpan(Path file, int first, int last) throws IOException {
+        try (PDDocument document = PDDocument.load(file.toFile(), pdfMemoryUsage())) {
+            StringWriter text = new StringWriter();
+            writePages(document, first, last, text);
+            return text.toString();
+        }
+    }
+    
+    private MemoryUsageSetting pdfMemoryUsage() {
+        return MemoryUsageSetting.setupMixed(maxMainMemoryMb * 1024L * 1024L);
+    }
+    
+    private void recordPdfExtraction(int pageCount, long nanos, boolean parallel) {
+        pdfDocuments.incrementAndGet();
+        pdfPages.addAndGet(pageCount);
+        pdfNanos.addAndGet(nanos);
+        if (parallel) {
+            parallelDocuments.incrementAndGet();
+        }
+        double pagesPerSecond = nanos > 0 ? pageCount * 1_000_000_000.0 / nanos : 0.0;
+        lastPagesPerSecond = pagesPerSecond;
+        log.info("📄 Extracted {} PDF pages in {} ms ({} pages/s{})", pageCount, nanos / 1_000_000,
+            Math.round(pagesPerSecond), parallel ? ", " + parallelThreads + " threads" : "");
+    }
+    
+    /**
+     * PDF extraction throughput since startup
+     */
+    public Map<String, Object> getStats() {
+        long nanos = pdfNanos.get();
+        long pages = pdfPages.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("parallelEnabled", parallelEnabled);
+        stats.put("parallelThreads", parallelEnabled ? parallelThreads : 1);
+        stats.put("parallelMinPages", parallelMinPages);
+        stats.put("pdfDocuments", pdfDocuments.get());
+        stats.put("parallelDocuments", parallelDocuments.get());
+        stats.put("pdfPages", pages);
+        stats.put("pagesPerSecond", nanos > 0 ? Math.round(pages * 1_000_000_000.0 / nanos) : 0);
+        stats.put("lastPagesPerSecond", Math.round(lastPagesPerSecond));
+        stats.put("cache", extractionCacheService.getStats());
+        return stats;
+    }
+    
+    /**
+     * Extract text from DOCX file: headers, body elements in document order, footers
+     */
+    private void writeTextFromDOCX(InputStream inputStream, Writer writer) throws IOException {
+        try (XWPFDocument document = new XWPFDocument(inputStream)) {
+            for (XWPFHeader header : document.getHeaderList()) {
+                writeSection(header.getText(), writer);
+            }
+            for (IBodyElement element : document.getBodyElements()) {
+                if (element instanceof XWPFParagraph) {
+                    writeSection(((XWPFParagraph) element).getText(), writer);
+                } else if (element instanceof XWPFTable) {
+                    writeSection(((XWPFTable) element).getText(), writer);
+                } else if (element instanceof XWPFSDT) {
+                    writeSection(((XWPFSDT) element).getContent().getText(), writer);
+                }
+            }
+            for (XWPFFooter footer : document.getFooterList()) {
+                writeSection(footer.getText(), writer);
+            }
         } catch (IOException e) {
             log.error("❌ Failed to extract text from DOCX: {}", e.getMessage(), e);
             throw new IOException("Failed to extract text from DOCX: " + e.getMessage(), e);
         }
     }
     
+    private void writeSection(String text, Writer writer) throws IOException {
+        if (text != null && !text.isEmpty()) {
+            writer.write(text);
+            writer.write(' ');
+        }
+    }
+    
     /**
      * Validate file type
      */
@@ -129,31 +443,6 @@ public class DocumentTextExtractorService {
         }
     }
     
-    /**
-     * Clean extracted text
-     */
-    private String cleanText(String text) {
-        if (text == null) {
-            return "";
-        }
-        
-        // Remove excessive whitespace and normalize line breaks
-        text = text.replaceAll("\\s+", " ");
-        text = text.replaceAll("\\r\\n", " ");
-        text = text.replaceAll("\\n", " ");
-        text = text.replaceAll("\\r", " ");
-        
-        // Remove special characters that might interfere with embedding generation
-        text = text.replaceAll("[\\x00-\\x1F\\x7F]", "");
-        
-        // Remove common document artifacts
-        text = text.replaceAll("\\u00A0", " "); // Non-breaking space
-        text = text.replaceAll("\\u2000-\\u200F", " "); // Various Unicode spaces
-        text = text.replaceAll("\\u2028-\\u202F", " "); // Line and paragraph separators
-        
-        return text.trim();
-    }
-    
     /**
      * Get file extension from filename
      */
@@ -0,0 +1,241 @@
+package com.example.demo.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.models.CachedEmbedding;
+import com.example.demo.repositories.CachedEmbeddingRepository;
+import com.example.demo.utils.LruCache;
+
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Embedding cache keyed by (model, SHA-256 of normalized input text).
+ *
+ * A size-bounded in-memory LRU sits in front of the embeddingCache collection, so
+ * re-verifying the same thesis or uploading a paper that was just verified reuses the
+ * vector instead of another Ollama round trip. Stored entries expire through a TTL index
+ * on their creation time, and a document's chunks are looked up with one query. MongoDB
+ * errors only disable the persistent tier for that call; the cache never fails an
+ * embedding request.
+ */
+@Service
+public class EmbeddingCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingCacheService.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private CachedEmbeddingRepository cachedEmbeddingRepository;
+
+    @Value("${embedding.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${embedding.cache.memory-entries:2000}")
+    private int memoryEntries;
+
+    @Value("${embedding.cache.persistent:true}")
+    private boolean persistent;
+
+    private LruCache<String, float[]> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        memory = new LruCache<>(memoryEntries);
+        log.info("🗄️ Embedding cache {} (memory entries: {}, persistent: {})",
+            enabled ? "enabled" : "disabled", memoryEntries, persistent);
+    }
+
+    /**
+     * Cached embedding for this model and text, or null on a miss
+     */
+    public float[] get(String model, String text) {
+        if (!enabled || text == null) {
+            return null;
+        }
+
+        String key = cacheKey(model, text);
+        float[] cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            log.debug("Embedding cache hit (memory) for {}", key);
+            return cached;
+        }
+
+        if (persistent) {
+            try {
+                Optional<CachedEmbedding> stored = cachedEmbeddingRepository.findById(key);
+                if (stored.isPresent() && stored.get().getEmbedding() != null && stored.get().getEmbedding().length > 0) {
+                    float[] embedding = stored.get().getEmbedding();
+                    memory.put(key, embedding);
+                    persistentHits.incrementAndGet();
+                    log.debug("Embedding cache hit (database) for {}", key);
+                    return embedding;
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Embedding cache lookup failed, continuing without it: {}", e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cached embeddings for several texts, index-aligned with them (null entries are misses).
+     * Texts not in memory are looked up in the collection with a single query.
+     */
+    public float[][] getAll(String model, List<String> texts) {
+        float[][] found = new float[texts.size()][];
+        if (!enabled || texts.isEmpty()) {
+            return found;
+        }
+
+        Map<String, List<Integer>> missingKeys = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (texts.get(i) == null) {
+                continue;
+            }
+            String key = cacheKey(model, texts.get(i));
+            float[] cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                found[i] = cached;
+            } else {
+                missingKeys.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        if (persistent && !missingKeys.isEmpty()) {
+            try {
+                for (CachedEmbedding stored : cachedEmbeddingRepository.findAllById(missingKeys.keySet())) {
+                    float[] embedding = stored.getEmbedding();
+                    List<Integer> positions = missingKeys.remove(stored.getId());
+                    if (embedding == null || embedding.length == 0 || positions == null) {
+                        continue;
+                    }
+                    memory.put(stored.getId(), embedding);
+                    for (int position : positions) {
+                        found[position] = embedding;
+                        persistentHits.incrementAndGet();
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Embedding cache lookup failed, continuing without it: {}", e.getMessage());
+            }
+        }
+
+        for (List<Integer> positions : missingKeys.values()) {
+            misses.addAndGet(positions.size());
+        }
+        return found;
+    }
+
+    /**
+     * Remember an embedding produced by the model (never cache fallback vectors)
+     */
+    public void put(String model, String text, float[] embedding) {
+        if (!enabled || text == null || embedding == null || embedding.length == 0) {
+            return;
+        }
+
+        String key = cacheKey(model, text);
+        memory.put(key, embedding);
+
+        if (persistent) {
+            try {
+                String textHash = key.substring(model.length() + 1);
+                cachedEmbeddingRepository.save(
+                    new CachedEmbedding(key, model, textHash, embedding, LocalDateTime.now()));
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to persist cached embedding: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drop the cached embeddings of these texts from both tiers
+     */
+    public void evict(String model, Collection<String> texts) {
+        if (!enabled || texts == null || texts.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            if (text != null) {
+                String key = cacheKey(model, text);
+                memory.remove(key);
+                keys.add(key);
+            }
+        }
+
+        if (persistent && !keys.isEmpty()) {
+            try {
+                cachedEmbeddingRepository.deleteAllById(keys);
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to evict cached embeddings: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("persistent", persistent);
+        stats.put("memoryEntries", memory.size());
+        stats.put("memoryCapacity", memory.getCapacity());
+        stats.put("memoryEvictions", memory.getEvictions());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("persistentHits", persistentHits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    private String cacheKey(String model, String text) {
+        return model + ":" + sha256(normalize(text));
+    }
+
+    /**
+     * Unicode NFC plus collapsed whitespace; case and punctuation are kept because the
+     * model sees them
+     */
+    private static String normalize(String text) {
+        return WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").trim();
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hashBytes = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hashBytes.length * 2);
+            for (byte b : hashBytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to hash embedding input", e);
+        }
+    }
+}
\ No newline at end of file
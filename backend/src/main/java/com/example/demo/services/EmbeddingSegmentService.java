@@ -0,0 +1,399 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.MappedEmbeddingSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every paper's normalized embeddings in an append-only memory-mapped segment file,
+ * so restarts can rebuild in-memory indexes without reading the whole collection and
+ * verification can scan the corpus without pulling every document from MongoDB. Replaced
+ * and removed records are compacted away in the background once they pass compact-ratio.
+ */
+@Service
+public class EmbeddingSegmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingSegmentService.class);
+
+    @Autowired
+    private ResearchPaperRepository researchPaperRepository;
+
+    @Autowired
+    private SimilarityService similarityService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${verification.segment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.segment.directory:uploads/index/}")
+    private String segmentDirectory;
+
+    @Value("${verification.index.candidates:50}")
+    private int candidateCount;
+
+    @Value("${verification.quantized.rerank-candidates:300}")
+    private int rerankCandidates;
+
+    @Value("${verification.segment.compact-ratio:0.3}")
+    private double compactRatio;
+
+    private volatile MappedEmbeddingSegment segment;
+    private volatile boolean loaded = false;
+    // Set once the vector index serves candidates; segment scans no longer need the int8 codes
+    private volatile boolean quantizedReleased = false;
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+    /**
+     * Open the segment file, rebuilding it from MongoDB if it is missing, unreadable or
+     * out of step with the collection: a different paper count, or a checksum over the
+     * papers' ids, titles and embedding timestamps that differs from the one in the file.
+     * Only papers whose document embedding has the segment's dimension are counted, the
+     * same ones a rebuild or an append writes. Safe to call more than once.
+     *
+     * @return true when the segment is open and holds every paper with embeddings
+     */
+    public synchronized boolean load() {
+        if (!enabled) {
+            return false;
+        }
+        if (loaded) {
+            return segment != null;
+        }
+
+        try {
+            try {
+                MappedEmbeddingSegment existing = MappedEmbeddingSegment.open(vectorPath(), idTablePath());
+                long expected = 0;
+                long expectedChecksum = 0;
+                try (Stream<ResearchPaper> papers = streamEmbeddingVersions(existing.getDimension())) {
+                    for (ResearchPaper paper : (Iterable<ResearchPaper>) papers::iterator) {
+                        expected++;
+                        expectedChecksum += MappedEmbeddingSegment.recordChecksum(
+                            paper.getId(), embeddingVersion(paper), normalizedTitle(paper));
+                    }
+                } catch (RuntimeException e) {
+                    existing.close();
+                    throw e;
+                }
+                if (existing.size() == expected && existing.getChecksum() == expectedChecksum) {
+                    existing.setRerankCandidates(activeRerankCandidates());
+                    segment = existing;
+                    loaded = true;
+                    log.info("✅ Embedding segment loaded: {} papers, {} dims", existing.size(), existing.getDimension());
+                    return true;
+                }
+                log.warn("Embedding segment is stale ({} papers, database has {}; checksum {}), rebuilding",
+                    existing.size(), expected, existing.getChecksum() == expectedChecksum ? "matches" : "differs");
+                existing.close();
+            } catch (NoSuchFileException e) {
+                log.info("No embedding segment found, building from database");
+            } catch (IOException e) {
+                log.warn("Embedding segment unreadable ({}), rebuilding", e.getMessage());
+            }
+
+            rebuildFromDatabase();
+            loaded = true;
+            return segment != null;
+        } catch (Exception e) {
+            log.error("❌ Failed to load embedding segment: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Append a saved paper's embeddings to the segment; a paper saved without a document
+     * embedding is hidden, so a vector it no longer has is not scanned
+     */
+    public synchronized void append(ResearchPaper paper) {
+        if (!enabled || !loaded || paper == null || paper.getId() == null) {
+            // Before the first load the paper is picked up by the count check instead
+            return;
+        }
+        if (paper.getDocumentEmbedding() == null || paper.getDocumentEmbedding().length == 0) {
+            remove(paper.getId());
+            return;
+        }
+
+        try {
+            if (segment == null) {
+                segment = MappedEmbeddingSegment.create(vectorPath(), idTablePath(), paper.getDocumentEmbedding().length);
+                segment.setRerankCandidates(activeRerankCandidates());
+            }
+            segment.append(paper.getId(), normalizedTitle(paper), embeddingVersion(paper),
+                paper.getDocumentEmbedding(), paper.getTitleEmbedding());
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping paper {} in embedding segment: {}", paper.getId(), e.getMessage());
+            remove(paper.getId());
+        } catch (IOException e) {
+            log.error("❌ Failed to append paper {} to embedding segment: {}", paper.getId(), e.getMessage());
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Hide a deleted paper from segment scans
+     */
+    public synchronized void remove(String paperId) {
+        if (segment == null || paperId == null) {
+            return;
+        }
+        try {
+            segment.remove(paperId);
+        } catch (IOException e) {
+            log.error("❌ Failed to remove paper {} from embedding segment: {}", paperId, e.getMessage());
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Rewrite the segment without its dead records, on a background thread, once their share
+     * passes the compaction ratio
+     */
+    private void compactIfNeeded() {
+        MappedEmbeddingSegment current = segment;
+        if (current == null || current.getDeadRatio() <= compactRatio || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread compactor = new Thread(() -> {
+            try {
+                compact();
+            } finally {
+                compacting.set(false);
+            }
+        }, "embedding-segment-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    /**
+     * Copy the live records into new files next to the segment and swap them in. Scans keep
+     * reading the old mapping meanwhile; appends and removals wait. If the copy fails the old
+     * segment stays in use; if the swap fails the segment is rebuilt from MongoDB, and a swap
+     * interrupted by a crash is caught by the checksum on the next open.
+     */
+    private synchronized void compact() {
+        MappedEmbeddingSegment current = segment;
+        if (current == null || current.getDeadRatio() <= compactRatio) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        Path compactVectorPath = vectorPath().resolveSibling(vectorPath().getFileName() + ".compact");
+        Path compactIdTablePath = idTablePath().resolveSibling(idTablePath().getFileName() + ".compact");
+        try {
+            current.compactTo(compactVectorPath, compactIdTablePath).close();
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Failed to compact embedding segment, keeping the current file: {}", e.getMessage());
+            deleteQuietly(compactVectorPath);
+            deleteQuietly(compactIdTablePath);
+            return;
+        }
+
+        try {
+            current.close();
+            Files.move(compactVectorPath, vectorPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(compactIdTablePath, idTablePath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            MappedEmbeddingSegment compacted = MappedEmbeddingSegment.open(vectorPath(), idTablePath());
+            compacted.setRerankCandidates(activeRerankCandidates());
+            segment = compacted;
+            log.info("✅ Compacted embedding segment to {} papers in {} ms", compacted.size(), System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Failed to swap in the compacted embedding segment ({}), rebuilding from database", e.getMessage());
+            deleteQuietly(compactVectorPath);
+            deleteQuietly(compactIdTablePath);
+            try {
+                rebuildFromDatabase();
+            } catch (IOException | RuntimeException rebuildError) {
+                log.error("❌ Failed to rebuild embedding segment: {}", rebuildError.getMessage());
+                segment = null;
+            }
+        }
+    }
+
+    /**
+     * Free the in-heap int8 codes: the quantized shortlist only speeds up segment scans, which
+     * are the fallback while the vector index is building. Later scans are exact.
+     */
+    public synchronized void releaseQuantizedCodes() {
+        if (quantizedReleased) {
+            return;
+        }
+        quantizedReleased = true;
+        if (segment != null) {
+            segment.setRerankCandidates(0);
+            log.info("Released int8 embedding codes of {} papers, vector index is serving candidates", segment.size());
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && loaded && segment != null;
+    }
+
+    public int size() {
+        MappedEmbeddingSegment current = segment;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Visit every paper in the segment with its normalized title and vectors
+     */
+    public void forEachPaper(MappedEmbeddingSegment.RecordVisitor visitor) {
+        MappedEmbeddingSegment current = segment;
+        if (current != null) {
+            current.forEach(visitor);
+        }
+    }
+
+    /**
+     * Candidate search by scanning the segment: top-k by document embedding (int8 shortlist
+     * re-scored exactly until the codes are released), top-k by title embedding, plus any
+     * paper whose normalized title is identical
+     */
+    public Set<String> findCandidateIds(String title, float[] titleEmbedding, float[] documentEmbedding) {
+        Set<String> candidates = new LinkedHashSet<>();
+        MappedEmbeddingSegment current = segment;
+        if (current == null) {
+            return candidates;
+        }
+
+        for (MappedEmbeddingSegment.ScoredId result : current.scan(documentEmbedding, false, candidateCount)) {
+            candidates.add(result.getId());
+        }
+        for (MappedEmbeddingSegment.ScoredId result : current.scan(titleEmbedding, true, candidateCount)) {
+            candidates.add(result.getId());
+        }
+        if (title != null) {
+            candidates.addAll(current.idsForTitle(similarityService.normalizeTitle(title)));
+        }
+
+        log.debug("Embedding segment scan returned {} candidates out of {} papers", candidates.size(), current.size());
+        return candidates;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (segment != null) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Error closing embedding segment: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void rebuildFromDatabase() throws IOException {
+        long start = System.currentTimeMillis();
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+
+        // The first paper fixes the dimension; papers of any other dimension are skipped, as load() expects
+        MappedEmbeddingSegment fresh = null;
+        int skipped = 0;
+        try (Stream<ResearchPaper> papers = researchPaperRepository.streamPapersWithEmbeddings()) {
+            Iterator<ResearchPaper> iterator = papers.iterator();
+            while (iterator.hasNext()) {
+                ResearchPaper paper = iterator.next();
+                float[] documentEmbedding = paper.getDocumentEmbedding();
+                if (fresh == null) {
+                    fresh = MappedEmbeddingSegment.create(vectorPath(), idTablePath(), documentEmbedding.length);
+                    fresh.setRerankCandidates(activeRerankCandidates());
+                }
+                if (documentEmbedding.length != fresh.getDimension()) {
+                    skipped++;
+                    continue;
+                }
+                fresh.append(paper.getId(), normalizedTitle(paper), embeddingVersion(paper),
+                    documentEmbedding, paper.getTitleEmbedding());
+            }
+        } catch (IOException | RuntimeException e) {
+            if (fresh != null) {
+                fresh.close();
+            }
+            throw e;
+        }
+        if (skipped > 0) {
+            log.warn("⚠️ Skipped {} papers whose document embedding does not have {} dimensions",
+                skipped, fresh.getDimension());
+        }
+
+        if (fresh == null) {
+            Files.deleteIfExists(vectorPath());
+            Files.deleteIfExists(idTablePath());
+        }
+        segment = fresh;
+        log.info("✅ Embedding segment rebuilt: {} papers written in {} ms",
+            fresh != null ? fresh.size() : 0, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Id, title and embedding timestamp of every paper whose document embedding has the given
+     * dimension, streamed from a cursor; enough to check the segment against the collection
+     */
+    private Stream<ResearchPaper> streamEmbeddingVersions(int dimension) {
+        Query query = Query.query(Criteria.where("documentEmbedding." + (dimension - 1)).exists(true)
+            .and("documentEmbedding." + dimension).exists(false));
+        query.fields().include("title").include("embeddingGeneratedAt");
+        return mongoTemplate.stream(query, ResearchPaper.class);
+    }
+
+    private int activeRerankCandidates() {
+        return quantizedReleased ? 0 : rerankCandidates;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Millisecond timestamp of the paper's embeddings (MongoDB keeps dates to the millisecond)
+     */
+    private static long embeddingVersion(ResearchPaper paper) {
+        LocalDateTime generatedAt = paper.getEmbeddingGeneratedAt();
+        return generatedAt != null ? generatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0L;
+    }
+
+    private String normalizedTitle(ResearchPaper paper) {
+        return paper.getTitle() != null ? similarityService.normalizeTitle(paper.getTitle()) : "";
+    }
+
+    private Path vectorPath() {
+        return Paths.get(segmentDirectory, "paper-embeddings.vec");
+    }
+
+    private Path idTablePath() {
+        return Paths.get(segmentDirectory, "paper-embeddings.ids");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,300 @@
+package com.example.demo.services;
+
+import com.example.demo.models.PaperFingerprints;
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.LruCache;
+import com.example.demo.utils.MinHasher;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Extracted document text, written once at upload and read back on demand.
+ *
+ * The cleaned text is gzip-compressed into its own GridFS bucket and referenced from the
+ * paper by id and length, so papers stay small and content comparisons, fingerprints and
+ * re-indexing read stored text instead of parsing the PDF again. Reads are lazy and go
+ * through a small LRU of decompressed texts. Papers stored before this existed are
+ * extracted once from their saved file by a background backfill.
+ */
+@Service
+public class ExtractedTextService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractedTextService.class);
+
+    private static final String CONTENT_TYPE = "application/gzip";
+
+    @Autowired
+    private MongoDatabaseFactory mongoDatabaseFactory;
+
+    @Autowired
+    private MongoConverter mongoConverter;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DocumentTextExtractorService documentTextExtractorService;
+
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+
+    @Autowired
+    private PassageIndexService passageIndexService;
+
+    @Value("${storage.extracted-text.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.extracted-text.bucket:extractedText}")
+    private String bucket;
+
+    @Value("${storage.extracted-text.cache-entries:32}")
+    private int cacheEntries;
+
+    @Value("${storage.extracted-text.backfill:true}")
+    private boolean backfill;
+
+    private GridFsTemplate gridFsTemplate;
+    private LruCache<String, String> cache;
+    private volatile boolean backfilling = false;
+
+    @PostConstruct
+    public void init() {
+        gridFsTemplate = new GridFsTemplate(mongoDatabaseFactory, mongoConverter, bucket);
+        cache = new LruCache<>(cacheEntries);
+        // Set before startup so workers that depend on stored text never see the backfill as done too early
+        backfilling = enabled && backfill;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether the startup backfill is still storing the text of older papers
+     */
+    public boolean isBackfilling() {
+        return backfilling;
+    }
+
+    /**
+     * Store a paper's extracted text and reference it from the paper (which still has to be saved)
+     */
+    public void attach(ResearchPaper paper, String text) {
+        if (!enabled || paper == null || text == null || text.isEmpty()) {
+            return;
+        }
+        try {
+            String textId = store(text, paper.getFileHash());
+            paper.setExtractedTextId(textId);
+            paper.setExtractedTextLength(text.length());
+            cache.put(textId, text);
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to store extracted text for '{}': {}", paper.getTitle(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stored text of a paper, decompressed on first use
+     */
+    public Optional<String> loadText(ResearchPaper paper) {
+        if (!enabled || paper == null || paper.getExtractedTextId() == null) {
+            return Optional.empty();
+        }
+        String textId = paper.getExtractedTextId();
+        String cached = cache.get(textId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        try (Reader reader = openReader(textId)) {
+            if (reader == null) {
+                return Optional.empty();
+            }
+            StringBuilder text = new StringBuilder(paper.getExtractedTextLength() != null ? paper.getExtractedTextLength() : 8192);
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            String loaded = text.toString();
+            cache.put(textId, loaded);
+            return Optional.of(loaded);
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to read stored text {} for paper {}: {}", textId, paper.getId(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Remove a paper's stored text from the bucket and the decompressed-text cache
+     */
+    public void delete(ResearchPaper paper) {
+        if (paper == null || paper.getExtractedTextId() == null) {
+            return;
+        }
+        String textId = paper.getExtractedTextId();
+        cache.remove(textId);
+        try {
+            gridFsTemplate.delete(Query.query(Criteria.where("_id").is(new ObjectId(textId))));
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to delete stored text {} for paper {}: {}", textId, paper.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Stored text of a paper, or its abstract when no text was stored
+     */
+    public String loadTextOrAbstract(ResearchPaper paper) {
+        return loadText(paper).orElse(paper.getAbstractText());
+    }
+
+    /**
+     * Streaming reader over the stored text, or null when it does not exist; for callers that
+     * process the text incrementally without holding it in memory
+     */
+    public Reader openReader(String textId) throws IOException {
+        GridFSFile file = gridFsTemplate.findOne(Query.query(Criteria.where("_id").is(new ObjectId(textId))));
+        if (file == null) {
+            return null;
+        }
+        return new BufferedReader(new InputStreamReader(
+            new GZIPInputStream(gridFsTemplate.getResource(file).getInputStream()), StandardCharsets.UTF_8));
+    }
+
+    private String store(String text, String fileHash) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(1024, text.length() / 3));
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(compressed), StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+        Document metadata = new Document("fileHash", fileHash)
+            .append("length", text.length())
+            .append("encoding", "gzip");
+        String filename = (fileHash != null ? fileHash : new ObjectId().toHexString()) + ".txt.gz";
+        ObjectId id = gridFsTemplate.store(new ByteArrayInputStream(compressed.toByteArray()), filename, CONTENT_TYPE, metadata);
+        log.info("Stored extracted text: {} chars, {} bytes compressed", text.length(), compressed.size());
+        return id.toHexString();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled || !backfill) {
+            return;
+        }
+
+        Thread worker = new Thread(() -> {
+            try {
+                backfillStoredText();
+            } finally {
+                backfilling = false;
+            }
+        }, "extracted-text-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Extract and store the text of papers saved before text was kept, from their file on disk,
+     * and refresh the signatures that were computed from the abstract in the meantime
+     */
+    public void backfillStoredText() {
+        // The index builders backfill from abstracts on their own; let them finish so they don't overwrite this
+        waitForIndexes();
+
+        Query query = Query.query(Criteria.where("extractedTextId").exists(false)
+            .and("filePath").exists(true).ne(null));
+        query.fields().include("title").include("filePath").include("fileHash").include("contentHash");
+
+        int stored = 0;
+        int missing = 0;
+        long start = System.currentTimeMillis();
+        try {
+            for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+                Path path = Paths.get(paper.getFilePath());
+                if (!Files.isRegularFile(path)) {
+                    missing++;
+                    continue;
+                }
+                try {
+                    ContentFingerprint.Accumulator accumulator = new ContentFingerprint.Accumulator();
+                    String text = documentTextExtractorService.extractTextFromFile(path, paper.getFileHash(), accumulator);
+                    backfillPaper(paper, text, accumulator);
+                    stored++;
+                } catch (Exception e) {
+                    log.warn("⚠️ Could not backfill text for paper {}: {}", paper.getId(), e.getMessage());
+                }
+            }
+            if (stored > 0 || missing > 0) {
+                log.info("✅ Extracted text backfill: {} papers stored, {} without a file on disk, in {} ms",
+                    stored, missing, System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("❌ Extracted text backfill failed: {}", e.getMessage());
+        }
+    }
+
+    private void backfillPaper(ResearchPaper paper, String text, ContentFingerprint.Accumulator accumulator) throws IOException {
+        String textId = store(text, paper.getFileHash());
+        int[] signature = MinHasher.contentSignature(text);
+        Update update = Update.update("extractedTextId", textId).set("extractedTextLength", text.length());
+        if (signature != null) {
+            update.set("contentMinHash", signature);
+        }
+        ContentFingerprint fingerprint = paper.getContentHash() == null ? accumulator.result() : null;
+        if (fingerprint != null) {
+            update.set("contentHash", fingerprint.getContentHash())
+                .set("contentSimHash", fingerprint.getSimHash())
+                .set("contentSimHashBlocks", fingerprint.getSimHashBlocks());
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(paper.getId())), update, ResearchPaper.class);
+
+        paper.setContentMinHash(signature);
+        nearDuplicateIndexService.addPaper(paper);
+        passageIndexService.indexPaper(paper.getId(), text, PaperFingerprints.SOURCE_DOCUMENT);
+    }
+
+    private void waitForIndexes() {
+        long deadline = System.currentTimeMillis() + 10 * 60 * 1000L;
+        while (System.currentTimeMillis() < deadline
+                && (nearDuplicateIndexService.isBuilding() || passageIndexService.isBuilding())) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,338 @@
+package com.example.demo.services;
+
+import com.example.demo.utils.LruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed cache of extraction results, keyed by the SHA-256 of the file bytes.
+ *
+ * The same PDF is typically verified, then uploaded or submitted, then approved; each of those
+ * steps already hashes the file, so a repeat costs a map lookup instead of a parse. Recent
+ * results stay in a bounded LRU; with the disk tier enabled every result is also written
+ * gzip-compressed next to the uploads, so repeats survive restarts. The disk tier keeps a
+ * running count and byte total of its files, loaded once on startup, and drops the least
+ * recently used ones only when a write takes it over max-files or max-bytes.
+ */
+@Service
+public class ExtractionCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExtractionCacheService.class);
+
+    // Bump when the cleaning rules change so old entries are not served
+    private static final String FORMAT = "v1";
+    private static final Pattern FILE_HASH = Pattern.compile("[0-9a-f]{64}");
+
+    @Value("${extraction.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${extraction.cache.memory-entries:16}")
+    private int memoryEntries;
+
+    @Value("${extraction.cache.max-memory-entry-chars:2000000}")
+    private int maxMemoryEntryChars;
+
+    @Value("${extraction.cache.disk.enabled:true}")
+    private boolean diskEnabled;
+
+    @Value("${extraction.cache.disk.directory:uploads/extraction-cache/}")
+    private String diskDirectory;
+
+    @Value("${extraction.cache.disk.max-files:500}")
+    private int diskMaxFiles;
+
+    @Value("${extraction.cache.disk.max-bytes:536870912}")
+    private long diskMaxBytes;
+
+    private LruCache<String, Extraction> memory;
+
+    // Files of the disk tier by hash with their size, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(64, 0.75f, true);
+    private long diskBytes = 0L;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        memory = new LruCache<>(memoryEntries);
+        if (enabled && diskEnabled) {
+            try {
+                Files.createDirectories(Paths.get(diskDirectory));
+                loadDiskEntries();
+            } catch (IOException e) {
+                log.warn("⚠️ Cannot create extraction cache directory {}, using memory only: {}", diskDirectory, e.getMessage());
+                diskEnabled = false;
+            }
+        }
+    }
+
+    /**
+     * Cached extraction of the file with this hash, from memory or disk
+     */
+    public Extraction get(String fileHash) {
+        if (!enabled || !isValidHash(fileHash)) {
+            return null;
+        }
+        Extraction cached = memory.get(fileHash);
+        if (cached != null) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+        cached = diskEnabled ? readFromDisk(fileHash) : null;
+        if (cached != null) {
+            diskHits.incrementAndGet();
+            keepInMemory(fileHash, cached);
+            return cached;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String fileHash, Extraction extraction) {
+        if (!enabled || !isValidHash(fileHash) || extraction == null || extraction.getText().isEmpty()) {
+            return;
+        }
+        keepInMemory(fileHash, extraction);
+        if (diskEnabled) {
+            writeToDisk(fileHash, extraction);
+        }
+    }
+
+    /**
+     * Drop the cached extraction of a file, e.g. once the paper it belonged to is deleted
+     */
+    public void evict(String fileHash) {
+        if (!isValidHash(fileHash)) {
+            return;
+        }
+        memory.remove(fileHash);
+        if (diskEnabled) {
+            forgetDiskEntry(fileHash);
+            deleteQuietly(diskPath(fileHash));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("diskEnabled", diskEnabled);
+        stats.put("memoryEntries", memory.size());
+        stats.put("memoryCapacity", memory.getCapacity());
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        synchronized (diskEntries) {
+            stats.put("diskEntries", diskEntries.size());
+            stats.put("diskBytes", diskBytes);
+        }
+        return stats;
+    }
+
+    private void keepInMemory(String fileHash, Extraction extraction) {
+        // Very large texts would crowd out everything else; those are served from disk only
+        if (extraction.getText().length() <= maxMemoryEntryChars) {
+            memory.put(fileHash, extraction);
+        }
+    }
+
+    private Extraction readFromDisk(String fileHash) {
+        Path path = diskPath(fileHash);
+        if (!Files.isRegularFile(path)) {
+            forgetDiskEntry(fileHash);
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            int pageCount = Integer.parseInt(reader.readLine().trim());
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                text.append(buffer, 0, read);
+            }
+            // Reads refresh the timestamp too, so the order survives a restart
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (diskEntries) {
+                // Access order: moves the entry to the most recently used end
+                diskEntries.get(fileHash);
+            }
+            return new Extraction(text.toString(), pageCount);
+        } catch (Exception e) {
+            log.warn("⚠️ Unreadable extraction cache entry {}, discarding: {}", path.getFileName(), e.getMessage());
+            forgetDiskEntry(fileHash);
+            deleteQuietly(path);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String fileHash, Extraction extraction) {
+        Path path = diskPath(fileHash);
+        Path temp = null;
+        try {
+            // Written under a temporary name and moved, so readers never see a partial entry
+            temp = Files.createTempFile(path.getParent(), fileHash, ".tmp");
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+                writer.write(Integer.toString(extraction.getPageCount()));
+                writer.write('\n');
+                writer.write(extraction.getText());
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (String evicted : addDiskEntry(fileHash, Files.size(path))) {
+                deleteQuietly(diskPath(evicted));
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to write extraction cache entry for {}: {}", fileHash, e.getMessage());
+            deleteQuietly(temp);
+        }
+    }
+
+    /**
+     * Index the files already in the directory, oldest first, and clear out temporary files
+     * of writes that never finished
+     */
+    private void loadDiskEntries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Paths.get(diskDirectory))) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(entrySuffix())) {
+                    entries.add(file);
+                } else if (name.endsWith(".tmp")) {
+                    deleteQuietly(file);
+                }
+            });
+        }
+        entries.sort(Comparator.comparingLong(ExtractionCacheService::lastModified));
+        List<String> evicted = new ArrayList<>();
+        for (Path entry : entries) {
+            String name = entry.getFileName().toString();
+            String fileHash = name.substring(0, name.length() - entrySuffix().length());
+            if (isValidHash(fileHash)) {
+                evicted.addAll(addDiskEntry(fileHash, size(entry)));
+            }
+        }
+        for (String fileHash : evicted) {
+            deleteQuietly(diskPath(fileHash));
+        }
+        synchronized (diskEntries) {
+            log.info("Extraction cache: {} files, {} bytes on disk", diskEntries.size(), diskBytes);
+        }
+    }
+
+    /**
+     * Record a written file; returns the least recently used entries that now have to go to
+     * bring the tier back under its limits. The file just written is never one of them.
+     */
+    private List<String> addDiskEntry(String fileHash, long bytes) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (diskEntries) {
+            Long previous = diskEntries.put(fileHash, bytes);
+            diskBytes += bytes - (previous != null ? previous : 0L);
+            Iterator<Map.Entry<String, Long>> oldest = diskEntries.entrySet().iterator();
+            while ((diskEntries.size() > diskMaxFiles || diskBytes > diskMaxBytes) && diskEntries.size() > 1) {
+                Map.Entry<String, Long> entry = oldest.next();
+                diskBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                oldest.remove();
+            }
+        }
+        return evicted;
+    }
+
+    private void forgetDiskEntry(String fileHash) {
+        synchronized (diskEntries) {
+            Long bytes = diskEntries.remove(fileHash);
+            if (bytes != null) {
+                diskBytes -= bytes;
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Left for the next prune or overwrite
+        }
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private Path diskPath(String fileHash) {
+        return Paths.get(diskDirectory, fileHash + entrySuffix());
+    }
+
+    private static String entrySuffix() {
+        return "." + FORMAT + ".txt.gz";
+    }
+
+    private static boolean isValidHash(String fileHash) {
+        // The hash becomes a file name; only accept what generateFileHash produces
+        return fileHash != null && FILE_HASH.matcher(fileHash).matches();
+    }
+
+    /**
+     * Cleaned text of a document and its page count
+     */
+    public static class Extraction {
+        private final String text;
+        private final int pageCount;
+
+        public Extraction(String text, int pageCount) {
+            this.text = text;
+            this.pageCount = pageCount;
+        }
+
+        public String getText() { return text; }
+        /** PDF pages, 0 for formats without pages */
+        public int getPageCount() { return pageCount; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,320 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.HnswIndex;
+import com.example.demo.utils.LruCache;
+import com.example.demo.utils.RankFusion;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Public search that combines meaning and wording.
+ *
+ * The query is embedded once and looked up in the paper vector index by document and by
+ * title embedding, while the text index ranks the same query by keywords. The three rankings
+ * are merged with reciprocal rank fusion (each list adds 1 / (k + rank) to a paper's score),
+ * so a paper near the top of any list surfaces without having to calibrate cosine similarity
+ * against text scores. Query embeddings are cached by normalized query, and the wait for
+ * Ollama is bounded: when it is slow, down or busy with paper embeddings the keyword ranking
+ * is returned on its own.
+ */
+@Service
+public class HybridSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(HybridSearchService.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PaperSearchService paperSearchService;
+
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+
+    @Autowired
+    private OllamaEmbeddingService ollamaEmbeddingService;
+
+    @Value("${search.semantic.candidates:50}")
+    private int candidateCount;
+
+    @Value("${search.semantic.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${search.semantic.embedding-timeout-ms:1500}")
+    private long embeddingTimeoutMs;
+
+    @Value("${search.semantic.query-cache-entries:1000}")
+    private int queryCacheEntries;
+
+    @Value("${search.semantic.max-queue-depth:32}")
+    private int maxQueueDepth;
+
+    // Normalized query -> embedding; the only place query vectors are kept (they never reach
+    // the persistent embedding cache), and document uploads cannot evict hot queries from it
+    private LruCache<String, float[]> queryEmbeddings;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong semanticSearches = new AtomicLong();
+    private final AtomicLong queryCacheHits = new AtomicLong();
+    private final AtomicLong embeddingTimeouts = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        queryEmbeddings = new LruCache<>(queryCacheEntries);
+    }
+
+    /**
+     * Viewable papers for the query, fused from keyword and vector rankings
+     *
+     * @param department optional case-insensitive department filter
+     */
+    public HybridPage search(String queryText, String department, int page, int size) {
+        long start = System.currentTimeMillis();
+        searches.incrementAndGet();
+        int limit = Math.max(1, Math.min(size, candidateCount));
+        int pageNumber = Math.max(0, page);
+        String normalized = WHITESPACE.matcher(queryText.trim()).replaceAll(" ").toLowerCase();
+
+        // Start the embedding first so the keyword search overlaps the Ollama round trip
+        CompletableFuture<float[]> embedding = embedQuery(normalized);
+
+        Map<String, ResearchPaper> papers = new HashMap<>();
+        List<String> keywordRanking = new ArrayList<>();
+        boolean keyword = true;
+        try {
+            for (PaperSearchService.SearchHit hit : paperSearchService.search(queryText, department, 0, candidateCount).getHits()) {
+                papers.put(hit.getPaper().getId(), hit.getPaper());
+                keywordRanking.add(hit.getPaper().getId());
+            }
+        } catch (Exception e) {
+            keyword = false;
+            log.warn("⚠️ Keyword search failed, using semantic ranking only: {}", e.getMessage());
+        }
+
+        float[] vector = awaitEmbedding(embedding);
+        List<String> documentRanking = new ArrayList<>();
+        List<String> titleRanking = new ArrayList<>();
+        Map<String, Float> similarities = new HashMap<>();
+        if (vector != null) {
+            semanticSearches.incrementAndGet();
+            // The index also holds papers that are not public, so ask for more than needed
+            List<HnswIndex.SearchResult> documentHits = paperVectorIndexService.searchDocuments(vector, candidateCount * 2);
+            List<HnswIndex.SearchResult> titleHits = paperVectorIndexService.searchTitles(vector, candidateCount * 2);
+            loadViewable(documentHits, titleHits, department, papers);
+            collectRanking(documentHits, papers, documentRanking);
+            collectRanking(titleHits, papers, titleRanking);
+            for (HnswIndex.SearchResult result : documentHits) {
+                similarities.putIfAbsent(result.getKey(), result.getSimilarity());
+            }
+        }
+
+        // Ranking order: keyword, document, title
+        List<RankFusion.Entry> ranked = RankFusion.fuse(rrfK, Arrays.asList(keywordRanking, documentRanking, titleRanking));
+
+        List<HybridHit> hits = new ArrayList<>();
+        int from = Math.min(ranked.size(), pageNumber * limit);
+        for (RankFusion.Entry entry : ranked.subList(from, Math.min(ranked.size(), from + limit))) {
+            HybridHit hit = new HybridHit(entry);
+            hit.similarity = similarities.get(hit.paperId);
+            hit.hit = paperSearchService.highlight(papers.get(hit.paperId), (float) hit.score, queryText);
+            hits.add(hit);
+        }
+
+        long tookMs = System.currentTimeMillis() - start;
+        log.info("Hybrid search '{}': {} keyword, {} document, {} title matches, {} fused in {} ms",
+            queryText, keywordRanking.size(), documentRanking.size(), titleRanking.size(), ranked.size(), tookMs);
+        return new HybridPage(hits, pageNumber, limit, ranked.size(), keyword, vector != null, tookMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("searches", searches.get());
+        stats.put("semanticSearches", semanticSearches.get());
+        stats.put("queryCacheHits", queryCacheHits.get());
+        stats.put("queryCacheEntries", queryEmbeddings.size());
+        stats.put("queryCacheCapacity", queryEmbeddings.getCapacity());
+        stats.put("embeddingTimeouts", embeddingTimeouts.get());
+        stats.put("embeddingRejections", ollamaEmbeddingService.getQueryRejections());
+        stats.put("vectorIndexReady", paperVectorIndexService.isReady());
+        return stats;
+    }
+
+    /**
+     * Cached query vector, or a request to Ollama that fills the cache when it completes,
+     * even if this search has stopped waiting for it; null right away when Ollama is not
+     * healthy or already has more than the configured number of prompts queued
+     */
+    private CompletableFuture<float[]> embedQuery(String normalized) {
+        if (!paperVectorIndexService.isReady()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        float[] cached = queryEmbeddings.get(normalized);
+        if (cached != null) {
+            queryCacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        return ollamaEmbeddingService.generateQueryEmbeddingAsync(normalized, maxQueueDepth).thenApply(embedding -> {
+            if (embedding != null) {
+                queryEmbeddings.put(normalized, embedding);
+            }
+            return embedding;
+        });
+    }
+
+    private float[] awaitEmbedding(CompletableFuture<float[]> embedding) {
+        try {
+            return embedding.get(embeddingTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            embeddingTimeouts.incrementAndGet();
+            log.warn("⚠️ Query embedding took longer than {} ms, using keyword ranking only", embeddingTimeoutMs);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("⚠️ Query embedding failed, using keyword ranking only: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Load the vector matches not already found by keyword, keeping only viewable papers in
+     * the requested department; one query, without the embeddings
+     */
+    private void loadViewable(List<HnswIndex.SearchResult> documentHits, List<HnswIndex.SearchResult> titleHits,
+                              String department, Map<String, ResearchPaper> papers) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (HnswIndex.SearchResult result : documentHits) {
+            ids.add(result.getKey());
+        }
+        for (HnswIndex.SearchResult result : titleHits) {
+            ids.add(result.getKey());
+        }
+        ids.removeAll(papers.keySet());
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Query query = Query.query(Criteria.where("_id").in(ids).and("viewable").is(true));
+        if (department != null && !department.trim().isEmpty()) {
+            query.addCriteria(Criteria.where("department").regex(Pattern.quote(department.trim()), "i"));
+        }
+        for (String excluded : Document.parse(ResearchPaperRepository.SUMMARY_FIELDS).keySet()) {
+            query.fields().exclude(excluded);
+        }
+        for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+            papers.put(paper.getId(), paper);
+        }
+    }
+
+    /**
+     * Eligible ids in similarity order, at most the candidate count
+     */
+    private void collectRanking(List<HnswIndex.SearchResult> results, Map<String, ResearchPaper> eligible, List<String> ranking) {
+        for (HnswIndex.SearchResult result : results) {
+            if (ranking.size() >= candidateCount) {
+                break;
+            }
+            if (eligible.containsKey(result.getKey())) {
+                ranking.add(result.getKey());
+            }
+        }
+    }
+
+    /**
+     * One fused result; ranks are 1-based and null when the paper is not in that list
+     */
+    public static class HybridHit {
+        private final String paperId;
+        private final double score;
+        private final Integer keywordRank;
+        private final Integer documentRank;
+        private final Integer titleRank;
+        private Float similarity;
+        private PaperSearchService.SearchHit hit;
+
+        HybridHit(RankFusion.Entry entry) {
+            this.paperId = entry.getId();
+            this.score = entry.getScore();
+            this.keywordRank = rankOrNull(entry.getRank(0));
+            this.documentRank = rankOrNull(entry.getRank(1));
+            this.titleRank = rankOrNull(entry.getRank(2));
+        }
+
+        private static Integer rankOrNull(int rank) {
+            return rank > 0 ? rank : null;
+        }
+
+        public String getPaperId() { return paperId; }
+        /** Reciprocal rank fusion score */
+        public double getScore() { return score; }
+        public Integer getKeywordRank() { return keywordRank; }
+        public Integer getDocumentRank() { return documentRank; }
+        public Integer getTitleRank() { return titleRank; }
+        /** Cosine similarity of the document embedding to the query, null for keyword-only matches */
+        public Float getSimilarity() { return similarity; }
+        /** The paper with highlighted title and snippet */
+        public PaperSearchService.SearchHit getHit() { return hit; }
+    }
+
+    /**
+     * One page of fused results
+     */
+    public static class HybridPage {
+        private final List<HybridHit> hits;
+        private final int page;
+        private final int size;
+        private final long total;
+        private final boolean keyword;
+        private final boolean semantic;
+        private final long tookMs;
+
+        public HybridPage(List<HybridHit> hits, int page, int size, long total, boolean keyword, boolean semantic, long tookMs) {
+            this.hits = hits;
+            this.page = page;
+            this.size = size;
+            this.total = total;
+            this.keyword = keyword;
+            this.semantic = semantic;
+            this.tookMs = tookMs;
+        }
+
+        public List<HybridHit> getHits() { return hits; }
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+        public long getTotal() { return total; }
+        public int getTotalPages() { return (int) ((total + size - 1) / size); }
+        public boolean hasNext() { return (long) (page + 1) * size < total; }
+        /** Whether the keyword ranking took part */
+        public boolean isKeyword() { return keyword; }
+        /** Whether the vector rankings took part (false when Ollama or the index was unavailable) */
+        public boolean isSemantic() { return semantic; }
+        public long getTookMs() { return tookMs; }
+    }
+}
\ No newline at end of file
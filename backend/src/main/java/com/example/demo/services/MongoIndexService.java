@@ -0,0 +1,204 @@
+package com.example.demo.services;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Creates and verifies the indexes declared on the models.
+ *
+ * Index creation is off for the application, so once Mongo is reachable a daemon thread
+ * resolves the @Indexed and @CompoundIndex declarations of every @Document class, ensures
+ * each of them and then checks that the collection really has an index with those keys.
+ * The outcome per index is kept for the admin report, next to the server's own usage
+ * counters from $indexStats, so unused or missing indexes show up without shell access.
+ */
+@Service
+public class MongoIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoMappingContext mongoMappingContext;
+
+    @Value("${mongo.indexes.reconcile.enabled:true}")
+    private boolean enabled;
+
+    // collection -> index name -> outcome
+    private final Map<String, Map<String, String>> reconciled = Collections.synchronizedMap(new TreeMap<>());
+    private volatile LocalDateTime reconciledAt;
+    private volatile int failures;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (!enabled) {
+            log.info("Mongo index reconciliation disabled");
+            return;
+        }
+        Thread reconciler = new Thread(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.warn("⚠️ Could not reconcile Mongo indexes: {}", e.getMessage());
+            }
+        }, "mongo-index-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    /**
+     * Ensure every declared index and verify it exists; returns the number that are missing
+     */
+    public int reconcile() {
+        int missing = 0;
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (MongoPersistentEntity<?> entity : mongoMappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            String collection = entity.getCollection();
+            List<IndexDefinition> definitions = new ArrayList<>();
+            resolver.resolveIndexFor(entity.getType()).forEach(definitions::add);
+            if (definitions.isEmpty()) {
+                continue;
+            }
+
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            Map<String, String> outcomes = new TreeMap<>();
+            Map<IndexDefinition, String> errors = new HashMap<>();
+            for (IndexDefinition definition : definitions) {
+                try {
+                    indexOps.ensureIndex(definition);
+                } catch (Exception e) {
+                    // Typically an existing index with the same keys under another name or options
+                    errors.put(definition, e.getMessage());
+                }
+            }
+
+            List<Document> existing = new ArrayList<>();
+            mongoTemplate.getCollection(collection).listIndexes().into(existing);
+            for (IndexDefinition definition : definitions) {
+                String name = indexName(definition);
+                if (existing.stream().anyMatch(index -> matches(definition, (Document) index.get("key")))) {
+                    outcomes.put(name, errors.containsKey(definition) ? "present (" + errors.get(definition) + ")" : "ok");
+                } else {
+                    missing++;
+                    outcomes.put(name, "missing" + (errors.containsKey(definition) ? ": " + errors.get(definition) : ""));
+                    log.warn("⚠️ Index {} on {} is missing: {}", name, collection, errors.get(definition));
+                }
+            }
+            reconciled.put(collection, outcomes);
+        }
+        failures = missing;
+        reconciledAt = LocalDateTime.now();
+        if (missing == 0) {
+            log.info("✅ Mongo indexes verified on {} collections", reconciled.size());
+        } else {
+            log.warn("⚠️ {} declared Mongo indexes are missing", missing);
+        }
+        return missing;
+    }
+
+    /**
+     * Declared indexes with their reconciliation outcome, and per-collection usage from $indexStats
+     */
+    public Map<String, Object> getIndexReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("enabled", enabled);
+        report.put("reconciledAt", reconciledAt != null ? reconciledAt.toString() : null);
+        report.put("missing", failures);
+        synchronized (reconciled) {
+            report.put("declared", new TreeMap<>(reconciled));
+        }
+
+        Map<String, Object> usage = new TreeMap<>();
+        for (String collection : mongoTemplate.getCollectionNames()) {
+            if (collection.startsWith("system.")) {
+                continue;
+            }
+            try {
+                List<Map<String, Object>> indexes = new ArrayList<>();
+                for (Document stats : mongoTemplate.getCollection(collection)
+                        .aggregate(Collections.singletonList(new Document("$indexStats", new Document())))) {
+                    Map<String, Object> index = new LinkedHashMap<>();
+                    Document accesses = (Document) stats.get("accesses");
+                    index.put("name", stats.getString("name"));
+                    index.put("key", stats.get("key"));
+                    index.put("ops", accesses != null ? accesses.get("ops") : null);
+                    index.put("since", accesses != null ? accesses.get("since") : null);
+                    indexes.add(index);
+                }
+                usage.put(collection, indexes);
+            } catch (Exception e) {
+                usage.put(collection, "error: " + e.getMessage());
+            }
+        }
+        report.put("usage", usage);
+        return report;
+    }
+
+    private static String indexName(IndexDefinition definition) {
+        Object name = definition.getIndexOptions().get("name");
+        return name != null ? name.toString() : definition.getIndexKeys().toJson();
+    }
+
+    /**
+     * A collection has at most one text index, and the server reports its keys as _fts/_ftsx
+     * rather than the indexed fields, so any text index satisfies a declared one
+     */
+    private static boolean matches(IndexDefinition definition, Document actual) {
+        if (definition.getIndexKeys().containsValue("text")) {
+            return actual != null && "text".equals(actual.get("_fts"));
+        }
+        return sameKeys(definition.getIndexKeys(), actual);
+    }
+
+    /**
+     * Same fields in the same order with the same directions; numbers compare by value, since
+     * the server may report 1 as a double
+     */
+    private static boolean sameKeys(Document declared, Document actual) {
+        if (actual == null || declared.size() != actual.size()) {
+            return false;
+        }
+        List<String> declaredFields = new ArrayList<>(declared.keySet());
+        List<String> actualFields = new ArrayList<>(actual.keySet());
+        if (!declaredFields.equals(actualFields)) {
+            return false;
+        }
+        for (String field : declaredFields) {
+            Object a = declared.get(field);
+            Object b = actual.get(field);
+            boolean equal = a instanceof Number && b instanceof Number
+                ? ((Number) a).doubleValue() == ((Number) b).doubleValue()
+                : String.valueOf(a).equals(String.valueOf(b));
+            if (!equal) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.utils.LshIndex;
+import com.example.demo.utils.MinHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory MinHash/LSH index used by the duplicate gates of verification and upload.
+ *
+ * Content signatures are persisted on each paper (backfilled from the stored text on the
+ * first start) and banded for near-duplicate lookup, so a submission is compared only with
+ * papers that share a band instead of the whole collection. Titles get their own trigram
+ * index whose candidates are re-checked with the edit-distance rule the upload path uses.
+ */
+@Service
+public class NearDuplicateIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateIndexService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${dedup.minhash.enabled:true}")
+    private boolean enabled;
+
+    @Value("${dedup.minhash.content.bands:16}")
+    private int contentBands;
+
+    @Value("${dedup.minhash.content.rows:8}")
+    private int contentRows;
+
+    @Value("${dedup.minhash.title.bands:42}")
+    private int titleBands;
+
+    @Value("${dedup.minhash.title.rows:3}")
+    private int titleRows;
+
+    private volatile IndexSnapshot snapshot;
+    private volatile boolean ready = false;
+    private volatile boolean buildFailed = false;
+
+    // Papers saved while a rebuild is running; replayed into the new snapshot before it is swapped in
+    private List<ResearchPaper> pendingDuringRebuild;
+    // Papers deleted while a rebuild is running; the rebuild may already have read them
+    private Set<String> pendingRemovalsDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Near-duplicate index disabled, duplicate checks will scan all papers");
+            return;
+        }
+
+        Thread builder = new Thread(this::rebuild, "near-duplicate-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Rebuild from the id, title, abstract and signature fields only (no embeddings are read);
+     * papers without a stored signature get one computed and written back
+     */
+    public void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+            pendingRemovalsDuringRebuild = new HashSet<>();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            log.info("🔨 Building near-duplicate index...");
+
+            Query query = new Query();
+            query.fields().include("title").include("abstractText").include("contentMinHash");
+
+            IndexSnapshot fresh = newSnapshot();
+            int backfilled = 0;
+            for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+                if (paper.getContentMinHash() == null && paper.getAbstractText() != null
+                        && !paper.getAbstractText().trim().isEmpty()) {
+                    int[] signature = MinHasher.contentSignature(paper.getAbstractText());
+                    if (signature != null) {
+                        paper.setContentMinHash(signature);
+                        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(paper.getId())),
+                            Update.update("contentMinHash", signature), ResearchPaper.class);
+                        backfilled++;
+                    }
+                }
+                fresh.add(paper);
+            }
+
+            synchronized (this) {
+                for (ResearchPaper paper : pendingDuringRebuild) {
+                    fresh.add(paper);
+                }
+                for (String paperId : pendingRemovalsDuringRebuild) {
+                    fresh.remove(paperId);
+                }
+                pendingDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+                snapshot = fresh;
+                ready = true;
+            }
+
+            log.info("✅ Near-duplicate index ready: {} content signatures ({} backfilled), {} titles in {} ms",
+                fresh.contentIndex.size(), backfilled, fresh.titleIndex.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+            }
+            buildFailed = true;
+            log.error("❌ Failed to build near-duplicate index, duplicate checks will scan all papers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add or replace a paper after it has been saved
+     */
+    public void addPaper(ResearchPaper paper) {
+        if (!enabled || paper == null || paper.getId() == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(paper);
+                pendingRemovalsDuringRebuild.remove(paper.getId());
+            }
+            if (snapshot != null) {
+                snapshot.add(paper);
+            }
+        }
+    }
+
+    /**
+     * Remove a paper after it has been deleted
+     */
+    public void removePaper(String paperId) {
+        if (!enabled || paperId == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.removeIf(paper -> paperId.equals(paper.getId()));
+                pendingRemovalsDuringRebuild.add(paperId);
+            }
+            if (snapshot != null) {
+                snapshot.remove(paperId);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+    
+    /**
+     * True until the first build has finished or failed
+     */
+    public boolean isBuilding() {
+        return enabled && !ready && !buildFailed;
+    }
+
+    /**
+     * Papers whose content signature is estimated at least minJaccard similar, most similar first
+     */
+    public List<LshIndex.Match> findNearDuplicates(int[] contentSignature, double minJaccard) {
+        IndexSnapshot current = snapshot;
+        if (current == null || contentSignature == null) {
+            return Collections.emptyList();
+        }
+        return current.contentIndex.query(contentSignature, minJaccard);
+    }
+
+    /**
+     * Candidate papers whose title trigrams overlap at least minJaccard, with their titles
+     */
+    public Map<String, String> findSimilarTitles(String title, double minJaccard) {
+        IndexSnapshot current = snapshot;
+        Map<String, String> titles = new LinkedHashMap<>();
+        if (current == null || title == null) {
+            return titles;
+        }
+        for (LshIndex.Match match : current.titleIndex.query(MinHasher.titleSignature(title), minJaccard)) {
+            String candidateTitle = current.titlesById.get(match.getKey());
+            if (candidateTitle != null) {
+                titles.put(match.getKey(), candidateTitle);
+            }
+        }
+        return titles;
+    }
+
+    private IndexSnapshot newSnapshot() {
+        return new IndexSnapshot(new LshIndex(contentBands, contentRows), new LshIndex(titleBands, titleRows));
+    }
+
+    private static class IndexSnapshot {
+        final LshIndex contentIndex;
+        final LshIndex titleIndex;
+        final Map<String, String> titlesById = new ConcurrentHashMap<>();
+
+        IndexSnapshot(LshIndex contentIndex, LshIndex titleIndex) {
+            this.contentIndex = contentIndex;
+            this.titleIndex = titleIndex;
+        }
+
+        void add(ResearchPaper paper) {
+            if (paper.getContentMinHash() != null) {
+                contentIndex.add(paper.getId(), paper.getContentMinHash());
+            } else {
+                contentIndex.remove(paper.getId());
+            }
+            if (paper.getTitle() != null) {
+                titleIndex.add(paper.getId(), MinHasher.titleSignature(paper.getTitle()));
+                titlesById.put(paper.getId(), paper.getTitle());
+            } else {
+                titleIndex.remove(paper.getId());
+                titlesById.remove(paper.getId());
+            }
+        }
+
+        void remove(String paperId) {
+            contentIndex.remove(paperId);
+            titleIndex.remove(paperId);
+            titlesById.remove(paperId);
+        }
+    }
+}
\ No newline at end of file
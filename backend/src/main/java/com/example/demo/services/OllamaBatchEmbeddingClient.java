@@ -0,0 +1,390 @@
+package com.example.demo.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.*;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalescing client for Ollama's multi-input /api/embed endpoint.
+ *
+ * Callers submit single prompts and get a future back. A dispatcher thread collects
+ * whatever arrives within a short window (up to the max batch size) and sends it as
+ * one request, with at most max-in-flight requests outstanding. While every slot is
+ * busy the queue keeps filling, so under load batches grow toward Ollama's batch
+ * capacity instead of paying per-request latency. Servers without /api/embed are
+ * detected on the first 404 and served prompt by prompt through /api/embeddings.
+ *
+ * Every HTTP call has a connect and read timeout, so a hung request gives its in-flight
+ * slot back instead of holding it forever, and the queue is bounded: once it is full,
+ * new prompts are rejected right away rather than waiting behind the backlog. The
+ * request timeout starts when a batch is sent, not when a prompt is queued, so time
+ * spent waiting for a slot never reads as Ollama being slow.
+ *
+ * When Ollama answers a multi-prompt batch with an error status, one bad prompt may be
+ * failing the others, so the batch is retried prompt by prompt and only the prompts that
+ * fail on their own complete exceptionally. Each prompt therefore reaches the circuit
+ * breaker with its own outcome instead of the batch's.
+ */
+@Service
+public class OllamaBatchEmbeddingClient {
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaBatchEmbeddingClient.class);
+
+    @Value("${ollama.url:http://localhost:11434}")
+    private String ollamaUrl;
+
+    @Value("${ollama.model:nomic-embed-text}")
+    private String embeddingModel;
+
+    @Value("${ollama.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ollama.batch.max-size:16}")
+    private int maxBatchSize;
+
+    @Value("${ollama.batch.window-ms:10}")
+    private long windowMs;
+
+    @Value("${ollama.batch.max-in-flight:2}")
+    private int maxInFlight;
+
+    @Value("${ollama.batch.timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${ollama.batch.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${ollama.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${ollama.http.read-timeout-ms:60000}")
+    private int readTimeoutMs;
+
+    private RestTemplate restTemplate;
+    private LinkedBlockingQueue<PendingEmbedding> queue;
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong promptsSent = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private Semaphore inFlight;
+    private ExecutorService senders;
+    private Thread dispatcher;
+    private volatile boolean running = false;
+    private volatile boolean legacyEndpoint = false;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Ollama batch embedding disabled, using one request per prompt");
+            return;
+        }
+        maxBatchSize = Math.max(1, maxBatchSize);
+        maxInFlight = Math.max(1, maxInFlight);
+        inFlight = new Semaphore(maxInFlight);
+        queue = new LinkedBlockingQueue<>(Math.max(maxBatchSize, queueCapacity));
+        restTemplate = createRestTemplate(connectTimeoutMs, readTimeoutMs);
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "ollama-embed-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "ollama-embed-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("🚀 Ollama batch embedding client started (max batch: {}, window: {} ms, in flight: {}, queue: {})",
+            maxBatchSize, windowMs, maxInFlight, queue.remainingCapacity());
+    }
+
+    /**
+     * RestTemplate whose connections and reads give up after the given timeouts
+     */
+    static RestTemplate createRestTemplate(int connectTimeoutMs, int readTimeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMs);
+        requestFactory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(requestFactory);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+        PendingEmbedding pending;
+        while (queue != null && (pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new IllegalStateException("Embedding client is shutting down"));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a prompt for the next batch; the future completes with its embedding, or with a
+     * RejectedExecutionException straight away when the queue is full
+     */
+    public CompletableFuture<float[]> submit(String prompt) {
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Batch embedding client is not running"));
+            return future;
+        }
+        if (!queue.offer(new PendingEmbedding(prompt, future))) {
+            rejected.incrementAndGet();
+            future.completeExceptionally(new RejectedExecutionException("Embedding queue is full (" + queue.size() + " prompts)"));
+        }
+        return future;
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    public long getPromptsSent() {
+        return promptsSent.get();
+    }
+
+    public int getQueueDepth() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    public int getQueueCapacity() {
+        return queue != null ? queue.size() + queue.remainingCapacity() : 0;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<PendingEmbedding> batch = new ArrayList<>();
+            boolean handedOff = false;
+            try {
+                // Take the in-flight slot first so prompts keep queueing (and batches grow) while Ollama is busy
+                inFlight.acquire();
+                try {
+                    batch = nextBatch();
+                    if (!batch.isEmpty()) {
+                        List<PendingEmbedding> sending = batch;
+                        senders.execute(() -> {
+                            try {
+                                send(sending);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                        handedOff = true;
+                    }
+                } finally {
+                    // The slot belongs to the sender task once it is accepted, and to nobody otherwise
+                    if (!handedOff) {
+                        inFlight.release();
+                    }
+                }
+            } catch (InterruptedException e) {
+                failAll(batch, e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failAll(batch, e);
+                log.error("Embedding dispatcher error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static void failAll(List<PendingEmbedding> batch, Exception e) {
+        for (PendingEmbedding pending : batch) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    private List<PendingEmbedding> nextBatch() throws InterruptedException {
+        List<PendingEmbedding> batch = new ArrayList<>();
+        PendingEmbedding first = queue.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            PendingEmbedding next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void send(List<PendingEmbedding> batch) {
+        // Deadline from here on; a TimeoutException means Ollama had the batch and did not answer
+        for (PendingEmbedding pending : batch) {
+            pending.future.orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        try {
+            List<String> prompts = new ArrayList<>(batch.size());
+            for (PendingEmbedding pending : batch) {
+                prompts.add(pending.prompt);
+            }
+
+            float[][] embeddings = legacyEndpoint ? embedOneByOne(prompts) : embedBatch(prompts);
+            batchesSent.incrementAndGet();
+            promptsSent.addAndGet(batch.size());
+            log.debug("Embedded batch of {} prompts", batch.size());
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(embeddings[i]);
+            }
+        } catch (HttpStatusCodeException e) {
+            if (batch.size() == 1) {
+                failAll(batch, e);
+                return;
+            }
+            // Ollama is up but refused the batch; find out which prompts it refuses on their own
+            log.warn("⚠️ Batch embedding request failed for {} prompts ({}), retrying them one by one",
+                batch.size(), e.getStatusCode());
+            sendOneByOne(batch);
+        } catch (Exception e) {
+            log.warn("⚠️ Batch embedding request failed for {} prompts: {}", batch.size(), e.getMessage());
+            failAll(batch, e);
+        }
+    }
+
+    /**
+     * Send each prompt of a refused batch as its own request, failing only those refused again.
+     * A connection-level error ends the retries, since the remaining prompts would hit it too.
+     */
+    private void sendOneByOne(List<PendingEmbedding> batch) {
+        int failed = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingEmbedding pending = batch.get(i);
+            if (pending.future.isDone()) {
+                // Timed out meanwhile
+                continue;
+            }
+            try {
+                List<String> prompt = Collections.singletonList(pending.prompt);
+                float[][] embeddings = legacyEndpoint ? embedOneByOne(prompt) : embedBatch(prompt);
+                promptsSent.incrementAndGet();
+                pending.future.complete(embeddings[0]);
+            } catch (HttpStatusCodeException e) {
+                failed++;
+                pending.future.completeExceptionally(e);
+            } catch (Exception e) {
+                log.warn("⚠️ Single-prompt retry failed, failing the remaining {} prompts: {}", batch.size() - i, e.getMessage());
+                failAll(batch.subList(i, batch.size()), e);
+                return;
+            }
+        }
+        if (failed > 0) {
+            log.warn("⚠️ {} of {} prompts were refused on their own as well", failed, batch.size());
+        }
+    }
+
+    private float[][] embedBatch(List<String> prompts) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<BatchRequest> httpEntity = new HttpEntity<>(new BatchRequest(embeddingModel, prompts), headers);
+
+            ResponseEntity<BatchResponse> response = restTemplate.exchange(
+                ollamaUrl + "/api/embed", HttpMethod.POST, httpEntity, BatchResponse.class);
+
+            float[][] embeddings = response.getBody() != null ? response.getBody().getEmbeddings() : null;
+            if (response.getStatusCode() != HttpStatus.OK || embeddings == null || embeddings.length != prompts.size()) {
+                throw new RuntimeException("Unexpected /api/embed response: " + response.getStatusCode());
+            }
+            return embeddings;
+        } catch (HttpClientErrorException.NotFound e) {
+            log.warn("Ollama at {} has no /api/embed endpoint, falling back to /api/embeddings", ollamaUrl);
+            legacyEndpoint = true;
+            return embedOneByOne(prompts);
+        }
+    }
+
+    private float[][] embedOneByOne(List<String> prompts) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        float[][] embeddings = new float[prompts.size()][];
+        for (int i = 0; i < prompts.size(); i++) {
+            HttpEntity<OllamaEmbeddingService.EmbeddingRequest> httpEntity = new HttpEntity<>(
+                new OllamaEmbeddingService.EmbeddingRequest(embeddingModel, prompts.get(i)), headers);
+            ResponseEntity<OllamaEmbeddingService.EmbeddingResponse> response = restTemplate.exchange(
+                ollamaUrl + "/api/embeddings", HttpMethod.POST, httpEntity, OllamaEmbeddingService.EmbeddingResponse.class);
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                throw new RuntimeException("Failed to generate embedding: " + response.getStatusCode());
+            }
+            embeddings[i] = response.getBody().getEmbedding();
+        }
+        return embeddings;
+    }
+
+    private static class PendingEmbedding {
+        final String prompt;
+        final CompletableFuture<float[]> future;
+
+        PendingEmbedding(String prompt, CompletableFuture<float[]> future) {
+            this.prompt = prompt;
+            this.future = future;
+        }
+    }
+
+    // Request/Response DTOs
+    static class BatchRequest {
+        private String model;
+        private List<String> input;
+
+        public BatchRequest(String model, List<String> input) {
+            this.model = model;
+            this.input = input;
+        }
+
+        public String getModel() { return model; }
+        public List<String> getInput() { return input; }
+    }
+
+    static class BatchResponse {
+        @JsonProperty("embeddings")
+        private float[][] embeddings;
+
+        public float[][] getEmbeddings() { return embeddings; }
+        public void setEmbeddings(float[][] embeddings) { this.embeddings = embeddings; }
+    }
+}
\ No newline at end of file
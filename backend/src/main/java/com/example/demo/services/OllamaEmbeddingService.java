@@ -2,16 +2,31 @@ package com.example.demo.services;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.example.demo.utils.CircuitBreaker;
+import com.example.demo.utils.TextChunker;
+import com.example.demo.utils.VectorMath;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class OllamaEmbeddingService {
@@ -24,102 +39,431 @@ public class OllamaEmbeddingService {
     @Value("${ollama.model:nomic-embed-text}")
     private String embeddingModel;
     
-    private final RestTemplate restTemplate;
+    @Value("${ollama.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+    
+    @Value("${ollama.http.read-timeout-ms:60000}")
+    private int readTimeoutMs;
+    
+    @Value("${ollama.query.threads:2}")
+    private int queryThreads;
+    
+    @Value("${embedding.chunks.enabled:true}")
+    private boolean chunkingEnabled;
+    
+    @Value("${embedding.chunks.size:4000}")
+    private int chunkSize;
+    
+    @Value("${embedding.chunks.overlap:400}")
+    private int chunkOverlap;
+    
+    @Value("${embedding.chunks.max-per-document:128}")
+    private int maxChunks;
+    
+    @Autowired
+    private EmbeddingCacheService embeddingCacheService;
+    
+    @Autowired
+    private OllamaBatchEmbeddingClient batchEmbeddingClient;
+    
+    @Autowired
+    private OllamaHealthMonitor healthMonitor;
+    
+    private RestTemplate restTemplate;
+    // Search queries when batching is disabled; its queue depth is checked against the caller's limit
+    private ThreadPoolExecutor queryExecutor;
     private final ObjectMapper objectMapper;
+    private final AtomicLong queryRejections = new AtomicLong();
     
     public OllamaEmbeddingService() {
-        this.restTemplate = new RestTemplate();
         this.objectMapper = new ObjectMapper();
     }
     
+    @PostConstruct
+    public void init() {
+        restTemplate = OllamaBatchEmbeddingClient.createRestTemplate(connectTimeoutMs, readTimeoutMs);
+        
+        int threads = Math.max(1, queryThreads);
+        AtomicInteger threadCounter = new AtomicInteger();
+        queryExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ollama-query-" + threadCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+    
     /**
-     * Generate embeddings for text using Ollama
+     * Generate embeddings for text using Ollama, reusing a cached vector for text seen before
      */
-    public List<Double> generateEmbedding(String text) {
-        try {
-            log.info("Generating embedding for text (length: {})", text.length());
-            
-            // Check if Ollama is available first
-            if (!isOllamaAvailable()) {
-                log.warn("Ollama service not available, returning dummy embedding");
-                return generateDummyEmbedding();
-            }
-            
-            // Prepare request body
-            EmbeddingRequest request = new EmbeddingRequest(embeddingModel, text);
-            
-            // Set headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<EmbeddingRequest> httpEntity = new HttpEntity<>(request, headers);
-            
-            // Make request to Ollama
-            String url = ollamaUrl + "/api/embeddings";
-            ResponseEntity<EmbeddingResponse> response = restTemplate.exchange(
-                url, HttpMethod.POST, httpEntity, EmbeddingResponse.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                List<Double> embedding = response.getBody().getEmbedding();
-                log.info("Successfully generated embedding with {} dimensions", embedding.size());
+    public float[] generateEmbedding(String text) {
+        return generateEmbeddingAsync(text).join();
+    }
+    
+    /**
+     * Asynchronous variant: prompts submitted together are coalesced into one /api/embed
+     * call by the batch client. Never completes exceptionally; failures fall back to a dummy
+     * embedding like the synchronous path.
+     */
+    public CompletableFuture<float[]> generateEmbeddingAsync(String text) {
+        return requestEmbeddingAsync(text).thenApply(embedding -> {
+            if (embedding != null) {
                 return embedding;
-            } else {
-                throw new RuntimeException("Failed to generate embedding: " + response.getStatusCode());
             }
-            
-        } catch (Exception e) {
-            log.error("Error generating embedding: {}", e.getMessage());
             log.warn("Falling back to dummy embedding due to Ollama connection failure");
             return generateDummyEmbedding();
+        });
+    }
+    
+    /**
+     * Cache, circuit breaker and batch client in that order; completes with null when no real
+     * embedding could be produced so callers can choose their own fallback
+     */
+    private CompletableFuture<float[]> requestEmbeddingAsync(String text) {
+        float[] cached = embeddingCacheService.get(embeddingModel, text);
+        if (cached != null) {
+            log.info("Using cached embedding for text (length: {})", text.length());
+            return CompletableFuture.completedFuture(cached);
+        }
+        return requestUncachedEmbeddingAsync(text);
+    }
+    
+    /**
+     * Circuit breaker and batch client for text already known to miss the cache
+     */
+    private CompletableFuture<float[]> requestUncachedEmbeddingAsync(String text) {
+        // Fail fast while the circuit is open instead of waiting on a connect timeout
+        long permit = healthMonitor.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            if (healthMonitor.getState() == CircuitBreaker.State.HALF_OPEN) {
+                // Another call is the half-open trial: follow its outcome rather than dropping this one
+                return healthMonitor.awaitTrial().thenComposeAsync(closed -> closed
+                    ? requestUncachedEmbeddingAsync(text)
+                    : CompletableFuture.completedFuture(null));
+            }
+            log.warn("Ollama circuit is {}, skipping embedding request", healthMonitor.getState());
+            return CompletableFuture.completedFuture(null);
         }
+        
+        if (!batchEmbeddingClient.isEnabled()) {
+            return CompletableFuture.completedFuture(requestEmbedding(text, permit));
+        }
+        
+        log.info("Queueing embedding request for text (length: {})", text.length());
+        return batchEmbeddingClient.submit(text)
+            .thenApply(embedding -> {
+                healthMonitor.recordSuccess(permit);
+                log.info("Successfully generated embedding with {} dimensions", embedding.length);
+                embeddingCacheService.put(embeddingModel, text, embedding);
+                return embedding;
+            })
+            .exceptionally(e -> {
+                healthMonitor.recordError(permit, e);
+                log.error("Error generating embedding: {}", e.getMessage());
+                return null;
+            });
+    }
+    
+    /**
+     * One prompt per HTTP request through /api/embeddings (used when batching is disabled);
+     * returns null on failure. The outcome is recorded against the circuit breaker permit.
+     */
+    private float[] requestEmbedding(String text, long permit) {
+        try {
+            log.info("Generating embedding for text (length: {})", text.length());
+            float[] embedding = postEmbedding(text);
+            healthMonitor.recordSuccess(permit);
+            log.info("Successfully generated embedding with {} dimensions", embedding.length);
+            embeddingCacheService.put(embeddingModel, text, embedding);
+            return embedding;
+        } catch (Exception e) {
+            healthMonitor.recordError(permit, e);
+            log.error("Error generating embedding: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * The /api/embeddings call itself, without cache or circuit breaker bookkeeping
+     */
+    private float[] postEmbedding(String text) {
+        // Prepare request body
+        EmbeddingRequest request = new EmbeddingRequest(embeddingModel, text);
+        
+        // Set headers
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        HttpEntity<EmbeddingRequest> httpEntity = new HttpEntity<>(request, headers);
+        
+        // Make request to Ollama
+        String url = ollamaUrl + "/api/embeddings";
+        ResponseEntity<EmbeddingResponse> response = restTemplate.exchange(
+            url, HttpMethod.POST, httpEntity, EmbeddingResponse.class);
+        
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+            throw new RuntimeException("Failed to generate embedding: " + response.getStatusCode());
+        }
+        return response.getBody().getEmbedding();
     }
     
     /**
      * Generate a dummy embedding for fallback when Ollama is not available
      */
-    private List<Double> generateDummyEmbedding() {
+    private float[] generateDummyEmbedding() {
         // Return a 768-dimensional dummy embedding (typical size for nomic-embed-text)
-        List<Double> dummyEmbedding = new java.util.ArrayList<>();
-        for (int i = 0; i < 768; i++) {
-            dummyEmbedding.add(Math.random() * 0.1 - 0.05); // Small random values near zero
+        float[] dummyEmbedding = new float[768];
+        for (int i = 0; i < dummyEmbedding.length; i++) {
+            dummyEmbedding[i] = (float) (Math.random() * 0.1 - 0.05); // Small random values near zero
         }
-        log.info("Generated dummy embedding with {} dimensions", dummyEmbedding.size());
+        log.info("Generated dummy embedding with {} dimensions", dummyEmbedding.length);
         return dummyEmbedding;
     }
     
     /**
      * Generate embeddings for title text
      */
-    public List<Double> generateTitleEmbedding(String title) {
+    public float[] generateTitleEmbedding(String title) {
+        return generateTitleEmbeddingAsync(title).join();
+    }
+    
+    public CompletableFuture<float[]> generateTitleEmbeddingAsync(String title) {
         log.info("Generating title embedding for: {}", title);
-        return generateEmbedding("Title: " + title);
+        return generateEmbeddingAsync("Title: " + title);
     }
     
     /**
-     * Generate embeddings for document content
+     * Embedding of a search query; completes with null instead of a dummy vector when Ollama
+     * is unavailable, since random neighbours are worse than no semantic results.
+     *
+     * Queries are best effort and kept apart from the paper embedding path: they are neither
+     * written to the embedding cache (callers keep their own query cache) nor counted by the
+     * circuit breaker, and rather than queueing behind paper work they are turned away while
+     * the circuit is not closed or more than maxQueueDepth prompts are already waiting.
      */
-    public List<Double> generateDocumentEmbedding(String documentText) {
-        log.info("Generating document embedding for content (length: {})", documentText.length());
+    public CompletableFuture<float[]> generateQueryEmbeddingAsync(String query, int maxQueueDepth) {
+        if (healthMonitor.getState() != CircuitBreaker.State.CLOSED) {
+            queryRejections.incrementAndGet();
+            log.debug("Ollama circuit is {}, skipping query embedding", healthMonitor.getState());
+            return CompletableFuture.completedFuture(null);
+        }
         
-        // Truncate text if too long (Ollama has input limits)
-        String truncatedText = documentText.length() > 8000 ? 
+        if (!batchEmbeddingClient.isEnabled()) {
+            if (queryExecutor.getQueue().size() >= maxQueueDepth) {
+                queryRejections.incrementAndGet();
+                log.debug("{} queries already waiting, skipping query embedding", queryExecutor.getQueue().size());
+                return CompletableFuture.completedFuture(null);
+            }
+            try {
+                return CompletableFuture.supplyAsync(() -> postEmbedding(query), queryExecutor)
+                    .exceptionally(e -> {
+                        log.warn("Query embedding failed: {}", e.getMessage());
+                        return null;
+                    });
+            } catch (RejectedExecutionException e) {
+                queryRejections.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        
+        if (batchEmbeddingClient.getQueueDepth() >= maxQueueDepth) {
+            queryRejections.incrementAndGet();
+            log.debug("{} prompts already queued, skipping query embedding", batchEmbeddingClient.getQueueDepth());
+            return CompletableFuture.completedFuture(null);
+        }
+        return batchEmbeddingClient.submit(query).exceptionally(e -> {
+            log.warn("Query embedding failed: {}", e.getMessage());
+            return null;
+        });
+    }
+    
+    /**
+     * Query embeddings turned away because the circuit was not closed or the queue was deep
+     */
+    public long getQueryRejections() {
+        return queryRejections.get();
+    }
+    
+    /**
+     * Generate embeddings for document content (the pooled vector of the chunked embedding)
+     */
+    public float[] generateDocumentEmbedding(String documentText) {
+        return generateDocumentEmbeddingAsync(documentText).join();
+    }
+    
+    public CompletableFuture<float[]> generateDocumentEmbeddingAsync(String documentText) {
+        return generateChunkedDocumentEmbeddingAsync(documentText).thenApply(ChunkedDocumentEmbedding::getPooledEmbedding);
+    }
+    
+    /**
+     * One embedding of the first 8000 characters, the form document vectors had before
+     * chunking. Verification compares it against papers the backfill has not re-embedded yet,
+     * since a pooled vector is not comparable with a prefix vector. Completes with null when
+     * no real embedding could be produced.
+     */
+    public CompletableFuture<float[]> generatePrefixDocumentEmbeddingAsync(String documentText) {
+        String truncatedText = documentText.length() > 8000 ?
             documentText.substring(0, 8000) + "..." : documentText;
+        return requestEmbeddingAsync("Document: " + truncatedText);
+    }
+    
+    /**
+     * Embed the whole document as overlapping windows instead of only its first 8000
+     * characters. All windows are submitted at once so the batch client packs them into
+     * parallel /api/embed calls; the pooled vector is the mean of the L2-normalized chunk
+     * vectors. Windows that fail are dropped, and if none succeed the pooled vector is the
+     * usual dummy fallback with no chunks.
+     */
+    public CompletableFuture<ChunkedDocumentEmbedding> generateChunkedDocumentEmbeddingAsync(String documentText) {
+        List<TextChunker.TextChunk> chunks = documentChunks(documentText);
+        log.info("Generating document embedding for content (length: {}) in {} chunks", documentText.length(), chunks.size());
+        if (chunkingEnabled && chunks.size() >= maxChunks && chunks.get(0).getText().length() > chunkSize) {
+            log.warn("⚠️ Document of {} characters exceeds {} chunks, windows widened to ~{} characters",
+                documentText.length(), maxChunks, chunks.get(0).getText().length());
+        }
+        
+        List<String> prompts = new ArrayList<>(chunks.size());
+        for (TextChunker.TextChunk chunk : chunks) {
+            prompts.add("Document: " + chunk.getText());
+        }
+        
+        // One cache lookup for all windows, then only the misses go to Ollama
+        float[][] cached = embeddingCacheService.getAll(embeddingModel, prompts);
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(chunks.size());
+        int hits = 0;
+        for (int i = 0; i < prompts.size(); i++) {
+            if (cached[i] != null) {
+                futures.add(CompletableFuture.completedFuture(cached[i]));
+                hits++;
+            } else {
+                futures.add(requestUncachedEmbeddingAsync(prompts.get(i)));
+            }
+        }
+        if (hits > 0) {
+            log.info("Using cached embeddings for {} of {} document chunks", hits, chunks.size());
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<EmbeddedChunk> embedded = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                float[] embedding = futures.get(i).join();
+                if (embedding != null && embedding.length > 0) {
+                    embedded.add(new EmbeddedChunk(chunks.get(i), embedding));
+                }
+            }
             
-        return generateEmbedding("Document: " + truncatedText);
+            if (embedded.isEmpty()) {
+                log.warn("Falling back to dummy embedding due to Ollama connection failure");
+                return new ChunkedDocumentEmbedding(generateDummyEmbedding(), embedded);
+            }
+            if (embedded.size() < chunks.size()) {
+                log.warn("⚠️ {} of {} document chunks could not be embedded", chunks.size() - embedded.size(), chunks.size());
+            }
+            return new ChunkedDocumentEmbedding(poolChunks(embedded), embedded);
+        });
     }
     
     /**
-     * Check if Ollama service is available
+     * Forget the cached embeddings of a deleted paper's title and document chunks
+     */
+    public void evictCachedEmbeddings(String title, String documentText) {
+        List<String> texts = new ArrayList<>();
+        if (title != null) {
+            texts.add("Title: " + title);
+        }
+        if (documentText != null && !documentText.isEmpty()) {
+            for (TextChunker.TextChunk chunk : documentChunks(documentText)) {
+                texts.add("Document: " + chunk.getText());
+            }
+        }
+        embeddingCacheService.evict(embeddingModel, texts);
+    }
+    
+    private List<TextChunker.TextChunk> documentChunks(String documentText) {
+        return chunkingEnabled
+            ? TextChunker.split(documentText, chunkSize, chunkOverlap, maxChunks)
+            : TextChunker.split(documentText.length() > 8000 ? documentText.substring(0, 8000) : documentText,
+                8000, 0, 1);
+    }
+    
+    /**
+     * Mean of the normalized chunk vectors (a single chunk is returned as-is)
+     */
+    private float[] poolChunks(List<EmbeddedChunk> embedded) {
+        if (embedded.size() == 1) {
+            return embedded.get(0).getEmbedding();
+        }
+        int dimension = embedded.get(0).getEmbedding().length;
+        float[] pooled = new float[dimension];
+        int used = 0;
+        for (EmbeddedChunk chunk : embedded) {
+            float[] vector = chunk.getEmbedding();
+            float norm = VectorMath.norm(vector);
+            if (vector.length != dimension || norm == 0.0f) {
+                continue;
+            }
+            for (int i = 0; i < dimension; i++) {
+                pooled[i] += vector[i] / norm;
+            }
+            used++;
+        }
+        if (used > 0) {
+            for (int i = 0; i < dimension; i++) {
+                pooled[i] /= used;
+            }
+        }
+        return pooled;
+    }
+    
+    /**
+     * Check if Ollama service is available (cached state from the health monitor, no network call)
      */
     public boolean isOllamaAvailable() {
-        try {
-            String url = ollamaUrl + "/api/tags";
-            ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-            return response.getStatusCode() == HttpStatus.OK;
-        } catch (Exception e) {
-            log.warn("Ollama service not available at {}: {}", ollamaUrl, e.getMessage());
-            return false;
+        return healthMonitor.isAvailable();
+    }
+    
+    /**
+     * Pooled document vector plus the chunks that were embedded successfully
+     */
+    public static class ChunkedDocumentEmbedding {
+        private final float[] pooledEmbedding;
+        private final List<EmbeddedChunk> chunks;
+        
+        public ChunkedDocumentEmbedding(float[] pooledEmbedding, List<EmbeddedChunk> chunks) {
+            this.pooledEmbedding = pooledEmbedding;
+            this.chunks = chunks;
         }
+        
+        public float[] getPooledEmbedding() { return pooledEmbedding; }
+        public List<EmbeddedChunk> getChunks() { return chunks; }
+        
+        public List<float[]> getChunkEmbeddings() {
+            List<float[]> vectors = new ArrayList<>(chunks.size());
+            for (EmbeddedChunk chunk : chunks) {
+                vectors.add(chunk.getEmbedding());
+            }
+            return vectors;
+        }
+    }
+    
+    public static class EmbeddedChunk {
+        private final TextChunker.TextChunk chunk;
+        private final float[] embedding;
+        
+        public EmbeddedChunk(TextChunker.TextChunk chunk, float[] embedding) {
+            this.chunk = chunk;
+            this.embedding = embedding;
+        }
+        
+        public TextChunker.TextChunk getChunk() { return chunk; }
+        public float[] getEmbedding() { return embedding; }
     }
     
     // Request/Response DTOs
@@ -138,9 +482,9 @@ public class OllamaEmbeddingService {
     
     static class EmbeddingResponse {
         @JsonProperty("embedding")
-        private List<Double> embedding;
+        private float[] embedding;
         
-        public List<Double> getEmbedding() { return embedding; }
-        public void setEmbedding(List<Double> embedding) { this.embedding = embedding; }
+        public float[] getEmbedding() { return embedding; }
+        public void setEmbedding(float[] embedding) { this.embedding = embedding; }
     }
 }
\ No newline at end of file
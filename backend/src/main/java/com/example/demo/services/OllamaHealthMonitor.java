@@ -0,0 +1,231 @@
+package com.example.demo.services;
+
+import com.example.demo.utils.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Background health monitor and circuit breaker for the Ollama server.
+ *
+ * A daemon thread probes /api/tags on a fixed interval so request paths read a cached
+ * flag instead of paying a round trip per embedding. After enough consecutive failures
+ * (probes or real calls) the {@link CircuitBreaker} opens and embedding calls fail fast;
+ * once the backoff expires it goes half-open and lets a single trial through. A success
+ * closes it, a failure re-opens it with the backoff doubled up to the configured maximum.
+ *
+ * Calls hold the permit {@link #tryAcquire()} gave them and hand it back with their outcome,
+ * so a call admitted before the last state change cannot decide the current one. Only
+ * transport errors, 5xx responses and requests that timed out after being sent count as
+ * failures; work Ollama never saw (a full queue, a shutdown) does not. Callers turned away
+ * while a half-open trial is running can wait for its outcome instead of giving up, see
+ * {@link #awaitTrial()}.
+ */
+@Service
+public class OllamaHealthMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaHealthMonitor.class);
+
+    @Value("${ollama.url:http://localhost:11434}")
+    private String ollamaUrl;
+
+    @Value("${ollama.health.interval-ms:15000}")
+    private long probeIntervalMs;
+
+    @Value("${ollama.health.timeout-ms:2000}")
+    private int probeTimeoutMs;
+
+    @Value("${ollama.health.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${ollama.health.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${ollama.health.max-backoff-ms:120000}")
+    private long maxBackoffMs;
+
+    private RestTemplate probeTemplate;
+    private ScheduledExecutorService prober;
+    private CircuitBreaker breaker;
+
+    private volatile Instant lastProbeAt;
+    private volatile Instant lastSuccessAt;
+    private volatile String lastError;
+    private volatile long lastProbeLatencyMs = -1L;
+
+    @PostConstruct
+    public void start() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(probeTimeoutMs);
+        requestFactory.setReadTimeout(probeTimeoutMs);
+        probeTemplate = new RestTemplate(requestFactory);
+        breaker = new CircuitBreaker(failureThreshold, initialBackoffMs, maxBackoffMs, System::currentTimeMillis);
+
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ollama-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Short tick so an expired backoff is noticed promptly; probes themselves honour the interval
+        prober.scheduleWithFixedDelay(this::tick, 0, Math.min(1000L, probeIntervalMs), TimeUnit.MILLISECONDS);
+        log.info("🩺 Ollama health monitor started (probe every {} ms, open after {} failures)",
+            probeIntervalMs, failureThreshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    /**
+     * Cached availability: false only while the breaker is open
+     */
+    public boolean isAvailable() {
+        return breaker.getState() != CircuitBreaker.State.OPEN;
+    }
+
+    public CircuitBreaker.State getState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Permit for an embedding call to Ollama now, or {@link CircuitBreaker#REJECTED}. Open
+     * rejects until the backoff has expired; half-open admits exactly one trial until its
+     * outcome is recorded.
+     */
+    public long tryAcquire() {
+        return breaker.tryAcquire();
+    }
+
+    public void recordSuccess(long permit) {
+        lastSuccessAt = Instant.now();
+        lastError = null;
+        if (breaker.recordSuccess(permit) == CircuitBreaker.State.CLOSED) {
+            log.info("✅ Ollama reachable again at {}, circuit closed", ollamaUrl);
+        }
+    }
+
+    /**
+     * Record a failed call, counting it against the breaker only when Ollama itself failed
+     */
+    public void recordError(long permit, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (isOllamaFailure(cause)) {
+            recordFailure(permit, cause);
+        } else {
+            // Not Ollama's fault, but a half-open trial that ended this way must free the slot
+            breaker.release(permit);
+        }
+    }
+
+    /**
+     * Transport errors (including read timeouts), 5xx responses and send-time deadlines
+     */
+    static boolean isOllamaFailure(Throwable error) {
+        return error instanceof ResourceAccessException
+            || error instanceof HttpServerErrorException
+            || error instanceof TimeoutException;
+    }
+
+    /**
+     * Completes with true once the breaker is closed and false once it is open again; while
+     * half-open it stays pending until the trial call has an outcome
+     */
+    public CompletableFuture<Boolean> awaitTrial() {
+        return breaker.awaitTrial();
+    }
+
+    public void recordFailure(long permit, Throwable error) {
+        lastError = error != null ? error.getMessage() : "unknown error";
+        if (breaker.recordFailure(permit) == CircuitBreaker.State.OPEN) {
+            log.warn("🔌 Ollama unavailable at {} ({}), circuit open for {} ms",
+                ollamaUrl, lastError, breaker.getCurrentBackoffMs());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        CircuitBreaker.State state = breaker.getState();
+        status.put("url", ollamaUrl);
+        status.put("state", state.name());
+        status.put("available", state != CircuitBreaker.State.OPEN);
+        status.put("consecutiveFailures", breaker.getConsecutiveFailures());
+        status.put("currentBackoffMs", breaker.getCurrentBackoffMs());
+        status.put("rejectedRequests", breaker.getRejectedRequests());
+        status.put("stateTransitions", breaker.getStateTransitions());
+        status.put("lastProbeLatencyMs", lastProbeLatencyMs);
+        status.put("lastStateChangeAt", Instant.ofEpochMilli(breaker.getLastStateChangeAt()).toString());
+        if (state == CircuitBreaker.State.OPEN) {
+            status.put("retryInMs", breaker.getRetryInMs());
+        }
+        if (lastProbeAt != null) {
+            status.put("lastProbeAt", lastProbeAt.toString());
+        }
+        if (lastSuccessAt != null) {
+            status.put("lastSuccessAt", lastSuccessAt.toString());
+        }
+        if (lastError != null) {
+            status.put("lastError", lastError);
+        }
+        return status;
+    }
+
+    private void tick() {
+        try {
+            CircuitBreaker.State current = breaker.getState();
+            if (current == CircuitBreaker.State.CLOSED && lastProbeAt != null
+                && System.currentTimeMillis() - lastProbeAt.toEpochMilli() < probeIntervalMs) {
+                return;
+            }
+            // Open: once the backoff expired the probe is the half-open trial unless a request
+            // already took it; half-open: only while no trial is running
+            long permit = breaker.tryAcquire(false);
+            if (permit == CircuitBreaker.REJECTED) {
+                return;
+            }
+            probe(permit);
+        } catch (Exception e) {
+            log.error("Ollama health probe error: {}", e.getMessage());
+        }
+    }
+
+    private void probe(long permit) {
+        long started = System.nanoTime();
+        lastProbeAt = Instant.now();
+        try {
+            ResponseEntity<String> response = probeTemplate.getForEntity(ollamaUrl + "/api/tags", String.class);
+            lastProbeLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            if (response.getStatusCode() == HttpStatus.OK) {
+                recordSuccess(permit);
+            } else {
+                recordFailure(permit, new IllegalStateException("Health probe returned " + response.getStatusCode()));
+            }
+        } catch (Exception e) {
+            lastProbeLatencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.debug("Ollama health probe failed: {}", e.getMessage());
+            recordFailure(permit, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.services;
 
+import com.example.demo.utils.TextNormalizer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
@@ -28,7 +29,7 @@ public class PDFTextExtractorService {
                 String text = stripper.getText(document);
                 
                 // Clean up the text
-                text = cleanText(text);
+                text = TextNormalizer.clean(text);
                 
                 log.info("Successfully extracted {} characters from PDF", text.length());
                 return text;
@@ -39,24 +40,4 @@ public class PDFTextExtractorService {
             throw new IOException("Failed to extract text from PDF", e);
         }
     }
-    
-    /**
-     * Clean extracted text
-     */
-    private String cleanText(String text) {
-        if (text == null) {
-            return "";
-        }
-        
-        // Remove excessive whitespace and normalize line breaks
-        text = text.replaceAll("\\s+", " ");
-        text = text.replaceAll("\\r\\n", " ");
-        text = text.replaceAll("\\n", " ");
-        text = text.replaceAll("\\r", " ");
-        
-        // Remove special characters that might interfere with embedding generation
-        text = text.replaceAll("[\\x00-\\x1F\\x7F]", "");
-        
-        return text.trim();
-    }
 }
\ No newline at end of file
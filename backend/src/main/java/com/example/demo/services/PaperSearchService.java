@@ -0,0 +1,278 @@
+package com.example.demo.services;
+
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.Highlighter;
+import com.example.demo.utils.PrefixIndex;
+import com.example.demo.utils.TextNormalizer;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Public paper search over the weighted text index of research_papers.
+ *
+ * Queries go through Mongo's $text operator, so matching walks the index entries of the
+ * query's stemmed terms instead of running a regex over every title and abstract. Results
+ * are ranked by text score (title and keywords weigh most, see {@link ResearchPaper}) and
+ * paged; the returned page gets highlighted titles and an abstract snippet around the first
+ * hit. Type-ahead completion is answered from an in-memory dictionary of title words and
+ * keywords of viewable papers, built on startup and kept current from the upload, approval
+ * and viewability paths.
+ */
+@Service
+public class PaperSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperSearchService.class);
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "the", "and", "for", "with", "from", "into", "onto", "over", "under", "using", "based",
+        "its", "are", "was", "were", "this", "that", "these", "those", "via", "towards", "toward"
+    ));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${search.max-page-size:50}")
+    private int maxPageSize;
+
+    @Value("${search.snippet-length:200}")
+    private int snippetLength;
+
+    @Value("${search.completion.enabled:true}")
+    private boolean completionEnabled;
+
+    @Value("${search.completion.max-scan:500}")
+    private int completionMaxScan;
+
+    private PrefixIndex completions;
+    private volatile boolean completionReady = false;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong suggestions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        completions = new PrefixIndex(completionMaxScan);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!completionEnabled) {
+            log.info("Search completion disabled");
+            return;
+        }
+        Thread builder = new Thread(this::rebuildCompletions, "search-completion-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Reload the completion dictionary from the titles and keywords of viewable papers,
+     * dropping papers that were deleted or hidden since it was built
+     */
+    public void rebuildCompletions() {
+        try {
+            long start = System.currentTimeMillis();
+            Query query = Query.query(Criteria.where("viewable").is(true));
+            query.fields().include("title").include("keywords").include("viewable");
+
+            Map<String, Set<String>> papers = new HashMap<>();
+            for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+                papers.put(paper.getId(), completionTerms(paper));
+            }
+            completions.replaceAll(papers);
+            completionReady = true;
+            log.info("✅ Search completion ready: {} terms from {} papers in {} ms",
+                completions.size(), papers.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("⚠️ Failed to build search completion: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add, replace or drop a paper's completion terms after it has been saved
+     */
+    public void addPaper(ResearchPaper paper) {
+        if (!completionEnabled || paper == null || paper.getId() == null) {
+            return;
+        }
+        if (Boolean.TRUE.equals(paper.getViewable())) {
+            completions.put(paper.getId(), completionTerms(paper));
+        } else {
+            completions.remove(paper.getId());
+        }
+    }
+
+    /**
+     * Drop a deleted paper's completion terms
+     */
+    public void removePaper(String paperId) {
+        if (paperId != null) {
+            completions.remove(paperId);
+        }
+    }
+
+    /**
+     * Viewable papers matching the query, best first, with highlights
+     *
+     * @param department optional case-insensitive department filter
+     */
+    public SearchPage search(String queryText, String department, int page, int size) {
+        searches.incrementAndGet();
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+        int pageNumber = Math.max(0, page);
+
+        Query query = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(queryText)).sortByScore();
+        query.addCriteria(Criteria.where("viewable").is(true));
+        if (department != null && !department.trim().isEmpty()) {
+            query.addCriteria(Criteria.where("department").regex(Pattern.quote(department.trim()), "i"));
+        }
+        long total = mongoTemplate.count(query, ResearchPaper.class);
+
+        // _id after the score keeps pages stable for equal scores
+        query.with(PageRequest.of(pageNumber, limit, Sort.by(Sort.Order.desc("_id"))));
+        for (String excluded : Document.parse(ResearchPaperRepository.SUMMARY_FIELDS).keySet()) {
+            query.fields().exclude(excluded);
+        }
+
+        Set<String> terms = Highlighter.queryTerms(queryText);
+        List<SearchHit> hits = new ArrayList<>();
+        for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+            hits.add(toHit(paper, paper.getScore() != null ? paper.getScore() : 0.0f, terms));
+        }
+        return new SearchPage(hits, pageNumber, limit, total);
+    }
+
+    /**
+     * A paper found some other way, highlighted for the query like a text search result
+     */
+    public SearchHit highlight(ResearchPaper paper, float score, String queryText) {
+        return toHit(paper, score, Highlighter.queryTerms(queryText));
+    }
+
+    private SearchHit toHit(ResearchPaper paper, float score, Set<String> terms) {
+        return new SearchHit(paper, score,
+            Highlighter.highlight(paper.getTitle(), terms),
+            Highlighter.snippet(paper.getAbstractText(), terms, snippetLength));
+    }
+
+    /**
+     * Completions of a partially typed word or keyword, most common first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        suggestions.incrementAndGet();
+        String normalized = TextNormalizer.forComparison(prefix);
+        if (normalized.isEmpty() || !completionEnabled) {
+            return new ArrayList<>();
+        }
+        return completions.complete(normalized, Math.max(1, Math.min(limit, maxPageSize)));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("searches", searches.get());
+        stats.put("suggestions", suggestions.get());
+        stats.put("completionEnabled", completionEnabled);
+        stats.put("completionReady", completionReady);
+        stats.put("completionTerms", completions.size());
+        stats.put("completionPapers", completions.documentCount());
+        return stats;
+    }
+
+    /**
+     * Title words and whole keywords, normalized the same way as completion prefixes
+     */
+    private static Set<String> completionTerms(ResearchPaper paper) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (paper.getTitle() != null) {
+            for (String word : TextNormalizer.forComparison(paper.getTitle()).split(" ")) {
+                if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                    terms.add(word);
+                }
+            }
+        }
+        if (paper.getKeywords() != null) {
+            for (String keyword : paper.getKeywords()) {
+                String normalized = TextNormalizer.forComparison(keyword);
+                if (normalized.length() >= 2) {
+                    terms.add(normalized);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * One ranked, highlighted result
+     */
+    public static class SearchHit {
+        private final ResearchPaper paper;
+        private final float score;
+        private final String highlightedTitle;
+        private final String snippet;
+
+        public SearchHit(ResearchPaper paper, float score, String highlightedTitle, String snippet) {
+            this.paper = paper;
+            this.score = score;
+            this.highlightedTitle = highlightedTitle;
+            this.snippet = snippet;
+        }
+
+        public ResearchPaper getPaper() { return paper; }
+        public float getScore() { return score; }
+        /** HTML-escaped title with matches in &lt;mark&gt; */
+        public String getHighlightedTitle() { return highlightedTitle; }
+        /** HTML-escaped abstract excerpt with matches in &lt;mark&gt;, null without an abstract */
+        public String getSnippet() { return snippet; }
+    }
+
+    /**
+     * One page of search results
+     */
+    public static class SearchPage {
+        private final List<SearchHit> hits;
+        private final int page;
+        private final int size;
+        private final long total;
+
+        public SearchPage(List<SearchHit> hits, int page, int size, long total) {
+            this.hits = hits;
+            this.page = page;
+            this.size = size;
+            this.total = total;
+        }
+
+        public List<SearchHit> getHits() { return hits; }
+        public int getPage() { return page; }
+        public int getSize() { return size; }
+        public long getTotal() { return total; }
+        public int getTotalPages() { return (int) ((total + size - 1) / size); }
+        public boolean hasNext() { return (long) (page + 1) * size < total; }
+    }
+}
\ No newline at end of file
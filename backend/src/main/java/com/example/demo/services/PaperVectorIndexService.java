@@ -0,0 +1,566 @@
+package com.example.demo.services;
+
+import com.example.demo.models.PaperChunkEmbedding;
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.PaperChunkEmbeddingRepository;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.HnswIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Approximate nearest-neighbour index over the embeddings of all research papers.
+ * Used by thesis verification to pick the top-k candidates before the full scoring runs,
+ * so verification cost no longer grows linearly with the corpus. A third graph holds the
+ * per-chunk document vectors for passage-level matching across the whole text. Graphs whose
+ * share of removed or replaced vectors passes the compaction ratio are rebuilt in the
+ * background, since tombstones degrade recall. Papers whose document vector still has the
+ * legacy prefix form are tracked so document neighbours are only taken from vectors of the
+ * same kind as the query.
+ */
+@Service
+public class PaperVectorIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaperVectorIndexService.class);
+
+    @Autowired
+    private ResearchPaperRepository researchPaperRepository;
+
+    @Autowired
+    private SimilarityService similarityService;
+
+    @Autowired
+    private EmbeddingSegmentService embeddingSegmentService;
+
+    @Autowired
+    private PaperChunkEmbeddingRepository paperChunkRepository;
+
+    @Value("${verification.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.index.candidates:50}")
+    private int candidateCount;
+
+    @Value("${verification.index.hnsw.m:16}")
+    private int hnswM;
+
+    @Value("${verification.index.hnsw.ef-construction:200}")
+    private int hnswEfConstruction;
+
+    @Value("${verification.index.hnsw.ef-search:100}")
+    private int hnswEfSearch;
+
+    @Value("${verification.chunks.enabled:true}")
+    private boolean chunksEnabled;
+
+    @Value("${verification.chunks.neighbours:10}")
+    private int chunkNeighbours;
+
+    @Value("${verification.index.compact-ratio:0.2}")
+    private double compactRatio;
+
+    private volatile IndexSnapshot snapshot;
+    private volatile boolean ready = false;
+
+    // Papers saved while a rebuild is running; replayed into the new snapshot before it is swapped in
+    private List<ResearchPaper> pendingDuringRebuild;
+    private Map<String, List<PaperChunkEmbedding>> pendingChunksDuringRebuild;
+    private Set<String> pendingRemovalsDuringRebuild;
+
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+    /**
+     * Build the index in the background once the application is up, so startup is not blocked
+     * on reading the whole collection
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Paper vector index disabled, verification will scan all papers");
+            return;
+        }
+
+        Thread builder = new Thread(this::rebuild, "paper-vector-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Rebuild the index from all papers that have embeddings, reading vectors from the
+     * embedding segment file when it is available instead of the whole collection
+     */
+    public void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+            pendingChunksDuringRebuild = new HashMap<>();
+            pendingRemovalsDuringRebuild = new HashSet<>();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            log.info("🔨 Building paper vector index...");
+
+            IndexSnapshot fresh = newSnapshot();
+            String source;
+            if (embeddingSegmentService.load()) {
+                embeddingSegmentService.forEachPaper(fresh::add);
+                // The segment does not record the vector kind
+                try (Stream<ResearchPaper> legacy = researchPaperRepository.streamPrefixEmbeddingIds()) {
+                    legacy.forEach(paper -> fresh.markPrefix(paper.getId()));
+                }
+                source = "embedding segment";
+            } else {
+                try (Stream<ResearchPaper> papers = researchPaperRepository.streamPapersWithEmbeddings()) {
+                    papers.forEach(fresh::add);
+                }
+                source = "database";
+            }
+
+            if (chunksEnabled) {
+                try (Stream<PaperChunkEmbedding> chunks = paperChunkRepository.streamAll()) {
+                    chunks.forEach(fresh::addChunk);
+                } catch (Exception e) {
+                    log.warn("⚠️ Could not load document chunks, chunk-level matching disabled until next rebuild: {}",
+                            e.getMessage());
+                }
+            }
+
+            synchronized (this) {
+                for (ResearchPaper paper : pendingDuringRebuild) {
+                    fresh.add(paper);
+                }
+                for (Map.Entry<String, List<PaperChunkEmbedding>> entry : pendingChunksDuringRebuild.entrySet()) {
+                    fresh.replaceChunks(entry.getKey(), entry.getValue());
+                }
+                for (String paperId : pendingRemovalsDuringRebuild) {
+                    fresh.remove(paperId);
+                }
+                pendingDuringRebuild = null;
+                pendingChunksDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+                snapshot = fresh;
+                ready = true;
+            }
+
+            log.info("✅ Paper vector index ready: {} papers and {} chunks indexed from {} in {} ms",
+                    fresh.documentIndex.size(), fresh.chunkIndex.size(), source, System.currentTimeMillis() - start);
+            embeddingSegmentService.releaseQuantizedCodes();
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+                pendingChunksDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+            }
+            log.error("❌ Failed to build paper vector index, verification will scan all papers: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add or replace a paper in the index after it has been saved
+     */
+    public void addPaper(ResearchPaper paper) {
+        if (!enabled || paper == null || paper.getId() == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(paper);
+                pendingRemovalsDuringRebuild.remove(paper.getId());
+            }
+            if (snapshot != null) {
+                snapshot.add(paper);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Replace the chunk vectors of a paper after they have been saved
+     */
+    public void addChunks(String paperId, List<PaperChunkEmbedding> chunks) {
+        if (!enabled || !chunksEnabled || paperId == null || chunks == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingChunksDuringRebuild != null) {
+                pendingChunksDuringRebuild.put(paperId, chunks);
+            }
+            if (snapshot != null) {
+                snapshot.replaceChunks(paperId, chunks);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Remove a paper and its chunks from the index after it has been deleted
+     */
+    public void removePaper(String paperId) {
+        if (!enabled || paperId == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.removeIf(paper -> paperId.equals(paper.getId()));
+                pendingChunksDuringRebuild.remove(paperId);
+                pendingRemovalsDuringRebuild.add(paperId);
+            }
+            if (snapshot != null) {
+                snapshot.remove(paperId);
+            }
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * Rebuild, on a background thread, each graph whose tombstone ratio passed the threshold
+     */
+    private void compactIfNeeded() {
+        IndexSnapshot current = snapshot;
+        if (current == null || !current.needsCompaction(compactRatio) || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread compactor = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                int compacted = current.compact(compactRatio);
+                log.info("✅ Compacted {} paper vector graphs in {} ms", compacted, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.warn("⚠️ Failed to compact paper vector index: {}", e.getMessage());
+            } finally {
+                compacting.set(false);
+            }
+        }, "paper-vector-index-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Number of papers with embeddings currently indexed
+     */
+    public int size() {
+        IndexSnapshot current = snapshot;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Number of indexed papers whose document vector has not been re-embedded in chunks yet
+     */
+    public int prefixPaperCount() {
+        IndexSnapshot current = snapshot;
+        return current != null ? current.prefixCount() : 0;
+    }
+
+    /**
+     * Candidate paper IDs for a verification: top-k neighbours by document embedding,
+     * top-k by title embedding, plus any paper whose normalized title is identical. The pooled
+     * query vector only selects papers with chunked vectors and the prefix query vector (may be
+     * null) only papers that still have legacy ones.
+     */
+    public Set<String> findCandidateIds(String title, float[] titleEmbedding, float[] documentEmbedding,
+                                        float[] prefixDocumentEmbedding) {
+        IndexSnapshot current = snapshot;
+        if (current == null) {
+            return Collections.emptySet();
+        }
+
+        Set<String> candidates = new LinkedHashSet<>();
+
+        if (documentEmbedding != null && documentEmbedding.length > 0) {
+            for (HnswIndex.SearchResult result : current.documentIndex.search(documentEmbedding, candidateCount)) {
+                if (!current.isPrefix(result.getKey())) {
+                    candidates.add(result.getKey());
+                }
+            }
+        }
+
+        if (prefixDocumentEmbedding != null && prefixDocumentEmbedding.length > 0 && current.prefixCount() > 0) {
+            for (HnswIndex.SearchResult result : current.documentIndex.search(prefixDocumentEmbedding, candidateCount)) {
+                if (current.isPrefix(result.getKey())) {
+                    candidates.add(result.getKey());
+                }
+            }
+        }
+
+        if (titleEmbedding != null && titleEmbedding.length > 0) {
+            for (HnswIndex.SearchResult result : current.titleIndex.search(titleEmbedding, candidateCount)) {
+                candidates.add(result.getKey());
+            }
+        }
+
+        if (title != null) {
+            candidates.addAll(current.idsForTitle(similarityService.normalizeTitle(title)));
+        }
+
+        log.debug("Vector index returned {} candidates out of {} indexed papers", candidates.size(), current.size());
+        return candidates;
+    }
+
+    /**
+     * Papers nearest to a query vector by document embedding, most similar first
+     */
+    public List<HnswIndex.SearchResult> searchDocuments(float[] query, int k) {
+        IndexSnapshot current = snapshot;
+        if (current == null || query == null) {
+            return Collections.emptyList();
+        }
+        return current.documentIndex.search(query, k);
+    }
+
+    /**
+     * Papers nearest to a query vector by title embedding, most similar first
+     */
+    public List<HnswIndex.SearchResult> searchTitles(float[] query, int k) {
+        IndexSnapshot current = snapshot;
+        if (current == null || query == null) {
+            return Collections.emptyList();
+        }
+        return current.titleIndex.search(query, k);
+    }
+
+    /**
+     * Passage-level matching: for every query chunk the nearest indexed chunks, reduced to
+     * the best chunk-to-chunk cosine similarity per paper
+     */
+    public Map<String, Float> findChunkMatches(List<float[]> queryChunks) {
+        IndexSnapshot current = snapshot;
+        Map<String, Float> bestByPaper = new HashMap<>();
+        if (!chunksEnabled || current == null || queryChunks == null || current.chunkIndex.size() == 0) {
+            return bestByPaper;
+        }
+
+        for (float[] queryChunk : queryChunks) {
+            if (queryChunk == null || queryChunk.length != current.chunkIndex.getDimension()) {
+                continue;
+            }
+            for (HnswIndex.SearchResult result : current.chunkIndex.search(queryChunk, chunkNeighbours)) {
+                bestByPaper.merge(paperIdOfChunk(result.getKey()), result.getSimilarity(), Math::max);
+            }
+        }
+
+        log.debug("Chunk index matched {} query chunks against {} papers", queryChunks.size(), bestByPaper.size());
+        return bestByPaper;
+    }
+
+    /**
+     * Number of document chunks currently indexed
+     */
+    public int chunkCount() {
+        IndexSnapshot current = snapshot;
+        return current != null ? current.chunkIndex.size() : 0;
+    }
+
+    private static String chunkKey(String paperId, int chunkIndex) {
+        return paperId + "#" + chunkIndex;
+    }
+
+    private static String paperIdOfChunk(String chunkKey) {
+        return chunkKey.substring(0, chunkKey.lastIndexOf('#'));
+    }
+
+    private IndexSnapshot newSnapshot() {
+        return new IndexSnapshot(
+            new HnswIndex(hnswM, hnswEfConstruction, hnswEfSearch),
+            new HnswIndex(hnswM, hnswEfConstruction, hnswEfSearch),
+            new HnswIndex(hnswM, hnswEfConstruction, hnswEfSearch));
+    }
+
+    /**
+     * Document, title and chunk indexes plus an exact-title lookup, swapped as a unit on rebuild
+     */
+    private class IndexSnapshot {
+        final HnswIndex documentIndex;
+        final HnswIndex titleIndex;
+        final HnswIndex chunkIndex;
+        final Map<String, Set<String>> idsByTitle = new HashMap<>();
+        final Map<String, String> titleById = new HashMap<>();
+        final Map<String, Integer> chunkCountByPaper = new HashMap<>();
+        final Set<String> prefixIds = new HashSet<>();
+
+        IndexSnapshot(HnswIndex documentIndex, HnswIndex titleIndex, HnswIndex chunkIndex) {
+            this.documentIndex = documentIndex;
+            this.titleIndex = titleIndex;
+            this.chunkIndex = chunkIndex;
+        }
+
+        void add(ResearchPaper paper) {
+            String normalizedTitle = paper.getTitle() != null ? similarityService.normalizeTitle(paper.getTitle()) : null;
+            add(paper.getId(), normalizedTitle, paper.getDocumentEmbedding(), paper.getTitleEmbedding());
+            boolean hasVector = paper.getDocumentEmbedding() != null && paper.getDocumentEmbedding().length > 0;
+            synchronized (prefixIds) {
+                if (!hasVector || paper.hasChunkedDocumentEmbedding()) {
+                    prefixIds.remove(paper.getId());
+                } else {
+                    prefixIds.add(paper.getId());
+                }
+            }
+        }
+
+        void markPrefix(String paperId) {
+            synchronized (prefixIds) {
+                prefixIds.add(paperId);
+            }
+        }
+
+        boolean isPrefix(String paperId) {
+            synchronized (prefixIds) {
+                return prefixIds.contains(paperId);
+            }
+        }
+
+        int prefixCount() {
+            synchronized (prefixIds) {
+                return prefixIds.size();
+            }
+        }
+
+        /**
+         * Index or re-index a paper; whatever it was indexed with before and no longer has
+         * (a vector, a title) is dropped, so a paper re-added without a vector leaves the index
+         */
+        void add(String paperId, String normalizedTitle, float[] documentVector, float[] titleVector) {
+            if (documentVector == null || documentVector.length == 0) {
+                removeVectors(paperId);
+                return;
+            }
+
+            try {
+                documentIndex.add(paperId, documentVector);
+
+                if (titleVector != null && titleVector.length > 0) {
+                    titleIndex.add(paperId, titleVector);
+                } else {
+                    titleIndex.remove(paperId);
+                }
+
+                synchronized (idsByTitle) {
+                    removeTitle(paperId);
+                    if (normalizedTitle != null && !normalizedTitle.isEmpty()) {
+                        idsByTitle.computeIfAbsent(normalizedTitle, k -> new HashSet<>()).add(paperId);
+                        titleById.put(paperId, normalizedTitle);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping paper {} in vector index: {}", paperId, e.getMessage());
+                removeVectors(paperId);
+            }
+        }
+
+        void addChunk(PaperChunkEmbedding chunk) {
+            if (chunk.getPaperId() == null || chunk.getEmbedding() == null || chunk.getEmbedding().length == 0) {
+                return;
+            }
+
+            try {
+                chunkIndex.add(chunkKey(chunk.getPaperId(), chunk.getChunkIndex()), chunk.getEmbedding());
+                synchronized (chunkCountByPaper) {
+                    chunkCountByPaper.merge(chunk.getPaperId(), chunk.getChunkIndex() + 1, Math::max);
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping chunk {} of paper {} in vector index: {}",
+                        chunk.getChunkIndex(), chunk.getPaperId(), e.getMessage());
+            }
+        }
+
+        void replaceChunks(String paperId, List<PaperChunkEmbedding> chunks) {
+            removeChunks(paperId);
+            for (PaperChunkEmbedding chunk : chunks) {
+                addChunk(chunk);
+            }
+        }
+
+        void remove(String paperId) {
+            removeVectors(paperId);
+            removeChunks(paperId);
+            synchronized (prefixIds) {
+                prefixIds.remove(paperId);
+            }
+        }
+
+        private void removeVectors(String paperId) {
+            documentIndex.remove(paperId);
+            titleIndex.remove(paperId);
+            synchronized (idsByTitle) {
+                removeTitle(paperId);
+            }
+        }
+
+        private void removeChunks(String paperId) {
+            Integer count;
+            synchronized (chunkCountByPaper) {
+                count = chunkCountByPaper.remove(paperId);
+            }
+            if (count != null) {
+                for (int i = 0; i < count; i++) {
+                    chunkIndex.remove(chunkKey(paperId, i));
+                }
+            }
+        }
+
+        boolean needsCompaction(double ratio) {
+            return documentIndex.getTombstoneRatio() > ratio || titleIndex.getTombstoneRatio() > ratio
+                || chunkIndex.getTombstoneRatio() > ratio;
+        }
+
+        /**
+         * Compact the graphs over the ratio; a graph written to meanwhile is left for the next trigger
+         */
+        int compact(double ratio) {
+            int compacted = 0;
+            for (HnswIndex graph : new HnswIndex[] { documentIndex, titleIndex, chunkIndex }) {
+                if (graph.getTombstoneRatio() > ratio && graph.compact()) {
+                    compacted++;
+                }
+            }
+            return compacted;
+        }
+
+        Set<String> idsForTitle(String normalizedTitle) {
+            synchronized (idsByTitle) {
+                Set<String> ids = idsByTitle.get(normalizedTitle);
+                return ids != null ? new HashSet<>(ids) : Collections.emptySet();
+            }
+        }
+
+        int size() {
+            return documentIndex.size();
+        }
+
+        private void removeTitle(String paperId) {
+            String previous = titleById.remove(paperId);
+            if (previous != null) {
+                Set<String> ids = idsByTitle.get(previous);
+                if (ids != null) {
+                    ids.remove(paperId);
+                    if (ids.isEmpty()) {
+                        idsByTitle.remove(previous);
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.example.demo.services;
+
+import com.example.demo.dto.ThesisVerificationResponse;
+import com.example.demo.models.PaperFingerprints;
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.PaperFingerprintsRepository;
+import com.example.demo.utils.PassageIndex;
+import com.example.demo.utils.Winnower;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Passage-level overlap between a submission and the stored papers.
+ *
+ * Every paper's text is reduced to winnowing fingerprints that are persisted in
+ * {@code paperFingerprints} and loaded into an in-memory inverted index at startup; uploads and
+ * approvals add their paper incrementally. A submission is fingerprinted the same way and only
+ * the postings of its own fingerprints are visited, so the lookup scales with the submission,
+ * not the corpus. Matches are chained into passages with character offsets in both texts.
+ */
+@Service
+public class PassageIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(PassageIndexService.class);
+
+    private static final int EXCERPT_MAX_CHARS = 300;
+
+    @Autowired
+    private PaperFingerprintsRepository paperFingerprintsRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${verification.passages.enabled:true}")
+    private boolean enabled;
+
+    @Value("${verification.passages.min-fingerprints:3}")
+    private int minFingerprints;
+
+    @Value("${verification.passages.max-document-frequency:50}")
+    private int maxDocumentFrequency;
+
+    @Value("${verification.passages.max-papers:10}")
+    private int maxPapers;
+
+    @Value("${verification.passages.max-passages-per-paper:20}")
+    private int maxPassagesPerPaper;
+
+    private volatile PassageIndex index;
+    private volatile boolean ready = false;
+    private volatile boolean buildFailed = false;
+    private final Map<String, String> textSourceById = new ConcurrentHashMap<>();
+
+    // Papers indexed while a rebuild is running; replayed into the new index before it is swapped in
+    private List<PaperFingerprints> pendingDuringRebuild;
+    // Papers deleted while a rebuild is running; the rebuild may already have read (or backfilled) them
+    private Set<String> pendingRemovalsDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Passage index disabled, verification reports will not include matched passages");
+            return;
+        }
+
+        Thread builder = new Thread(this::rebuild, "passage-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    /**
+     * Rebuild from the stored fingerprints; papers that have none are fingerprinted from their
+     * abstract, the only text stored for them
+     */
+    public void rebuild() {
+        synchronized (this) {
+            pendingDuringRebuild = new ArrayList<>();
+            pendingRemovalsDuringRebuild = new HashSet<>();
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            log.info("🔨 Building passage index...");
+
+            PassageIndex fresh = newIndex();
+            Set<String> fingerprinted = new HashSet<>();
+            try (Stream<PaperFingerprints> stored = paperFingerprintsRepository.streamAll()) {
+                stored.forEach(fingerprints -> {
+                    addToIndex(fresh, fingerprints);
+                    fingerprinted.add(fingerprints.getPaperId());
+                });
+            }
+
+            Query query = new Query();
+            query.fields().include("abstractText");
+            Set<String> backfilledIds = new HashSet<>();
+            for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+                if (fingerprinted.contains(paper.getId()) || paper.getAbstractText() == null) {
+                    continue;
+                }
+                PaperFingerprints fingerprints = toFingerprints(paper.getId(), paper.getAbstractText(),
+                    PaperFingerprints.SOURCE_ABSTRACT);
+                if (fingerprints != null) {
+                    paperFingerprintsRepository.save(fingerprints);
+                    addToIndex(fresh, fingerprints);
+                    backfilledIds.add(paper.getId());
+                }
+            }
+
+            Set<String> removed;
+            synchronized (this) {
+                for (PaperFingerprints fingerprints : pendingDuringRebuild) {
+                    addToIndex(fresh, fingerprints);
+                }
+                removed = pendingRemovalsDuringRebuild;
+                for (String paperId : removed) {
+                    fresh.remove(paperId);
+                    textSourceById.remove(paperId);
+                }
+                pendingDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+                index = fresh;
+                ready = true;
+            }
+            // A backfill can have re-saved the fingerprints of a paper deleted meanwhile
+            for (String paperId : removed) {
+                if (backfilledIds.contains(paperId)) {
+                    paperFingerprintsRepository.deleteById(paperId);
+                }
+            }
+
+            log.info("✅ Passage index ready: {} papers ({} backfilled from abstracts), {} postings in {} ms",
+                fresh.size(), backfilledIds.size(), fresh.postingCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+                pendingRemovalsDuringRebuild = null;
+            }
+            buildFailed = true;
+            log.error("❌ Failed to build passage index, verification reports will not include matched passages: {}",
+                e.getMessage());
+        }
+    }
+
+    /**
+     * Fingerprint a saved paper's text, persist the fingerprints and add them to the index
+     */
+    public void indexPaper(String paperId, String text, String textSource) {
+        if (!enabled || paperId == null) {
+            return;
+        }
+        try {
+            PaperFingerprints fingerprints = toFingerprints(paperId, text, textSource);
+            if (fingerprints == null) {
+                return;
+            }
+            paperFingerprintsRepository.save(fingerprints);
+            synchronized (this) {
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(fingerprints);
+                    pendingRemovalsDuringRebuild.remove(paperId);
+                }
+                if (index != null) {
+                    addToIndex(index, fingerprints);
+                }
+            }
+            log.info("Indexed {} passage fingerprints for paper {}", fingerprints.getHashes().length, paperId);
+        } catch (Exception e) {
+            log.warn("Failed to index passage fingerprints for paper {}: {}", paperId, e.getMessage());
+        }
+    }
+
+    /**
+     * Drop a deleted paper's fingerprints from the index and the collection
+     */
+    public void removePaper(String paperId) {
+        if (!enabled || paperId == null) {
+            return;
+        }
+        try {
+            paperFingerprintsRepository.deleteById(paperId);
+        } catch (Exception e) {
+            log.warn("Failed to delete passage fingerprints for paper {}: {}", paperId, e.getMessage());
+        }
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.removeIf(fingerprints -> paperId.equals(fingerprints.getPaperId()));
+                pendingRemovalsDuringRebuild.add(paperId);
+            }
+            if (index != null) {
+                index.remove(paperId);
+            }
+            textSourceById.remove(paperId);
+        }
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+    
+    /**
+     * True until the first build has finished or failed
+     */
+    public boolean isBuilding() {
+        return enabled && !ready && !buildFailed;
+    }
+
+    public int size() {
+        PassageIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    /**
+     * Passages of the submission that also occur in stored papers, papers with the largest
+     * overlap first
+     */
+    public List<ThesisVerificationResponse.SourcePassages> findMatchingPassages(String documentText) {
+        PassageIndex current = index;
+        if (!isReady() || current == null || documentText == null) {
+            return Collections.emptyList();
+        }
+
+        long start = System.currentTimeMillis();
+        List<PassageIndex.DocumentMatch> matches = current.query(Winnower.fingerprints(documentText));
+        if (matches.size() > maxPapers) {
+            matches = matches.subList(0, maxPapers);
+        }
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, String> titles = findTitles(matches);
+        List<ThesisVerificationResponse.SourcePassages> results = new ArrayList<>(matches.size());
+        for (PassageIndex.DocumentMatch match : matches) {
+            List<ThesisVerificationResponse.MatchedPassage> passages = new ArrayList<>();
+            for (PassageIndex.Passage passage : match.getPassages()) {
+                if (passages.size() >= maxPassagesPerPaper) {
+                    break;
+                }
+                passages.add(new ThesisVerificationResponse.MatchedPassage(
+                    passage.getQueryStart(), passage.getQueryEnd(),
+                    passage.getSourceStart(), passage.getSourceEnd(),
+                    excerpt(documentText, passage.getQueryStart(), passage.getQueryEnd())));
+            }
+            results.add(new ThesisVerificationResponse.SourcePassages(
+                match.getDocumentId(), titles.get(match.getDocumentId()),
+                textSourceById.getOrDefault(match.getDocumentId(), PaperFingerprints.SOURCE_DOCUMENT),
+                Math.round(match.getCoverage() * 1000.0) / 10.0, passages));
+        }
+        log.info("Passage lookup: {} papers with shared passages in {} ms", results.size(), System.currentTimeMillis() - start);
+        return results;
+    }
+
+    private Map<String, String> findTitles(List<PassageIndex.DocumentMatch> matches) {
+        List<String> ids = matches.stream().map(PassageIndex.DocumentMatch::getDocumentId).collect(Collectors.toList());
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("title");
+        Map<String, String> titles = new HashMap<>();
+        for (ResearchPaper paper : mongoTemplate.find(query, ResearchPaper.class)) {
+            titles.put(paper.getId(), paper.getTitle());
+        }
+        return titles;
+    }
+
+    private static String excerpt(String text, int start, int end) {
+        int safeEnd = Math.min(end, text.length());
+        if (safeEnd - start <= EXCERPT_MAX_CHARS) {
+            return text.substring(start, safeEnd);
+        }
+        return text.substring(start, start + EXCERPT_MAX_CHARS) + "…";
+    }
+
+    private void addToIndex(PassageIndex target, PaperFingerprints fingerprints) {
+        target.add(fingerprints.getPaperId(), fingerprints.getHashes(), fingerprints.getPositions(),
+            fingerprints.getStartOffsets(), fingerprints.getEndOffsets());
+        textSourceById.put(fingerprints.getPaperId(), fingerprints.getTextSource());
+    }
+
+    private static PaperFingerprints toFingerprints(String paperId, String text, String textSource) {
+        List<Winnower.Fingerprint> fingerprints = Winnower.fingerprints(text);
+        if (fingerprints.isEmpty()) {
+            return null;
+        }
+        int size = fingerprints.size();
+        long[] hashes = new long[size];
+        int[] positions = new int[size];
+        int[] starts = new int[size];
+        int[] ends = new int[size];
+        for (int i = 0; i < size; i++) {
+            Winnower.Fingerprint fingerprint = fingerprints.get(i);
+            hashes[i] = fingerprint.getHash();
+            positions[i] = fingerprint.getPosition();
+            starts[i] = fingerprint.getStart();
+            ends[i] = fingerprint.getEnd();
+        }
+        return new PaperFingerprints(paperId, textSource, text.length(), hashes, positions, starts, ends,
+            LocalDateTime.now());
+    }
+
+    private PassageIndex newIndex() {
+        // Fingerprints of one shared passage are at most a window apart; allow a k-gram of slack
+        return new PassageIndex(Winnower.DEFAULT_K + Winnower.DEFAULT_WINDOW, minFingerprints, maxDocumentFrequency);
+    }
+}
\ No newline at end of file
@@ -1,11 +1,14 @@
 package com.example.demo.services;
 
 import com.example.demo.models.Admin;
+import com.example.demo.models.PaperFingerprints;
 import com.example.demo.models.PendingThesis;
 import com.example.demo.models.ResearchPaper;
 import com.example.demo.repositories.AdminRepository;
 import com.example.demo.repositories.PendingThesisRepository;
 import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.MinHasher;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +46,30 @@ public class PendingThesisService {
     @Autowired
     private FabricGatewayService fabricGatewayService; // Your existing Fabric service
     
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+    
+    @Autowired
+    private EmbeddingSegmentService embeddingSegmentService;
+    
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+    
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
+    @Autowired
+    private ContentFingerprintService contentFingerprintService;
+    
+    @Autowired
+    private DocumentTextExtractorService documentTextExtractorService;
+    
+    @Autowired
+    private PassageIndexService passageIndexService;
+    
+    @Autowired
+    private ExtractedTextService extractedTextService;
+    
     @Value("${file.upload.directory:uploads/thesis/}")
     private String uploadDirectory;
     
@@ -100,6 +127,15 @@ public class PendingThesisService {
             throw new IllegalArgumentException("This thesis has already been verified and is on the blockchain");
         }
         
+        // Same checks on the normalized text, so a re-saved copy of the same document is caught too
+        ContentFingerprint contentFingerprint = fingerprintThesis(thesisFile, thesisFileHash);
+        if (contentFingerprintService.findPendingExactMatch(contentFingerprint).isPresent()) {
+            throw new IllegalArgumentException("This thesis content has already been submitted for approval");
+        }
+        if (contentFingerprintService.findExactMatch(contentFingerprint).isPresent()) {
+            throw new IllegalArgumentException("This thesis has already been verified and is on the blockchain");
+        }
+        
         // Save files to disk
         String thesisFileName = saveFile(thesisFile, uploadDirectory, "thesis_" + UUID.randomUUID().toString());
         String validationFileName = saveFile(validationDocument, validationDirectory, "validation_" + UUID.randomUUID().toString());
@@ -135,6 +171,7 @@ public class PendingThesisService {
                 .uploadedBy(adminId)
                 .totalAdminsRequired(totalAdminsRequired)
                 .build();
+        pendingThesis.setContentFingerprint(contentFingerprint);
         
         PendingThesis saved = pendingThesisRepository.save(pendingThesis);
         
@@ -268,6 +305,9 @@ public class PendingThesisService {
                     .embeddingModel(pendingThesis.getEmbeddingModel())
                     .embeddingGeneratedAt(pendingThesis.getEmbeddingGeneratedAt())
                     .build();
+            researchPaper.setContentHash(pendingThesis.getContentHash());
+            researchPaper.setContentSimHash(pendingThesis.getContentSimHash());
+            researchPaper.setContentSimHashBlocks(pendingThesis.getContentSimHashBlocks());
             
             // Submit to Hyperledger Fabric
             try {
@@ -289,8 +329,27 @@ public class PendingThesisService {
                 researchPaper.setBlockchainTxId("PENDING");
             }
             
+            // Extract the approved file once; the text is stored with the paper and drives its signatures
+            String documentText = readThesisText(pendingThesis);
+            if (documentText != null) {
+                researchPaper.setContentMinHash(MinHasher.contentSignature(documentText));
+                extractedTextService.attach(researchPaper, documentText);
+            } else if (researchPaper.getAbstractText() != null && !researchPaper.getAbstractText().trim().isEmpty()) {
+                // Without the text the abstract is the best available content for the signature
+                researchPaper.setContentMinHash(MinHasher.contentSignature(researchPaper.getAbstractText()));
+            }
+            
             // Save to main research papers collection
-            researchPaperRepository.save(researchPaper);
+            ResearchPaper savedPaper = researchPaperRepository.save(researchPaper);
+            embeddingSegmentService.append(savedPaper);
+            paperVectorIndexService.addPaper(savedPaper);
+            nearDuplicateIndexService.addPaper(savedPaper);
+            paperSearchService.addPaper(savedPaper);
+            if (documentText != null) {
+                passageIndexService.indexPaper(savedPaper.getId(), documentText, PaperFingerprints.SOURCE_DOCUMENT);
+            } else {
+                passageIndexService.indexPaper(savedPaper.getId(), savedPaper.getAbstractText(), PaperFingerprints.SOURCE_ABSTRACT);
+            }
             
             // Update pending thesis status
             pendingThesis.setStatus("APPROVED");
@@ -351,6 +410,27 @@ public class PendingThesisService {
         }
     }
     
+    private String readThesisText(PendingThesis thesis) {
+        try {
+            return documentTextExtractorService.extractTextFromFile(Paths.get(thesis.getFilePath()), thesis.getFileHash());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read thesis file, falling back to the abstract: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private ContentFingerprint fingerprintThesis(MultipartFile thesisFile, String fileHash) {
+        try {
+            ContentFingerprint.Accumulator accumulator = new ContentFingerprint.Accumulator();
+            documentTextExtractorService.extractTextFromDocument(thesisFile, fileHash, accumulator);
+            return contentFingerprintService.fingerprint(accumulator);
+        } catch (Exception e) {
+            // Not fatal: the thesis is still submitted, it just can't be matched by content
+            log.warn("⚠️ Could not extract text for content fingerprint: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private String generateBlockchainHash(ResearchPaper paper) {
         // Generate a deterministic hash for blockchain verification
         String data = paper.getTitle() + paper.getAuthor() + paper.getFileHash() + 
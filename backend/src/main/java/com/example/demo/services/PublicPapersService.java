@@ -6,10 +6,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,6 +28,12 @@ public class PublicPapersService {
     @Autowired
     private ResearchPaperRepository researchPaperRepository;
     
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+    
     /**
      * Get all publicly viewable papers with pagination
      */
@@ -45,15 +55,28 @@ public class PublicPapersService {
      */
     public Page<ResearchPaper> searchByDepartmentAndQuery(String department, String query, Pageable pageable) {
         log.info("Searching viewable papers by department: {} and query: {}", department, query);
-        return researchPaperRepository.findViewablePapersByDepartmentAndSearchTerm(department, query, pageable);
+        return toPage(paperSearchService.search(query, department, pageable.getPageNumber(), pageable.getPageSize()), pageable);
     }
     
     /**
-     * Search viewable papers by general search term (title, author, keywords, abstract)
+     * Search viewable papers by general search term (title, author, keywords, abstract), best match first
      */
     public Page<ResearchPaper> searchPapers(String searchTerm, Pageable pageable) {
         log.info("Searching viewable papers with term: {}", searchTerm);
-        return researchPaperRepository.findViewablePapersBySearchTerm(searchTerm, pageable);
+        return toPage(paperSearchService.search(searchTerm, null, pageable.getPageNumber(), pageable.getPageSize()), pageable);
+    }
+    
+    /**
+     * The search caps the page size at search.max-page-size, so the page is described by the
+     * page and size it actually used rather than the ones asked for
+     */
+    private static Page<ResearchPaper> toPage(PaperSearchService.SearchPage results, Pageable pageable) {
+        List<ResearchPaper> papers = new ArrayList<>();
+        for (PaperSearchService.SearchHit hit : results.getHits()) {
+            papers.add(hit.getPaper());
+        }
+        Pageable served = PageRequest.of(results.getPage(), results.getSize(), pageable.getSort());
+        return new PageImpl<>(papers, served, results.getTotal());
     }
     
     /**
@@ -125,6 +148,8 @@ public class PublicPapersService {
             ResearchPaper paper = paperOpt.get();
             paper.setViewable(viewable);
             researchPaperRepository.save(paper);
+            paperVectorIndexService.addPaper(paper);
+            paperSearchService.addPaper(paper);
             
             log.info("Successfully updated paper {} viewability to: {}", paperId, viewable);
             return true;
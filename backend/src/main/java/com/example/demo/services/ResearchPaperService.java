@@ -2,15 +2,30 @@ package com.example.demo.services;
 
 import com.example.demo.models.Admin;
 import com.example.demo.models.Institute;
+import com.example.demo.models.PaperChunkEmbedding;
+import com.example.demo.models.PaperFingerprints;
 import com.example.demo.models.ResearchPaper;
 import com.example.demo.repositories.AdminRepository;
 import com.example.demo.repositories.InstituteRepository;
+import com.example.demo.repositories.PaperChunkEmbeddingRepository;
 import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.EditDistance;
+import com.example.demo.utils.LshIndex;
+import com.example.demo.utils.MinHasher;
+import com.example.demo.utils.PageCursor;
+import com.example.demo.utils.TextNormalizer;
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -21,9 +36,12 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ResearchPaperService {
@@ -31,9 +49,16 @@ public class ResearchPaperService {
     private static final Logger log = LoggerFactory.getLogger(ResearchPaperService.class);
     private static final String UPLOAD_DIR = "uploads/papers/";
     
+    // Newest first; _id breaks ties so every paper has a unique position for keyset paging
+    private static final Sort PAGE_ORDER = Sort.by(Sort.Order.desc("submissionDate"), Sort.Order.desc("_id"));
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private ResearchPaperRepository researchPaperRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
     @Autowired
     private AdminRepository adminRepository;
     
@@ -49,6 +74,36 @@ public class ResearchPaperService {
     @Autowired
     private FabricGatewayService fabricGatewayService;
     
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+    
+    @Autowired
+    private EmbeddingSegmentService embeddingSegmentService;
+    
+    @Autowired
+    private PaperChunkEmbeddingRepository paperChunkRepository;
+    
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+    
+    @Autowired
+    private ContentFingerprintService contentFingerprintService;
+    
+    @Autowired
+    private PassageIndexService passageIndexService;
+    
+    @Autowired
+    private ExtractedTextService extractedTextService;
+    
+    @Autowired
+    private PaperSearchService paperSearchService;
+    
+    @Autowired
+    private ExtractionCacheService extractionCacheService;
+    
+    @Value("${dedup.minhash.similar-threshold:0.80}")
+    private double similarContentThreshold;
+    
     /**
      * Upload and process a research paper with embeddings
      */
@@ -112,7 +167,8 @@ public class ResearchPaperService {
         String fileHash = generateFileHash(file.getBytes());
         
         // Extract text for similarity checking
-        String documentText = documentTextExtractorService.extractTextFromDocument(file);
+        ContentFingerprint.Accumulator fingerprintAccumulator = new ContentFingerprint.Accumulator();
+        String documentText = documentTextExtractorService.extractTextFromDocument(file, fileHash, fingerprintAccumulator);
         
         // Check for duplicate files (exact same file) - more lenient for admin uploads
         Optional<ResearchPaper> exactFileDuplicate = researchPaperRepository.findByFileHash(fileHash);
@@ -124,7 +180,8 @@ public class ResearchPaperService {
         }
         
         // Check for content similarity (same content, different file) - warning only
-        Optional<ResearchPaper> contentDuplicate = checkForContentSimilarity(documentText, title);
+        int[] contentSignature = MinHasher.contentSignature(documentText);
+        Optional<ResearchPaper> contentDuplicate = checkForContentSimilarity(documentText, title, contentSignature);
         if (contentDuplicate.isPresent()) {
             log.warn("⚠️ SIMILAR CONTENT WARNING: Content appears similar to existing thesis '{}' by {}", 
                     contentDuplicate.get().getTitle(), contentDuplicate.get().getAuthor());
@@ -137,16 +194,21 @@ public class ResearchPaperService {
         String filePath = saveFile(file, fileName);
         
         // Generate embeddings
-        List<Double> titleEmbedding = null;
-        List<Double> documentEmbedding = null;
+        float[] titleEmbedding = null;
+        float[] documentEmbedding = null;
+        OllamaEmbeddingService.ChunkedDocumentEmbedding chunkedEmbedding = null;
         String embeddingModel = null;
         LocalDateTime embeddingGeneratedAt = null;
         
         if (ollamaEmbeddingService.isOllamaAvailable()) {
             try {
                 log.info("Generating embeddings with Ollama...");
-                titleEmbedding = ollamaEmbeddingService.generateTitleEmbedding(title);
-                documentEmbedding = ollamaEmbeddingService.generateDocumentEmbedding(documentText);
+                CompletableFuture<float[]> titleEmbeddingFuture = ollamaEmbeddingService.generateTitleEmbeddingAsync(title);
+                CompletableFuture<OllamaEmbeddingService.ChunkedDocumentEmbedding> documentEmbeddingFuture =
+                    ollamaEmbeddingService.generateChunkedDocumentEmbeddingAsync(documentText);
+                titleEmbedding = titleEmbeddingFuture.join();
+                chunkedEmbedding = documentEmbeddingFuture.join();
+                documentEmbedding = chunkedEmbedding.getPooledEmbedding();
                 embeddingModel = "nomic-embed-text";
                 embeddingGeneratedAt = LocalDateTime.now();
                 log.info("Successfully generated embeddings");
@@ -191,19 +253,61 @@ public class ResearchPaperService {
                 .updatedAt(LocalDateTime.now())
                 .build();
         
+        researchPaper.setContentMinHash(contentSignature);
+        researchPaper.setContentFingerprint(contentFingerprintService.fingerprint(fingerprintAccumulator));
+        if (chunkedEmbedding != null && !chunkedEmbedding.getChunks().isEmpty()) {
+            researchPaper.setDocumentEmbeddingKind(ResearchPaper.EMBEDDING_KIND_CHUNKED);
+        }
+        extractedTextService.attach(researchPaper, documentText);
+        
         // Save to database
         ResearchPaper savedPaper = researchPaperRepository.save(researchPaper);
         log.info("✅ Successfully saved research paper with ID: {} for institute: {} ({})", 
                 savedPaper.getId(), adminInstituteName, adminInstituteId);
         
+        // Make the new paper searchable for subsequent verifications
+        embeddingSegmentService.append(savedPaper);
+        paperVectorIndexService.addPaper(savedPaper);
+        nearDuplicateIndexService.addPaper(savedPaper);
+        paperSearchService.addPaper(savedPaper);
+        passageIndexService.indexPaper(savedPaper.getId(), documentText, PaperFingerprints.SOURCE_DOCUMENT);
+        if (chunkedEmbedding != null) {
+            storeDocumentChunks(savedPaper.getId(), chunkedEmbedding);
+        }
+        
         return savedPaper;
     }
     
+    /**
+     * Persist the per-chunk vectors of a paper and add them to the chunk index
+     */
+    void storeDocumentChunks(String paperId, OllamaEmbeddingService.ChunkedDocumentEmbedding chunkedEmbedding) {
+        if (chunkedEmbedding.getChunks().isEmpty()) {
+            return;
+        }
+        
+        try {
+            List<PaperChunkEmbedding> chunks = new ArrayList<>(chunkedEmbedding.getChunks().size());
+            LocalDateTime now = LocalDateTime.now();
+            for (OllamaEmbeddingService.EmbeddedChunk embedded : chunkedEmbedding.getChunks()) {
+                chunks.add(new PaperChunkEmbedding(paperId, embedded.getChunk().getIndex(),
+                    embedded.getChunk().getStart(), embedded.getChunk().getEnd(), embedded.getEmbedding(), now));
+            }
+            
+            paperChunkRepository.deleteByPaperId(paperId);
+            List<PaperChunkEmbedding> saved = paperChunkRepository.saveAll(chunks);
+            paperVectorIndexService.addChunks(paperId, saved);
+            log.info("Stored {} document chunk embeddings for paper {}", saved.size(), paperId);
+        } catch (Exception e) {
+            log.warn("Failed to store document chunk embeddings for paper {}: {}", paperId, e.getMessage());
+        }
+    }
+    
     /**
      * Get all research papers with pagination
      */
     public Page<ResearchPaper> getAllResearchPapers(Pageable pageable) {
-        return researchPaperRepository.findAll(pageable);
+        return researchPaperRepository.findAllSummaries(pageable);
     }
     
     /**
@@ -244,6 +348,32 @@ public class ResearchPaperService {
         return researchPaperRepository.save(paper);
     }
     
+    /**
+     * Delete a research paper with its chunk embeddings, stored text, cached embeddings and
+     * extraction, and uploaded file, and take it out of every in-memory index so it stops
+     * showing up as a verification candidate or search result
+     */
+    public void deleteResearchPaper(String id) {
+        ResearchPaper paper = researchPaperRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Research paper not found"));
+        
+        // The cache keys are derived from the text, so read it before the stored copy goes
+        String documentText = extractedTextService.loadText(paper).orElse(null);
+        
+        researchPaperRepository.delete(paper);
+        paperChunkRepository.deleteByPaperId(id);
+        ollamaEmbeddingService.evictCachedEmbeddings(paper.getTitle(), documentText);
+        extractionCacheService.evict(paper.getFileHash());
+        extractedTextService.delete(paper);
+        deleteFile(paper.getFilePath());
+        paperVectorIndexService.removePaper(id);
+        embeddingSegmentService.remove(id);
+        nearDuplicateIndexService.removePaper(id);
+        passageIndexService.removePaper(id);
+        paperSearchService.removePaper(id);
+        log.info("Deleted research paper {} ({})", id, paper.getTitle());
+    }
+    
     /**
      * Verify paper exists on blockchain
      */
@@ -295,6 +425,20 @@ public class ResearchPaperService {
         return filePath.toString();
     }
     
+    /**
+     * Remove an uploaded file from disk; a missing file is not an error
+     */
+    private void deleteFile(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.warn("Failed to delete uploaded file {}: {}", filePath, e.getMessage());
+        }
+    }
+    
     /**
      * Generate SHA-256 hash of file content
      */
@@ -316,13 +460,43 @@ public class ResearchPaperService {
      * Check for content similarity with existing papers (for admin upload duplicate prevention)
      * This method checks across ALL institutes to prevent uploading duplicate content
      */
-    private Optional<ResearchPaper> checkForContentSimilarity(String documentText, String title) {
+    private Optional<ResearchPaper> checkForContentSimilarity(String documentText, String title, int[] contentSignature) {
         try {
-            List<ResearchPaper> allPapers = researchPaperRepository.findAll();
+            if (nearDuplicateIndexService.isReady()) {
+                // Title candidates by trigram overlap, confirmed with the same edit-distance rule as the full scan
+                for (Map.Entry<String, String> candidate : nearDuplicateIndexService.findSimilarTitles(title, 0.35).entrySet()) {
+                    if (isTitleVerySimilar(title, candidate.getValue())) {
+                        log.warn("Very similar title detected: '{}' vs existing '{}'", title, candidate.getValue());
+                        return researchPaperRepository.findById(candidate.getKey());
+                    }
+                }
+                
+                for (LshIndex.Match match : nearDuplicateIndexService.findNearDuplicates(contentSignature, similarContentThreshold)) {
+                    Optional<ResearchPaper> paper = researchPaperRepository.findById(match.getKey());
+                    if (paper.isEmpty()) {
+                        continue;
+                    }
+                    // With the stored text the exact shingle overlap replaces the signature estimate
+                    Optional<String> storedText = extractedTextService.loadText(paper.get());
+                    double similarity = storedText.isPresent() 
+                        ? MinHasher.exactJaccard(documentText, storedText.get()) 
+                        : match.getSimilarity();
+                    if (similarity >= similarContentThreshold) {
+                        log.warn("High content similarity detected: {}% with existing paper '{}'", 
+                                similarity * 100.0, paper.get().getTitle());
+                        return paper;
+                    }
+                }
+                return Optional.empty();
+            }
+            
+            // Only lengths, titles and abstracts are compared here; the text is loaded on demand
+            List<ResearchPaper> allPapers = researchPaperRepository.findAllSummaries();
             
             for (ResearchPaper paper : allPapers) {
                 // Skip papers without text content
-                if (paper.getAbstractText() == null || paper.getAbstractText().trim().isEmpty()) {
+                boolean hasStoredText = paper.getExtractedTextLength() != null;
+                if (!hasStoredText && (paper.getAbstractText() == null || paper.getAbstractText().trim().isEmpty())) {
                     continue;
                 }
                 
@@ -332,17 +506,20 @@ public class ResearchPaperService {
                     return Optional.of(paper);
                 }
                 
-                // Check content length similarity (identical content should have very similar lengths)
-                double lengthRatio = (double) Math.min(documentText.length(), paper.getAbstractText().length()) 
-                                   / Math.max(documentText.length(), paper.getAbstractText().length());
+                // Check content length similarity (identical content should have very similar lengths);
+                // the stored text is only loaded once the lengths are close
+                int existingLength = hasStoredText ? paper.getExtractedTextLength() : paper.getAbstractText().length();
+                double lengthRatio = (double) Math.min(documentText.length(), existingLength) 
+                                   / Math.max(documentText.length(), existingLength);
                 
-                if (lengthRatio > 0.95) { // Very similar lengths (95%+)
+                String existingText = lengthRatio > 0.95 ? extractedTextService.loadTextOrAbstract(paper) : null;
+                if (existingText != null) { // Very similar lengths (95%+)
                     // Compare first 1000 characters for content similarity
-                    int compareLength = Math.min(1000, Math.min(documentText.length(), paper.getAbstractText().length()));
-                    String newContent = normalizeTextForComparison(documentText.substring(0, compareLength));
-                    String existingContent = normalizeTextForComparison(paper.getAbstractText().substring(0, compareLength));
+                    int compareLength = Math.min(1000, Math.min(documentText.length(), existingText.length()));
+                    String newContent = TextNormalizer.forComparison(documentText.substring(0, compareLength));
+                    String existingContent = TextNormalizer.forComparison(existingText.substring(0, compareLength));
                     
-                    double contentSimilarity = calculateTextSimilarity(newContent, existingContent);
+                    double contentSimilarity = EditDistance.similarityPercentage(newContent, existingContent, 90.0);
                     
                     if (contentSimilarity > 90.0) { // Very high content similarity
                         log.warn("High content similarity detected: {}% with existing paper '{}'", 
@@ -365,78 +542,79 @@ public class ResearchPaperService {
     private boolean isTitleVerySimilar(String title1, String title2) {
         if (title1 == null || title2 == null) return false;
         
-        String normalized1 = normalizeTextForComparison(title1);
-        String normalized2 = normalizeTextForComparison(title2);
+        String normalized1 = TextNormalizer.forComparison(title1);
+        String normalized2 = TextNormalizer.forComparison(title2);
         
         // Exact match after normalization
         if (normalized1.equals(normalized2)) {
             return true;
         }
         
-        // High similarity (90%+)
-        double similarity = calculateTextSimilarity(normalized1, normalized2);
+        // High similarity (90%+); the bounded distance stops as soon as 90% is out of reach
+        double similarity = EditDistance.similarityPercentage(normalized1, normalized2, 90.0);
         return similarity > 90.0;
     }
     
     /**
-     * Normalize text for comparison (remove special chars, extra spaces, convert to lowercase)
+     * Page of publicly viewable papers, newest first, without their embeddings
+     *
+     * @param cursor {@link PaperPage#getNextCursor()} of the previous page, or null for the first page
      */
-    private String normalizeTextForComparison(String text) {
-        if (text == null) return "";
-        return text.replaceAll("\\s+", " ")
-                  .replaceAll("[^\\p{L}\\p{N}\\s]", "")
-                  .toLowerCase()
-                  .trim();
+    public PaperPage getViewablePapersPage(String cursor, int size) {
+        return findPage(Criteria.where("viewable").is(true), cursor, size);
     }
     
     /**
-     * Calculate text similarity percentage using Levenshtein distance
+     * Page of an institute's research papers, newest first, without their embeddings
+     *
+     * @param cursor {@link PaperPage#getNextCursor()} of the previous page, or null for the first page
      */
-    private double calculateTextSimilarity(String text1, String text2) {
-        if (text1.equals(text2)) return 100.0;
-        
-        int maxLen = Math.max(text1.length(), text2.length());
-        if (maxLen == 0) return 0.0;
-        
-        int editDistance = calculateLevenshteinDistance(text1, text2);
-        return ((double)(maxLen - editDistance) / maxLen) * 100.0;
+    public PaperPage getPapersByInstituteId(String instituteId, String cursor, int size) {
+        return findPage(Criteria.where("instituteId").is(instituteId), cursor, size);
     }
     
     /**
-     * Calculate Levenshtein distance between two strings
+     * Keyset pagination: the next page starts after the last (submissionDate, _id) of the previous
+     * one, so every page is one index range scan on (filter, submissionDate, _id) no matter how
+     * deep it is, unlike skip/limit which walks past all earlier papers
      */
-    private int calculateLevenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
-                }
-            }
+    private PaperPage findPage(Criteria filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Criteria criteria = cursor == null || cursor.isEmpty()
+            ? filter
+            : new Criteria().andOperator(filter, after(cursor));
+        
+        BasicQuery query = new BasicQuery(criteria.getCriteriaObject(),
+            Document.parse(ResearchPaperRepository.SUMMARY_FIELDS));
+        query.with(PAGE_ORDER).limit(limit + 1);
+        
+        // One extra paper tells whether there is a next page without a count
+        List<ResearchPaper> papers = mongoTemplate.find(query, ResearchPaper.class);
+        boolean hasNext = papers.size() > limit;
+        if (hasNext) {
+            papers = papers.subList(0, limit);
         }
-        
-        return dp[s1.length()][s2.length()];
+        String nextCursor = hasNext ? encodeCursor(papers.get(papers.size() - 1)) : null;
+        return new PaperPage(papers, nextCursor);
     }
     
     /**
-     * Get research papers by institute ID for institute-specific similarity checking
+     * Papers after the cursor position in PAGE_ORDER. Missing submission dates sort last when
+     * descending, and $lt never matches them, so they are added explicitly.
      */
-    public List<ResearchPaper> getPapersByInstituteId(String instituteId) {
-        return researchPaperRepository.findAll()
-                .stream()
-                .filter(paper -> instituteId.equals(paper.getInstituteId()))
-                .collect(java.util.stream.Collectors.toList());
+    private static Criteria after(String cursor) {
+        PageCursor position = PageCursor.decode(cursor);
+        if (position.getSubmissionDate() == null) {
+            return Criteria.where("submissionDate").is(null).and("_id").lt(position.getId());
+        }
+        return new Criteria().orOperator(
+            Criteria.where("submissionDate").lt(position.getSubmissionDate()),
+            Criteria.where("submissionDate").is(position.getSubmissionDate()).and("_id").lt(position.getId()),
+            Criteria.where("submissionDate").is(null));
+    }
+    
+    private static String encodeCursor(ResearchPaper last) {
+        return new PageCursor(last.getSubmissionDate(), last.getId()).encode();
     }
     
     /**
@@ -459,6 +637,8 @@ public class ResearchPaperService {
                 ResearchPaper paper = paperOpt.get();
                 paper.setViewable(viewable);
                 researchPaperRepository.save(paper);
+                paperVectorIndexService.addPaper(paper);
+                paperSearchService.addPaper(paper);
                 
                 log.info("Successfully updated paper {} viewability to: {}", paperId, viewable);
                 return true;
@@ -471,4 +651,22 @@ public class ResearchPaperService {
             return false;
         }
     }
+    
+    /**
+     * One page of papers and the cursor of the page after it
+     */
+    public static class PaperPage {
+        private final List<ResearchPaper> papers;
+        private final String nextCursor;
+        
+        public PaperPage(List<ResearchPaper> papers, String nextCursor) {
+            this.papers = papers;
+            this.nextCursor = nextCursor;
+        }
+        
+        public List<ResearchPaper> getPapers() { return papers; }
+        /** Opaque cursor for the next page, null on the last page */
+        public String getNextCursor() { return nextCursor; }
+        public boolean hasNext() { return nextCursor != null; }
+    }
 }
\ No newline at end of file
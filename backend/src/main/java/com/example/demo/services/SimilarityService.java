@@ -4,6 +4,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import com.example.demo.utils.EditDistance;
+import com.example.demo.utils.TextNormalizer;
+import com.example.demo.utils.VectorMath;
+
+import jakarta.annotation.PostConstruct;
+
 import java.util.List;
 
 @Service
@@ -11,67 +17,60 @@ public class SimilarityService {
     
     private static final Logger log = LoggerFactory.getLogger(SimilarityService.class);
     
+    @PostConstruct
+    public void logKernel() {
+        log.info("Vector similarity kernel: {}", VectorMath.describeKernel());
+    }
+    
     /**
      * Calculate cosine similarity between two embedding vectors
      * Returns a value between -1 and 1, where 1 means identical, 0 means orthogonal, -1 means opposite
      */
-    public double calculateCosineSimilarity(List<Double> vectorA, List<Double> vectorB) {
-        if (vectorA == null || vectorB == null) {
-            log.warn("One or both vectors are null, returning 0 similarity");
+    public double calculateCosineSimilarity(float[] vectorA, float[] vectorB) {
+        if (!areVectorsValid(vectorA, vectorB)) {
+            log.warn("Vectors are null, empty or of different dimensions, returning 0 similarity");
             return 0.0;
         }
-        
-        if (vectorA.size() != vectorB.size()) {
-            log.warn("Vector dimensions don't match: {} vs {}, returning 0 similarity", 
-                    vectorA.size(), vectorB.size());
+        return calculateCosineSimilarity(vectorA, VectorMath.norm(vectorA), vectorB, VectorMath.norm(vectorB));
+    }
+    
+    /**
+     * Cosine similarity using norms that were computed ahead of time (e.g. cached on the paper)
+     */
+    public double calculateCosineSimilarity(float[] vectorA, float normA, float[] vectorB, float normB) {
+        if (!areVectorsValid(vectorA, vectorB)) {
             return 0.0;
         }
         
-        if (vectorA.isEmpty()) {
-            log.warn("Vectors are empty, returning 0 similarity");
+        if (normA == 0.0f || normB == 0.0f) {
+            log.warn("One or both vectors have zero magnitude, returning 0 similarity");
             return 0.0;
         }
         
-        try {
-            double dotProduct = 0.0;
-            double normA = 0.0;
-            double normB = 0.0;
-            
-            for (int i = 0; i < vectorA.size(); i++) {
-                double valueA = vectorA.get(i);
-                double valueB = vectorB.get(i);
-                
-                dotProduct += valueA * valueB;
-                normA += valueA * valueA;
-                normB += valueB * valueB;
-            }
-            
-            if (normA == 0.0 || normB == 0.0) {
-                log.warn("One or both vectors have zero magnitude, returning 0 similarity");
-                return 0.0;
-            }
-            
-            double similarity = dotProduct / (Math.sqrt(normA) * Math.sqrt(normB));
-            
-            // Clamp to [-1, 1] to handle floating point precision issues
-            similarity = Math.max(-1.0, Math.min(1.0, similarity));
-            
-            log.debug("Calculated cosine similarity: {}", similarity);
-            return similarity;
-            
-        } catch (Exception e) {
-            log.error("Error calculating cosine similarity: {}", e.getMessage(), e);
-            return 0.0;
-        }
+        double similarity = VectorMath.cosine(vectorA, normA, vectorB, normB);
+        log.debug("Calculated cosine similarity: {}", similarity);
+        return similarity;
     }
     
     /**
      * Calculate similarity as a percentage (0-100%)
      * Converts cosine similarity from [-1,1] to [0,100] range
      */
-    public double calculateSimilarityPercentage(List<Double> vectorA, List<Double> vectorB) {
-        double cosineSim = calculateCosineSimilarity(vectorA, vectorB);
-        
+    public double calculateSimilarityPercentage(float[] vectorA, float[] vectorB) {
+        return cosineToPercentage(calculateCosineSimilarity(vectorA, vectorB));
+    }
+    
+    /**
+     * Similarity percentage using precomputed norms
+     */
+    public double calculateSimilarityPercentage(float[] vectorA, float normA, float[] vectorB, float normB) {
+        return cosineToPercentage(calculateCosineSimilarity(vectorA, normA, vectorB, normB));
+    }
+    
+    /**
+     * Map a cosine similarity in [-1,1] to the percentage scale used everywhere else
+     */
+    public double cosineToPercentage(double cosineSim) {
         // Convert from [-1,1] to [0,100]
         // We use (cosine + 1) / 2 * 100 to map [-1,1] to [0,100]
         double percentage = ((cosineSim + 1.0) / 2.0) * 100.0;
@@ -83,14 +82,14 @@ public class SimilarityService {
      * Calculate Euclidean distance between two vectors
      * Lower distance means more similar
      */
-    public double calculateEuclideanDistance(List<Double> vectorA, List<Double> vectorB) {
-        if (vectorA == null || vectorB == null || vectorA.size() != vectorB.size()) {
+    public double calculateEuclideanDistance(float[] vectorA, float[] vectorB) {
+        if (vectorA == null || vectorB == null || vectorA.length != vectorB.length) {
             return Double.MAX_VALUE;
         }
         
         double sum = 0.0;
-        for (int i = 0; i < vectorA.size(); i++) {
-            double diff = vectorA.get(i) - vectorB.get(i);
+        for (int i = 0; i < vectorA.length; i++) {
+            double diff = vectorA[i] - vectorB[i];
             sum += diff * diff;
         }
         
@@ -159,14 +158,21 @@ public class SimilarityService {
      * Calculate combined similarity score from title and content embeddings
      */
     public double calculateCombinedSimilarity(
-            List<Double> titleA, List<Double> titleB,
-            List<Double> contentA, List<Double> contentB,
+            float[] titleA, float[] titleB,
+            float[] contentA, float[] contentB,
             double titleWeight, double contentWeight) {
         
         double titleSim = calculateSimilarityPercentage(titleA, titleB);
         double contentSim = calculateSimilarityPercentage(contentA, contentB);
         
-        // Weighted average
+        return calculateCombinedSimilarity(titleSim, contentSim, titleWeight, contentWeight);
+    }
+    
+    /**
+     * Weighted average of already computed title and content similarity percentages
+     */
+    public double calculateCombinedSimilarity(double titleSim, double contentSim,
+                                              double titleWeight, double contentWeight) {
         double totalWeight = titleWeight + contentWeight;
         if (totalWeight == 0) {
             return 0.0;
@@ -183,25 +189,55 @@ public class SimilarityService {
     /**
      * Check if vectors are valid for similarity calculation
      */
-    public boolean areVectorsValid(List<Double> vectorA, List<Double> vectorB) {
+    public boolean areVectorsValid(float[] vectorA, float[] vectorB) {
         return vectorA != null && vectorB != null && 
-               !vectorA.isEmpty() && !vectorB.isEmpty() && 
-               vectorA.size() == vectorB.size();
+               vectorA.length > 0 && vectorA.length == vectorB.length;
     }
     
     /**
      * Calculate batch similarities between one vector and multiple vectors
-     * Returns array of similarity scores in the same order as input vectors
+     * Returns array of similarity percentages in the same order as input vectors.
+     * Targets are packed into one contiguous row-major matrix so the dot products
+     * run as a single batch instead of one call per pair.
      */
-    public double[] calculateBatchSimilarities(List<Double> sourceVector, List<List<Double>> targetVectors) {
+    public double[] calculateBatchSimilarities(float[] sourceVector, List<float[]> targetVectors) {
         if (sourceVector == null || targetVectors == null) {
             return new double[0];
         }
         
-        double[] similarities = new double[targetVectors.size()];
+        int dimension = sourceVector.length;
+        int rows = targetVectors.size();
+        float[] matrix = new float[rows * dimension];
+        float[] norms = new float[rows];
+        for (int row = 0; row < rows; row++) {
+            float[] target = targetVectors.get(row);
+            if (target != null && target.length == dimension) {
+                System.arraycopy(target, 0, matrix, row * dimension, dimension);
+                norms[row] = VectorMath.norm(target);
+            }
+        }
+        
+        return calculateBatchSimilarities(sourceVector, matrix, norms);
+    }
+    
+    /**
+     * Batch similarity percentages against a prepacked row-major matrix with per-row norms.
+     * Rows with a zero norm (missing or mismatched vectors) score as orthogonal.
+     */
+    public double[] calculateBatchSimilarities(float[] sourceVector, float[] matrix, float[] norms) {
+        int rows = norms.length;
+        double[] similarities = new double[rows];
+        float sourceNorm = sourceVector.length > 0 ? VectorMath.norm(sourceVector) : 0.0f;
+        
+        float[] dots = new float[rows];
+        VectorMath.dotBatch(sourceVector, matrix, rows, dots);
         
-        for (int i = 0; i < targetVectors.size(); i++) {
-            similarities[i] = calculateSimilarityPercentage(sourceVector, targetVectors.get(i));
+        for (int row = 0; row < rows; row++) {
+            double cosine = 0.0;
+            if (sourceNorm != 0.0f && norms[row] != 0.0f) {
+                cosine = Math.max(-1.0, Math.min(1.0, dots[row] / (sourceNorm * norms[row])));
+            }
+            similarities[row] = cosineToPercentage(cosine);
         }
         
         return similarities;
@@ -239,7 +275,7 @@ public class SimilarityService {
         }
         
         // Calculate Levenshtein distance similarity
-        int distance = levenshteinDistance(normalized1, normalized2);
+        int distance = EditDistance.distance(normalized1, normalized2);
         int maxLength = Math.max(normalized1.length(), normalized2.length());
         
         if (maxLength == 0) {
@@ -253,37 +289,7 @@ public class SimilarityService {
     /**
      * Normalize title for comparison (remove extra spaces, punctuation, convert to lowercase)
      */
-    private String normalizeTitle(String title) {
-        return title.toLowerCase()
-            .replaceAll("[^a-zA-Z0-9\\s]", "") // Remove punctuation
-            .replaceAll("\\s+", " ") // Normalize spaces
-            .trim();
-    }
-    
-    /**
-     * Calculate Levenshtein distance between two strings
-     */
-    private int levenshteinDistance(String str1, String str2) {
-        int[][] dp = new int[str1.length() + 1][str2.length() + 1];
-        
-        for (int i = 0; i <= str1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= str2.length(); j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= str1.length(); i++) {
-            for (int j = 1; j <= str2.length(); j++) {
-                if (str1.charAt(i - 1) == str2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(dp[i - 1][j - 1], Math.min(dp[i - 1][j], dp[i][j - 1]));
-                }
-            }
-        }
-        
-        return dp[str1.length()][str2.length()];
+    public String normalizeTitle(String title) {
+        return TextNormalizer.forComparison(title);
     }
 }
\ No newline at end of file
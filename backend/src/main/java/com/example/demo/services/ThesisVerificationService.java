@@ -4,6 +4,15 @@ import com.example.demo.dto.ThesisVerificationRequest;
 import com.example.demo.dto.ThesisVerificationResponse;
 import com.example.demo.models.ResearchPaper;
 import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.utils.ContentFingerprint;
+import com.example.demo.utils.EditDistance;
+import com.example.demo.utils.LshIndex;
+import com.example.demo.utils.MinHasher;
+import com.example.demo.utils.ParallelRanges;
+import com.example.demo.utils.RankedItem;
+import com.example.demo.utils.TextNormalizer;
+import com.example.demo.utils.TopK;
+import com.example.demo.utils.VectorMath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,12 +20,22 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,6 +43,8 @@ public class ThesisVerificationService {
     
     private static final Logger log = LoggerFactory.getLogger(ThesisVerificationService.class);
     
+    private static final int DEFAULT_MATCHES_PAGE_SIZE = 5;
+    
     @Autowired
     private ResearchPaperRepository researchPaperRepository;
     
@@ -42,6 +63,66 @@ public class ThesisVerificationService {
     @Autowired
     private AIDetectionService aiDetectionService;
     
+    @Autowired
+    private PaperVectorIndexService paperVectorIndexService;
+    
+    @Autowired
+    private EmbeddingSegmentService embeddingSegmentService;
+    
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+    
+    @Autowired
+    private ContentFingerprintService contentFingerprintService;
+    
+    @Autowired
+    private PassageIndexService passageIndexService;
+    
+    @Autowired
+    private ExtractedTextService extractedTextService;
+    
+    @Value("${verification.scoring.parallelism:0}")
+    private int scoringParallelism;
+    
+    @Value("${verification.scoring.batch-size:64}")
+    private int scoringBatchSize;
+    
+    @Value("${verification.scoring.max-matches:100}")
+    private int maxTopMatches;
+    
+    @Value("${verification.chunks.match-threshold:0.90}")
+    private double chunkMatchThreshold;
+    
+    @Value("${dedup.minhash.identical-threshold:0.90}")
+    private double identicalDuplicateThreshold;
+    
+    @Value("${dedup.minhash.moderate-threshold:0.70}")
+    private double moderateDuplicateThreshold;
+    
+    // Dedicated, bounded pool so candidate scoring never competes with request threads for the common pool
+    private ForkJoinPool scoringPool;
+    
+    @PostConstruct
+    public void initScoringPool() {
+        int parallelism = scoringParallelism > 0 
+            ? scoringParallelism 
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        scoringPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("verification-scoring-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        log.info("Verification scoring pool started with parallelism {}", parallelism);
+    }
+    
+    @PreDestroy
+    public void shutdownScoringPool() {
+        if (scoringPool != null) {
+            scoringPool.shutdown();
+        }
+    }
+    
     /**
      * Verify thesis against existing papers in database (backward compatibility)
      */
@@ -80,14 +161,31 @@ public class ThesisVerificationService {
             
             log.info("Step 4: Extracting text from document...");
             // Step 4: Extract text from document (PDF or DOCX)
-            String documentText = documentTextExtractorService.extractTextFromDocument(file);
+            // The content fingerprint is accumulated while the text streams out of the extractor
+            ContentFingerprint.Accumulator fingerprintAccumulator = new ContentFingerprint.Accumulator();
+            String documentText = documentTextExtractorService.extractTextFromDocument(file, fileHash, fingerprintAccumulator);
             log.info("Extracted {} characters from document", documentText.length());
             
+            log.info("Step 4.2: Checking content fingerprint...");
+            // Step 4.2: Indexed lookups on the stored fingerprints - same normalized text, or a SimHash
+            // within a few bits - answer re-uploads and re-saved copies without any embedding work
+            ContentFingerprint fingerprint = contentFingerprintService.fingerprint(fingerprintAccumulator);
+            Optional<ResearchPaper> fingerprintMatch = contentFingerprintService.findExactMatch(fingerprint);
+            if (fingerprintMatch.isPresent()) {
+                log.warn("🚨 IDENTICAL CONTENT DETECTED: normalized text hash matches an existing paper");
+                return createIdenticalContentResponse(fingerprintMatch.get());
+            }
+            fingerprintMatch = contentFingerprintService.findNearMatch(fingerprint);
+            if (fingerprintMatch.isPresent()) {
+                log.warn("🚨 NEARLY IDENTICAL CONTENT DETECTED: SimHash within the near-match radius");
+                return createIdenticalContentResponse(fingerprintMatch.get());
+            }
+            log.info("Step 4.2: Content fingerprint check completed");
+            
             log.info("Step 4.5: Checking for nearly identical content...");
             // Step 4.5: Check for nearly identical content (only for 95%+ similarity)
             // This is for truly identical content - small changes should go through AI analysis
-            String contentHash = generateContentHash(documentText);
-            Optional<ResearchPaper> identicalMatch = findNearlyIdenticalContent(documentText, contentHash);
+            Optional<ResearchPaper> identicalMatch = findNearlyIdenticalContent(documentText);
             if (identicalMatch.isPresent()) {
                 log.warn("🚨 NEARLY IDENTICAL CONTENT DETECTED: Very high similarity (95%+) found");
                 return createIdenticalContentResponse(identicalMatch.get());
@@ -95,18 +193,58 @@ public class ThesisVerificationService {
             log.info("Step 4.5: Nearly identical content check completed");
             
             log.info("Step 5: Generating embeddings...");
-            // Step 5: Generate embeddings (with fallback if Ollama unavailable)
-            List<Double> titleEmbedding = ollamaEmbeddingService.generateTitleEmbedding(request.getTitle());
-            List<Double> documentEmbedding = ollamaEmbeddingService.generateDocumentEmbedding(documentText);
+            // Step 5: Generate embeddings (with fallback if Ollama unavailable); both are requested
+            // together so they share one batch instead of two sequential round trips
+            CompletableFuture<float[]> titleEmbeddingFuture = ollamaEmbeddingService.generateTitleEmbeddingAsync(request.getTitle());
+            CompletableFuture<OllamaEmbeddingService.ChunkedDocumentEmbedding> documentEmbeddingFuture =
+                ollamaEmbeddingService.generateChunkedDocumentEmbeddingAsync(documentText);
+            // Papers not yet re-embedded in chunks are compared through a vector of the same prefix form
+            CompletableFuture<float[]> prefixEmbeddingFuture =
+                !paperVectorIndexService.isReady() || paperVectorIndexService.prefixPaperCount() > 0
+                    ? ollamaEmbeddingService.generatePrefixDocumentEmbeddingAsync(documentText)
+                    : CompletableFuture.completedFuture(null);
+            float[] titleEmbedding = titleEmbeddingFuture.join();
+            OllamaEmbeddingService.ChunkedDocumentEmbedding chunkedEmbedding = documentEmbeddingFuture.join();
+            float[] documentEmbedding = chunkedEmbedding.getPooledEmbedding();
+            float[] prefixDocumentEmbedding = prefixEmbeddingFuture.join();
             
             log.info("Generated embeddings - Title: {} dims, Document: {} dims", 
-                titleEmbedding.size(), documentEmbedding.size());
-            
-            // Step 6: Compare with existing papers
-            List<ResearchPaper> papersWithEmbeddings = researchPaperRepository.findPapersWithEmbeddings();
-            log.info("Comparing against {} papers with embeddings", papersWithEmbeddings.size());
+                titleEmbedding.length, documentEmbedding.length);
+            
+            // Step 6: Compare with existing papers (top-k candidates from the vector index when it is ready)
+            List<ResearchPaper> papersWithEmbeddings;
+            int totalPapersCompared;
+            Map<String, Float> chunkMatches = Collections.emptyMap();
+            if (paperVectorIndexService.isReady()) {
+                totalPapersCompared = paperVectorIndexService.size();
+                papersWithEmbeddings = new ArrayList<>();
+                if (totalPapersCompared > 0) {
+                    // Chunk-to-chunk neighbours cover passages anywhere in the document, not just the pooled vector
+                    chunkMatches = paperVectorIndexService.findChunkMatches(chunkedEmbedding.getChunkEmbeddings());
+                    Set<String> candidateIds = new LinkedHashSet<>(paperVectorIndexService.findCandidateIds(
+                        request.getTitle(), titleEmbedding, documentEmbedding, prefixDocumentEmbedding));
+                    candidateIds.addAll(chunkMatches.keySet());
+                    researchPaperRepository.findAllById(candidateIds).forEach(papersWithEmbeddings::add);
+                }
+                log.info("Comparing against {} candidate papers from vector index ({} indexed, {} chunk matches)", 
+                    papersWithEmbeddings.size(), totalPapersCompared, chunkMatches.size());
+            } else if (embeddingSegmentService.isReady()) {
+                // Index still building: exact scan over the memory-mapped embedding segment
+                totalPapersCompared = embeddingSegmentService.size();
+                papersWithEmbeddings = new ArrayList<>();
+                if (totalPapersCompared > 0) {
+                    researchPaperRepository.findAllById(embeddingSegmentService.findCandidateIds(
+                        request.getTitle(), titleEmbedding, documentEmbedding)).forEach(papersWithEmbeddings::add);
+                }
+                log.info("Comparing against {} candidate papers from embedding segment ({} stored)", 
+                    papersWithEmbeddings.size(), totalPapersCompared);
+            } else {
+                papersWithEmbeddings = researchPaperRepository.findPapersWithEmbeddings();
+                totalPapersCompared = papersWithEmbeddings.size();
+                log.info("Comparing against {} papers with embeddings", papersWithEmbeddings.size());
+            }
             
-            if (papersWithEmbeddings.isEmpty()) {
+            if (totalPapersCompared == 0) {
                 // Generate proper report even when database is empty
                 // For empty database, still run AI detection
                 AIDetectionService.AIDetectionResult aiDetectionResult = 
@@ -135,7 +273,8 @@ public class ThesisVerificationService {
             
             // Step 7: Calculate similarities using AI embeddings
             log.info("🤖 Starting AI similarity analysis against {} papers...", papersWithEmbeddings.size());
-            SimilarityResult bestMatch = findBestMatch(request, titleEmbedding, documentEmbedding, papersWithEmbeddings);
+            SimilarityResult bestMatch = findBestMatch(request, titleEmbedding, documentEmbedding,
+                prefixDocumentEmbedding, chunkMatches, papersWithEmbeddings);
             
             if (bestMatch.bestMatchPaper != null) {
                 log.info("🔍 AI Analysis Result: Best match '{}' with {}% similarity", 
@@ -153,7 +292,12 @@ public class ThesisVerificationService {
                     Math.round(aiDetectionResult.getAiProbabilityPercentage()));
             
             // Step 9: Generate verification response with role-based details and AI detection
-            return createVerificationResponse(request, bestMatch, papersWithEmbeddings.size(), userType, aiDetectionResult);
+            ThesisVerificationResponse response = 
+                createVerificationResponse(request, bestMatch, totalPapersCompared, userType, aiDetectionResult);
+            
+            // Step 10: Localize the overlap - passages shared with existing papers, with offsets in both texts
+            response.setMatchedPassages(passageIndexService.findMatchingPassages(documentText));
+            return response;
             
         } catch (Exception e) {
             log.error("Error during thesis verification: {}", e.getMessage(), e);
@@ -182,11 +326,7 @@ public class ThesisVerificationService {
             
             // Search by blockchain transaction ID
             if (foundPaper == null && blockchainTxId != null && !blockchainTxId.trim().isEmpty()) {
-                List<ResearchPaper> allPapers = researchPaperRepository.findAll();
-                foundPaper = allPapers.stream()
-                    .filter(p -> blockchainTxId.trim().equals(p.getBlockchainTxId()))
-                    .findFirst()
-                    .orElse(null);
+                foundPaper = researchPaperRepository.findFirstByBlockchainTxId(blockchainTxId.trim()).orElse(null);
             }
             
             // Search by title and author (partial match)
@@ -225,38 +365,72 @@ public class ThesisVerificationService {
     }
     
     /**
-     * Find the best matching paper using AI similarity with enhanced title checking
+     * Find the best matching paper using AI similarity with enhanced title checking.
+     * Large candidate lists are split across the bounded scoring pool; every task keeps its
+     * own best match and top-k heap, and partial results are merged in candidate order so
+     * the outcome is identical to scoring the list sequentially.
      */
     private SimilarityResult findBestMatch(ThesisVerificationRequest request, 
-                                         List<Double> titleEmbedding, 
-                                         List<Double> documentEmbedding,
+                                         float[] titleEmbedding, 
+                                         float[] documentEmbedding,
+                                         float[] prefixDocumentEmbedding,
+                                         Map<String, Float> chunkMatches,
                                          List<ResearchPaper> papersWithEmbeddings) {
         
-        double bestSimilarity = 0.0;
-        ResearchPaper bestMatch = null;
-        double bestTitleSimilarity = 0.0;
-        double bestContentSimilarity = 0.0;
-        double bestTitleStringSimilarity = 0.0;
-        List<ThesisVerificationResponse.SimilarPaper> topMatches = new ArrayList<>();
-        boolean exactTitleMatch = false;
+        // Query norms are computed once; paper norms are cached on the paper
+        ScoringQuery query = new ScoringQuery(request.getTitle(),
+            titleEmbedding, VectorMath.norm(titleEmbedding),
+            documentEmbedding, VectorMath.norm(documentEmbedding),
+            prefixDocumentEmbedding, prefixDocumentEmbedding != null ? VectorMath.norm(prefixDocumentEmbedding) : 0.0f,
+            chunkMatches);
         
-        for (ResearchPaper paper : papersWithEmbeddings) {
+        ScoringPartial result = ParallelRanges.reduce(scoringPool, papersWithEmbeddings.size(), scoringBatchSize,
+            (start, end) -> scoreRange(query, papersWithEmbeddings, start, end), ScoringPartial::merge);
+        
+        return new SimilarityResult(result.bestMatch, result.bestSimilarity, result.bestTitleSimilarity, 
+                                  result.bestContentSimilarity, result.bestTitleStringSimilarity, 
+                                  result.exactTitleMatch, result.sortedMatches(), result.matches.getOffered());
+    }
+    
+    /**
+     * Score papers [start, end) of the candidate list sequentially
+     */
+    private ScoringPartial scoreRange(ScoringQuery query, List<ResearchPaper> papers, int start, int end) {
+        ScoringPartial partial = new ScoringPartial(maxTopMatches);
+        
+        for (int i = start; i < end; i++) {
+            ResearchPaper paper = papers.get(i);
             try {
                 double titleSim = 0.0;
                 double contentSim = 0.0;
                 
                 // Check for exact title match first (string comparison)
-                boolean isExactTitle = similarityService.isExactTitleMatch(request.getTitle(), paper.getTitle());
-                double titleStringSimiarity = similarityService.calculateTitleStringSimilarity(request.getTitle(), paper.getTitle());
+                boolean isExactTitle = similarityService.isExactTitleMatch(query.title, paper.getTitle());
+                double titleStringSimiarity = similarityService.calculateTitleStringSimilarity(query.title, paper.getTitle());
                 
-                // Calculate AI-based title similarity
-                if (similarityService.areVectorsValid(titleEmbedding, paper.getTitleEmbedding())) {
-                    titleSim = similarityService.calculateSimilarityPercentage(titleEmbedding, paper.getTitleEmbedding());
+                // Calculate AI-based title similarity (invalid vectors count as orthogonal, i.e. 50%, in the combined score)
+                double titleVectorSim = similarityService.calculateSimilarityPercentage(
+                    query.titleEmbedding, query.titleNorm, paper.getTitleEmbedding(), paper.getTitleEmbeddingNorm());
+                if (similarityService.areVectorsValid(query.titleEmbedding, paper.getTitleEmbedding())) {
+                    titleSim = titleVectorSim;
                 }
                 
-                // Calculate content similarity
-                if (similarityService.areVectorsValid(documentEmbedding, paper.getDocumentEmbedding())) {
-                    contentSim = similarityService.calculateSimilarityPercentage(documentEmbedding, paper.getDocumentEmbedding());
+                // Calculate content similarity against the query vector of the same kind as the paper's
+                boolean chunked = paper.hasChunkedDocumentEmbedding();
+                float[] queryDocument = chunked ? query.documentEmbedding : query.prefixDocumentEmbedding;
+                float queryDocumentNorm = chunked ? query.documentNorm : query.prefixDocumentNorm;
+                double contentVectorSim = similarityService.calculateSimilarityPercentage(
+                    queryDocument, queryDocumentNorm, paper.getDocumentEmbedding(), paper.getDocumentEmbeddingNorm());
+                if (similarityService.areVectorsValid(queryDocument, paper.getDocumentEmbedding())) {
+                    contentSim = contentVectorSim;
+                }
+                
+                // A near-copied passage counts even when the pooled document vectors differ
+                Float chunkCosine = query.chunkSimilarities.get(paper.getId());
+                if (chunkCosine != null && chunkCosine >= chunkMatchThreshold) {
+                    double chunkSim = similarityService.cosineToPercentage(chunkCosine);
+                    contentVectorSim = Math.max(contentVectorSim, chunkSim);
+                    contentSim = Math.max(contentSim, chunkSim);
                 }
                 
                 // If exact title match or very high title similarity, boost content similarity
@@ -264,16 +438,16 @@ public class ThesisVerificationService {
                 if (isExactTitle || titleStringSimiarity >= 95.0) {
                     // Exact/near-exact title match significantly increases plagiarism concerns
                     adjustedContentSim = Math.max(contentSim, 95.0);
-                    exactTitleMatch = true;
-                    log.warn("⚠️ EXACT TITLE MATCH detected: '{}' vs '{}'", request.getTitle(), paper.getTitle());
+                    partial.exactTitleMatch = true;
+                    log.warn("⚠️ EXACT TITLE MATCH detected: '{}' vs '{}'", query.title, paper.getTitle());
                 } else if (titleStringSimiarity >= 85.0) {
                     // Very similar titles - even with different abstracts, this is suspicious
                     adjustedContentSim = Math.max(contentSim, Math.min(95.0, contentSim + 25.0));
-                    log.warn("⚠️ VERY SIMILAR TITLE detected: '{}' vs '{}'", request.getTitle(), paper.getTitle());
+                    log.warn("⚠️ VERY SIMILAR TITLE detected: '{}' vs '{}'", query.title, paper.getTitle());
                 } else if (titleStringSimiarity >= 75.0) {
                     // Moderately similar titles - boost content similarity
                     adjustedContentSim = Math.max(contentSim, Math.min(90.0, contentSim + 15.0));
-                    log.warn("⚠️ SIMILAR TITLE detected: '{}' vs '{}'", request.getTitle(), paper.getTitle());
+                    log.warn("⚠️ SIMILAR TITLE detected: '{}' vs '{}'", query.title, paper.getTitle());
                 }
                 
                 // Enhanced combined similarity calculation
@@ -282,9 +456,7 @@ public class ThesisVerificationService {
                 double contentWeight = titleStringSimiarity >= 85.0 ? 0.4 : 0.7;
                 
                 double combinedSimilarity = similarityService.calculateCombinedSimilarity(
-                    titleEmbedding, paper.getTitleEmbedding(),
-                    documentEmbedding, paper.getDocumentEmbedding(),
-                    titleWeight, contentWeight);
+                    titleVectorSim, contentVectorSim, titleWeight, contentWeight);
                 
                 // Use adjusted content similarity for final calculation when titles are similar
                 if (titleStringSimiarity >= 75.0) {
@@ -301,21 +473,16 @@ public class ThesisVerificationService {
                 
                 // Add to top matches if similarity is significant (lowered threshold for admin detection)
                 if (combinedSimilarity > 25.0 || titleStringSimiarity >= 75.0) {
-                    ThesisVerificationResponse.SimilarPaper similarPaper = 
-                        new ThesisVerificationResponse.SimilarPaper(
-                            paper.getId(), paper.getTitle(), paper.getAuthor(), combinedSimilarity);
-                    similarPaper.setDepartment(paper.getDepartment());
-                    similarPaper.setSubmissionDate(paper.getSubmissionDate());
-                    topMatches.add(similarPaper);
+                    partial.offerMatch(i, paper, combinedSimilarity);
                 }
                 
                 // Track best match
-                if (combinedSimilarity > bestSimilarity) {
-                    bestSimilarity = combinedSimilarity;
-                    bestMatch = paper;
-                    bestTitleSimilarity = titleSim;
-                    bestContentSimilarity = adjustedContentSim; // Use adjusted content similarity
-                    bestTitleStringSimilarity = titleStringSimiarity;
+                if (combinedSimilarity > partial.bestSimilarity) {
+                    partial.bestSimilarity = combinedSimilarity;
+                    partial.bestMatch = paper;
+                    partial.bestTitleSimilarity = titleSim;
+                    partial.bestContentSimilarity = adjustedContentSim; // Use adjusted content similarity
+                    partial.bestTitleStringSimilarity = titleStringSimiarity;
                 }
                 
                 log.debug("Paper: {} - Title AI: {}%, Title String: {}%, Content: {}% (Adj: {}%), Combined: {}%", 
@@ -326,11 +493,7 @@ public class ThesisVerificationService {
             }
         }
         
-        // Sort top matches by similarity score
-        topMatches.sort((a, b) -> Double.compare(b.getSimilarityScore(), a.getSimilarityScore()));
-        
-        return new SimilarityResult(bestMatch, bestSimilarity, bestTitleSimilarity, 
-                                  bestContentSimilarity, bestTitleStringSimilarity, exactTitleMatch, topMatches);
+        return partial;
     }
     
     /**
@@ -388,6 +551,7 @@ public class ThesisVerificationService {
             aiAnalysis.setMatchedPapersCount(totalPapersCompared);
             aiAnalysis.setTopMatches(bestMatch.topMatches.size() > 5 ? 
                 bestMatch.topMatches.subList(0, 5) : bestMatch.topMatches);
+            applyMatchesPage(aiAnalysis, request, bestMatch);
             
             // Add AI detection results
             aiAnalysis.setAiDetectionScore(aiDetectionResult.getAiProbabilityPercentage());
@@ -427,6 +591,7 @@ public class ThesisVerificationService {
                     actualSimilarity / 100.0, 0.0, actualSimilarity / 100.0);
             aiAnalysis.setMatchedPapersCount(totalPapersCompared);
             aiAnalysis.setTopMatches(bestMatch.topMatches);
+            applyMatchesPage(aiAnalysis, request, bestMatch);
             
             // Add AI detection results
             aiAnalysis.setAiDetectionScore(aiDetectionResult.getAiProbabilityPercentage());
@@ -483,6 +648,7 @@ public class ThesisVerificationService {
         aiAnalysis.setMatchedPapersCount(totalPapersCompared);
         aiAnalysis.setTopMatches(bestMatch.topMatches.size() > 5 ? 
             bestMatch.topMatches.subList(0, 5) : bestMatch.topMatches);
+        applyMatchesPage(aiAnalysis, request, bestMatch);
         
         // Add AI detection results
         aiAnalysis.setAiDetectionScore(aiDetectionResult.getAiProbabilityPercentage());
@@ -556,11 +722,12 @@ public class ThesisVerificationService {
         final double bestTitleStringSimilarity;
         final boolean exactTitleMatch;
         final List<ThesisVerificationResponse.SimilarPaper> topMatches;
+        final int totalMatches; // All matches above the threshold, including those beyond the top-k
         
         SimilarityResult(ResearchPaper bestMatchPaper, double bestSimilarity, 
                         double bestTitleSimilarity, double bestContentSimilarity,
                         double bestTitleStringSimilarity, boolean exactTitleMatch,
-                        List<ThesisVerificationResponse.SimilarPaper> topMatches) {
+                        List<ThesisVerificationResponse.SimilarPaper> topMatches, int totalMatches) {
             this.bestMatchPaper = bestMatchPaper;
             this.bestSimilarity = bestSimilarity;
             this.bestTitleSimilarity = bestTitleSimilarity;
@@ -568,32 +735,114 @@ public class ThesisVerificationService {
             this.bestTitleStringSimilarity = bestTitleStringSimilarity;
             this.exactTitleMatch = exactTitleMatch;
             this.topMatches = topMatches;
+            this.totalMatches = totalMatches;
         }
     }
     
     /**
-     * Generate content-based hash from extracted text (normalized)
+     * Replace the default match list with the requested page of the ranked matches, if any.
+     * Only the top verification.scoring.max-matches matches are kept, so pages stop there.
      */
-    private String generateContentHash(String text) {
-        try {
-            // Normalize the text to handle minor formatting differences
-            String normalizedText = text
-                .replaceAll("\\s+", " ")              // Replace multiple spaces with single space
-                .replaceAll("[\\r\\n\\t]", " ")       // Replace line breaks and tabs with space
-                .replaceAll("[^\\p{L}\\p{N}\\s]", "") // Keep only letters, numbers, and spaces
-                .toLowerCase()                        // Convert to lowercase
-                .trim();                              // Remove leading/trailing spaces
-            
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(normalizedText.getBytes("UTF-8"));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
+    private void applyMatchesPage(ThesisVerificationResponse.AIAnalysis aiAnalysis,
+                                  ThesisVerificationRequest request, SimilarityResult bestMatch) {
+        if (request.getMatchesPage() == null && request.getMatchesPageSize() == null) {
+            return;
+        }
+        
+        int page = request.getMatchesPage() != null ? Math.max(0, request.getMatchesPage()) : 0;
+        int pageSize = request.getMatchesPageSize() != null 
+            ? Math.max(1, Math.min(request.getMatchesPageSize(), maxTopMatches)) 
+            : DEFAULT_MATCHES_PAGE_SIZE;
+        
+        List<ThesisVerificationResponse.SimilarPaper> ranked = bestMatch.topMatches;
+        int from = (int) Math.min((long) page * pageSize, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        
+        aiAnalysis.setTopMatches(new ArrayList<>(ranked.subList(from, to)));
+        aiAnalysis.setTotalMatches(bestMatch.totalMatches);
+        aiAnalysis.setMatchesPage(page);
+        aiAnalysis.setMatchesPageSize(pageSize);
+    }
+    
+    /**
+     * Query side of a scoring run, shared read-only by all scoring tasks
+     */
+    private static class ScoringQuery {
+        final String title;
+        final float[] titleEmbedding;
+        final float titleNorm;
+        final float[] documentEmbedding;
+        final float documentNorm;
+        final float[] prefixDocumentEmbedding; // Legacy-form vector for papers not re-embedded in chunks, may be null
+        final float prefixDocumentNorm;
+        final Map<String, Float> chunkSimilarities; // Best chunk-to-chunk cosine per paper ID
+        
+        ScoringQuery(String title, float[] titleEmbedding, float titleNorm, 
+                     float[] documentEmbedding, float documentNorm,
+                     float[] prefixDocumentEmbedding, float prefixDocumentNorm, Map<String, Float> chunkSimilarities) {
+            this.title = title;
+            this.titleEmbedding = titleEmbedding;
+            this.titleNorm = titleNorm;
+            this.documentEmbedding = documentEmbedding;
+            this.documentNorm = documentNorm;
+            this.prefixDocumentEmbedding = prefixDocumentEmbedding;
+            this.prefixDocumentNorm = prefixDocumentNorm;
+            this.chunkSimilarities = chunkSimilarities != null ? chunkSimilarities : Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * Best match and bounded top-k heap for one range of candidates
+     */
+    private static class ScoringPartial {
+        final TopK<RankedItem<ResearchPaper>> matches;
+        ResearchPaper bestMatch;
+        double bestSimilarity = 0.0;
+        double bestTitleSimilarity = 0.0;
+        double bestContentSimilarity = 0.0;
+        double bestTitleStringSimilarity = 0.0;
+        boolean exactTitleMatch = false;
+        
+        ScoringPartial(int limit) {
+            this.matches = new TopK<>(limit, RankedItem.ranking());
+        }
+        
+        void offerMatch(int index, ResearchPaper paper, double score) {
+            matches.offer(new RankedItem<>(index, paper, score));
+        }
+        
+        /**
+         * Merge a partial that covers the candidates directly after this one
+         */
+        ScoringPartial merge(ScoringPartial next) {
+            // Strictly greater, so on ties the earlier candidate wins as in a sequential scan
+            if (next.bestSimilarity > bestSimilarity) {
+                bestMatch = next.bestMatch;
+                bestSimilarity = next.bestSimilarity;
+                bestTitleSimilarity = next.bestTitleSimilarity;
+                bestContentSimilarity = next.bestContentSimilarity;
+                bestTitleStringSimilarity = next.bestTitleStringSimilarity;
             }
-            return sb.toString();
-        } catch (Exception e) {
-            log.error("Failed to generate content hash", e);
-            return "";
+            exactTitleMatch |= next.exactTitleMatch;
+            matches.merge(next.matches);
+            return this;
+        }
+        
+        /**
+         * Matches ordered by similarity score (highest first, candidate order on ties)
+         */
+        List<ThesisVerificationResponse.SimilarPaper> sortedMatches() {
+            List<ThesisVerificationResponse.SimilarPaper> topMatches = new ArrayList<>(matches.size());
+            for (RankedItem<ResearchPaper> match : matches.toSortedList()) {
+                ResearchPaper paper = match.getItem();
+                ThesisVerificationResponse.SimilarPaper similarPaper = 
+                    new ThesisVerificationResponse.SimilarPaper(
+                        paper.getId(), paper.getTitle(), paper.getAuthor(), match.getScore());
+                similarPaper.setDepartment(paper.getDepartment());
+                similarPaper.setSubmissionDate(paper.getSubmissionDate());
+                topMatches.add(similarPaper);
+            }
+            return topMatches;
         }
     }
     
@@ -601,35 +850,57 @@ public class ThesisVerificationService {
      * Find paper with nearly identical content (95%+ similarity) - for truly identical papers only
      * Moderately similar papers (70-94%) will go through normal AI analysis
      */
-    private Optional<ResearchPaper> findNearlyIdenticalContent(String documentText, String contentHash) {
+    private Optional<ResearchPaper> findNearlyIdenticalContent(String documentText) {
         try {
-            // First, try to find papers with similar content hash
-            List<ResearchPaper> allPapers = researchPaperRepository.findAll();
+            if (nearDuplicateIndexService.isReady()) {
+                // Only papers sharing an LSH band with the submission are considered
+                int[] signature = MinHasher.contentSignature(documentText);
+                for (LshIndex.Match match : nearDuplicateIndexService.findNearDuplicates(signature, moderateDuplicateThreshold)) {
+                    Optional<ResearchPaper> paper = researchPaperRepository.findById(match.getKey());
+                    if (paper.isEmpty()) {
+                        continue;
+                    }
+                    // With the stored text the exact shingle overlap replaces the signature estimate
+                    Optional<String> storedText = extractedTextService.loadText(paper.get());
+                    double similarity = storedText.isPresent() 
+                        ? MinHasher.exactJaccard(documentText, storedText.get()) 
+                        : match.getSimilarity();
+                    double textSimilarity = similarity * 100.0;
+                    if (similarity >= identicalDuplicateThreshold) {
+                        log.warn("🚨 NEARLY IDENTICAL CONTENT: {}% shingle similarity - treating as identical", textSimilarity);
+                        return paper;
+                    } else if (similarity >= moderateDuplicateThreshold) {
+                        log.info("📋 MODERATE SIMILARITY DETECTED: {}% - will proceed to AI analysis", textSimilarity);
+                    }
+                }
+                return Optional.empty();
+            }
+            
+            // Papers without embeddings had no text extracted; the embeddings themselves are not needed
+            List<ResearchPaper> allPapers = researchPaperRepository.findSummariesWithEmbeddings();
             
             for (ResearchPaper paper : allPapers) {
-                // Skip papers without embeddings (no text was extracted)
-                if (paper.getDocumentEmbedding() == null) {
-                    continue;
-                }
-                
-                // Try to match content hash if we had stored it (future enhancement)
-                // For now, we'll do text similarity comparison
+                // Stored length first, so the text itself is only loaded for papers of nearly the same length
+                Integer existingLength = paper.getExtractedTextLength() != null ? paper.getExtractedTextLength()
+                    : paper.getAbstractText() != null ? Integer.valueOf(paper.getAbstractText().length()) : null;
                 
                 // Quick text length comparison (identical content should have very similar lengths)
-                if (paper.getAbstractText() != null) {
-                    double lengthRatio = (double) Math.min(documentText.length(), paper.getAbstractText().length()) 
-                                       / Math.max(documentText.length(), paper.getAbstractText().length());
+                if (existingLength != null) {
+                    double lengthRatio = (double) Math.min(documentText.length(), existingLength) 
+                                       / Math.max(documentText.length(), existingLength);
                     
-                    if (lengthRatio > 0.98) { // Nearly identical lengths (98%+)
+                    String existingText = lengthRatio > 0.98 ? extractedTextService.loadTextOrAbstract(paper) : null;
+                    if (existingText != null) { // Nearly identical lengths (98%+)
                         log.info("Found paper with nearly identical text length: {} vs {}", 
-                               documentText.length(), paper.getAbstractText().length());
+                               documentText.length(), existingText.length());
                         
                         // Additional check: compare first 1000 characters (normalized) for better accuracy
-                        int compareLength = Math.min(1000, Math.min(documentText.length(), paper.getAbstractText().length()));
-                        String submittedStart = normalizeTextForComparison(documentText.substring(0, compareLength));
-                        String existingStart = normalizeTextForComparison(paper.getAbstractText().substring(0, compareLength));
+                        int compareLength = Math.min(1000, Math.min(documentText.length(), existingText.length()));
+                        String submittedStart = TextNormalizer.forComparison(documentText.substring(0, compareLength));
+                        String existingStart = TextNormalizer.forComparison(existingText.substring(0, compareLength));
                         
-                        double textSimilarity = calculateSimpleTextSimilarity(submittedStart, existingStart);
+                        // Bounded at the lowest threshold that is reported; anything below comes back as 0
+                        double textSimilarity = EditDistance.similarityPercentage(submittedStart, existingStart, 70.0);
                         log.info("Text similarity check: {}% similarity detected", textSimilarity);
                         
                         // Only return match for VERY high similarity (95%+) - truly identical content
@@ -651,58 +922,6 @@ public class ThesisVerificationService {
         }
     }
     
-    /**
-     * Normalize text for comparison
-     */
-    private String normalizeTextForComparison(String text) {
-        return text.replaceAll("\\s+", " ")
-                  .replaceAll("[^\\p{L}\\p{N}\\s]", "")
-                  .toLowerCase()
-                  .trim();
-    }
-    
-    /**
-     * Calculate simple text similarity percentage
-     */
-    private double calculateSimpleTextSimilarity(String text1, String text2) {
-        if (text1.equals(text2)) {
-            return 100.0;
-        }
-        
-        int maxLen = Math.max(text1.length(), text2.length());
-        if (maxLen == 0) return 0.0;
-        
-        int editDistance = calculateLevenshteinDistance(text1, text2);
-        return ((double)(maxLen - editDistance) / maxLen) * 100.0;
-    }
-    
-    /**
-     * Calculate Levenshtein distance between two strings
-     */
-    private int calculateLevenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            dp[i][0] = i;
-        }
-        
-        for (int j = 0; j <= s2.length(); j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
-                }
-            }
-        }
-        
-        return dp[s1.length()][s2.length()];
-    }
-    
     /**
      * Create response for identical content detection
      */
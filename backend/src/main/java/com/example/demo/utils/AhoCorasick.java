@@ -0,0 +1,147 @@
+package com.example.demo.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho–Corasick automaton over a fixed set of phrases, matched case-insensitively.
+ *
+ * The text is fed one character at a time through {@link #next}, and {@link #matches} lists
+ * the phrases ending at the current position, so every occurrence of every phrase is found in
+ * one pass whose cost depends on the text length, not on the number of phrases. Transitions
+ * on characters that occur in the phrases are resolved into a dense table when the automaton
+ * is built; every other character leads back to the root.
+ */
+public final class AhoCorasick {
+
+    private static final int[] NO_MATCHES = new int[0];
+
+    private final int[] lengths;
+    // Character -> column of the transition table; characters not in any phrase have none
+    private final Map<Character, Integer> columns = new HashMap<>();
+    private final int[] asciiColumns = new int[128];
+    private final int[] transitions;
+    private final int width;
+    private final int[][] outputs;
+
+    /**
+     * @param phrases phrases to find; a phrase's index in the list is its id in {@link #matches}
+     */
+    public AhoCorasick(List<String> phrases) {
+        lengths = new int[phrases.size()];
+        Arrays.fill(asciiColumns, -1);
+
+        // Trie of the lower-cased phrases
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        children.add(new HashMap<>());
+        ends.add(new ArrayList<>());
+        for (int id = 0; id < phrases.size(); id++) {
+            String phrase = phrases.get(id);
+            lengths[id] = phrase.length();
+            if (phrase.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < phrase.length(); i++) {
+                char c = Character.toLowerCase(phrase.charAt(i));
+                column(c);
+                Integer child = children.get(state).get(c);
+                if (child == null) {
+                    child = children.size();
+                    children.add(new HashMap<>());
+                    ends.add(new ArrayList<>());
+                    children.get(state).put(c, child);
+                }
+                state = child;
+            }
+            ends.get(state).add(id);
+        }
+
+        // Breadth-first: failure links, inherited outputs and the complete transition table
+        int states = children.size();
+        width = Math.max(1, columns.size());
+        transitions = new int[states * width];
+        outputs = new int[states][];
+        int[] fail = new int[states];
+        outputs[0] = toArray(ends.get(0));
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (Map.Entry<Character, Integer> edge : children.get(0).entrySet()) {
+            transitions[columns.get(edge.getKey())] = edge.getValue();
+            queue.add(edge.getValue());
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> matched = new ArrayList<>(ends.get(state));
+            for (int id : outputs[fail[state]]) {
+                matched.add(id);
+            }
+            outputs[state] = toArray(matched);
+            for (int column = 0; column < width; column++) {
+                transitions[state * width + column] = transitions[fail[state] * width + column];
+            }
+            for (Map.Entry<Character, Integer> edge : children.get(state).entrySet()) {
+                int column = columns.get(edge.getKey());
+                int child = edge.getValue();
+                fail[child] = state == 0 ? 0 : transitions[fail[state] * width + column];
+                transitions[state * width + column] = child;
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * State after reading one more character; start from 0
+     */
+    public int next(int state, char c) {
+        char lower = Character.toLowerCase(c);
+        int column;
+        if (lower < 128) {
+            column = asciiColumns[lower];
+        } else {
+            Integer mapped = columns.get(lower);
+            column = mapped != null ? mapped : -1;
+        }
+        return column < 0 ? 0 : transitions[state * width + column];
+    }
+
+    /**
+     * Ids of the phrases that end at the character just read
+     */
+    public int[] matches(int state) {
+        return outputs[state];
+    }
+
+    public int length(int id) {
+        return lengths[id];
+    }
+
+    public int size() {
+        return lengths.length;
+    }
+
+    private void column(char c) {
+        if (!columns.containsKey(c)) {
+            int column = columns.size();
+            columns.put(c, column);
+            if (c < 128) {
+                asciiColumns[c] = column;
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return NO_MATCHES;
+        }
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+}
\ No newline at end of file
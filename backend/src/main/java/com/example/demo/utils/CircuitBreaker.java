@@ -0,0 +1,183 @@
+package com.example.demo.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Closed / open / half-open circuit breaker with exponential backoff.
+ *
+ * After enough consecutive failures the breaker opens and turns calls away; once the backoff
+ * expires it goes half-open and admits a single trial. A successful trial closes it, a failed
+ * one re-opens it with the backoff doubled up to the maximum.
+ *
+ * Every call is admitted with a permit: the generation the breaker was in when the call
+ * started. Each state change starts a new generation, and outcomes recorded with an older
+ * permit are ignored, so a call that outlived the state it was admitted in (a slow request
+ * from before the breaker opened, say) can neither resolve a half-open trial nor free the
+ * trial slot for a second one.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Returned by {@link #tryAcquire()} when the call must not go out */
+    public static final long REJECTED = -1L;
+
+    private final int failureThreshold;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final LongSupplier clock;
+
+    private volatile State state = State.CLOSED;
+    private volatile long generation = 0L;
+    private volatile long openUntil = 0L;
+    private volatile long currentBackoffMs;
+    private volatile int consecutiveFailures = 0;
+    private volatile long lastStateChangeAt;
+    private boolean trialInFlight = false;
+    private volatile CompletableFuture<Boolean> trialOutcome = CompletableFuture.completedFuture(true);
+
+    private final AtomicLong rejectedRequests = new AtomicLong();
+    private final AtomicLong stateTransitions = new AtomicLong();
+
+    /**
+     * @param clock current time in milliseconds
+     */
+    public CircuitBreaker(int failureThreshold, long initialBackoffMs, long maxBackoffMs, LongSupplier clock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = Math.max(initialBackoffMs, maxBackoffMs);
+        this.clock = clock;
+        this.currentBackoffMs = initialBackoffMs;
+        this.lastStateChangeAt = clock.getAsLong();
+    }
+
+    /**
+     * Permit for a call, or {@link #REJECTED}. Closed admits every call; open rejects until the
+     * backoff has expired and then turns half-open; half-open admits exactly one trial until its
+     * outcome is recorded.
+     */
+    public long tryAcquire() {
+        return tryAcquire(true);
+    }
+
+    /**
+     * @param countRejection false for housekeeping calls such as health probes, so only
+     *                       turned-away work shows in {@link #getRejectedRequests()}
+     */
+    public synchronized long tryAcquire(boolean countRejection) {
+        if (state == State.CLOSED) {
+            return generation;
+        }
+        if (state == State.OPEN && clock.getAsLong() >= openUntil) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return generation;
+        }
+        if (countRejection) {
+            rejectedRequests.incrementAndGet();
+        }
+        return REJECTED;
+    }
+
+    /**
+     * Record a successful call; returns the state it moved the breaker to, or null when the
+     * state did not change or the permit is stale
+     */
+    public synchronized State recordSuccess(long permit) {
+        if (permit != generation) {
+            return null;
+        }
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            currentBackoffMs = initialBackoffMs;
+            transition(State.CLOSED);
+            return State.CLOSED;
+        }
+        return null;
+    }
+
+    /**
+     * Record a call that failed because of the remote side; returns the state it moved the
+     * breaker to, or null when the state did not change or the permit is stale
+     */
+    public synchronized State recordFailure(long permit) {
+        if (permit != generation) {
+            return null;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            // Trial failed: back off further before the next one
+            currentBackoffMs = Math.min(maxBackoffMs, currentBackoffMs * 2);
+            open();
+            return State.OPEN;
+        }
+        if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+            return State.OPEN;
+        }
+        return null;
+    }
+
+    /**
+     * Give up a permit whose call ended without telling anything about the remote side, so a
+     * half-open trial that never reached it frees the slot for the next caller
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Completes with true once the breaker is closed and false once it is open again; while
+     * half-open it stays pending until the trial call has an outcome
+     */
+    public CompletableFuture<Boolean> awaitTrial() {
+        CompletableFuture<Boolean> outcome = trialOutcome;
+        State current = state;
+        if (current == State.HALF_OPEN) {
+            return outcome;
+        }
+        return CompletableFuture.completedFuture(current == State.CLOSED);
+    }
+
+    public State getState() { return state; }
+    public int getConsecutiveFailures() { return consecutiveFailures; }
+    public long getCurrentBackoffMs() { return currentBackoffMs; }
+    public long getRejectedRequests() { return rejectedRequests.get(); }
+    public long getStateTransitions() { return stateTransitions.get(); }
+    public long getLastStateChangeAt() { return lastStateChangeAt; }
+
+    /**
+     * Milliseconds until an open breaker admits a trial; 0 when it is not open
+     */
+    public long getRetryInMs() {
+        return state == State.OPEN ? Math.max(0L, openUntil - clock.getAsLong()) : 0L;
+    }
+
+    private void open() {
+        openUntil = clock.getAsLong() + currentBackoffMs;
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        State from = state;
+        if (from == to) {
+            return;
+        }
+        generation++;
+        state = to;
+        trialInFlight = false;
+        if (to == State.HALF_OPEN) {
+            trialOutcome = new CompletableFuture<>();
+        } else if (from == State.HALF_OPEN) {
+            trialOutcome.complete(to == State.CLOSED);
+        }
+        lastStateChangeAt = clock.getAsLong();
+        stateTransitions.incrementAndGet();
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Persisted fingerprint of a document's extracted text: the SHA-256 of the normalized text
+ * for exact lookups and a SimHash with its block keys for Hamming-radius lookups.
+ *
+ * Normalization keeps lower-cased runs of letters and digits separated by single spaces, so
+ * re-saving a PDF (different bytes, line breaks or punctuation spacing) keeps the same hash.
+ */
+public final class ContentFingerprint {
+
+    private final String contentHash;
+    private final long simHash;
+    private final List<Integer> simHashBlocks;
+
+    ContentFingerprint(String contentHash, long simHash) {
+        this.contentHash = contentHash;
+        this.simHash = simHash;
+        this.simHashBlocks = SimHash.blockKeys(simHash);
+    }
+
+    /**
+     * Fingerprint of a document's text, or null when it has no letters or digits
+     */
+    public static ContentFingerprint of(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return new ContentFingerprint(sha256(normalized), SimHash.fingerprint(normalized));
+    }
+
+    /**
+     * Lower-cased letter/digit runs joined by single spaces
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String sha256(String normalized) {
+        MessageDigest digest = newDigest();
+        return toHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] hashBytes) {
+        StringBuilder sb = new StringBuilder(hashBytes.length * 2);
+        for (byte b : hashBytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds the same fingerprint as {@link #of} from text delivered in pieces, so it can be
+     * computed while a document is being extracted instead of in a second pass over the text
+     */
+    public static class Accumulator implements TextSink {
+
+        private final MessageDigest digest = newDigest();
+        private byte[] encoded = new byte[3 * 1024];
+        private boolean pendingSpace = false;
+        private boolean started = false;
+
+        // SimHash state: current word hash and the last SHINGLE_SIZE completed words
+        private final long[] recentWords = new long[SimHash.SHINGLE_SIZE];
+        private final int[] votes = new int[64];
+        private long wordHash = MinHasher.FNV_OFFSET;
+        private boolean inWord = false;
+        private long words = 0;
+
+        private boolean finished = false;
+        private ContentFingerprint result;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            if (encoded.length < length * 3 + 3) {
+                encoded = new byte[length * 3 + 3];
+            }
+            int size = 0;
+            for (int i = offset; i < offset + length; i++) {
+                char c = buffer[i];
+                if (Character.isLetterOrDigit(c)) {
+                    char lower = Character.toLowerCase(c);
+                    if (pendingSpace && started) {
+                        encoded[size++] = ' ';
+                    }
+                    pendingSpace = false;
+                    started = true;
+                    size = encode(lower, size);
+                    wordHash = (wordHash ^ lower) * MinHasher.FNV_PRIME;
+                    inWord = true;
+                } else {
+                    pendingSpace = true;
+                    if (inWord) {
+                        endWord();
+                    }
+                }
+            }
+            digest.update(encoded, 0, size);
+        }
+
+        private int encode(char c, int size) {
+            if (c < 0x80) {
+                encoded[size++] = (byte) c;
+            } else if (c < 0x800) {
+                encoded[size++] = (byte) (0xC0 | (c >> 6));
+                encoded[size++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                encoded[size++] = (byte) (0xE0 | (c >> 12));
+                encoded[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                encoded[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+            return size;
+        }
+
+        private void endWord() {
+            recentWords[(int) (words % SimHash.SHINGLE_SIZE)] = wordHash;
+            words++;
+            if (words >= SimHash.SHINGLE_SIZE) {
+                SimHash.vote(votes, shingleHash(words - SimHash.SHINGLE_SIZE, SimHash.SHINGLE_SIZE));
+            }
+            wordHash = MinHasher.FNV_OFFSET;
+            inWord = false;
+        }
+
+        private long shingleHash(long firstWord, int count) {
+            long hash = MinHasher.FNV_OFFSET;
+            for (long w = firstWord; w < firstWord + count; w++) {
+                hash = MinHasher.mix64(hash ^ recentWords[(int) (w % SimHash.SHINGLE_SIZE)]) * MinHasher.FNV_PRIME;
+            }
+            return hash;
+        }
+
+        @Override
+        public void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (inWord) {
+                endWord();
+            }
+            if (!started) {
+                return;
+            }
+            if (words < SimHash.SHINGLE_SIZE) {
+                // Shorter than one shingle: the whole text is the only shingle
+                SimHash.vote(votes, shingleHash(0, (int) words));
+            }
+            result = new ContentFingerprint(toHex(digest.digest()), SimHash.fromVotes(votes));
+        }
+
+        /**
+         * The fingerprint of everything written, or null when it had no letters or digits
+         */
+        public ContentFingerprint result() {
+            finish();
+            return result;
+        }
+    }
+
+    public String getContentHash() { return contentHash; }
+    public long getSimHash() { return simHash; }
+    public List<Integer> getSimHashBlocks() { return simHashBlocks; }
+}
\ No newline at end of file
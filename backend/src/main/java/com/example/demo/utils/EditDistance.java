@@ -0,0 +1,148 @@
+package com.example.demo.utils;
+
+/**
+ * Levenshtein edit distance with linear memory and an optional upper bound.
+ *
+ * Two rows over the shorter string replace the full (n+1) x (m+1) matrix. With a bound k
+ * only the diagonal band |i - j| <= k is evaluated (Ukkonen), and the computation stops as
+ * soon as every cell of a row exceeds k, so threshold questions like "is this at least 95%
+ * similar?" cost O(k * n) and usually exit after a few rows for dissimilar text.
+ */
+public final class EditDistance {
+
+    private EditDistance() {}
+
+    /**
+     * Exact edit distance
+     */
+    public static int distance(CharSequence a, CharSequence b) {
+        return distance(a, b, Math.max(a.length(), b.length()));
+    }
+
+    /**
+     * Edit distance if it is at most maxDistance, otherwise maxDistance + 1
+     */
+    public static int distance(CharSequence a, CharSequence b, int maxDistance) {
+        // Rows run over the shorter string
+        CharSequence longer = a.length() >= b.length() ? a : b;
+        CharSequence shorter = longer == a ? b : a;
+        int n = longer.length();
+        int m = shorter.length();
+        int limit = Math.max(0, maxDistance);
+        int outside = limit + 1;
+
+        if (n - m > limit) {
+            return outside;
+        }
+        if (m == 0) {
+            return n;
+        }
+
+        if (limit >= n) {
+            // The band covers the whole matrix, so skip its bookkeeping
+            return unbounded(longer, shorter);
+        }
+
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = Math.min(j, outside);
+        }
+
+        for (int i = 1; i <= n; i++) {
+            int low = Math.max(1, i - limit);
+            int high = Math.min(m, i + limit);
+            if (low > high) {
+                return outside;
+            }
+
+            current[low - 1] = low == 1 ? Math.min(i, outside) : outside;
+            int rowMinimum = current[low - 1];
+            char c = longer.charAt(i - 1);
+
+            for (int j = low; j <= high; j++) {
+                int value = previous[j - 1] + (c == shorter.charAt(j - 1) ? 0 : 1);
+                value = Math.min(value, previous[j] + 1);
+                value = Math.min(value, current[j - 1] + 1);
+                value = Math.min(value, outside);
+                current[j] = value;
+                if (value < rowMinimum) {
+                    rowMinimum = value;
+                }
+            }
+            // The next row reads one cell past this band
+            if (high < m) {
+                current[high + 1] = outside;
+            }
+
+            if (rowMinimum > limit) {
+                return outside;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[m], outside);
+    }
+
+    /**
+     * Similarity percentage (maxLength - distance) / maxLength * 100; 100 for two empty strings
+     */
+    public static double similarityPercentage(CharSequence a, CharSequence b) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) {
+            return 100.0;
+        }
+        return toPercentage(maxLength, distance(a, b));
+    }
+
+    /**
+     * Similarity percentage when it is at least minPercentage, otherwise 0. Only the band of
+     * edit distances that can still reach minPercentage is evaluated.
+     */
+    public static double similarityPercentage(CharSequence a, CharSequence b, double minPercentage) {
+        int maxLength = Math.max(a.length(), b.length());
+        if (maxLength == 0) {
+            return 100.0;
+        }
+
+        // Largest distance whose percentage still reaches the minimum, computed with the same formula
+        int maxDistance = (int) Math.floor(maxLength * (1.0 - minPercentage / 100.0)) + 1;
+        while (maxDistance >= 0 && toPercentage(maxLength, maxDistance) < minPercentage) {
+            maxDistance--;
+        }
+        if (maxDistance < 0) {
+            return 0.0;
+        }
+
+        int distance = distance(a, b, maxDistance);
+        return distance <= maxDistance ? toPercentage(maxLength, distance) : 0.0;
+    }
+
+    private static int unbounded(CharSequence longer, CharSequence shorter) {
+        int m = shorter.length();
+        int[] row = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= longer.length(); i++) {
+            char c = longer.charAt(i - 1);
+            // row[j - 1] already holds this row's value; diagonal keeps the previous row's
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= m; j++) {
+                int above = row[j];
+                int value = c == shorter.charAt(j - 1) ? diagonal : Math.min(diagonal, Math.min(above, row[j - 1])) + 1;
+                diagonal = above;
+                row[j] = value;
+            }
+        }
+        return row[m];
+    }
+
+    private static double toPercentage(int maxLength, int distance) {
+        return ((double) (maxLength - distance) / maxLength) * 100.0;
+    }
+}
\ No newline at end of file
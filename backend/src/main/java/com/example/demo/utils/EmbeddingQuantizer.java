@@ -0,0 +1,60 @@
+package com.example.demo.utils;
+
+/**
+ * Symmetric int8 scalar quantization of embedding vectors.
+ *
+ * A vector is L2-normalized and then scaled so its largest component maps to 127;
+ * the code is one byte per dimension plus the scale needed to map it back. The dot
+ * product of two codes times both scales approximates the cosine similarity of the
+ * original vectors, which is enough to shortlist candidates before exact re-scoring.
+ */
+public final class EmbeddingQuantizer {
+
+    private EmbeddingQuantizer() {}
+
+    /**
+     * Quantize a vector into {@code code} starting at {@code offset}; returns the scale
+     * (0 for an all-zero vector)
+     */
+    public static float quantize(float[] vector, byte[] code, int offset) {
+        float norm = VectorMath.norm(vector);
+        float maxAbs = 0.0f;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        if (norm == 0.0f || maxAbs == 0.0f) {
+            for (int i = 0; i < vector.length; i++) {
+                code[offset + i] = 0;
+            }
+            return 0.0f;
+        }
+
+        // Components of the normalized vector are maxAbs / norm at most
+        float scale = (maxAbs / norm) / 127.0f;
+        float inverse = 1.0f / (norm * scale);
+        for (int i = 0; i < vector.length; i++) {
+            int q = Math.round(vector[i] * inverse);
+            code[offset + i] = (byte) Math.max(-127, Math.min(127, q));
+        }
+        return scale;
+    }
+
+    /**
+     * Integer dot product of {@code length} bytes of {@code a} from {@code offset} with {@code b}
+     */
+    public static int dot(byte[] a, int offset, byte[] b, int length) {
+        int s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int upper = length & ~3;
+        int i = 0;
+        for (; i < upper; i += 4) {
+            s0 += a[offset + i] * b[i];
+            s1 += a[offset + i + 1] * b[i + 1];
+            s2 += a[offset + i + 2] * b[i + 2];
+            s3 += a[offset + i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offset + i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.example.demo.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * HTML highlighting of search results.
+ *
+ * Output is HTML-escaped text with the words that match a query term wrapped in
+ * &lt;mark&gt;. Words are runs of letters and digits, so they never contain a character that
+ * needs escaping; everything between them is escaped one character at a time.
+ */
+public final class Highlighter {
+
+    private Highlighter() {
+    }
+
+    /**
+     * Words the query asks for; negated terms ("-word") are not highlighted
+     */
+    public static Set<String> queryTerms(String queryText) {
+        Set<String> terms = new HashSet<>();
+        for (String token : queryText.split("\\s+")) {
+            if (token.startsWith("-")) {
+                continue;
+            }
+            for (String word : TextNormalizer.forComparison(token).split(" ")) {
+                if (word.length() >= 2) {
+                    terms.add(word);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * A document word matches when one of it and a query term is a prefix of the other, which
+     * approximates the stemming of the text index ("network" / "networks", "learn" / "learning")
+     */
+    static boolean matchesTerm(String word, Set<String> terms) {
+        for (String term : terms) {
+            if (word.startsWith(term) || (word.length() >= 3 && term.startsWith(word))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Excerpt of about length characters around the first matching word, or the beginning
+     * when nothing matches, with "..." where text was cut; null for a null or empty text
+     */
+    public static String snippet(String text, Set<String> terms, int length) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        int first = firstMatch(text, terms);
+        int start = first < 0 ? 0 : Math.max(0, first - length / 4);
+        // Start and end on word boundaries
+        while (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) {
+            start--;
+        }
+        int end = Math.min(text.length(), start + length);
+        while (end < text.length() && Character.isLetterOrDigit(text.charAt(end))) {
+            end++;
+        }
+        String excerpt = highlight(text, start, end, terms);
+        return (start > 0 ? "..." : "") + excerpt + (end < text.length() ? "..." : "");
+    }
+
+    /**
+     * The whole text highlighted; null for null
+     */
+    public static String highlight(String text, Set<String> terms) {
+        return text == null ? null : highlight(text, 0, text.length(), terms);
+    }
+
+    static int firstMatch(String text, Set<String> terms) {
+        int i = 0;
+        while (i < text.length()) {
+            if (!Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            int wordEnd = i;
+            while (wordEnd < text.length() && Character.isLetterOrDigit(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            if (matchesTerm(text.substring(i, wordEnd).toLowerCase(), terms)) {
+                return i;
+            }
+            i = wordEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * HTML-escaped text[start, end) with matching words wrapped in &lt;mark&gt;
+     */
+    static String highlight(String text, int start, int end, Set<String> terms) {
+        StringBuilder out = new StringBuilder(end - start + 32);
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                appendEscaped(out, c);
+                i++;
+                continue;
+            }
+            int wordEnd = i;
+            while (wordEnd < end && Character.isLetterOrDigit(text.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            String word = text.substring(i, wordEnd);
+            if (matchesTerm(word.toLowerCase(), terms)) {
+                out.append("<mark>").append(word).append("</mark>");
+            } else {
+                out.append(word);
+            }
+            i = wordEnd;
+        }
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, char c) {
+        switch (c) {
+            case '<': out.append("&lt;"); break;
+            case '>': out.append("&gt;"); break;
+            case '&': out.append("&amp;"); break;
+            case '"': out.append("&quot;"); break;
+            case '\'': out.append("&#39;"); break;
+            default: out.append(c);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory Hierarchical Navigable Small World (HNSW) graph for approximate
+ * nearest-neighbour search over embedding vectors.
+ *
+ * Vectors are L2-normalized on insert so the graph can rank by dot product,
+ * which equals cosine similarity. Searches run concurrently under a read lock;
+ * inserts and removals take the write lock. Removed and replaced vectors stay in the
+ * graph as tombstones until {@link #compact} rebuilds it from the live ones.
+ */
+public class HnswIndex {
+
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeIdsByKey = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int dimension = -1;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int liveCount = 0;
+    private long modifications = 0;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    /**
+     * Insert or replace the vector stored under the given key
+     */
+    public void add(String key, float[] vector) {
+        if (key == null || vector == null || vector.length == 0) {
+            throw new IllegalArgumentException("Key and non-empty vector are required");
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (dimension == -1) {
+                dimension = vector.length;
+            } else if (vector.length != dimension) {
+                throw new IllegalArgumentException("Vector dimension " + vector.length +
+                    " does not match index dimension " + dimension);
+            }
+
+            float[] normalized = normalize(vector);
+            Integer existing = nodeIdsByKey.get(key);
+            if (existing != null && Arrays.equals(nodes.get(existing).vector, normalized)) {
+                // Re-saving an unchanged paper must not leave a tombstone behind
+                return;
+            }
+            removeInternal(key);
+            modifications++;
+
+            int level = randomLevel();
+            int nodeId = nodes.size();
+            Node node = new Node(key, normalized, level, m, maxM0);
+            nodes.add(node);
+            nodeIdsByKey.put(key, nodeId);
+            liveCount++;
+
+            if (entryPoint == -1) {
+                entryPoint = nodeId;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int l = maxLevel; l > level; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+                List<Candidate> candidates = searchLayer(normalized, current, efConstruction, l);
+                int maxConnections = l == 0 ? maxM0 : m;
+                List<Candidate> selected = selectNeighbours(candidates, maxConnections);
+
+                for (Candidate neighbour : selected) {
+                    node.addLink(l, neighbour.node);
+                    connectBack(neighbour.node, nodeId, l, maxConnections);
+                }
+
+                if (!candidates.isEmpty()) {
+                    current = candidates.get(0).node;
+                }
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = nodeId;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the vector stored under the given key (if any)
+     */
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return removeInternal(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the graph from its live vectors, dropping tombstones. Searches keep using the
+     * old graph while the new one is built, and writes wait; if one got in between the copy
+     * and the swap, the old graph is kept and false is returned so the caller can retry.
+     */
+    public boolean compact() {
+        List<Node> live = new ArrayList<>();
+        long seen;
+        lock.readLock().lock();
+        try {
+            if (liveCount == nodes.size()) {
+                return true;
+            }
+            seen = modifications;
+            for (Node node : nodes) {
+                if (!node.deleted) {
+                    live.add(node);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        HnswIndex fresh = new HnswIndex(m, efConstruction, efSearch);
+        for (Node node : live) {
+            fresh.add(node.key, node.vector);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (modifications != seen) {
+                return false;
+            }
+            nodes.clear();
+            nodes.addAll(fresh.nodes);
+            nodeIdsByKey.clear();
+            nodeIdsByKey.putAll(fresh.nodeIdsByKey);
+            entryPoint = fresh.entryPoint;
+            maxLevel = fresh.maxLevel;
+            liveCount = fresh.liveCount;
+            modifications++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the k keys whose vectors are most similar (cosine) to the query
+     */
+    public List<SearchResult> search(float[] query, int k) {
+        lock.readLock().lock();
+        try {
+            if (entryPoint == -1 || liveCount == 0 || query == null || query.length != dimension || k <= 0) {
+                return Collections.emptyList();
+            }
+
+            float[] normalized = normalize(query);
+            int current = entryPoint;
+            for (int l = maxLevel; l > 0; l--) {
+                current = greedyClosest(normalized, current, l);
+            }
+
+            // Tombstoned nodes stay navigable, so widen the beam to still return k live results
+            int ef = Math.max(efSearch, k) + (nodes.size() - liveCount > 0 ? k : 0);
+            List<Candidate> candidates = searchLayer(normalized, current, ef, 0);
+
+            List<SearchResult> results = new ArrayList<>(Math.min(k, candidates.size()));
+            for (Candidate candidate : candidates) {
+                Node node = nodes.get(candidate.node);
+                if (node.deleted) {
+                    continue;
+                }
+                results.add(new SearchResult(node.key, candidate.score));
+                if (results.size() == k) {
+                    break;
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return nodeIdsByKey.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Share of the graph's nodes that are tombstones, 0 for an empty graph
+     */
+    public double getTombstoneRatio() {
+        lock.readLock().lock();
+        try {
+            return nodes.isEmpty() ? 0.0 : (double) (nodes.size() - liveCount) / nodes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDimension() {
+        lock.readLock().lock();
+        try {
+            return dimension;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeInternal(String key) {
+        Integer existing = nodeIdsByKey.remove(key);
+        if (existing == null) {
+            return false;
+        }
+        // Tombstone: the node keeps its links so the graph stays connected
+        nodes.get(existing).deleted = true;
+        liveCount--;
+        modifications++;
+        return true;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentScore = dot(query, nodes.get(current).vector);
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            Node node = nodes.get(current);
+            int[] links = node.links[level];
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = links[i];
+                float score = dot(query, nodes.get(neighbour).vector);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = neighbour;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer; returns candidates ordered from most to least similar
+     */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> toVisit = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score));
+
+        Candidate first = new Candidate(start, dot(query, nodes.get(start).vector));
+        visited.set(start);
+        toVisit.add(first);
+        best.add(first);
+
+        while (!toVisit.isEmpty()) {
+            Candidate closest = toVisit.poll();
+            if (best.size() >= ef && closest.score < best.peek().score) {
+                break;
+            }
+
+            Node node = nodes.get(closest.node);
+            if (level > node.level) {
+                continue;
+            }
+            int[] links = node.links[level];
+            for (int i = 0; i < node.linkCounts[level]; i++) {
+                int neighbour = links[i];
+                if (visited.get(neighbour)) {
+                    continue;
+                }
+                visited.set(neighbour);
+
+                float score = dot(query, nodes.get(neighbour).vector);
+                if (best.size() < ef || score > best.peek().score) {
+                    Candidate candidate = new Candidate(neighbour, score);
+                    toVisit.add(candidate);
+                    best.add(candidate);
+                    if (best.size() > ef) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        return ordered;
+    }
+
+    /**
+     * Neighbour selection heuristic from the HNSW paper: prefer candidates that are
+     * closer to the new node than to any already selected neighbour, which keeps
+     * the graph navigable across clusters.
+     */
+    private List<Candidate> selectNeighbours(List<Candidate> candidates, int count) {
+        List<Candidate> selected = new ArrayList<>(count);
+        List<Candidate> skipped = new ArrayList<>();
+
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= count) {
+                break;
+            }
+            float[] vector = nodes.get(candidate.node).vector;
+            boolean keep = true;
+            for (Candidate chosen : selected) {
+                if (dot(vector, nodes.get(chosen.node).vector) > candidate.score) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected.add(candidate);
+            } else {
+                skipped.add(candidate);
+            }
+        }
+
+        for (int i = 0; i < skipped.size() && selected.size() < count; i++) {
+            selected.add(skipped.get(i));
+        }
+        return selected;
+    }
+
+    private void connectBack(int nodeId, int newNeighbour, int level, int maxConnections) {
+        Node node = nodes.get(nodeId);
+        if (node.linkCounts[level] < maxConnections) {
+            node.addLink(level, newNeighbour);
+            return;
+        }
+
+        // Over capacity: keep the best links according to the selection heuristic
+        List<Candidate> candidates = new ArrayList<>(maxConnections + 1);
+        for (int i = 0; i < node.linkCounts[level]; i++) {
+            int linked = node.links[level][i];
+            candidates.add(new Candidate(linked, dot(node.vector, nodes.get(linked).vector)));
+        }
+        candidates.add(new Candidate(newNeighbour, dot(node.vector, nodes.get(newNeighbour).vector)));
+        candidates.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+
+        List<Candidate> kept = selectNeighbours(candidates, maxConnections);
+        node.linkCounts[level] = 0;
+        for (Candidate candidate : kept) {
+            node.addLink(level, candidate.node);
+        }
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        if (r <= 0.0) {
+            r = Double.MIN_VALUE;
+        }
+        return (int) Math.floor(-Math.log(r) * levelMultiplier);
+    }
+
+    private static float[] normalize(float[] vector) {
+        double sum = 0.0;
+        for (float v : vector) {
+            sum += v * v;
+        }
+        float[] normalized = new float[vector.length];
+        if (sum == 0.0) {
+            return normalized;
+        }
+        float inverse = (float) (1.0 / Math.sqrt(sum));
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * inverse;
+        }
+        return normalized;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        float sum = 0.0f;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static class Node {
+        final String key;
+        final float[] vector;
+        final int level;
+        final int[][] links;
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(String key, float[] vector, int level, int m, int maxM0) {
+            this.key = key;
+            this.vector = vector;
+            this.level = level;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) {
+                links[l] = new int[l == 0 ? maxM0 : m];
+            }
+        }
+
+        void addLink(int level, int target) {
+            if (linkCounts[level] < links[level].length) {
+                links[level][linkCounts[level]++] = target;
+            }
+        }
+    }
+
+    private static class Candidate {
+        final int node;
+        final float score;
+
+        Candidate(int node, float score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Key plus cosine similarity in [-1, 1]
+     */
+    public static class SearchResult {
+        private final String key;
+        private final float similarity;
+
+        public SearchResult(String key, float similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+
+        public String getKey() { return key; }
+        public float getSimilarity() { return similarity; }
+    }
+}
\ No newline at end of file
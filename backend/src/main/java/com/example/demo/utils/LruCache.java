@@ -0,0 +1,59 @@
+package com.example.demo.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, thread-safe LRU map.
+ *
+ * Backed by an access-ordered LinkedHashMap, so get() refreshes an entry and put()
+ * evicts the least recently used one once the capacity is exceeded.
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private long evictions = 0;
+
+    public LruCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.entries = new LinkedHashMap<K, V>(Math.min(this.capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized V remove(K key) {
+        return entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
\ No newline at end of file
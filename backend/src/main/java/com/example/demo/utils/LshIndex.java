@@ -0,0 +1,155 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Locality-sensitive hashing band index over MinHash signatures.
+ *
+ * A signature is cut into b bands of r rows; two keys become candidates when any band
+ * hashes identically, which happens with probability 1 - (1 - J^r)^b for Jaccard
+ * similarity J. Lookups therefore touch only the buckets of the query's bands instead of
+ * every stored signature. Candidates are re-checked against their full signature before
+ * being returned. Concurrent reads, exclusive writes.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final List<Map<Long, Set<String>>> buckets;
+    private final Map<String, int[]> signatures = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public LshIndex(int bands, int rows) {
+        if (bands <= 0 || rows <= 0 || bands * rows > MinHasher.SIGNATURE_LENGTH) {
+            throw new IllegalArgumentException("bands x rows must fit in the signature length "
+                + MinHasher.SIGNATURE_LENGTH);
+        }
+        this.bands = bands;
+        this.rows = rows;
+        this.buckets = new ArrayList<>(bands);
+        for (int i = 0; i < bands; i++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Add or replace the signature stored for a key
+     */
+    public void add(String key, int[] signature) {
+        if (signature == null || signature.length < bands * rows) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            signatures.put(key, signature);
+            for (int band = 0; band < bands; band++) {
+                buckets.get(band).computeIfAbsent(bandHash(signature, band), k -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Keys sharing at least one band with the query whose estimated Jaccard similarity is at
+     * least minSimilarity, most similar first
+     */
+    public List<Match> query(int[] signature, double minSimilarity) {
+        List<Match> matches = new ArrayList<>();
+        if (signature == null || signature.length < bands * rows) {
+            return matches;
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<String> candidates = new HashSet<>();
+            for (int band = 0; band < bands; band++) {
+                Set<String> bucket = buckets.get(band).get(bandHash(signature, band));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+            for (String key : candidates) {
+                double similarity = MinHasher.estimateJaccard(signature, signatures.get(key));
+                if (similarity >= minSimilarity) {
+                    matches.add(new Match(key, similarity));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingDouble(Match::getSimilarity).reversed());
+        return matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(String key) {
+        int[] previous = signatures.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        for (int band = 0; band < bands; band++) {
+            long hash = bandHash(previous, band);
+            Set<String> bucket = buckets.get(band).get(hash);
+            if (bucket != null) {
+                bucket.remove(key);
+                if (bucket.isEmpty()) {
+                    buckets.get(band).remove(hash);
+                }
+            }
+        }
+        return true;
+    }
+
+    private long bandHash(int[] signature, int band) {
+        long hash = band;
+        int offset = band * rows;
+        for (int i = offset; i < offset + rows; i++) {
+            hash = MinHasher.mix64(hash * 31 + signature[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * Key plus estimated Jaccard similarity in [0, 1]
+     */
+    public static class Match {
+        private final String key;
+        private final double similarity;
+
+        public Match(String key, double similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+
+        public String getKey() { return key; }
+        public double getSimilarity() { return similarity; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,701 @@
+package com.example.demo.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only, memory-mapped file of normalized embedding vectors.
+ *
+ * Two files make up a segment:
+ * - the vector file: a small header followed by fixed-size records, each holding the
+ *   document vector and the title vector (both L2-normalized floats, little-endian)
+ * - the id table: one text line per append ("A id version title") or removal ("D id"),
+ *   replayed on open
+ *
+ * Records are never rewritten; replacing a paper appends a new record and the id table
+ * points at the latest one. Once the share of dead records grows, {@link #compactTo}
+ * copies the live ones into a fresh segment. Scans read floats straight from the mapped
+ * file, which is mapped in regions of whole records so it is not limited to the 2 GB of
+ * a single buffer.
+ *
+ * The header keeps a checksum over the (id, version, title) of every live record. It has
+ * to agree with the replayed id table on open, and callers compare it with the same sum
+ * computed from the database to detect replaced or changed papers, not just a different
+ * count. Writes go to the page cache and are forced to disk on close, not per append.
+ *
+ * While re-ranking is enabled, document vectors are also kept on the heap as int8 codes
+ * (one byte per dimension), and document scans first rank the compact codes and then
+ * re-score only the best few hundred records against the exact mapped floats. Disabling
+ * re-ranking releases the codes; enabling it again re-quantizes from the mapped floats.
+ */
+public class MappedEmbeddingSegment implements Closeable {
+
+    private static final int MAGIC = 0x50564543; // "PVEC"
+    // 3: id table lines carry an embedding version and the header a checksum of live records
+    // 4: normalized titles keep all numbers and fold the final sigma
+    private static final int VERSION = 4;
+    private static final int HEADER_BYTES = 64;
+    private static final int CHECKSUM_OFFSET = 16;
+    private static final int MIN_CAPACITY = 256;
+    static final long DEFAULT_REGION_BYTES = 1L << 30;
+
+    private final Path vectorPath;
+    private final Path idTablePath;
+    private final int dimension;
+    private final int recordBytes;
+    private final int recordsPerRegion;
+
+    private final FileChannel vectorChannel;
+    private final BufferedWriter idTableWriter;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private int capacity;
+    private long checksum;
+
+    // int8 codes of the document vectors, record-major, plus one scale per record; empty while re-ranking is off
+    private byte[] documentCodes = new byte[0];
+    private float[] documentCodeScales = new float[0];
+    private volatile int rerankCandidates = 0;
+
+    private final List<String> idByRecord = new ArrayList<>();
+    private final Map<String, Integer> recordById = new HashMap<>();
+    private final Map<String, String> titleById = new HashMap<>();
+    private final Map<String, Long> versionById = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MappedEmbeddingSegment(Path vectorPath, Path idTablePath, int dimension, long regionBytes,
+                                   FileChannel vectorChannel, BufferedWriter idTableWriter) throws IOException {
+        this.vectorPath = vectorPath;
+        this.idTablePath = idTablePath;
+        this.dimension = dimension;
+        this.recordBytes = dimension * 2 * Float.BYTES;
+        this.recordsPerRegion = (int) Math.max(1, Math.min(Integer.MAX_VALUE / recordBytes, regionBytes / recordBytes));
+        this.vectorChannel = vectorChannel;
+        this.idTableWriter = idTableWriter;
+        this.header = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        this.header.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Create an empty segment, replacing any existing files
+     */
+    public static MappedEmbeddingSegment create(Path vectorPath, Path idTablePath, int dimension) throws IOException {
+        return create(vectorPath, idTablePath, dimension, DEFAULT_REGION_BYTES);
+    }
+
+    static MappedEmbeddingSegment create(Path vectorPath, Path idTablePath, int dimension, long regionBytes) throws IOException {
+        if (dimension <= 0) {
+            throw new IllegalArgumentException("Dimension must be positive");
+        }
+        if (vectorPath.getParent() != null) {
+            Files.createDirectories(vectorPath.getParent());
+        }
+
+        FileChannel channel = FileChannel.open(vectorPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        BufferedWriter writer = Files.newBufferedWriter(idTablePath, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        MappedEmbeddingSegment segment = new MappedEmbeddingSegment(vectorPath, idTablePath, dimension, regionBytes, channel, writer);
+        segment.header.putInt(0, MAGIC);
+        segment.header.putInt(4, VERSION);
+        segment.header.putInt(8, dimension);
+        segment.header.putLong(CHECKSUM_OFFSET, 0L);
+        segment.mapRecords(MIN_CAPACITY);
+        segment.header.force();
+        return segment;
+    }
+
+    /**
+     * Open an existing segment and replay its id table.
+     * Throws if either file is missing, the header is not recognised, the id table
+     * references records the vector file does not contain or the header checksum does not
+     * match the replayed id table (an interrupted write or compaction).
+     */
+    public static MappedEmbeddingSegment open(Path vectorPath, Path idTablePath) throws IOException {
+        return open(vectorPath, idTablePath, DEFAULT_REGION_BYTES);
+    }
+
+    static MappedEmbeddingSegment open(Path vectorPath, Path idTablePath, long regionBytes) throws IOException {
+        if (!Files.exists(vectorPath) || !Files.exists(idTablePath)) {
+            throw new NoSuchFileException(Files.exists(vectorPath) ? idTablePath.toString() : vectorPath.toString());
+        }
+
+        FileChannel channel = FileChannel.open(vectorPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Embedding segment header is truncated");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Unrecognised embedding segment format");
+            }
+            int dimension = header.getInt(8);
+            if (dimension <= 0) {
+                throw new IOException("Embedding segment header is corrupt");
+            }
+
+            List<String> lines = readIdTable(idTablePath);
+            BufferedWriter writer = Files.newBufferedWriter(idTablePath, StandardCharsets.UTF_8,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            MappedEmbeddingSegment segment = new MappedEmbeddingSegment(vectorPath, idTablePath, dimension, regionBytes, channel, writer);
+            segment.replay(lines);
+
+            long required = HEADER_BYTES + (long) segment.idByRecord.size() * segment.recordBytes;
+            if (channel.size() < required) {
+                segment.close();
+                throw new IOException("Embedding segment is missing vectors referenced by its id table");
+            }
+            if (segment.header.getLong(CHECKSUM_OFFSET) != segment.checksum) {
+                segment.close();
+                throw new IOException("Embedding segment checksum does not match its id table");
+            }
+
+            long fileRecords = (channel.size() - HEADER_BYTES) / segment.recordBytes;
+            segment.mapRecords((int) Math.max(MIN_CAPACITY, Math.min(Integer.MAX_VALUE, fileRecords)));
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            if (channel.isOpen()) {
+                channel.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Checksum contribution of one record; the segment checksum is the sum over live records,
+     * so callers can compute the expected value from the database in any order
+     */
+    public static long recordChecksum(String id, long version, String title) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, id);
+        hash = (hash ^ '\t') * 0x100000001b3L;
+        hash = (hash ^ version) * 0x100000001b3L;
+        hash = (hash ^ '\t') * 0x100000001b3L;
+        hash = fnv(hash, sanitize(title));
+        // splitmix64 finalizer so summed contributions do not cancel out structurally
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * Append (or replace) the vectors for a paper. The title vector may be null; the version
+     * identifies this embedding of the paper (e.g. when it was generated) for the checksum.
+     */
+    public void append(String id, String title, long version, float[] documentVector, float[] titleVector) throws IOException {
+        if (id == null || documentVector == null || documentVector.length != dimension) {
+            throw new IllegalArgumentException("Document vector of dimension " + dimension + " is required");
+        }
+        if (titleVector != null && titleVector.length != dimension) {
+            titleVector = null;
+        }
+
+        lock.writeLock().lock();
+        try {
+            appendRecord(id, title, version, documentVector, titleVector, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a paper; its record stays in the file but is no longer visible
+     */
+    public boolean remove(String id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Integer record = recordById.remove(id);
+            if (record == null) {
+                return false;
+            }
+            idTableWriter.write("D\t" + id);
+            idTableWriter.newLine();
+            idTableWriter.flush();
+            idByRecord.set(record, null);
+            updateChecksum(-recordChecksum(id, versionById.remove(id), titleById.remove(id)));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the live records into a new segment at the given paths, in record order, without
+     * int8 codes. This segment stays usable; the caller swaps the files and reopens.
+     */
+    public MappedEmbeddingSegment compactTo(Path compactVectorPath, Path compactIdTablePath) throws IOException {
+        lock.readLock().lock();
+        try {
+            long regionBytes = (long) recordsPerRegion * recordBytes;
+            MappedEmbeddingSegment compacted = create(compactVectorPath, compactIdTablePath, dimension, regionBytes);
+            try {
+                compacted.lock.writeLock().lock();
+                try {
+                    compacted.mapRecords(Math.max(MIN_CAPACITY, recordById.size()));
+                    for (int record = 0; record < idByRecord.size(); record++) {
+                        String id = idByRecord.get(record);
+                        if (id == null) {
+                            continue;
+                        }
+                        compacted.appendRecord(id, titleById.get(id), versionById.get(id),
+                            readVector(record, 0), readVector(record, dimension * Float.BYTES), false);
+                    }
+                    compacted.force();
+                } finally {
+                    compacted.lock.writeLock().unlock();
+                }
+                return compacted;
+            } catch (IOException | RuntimeException e) {
+                compacted.close();
+                throw e;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of int8 shortlist candidates re-scored exactly in document scans. 0 scans
+     * exactly and frees the in-heap codes; a positive value quantizes every record if the
+     * codes are not held yet (and is ignored when they would not fit in one array).
+     */
+    public void setRerankCandidates(int rerankCandidates) {
+        int candidates = Math.max(0, rerankCandidates);
+        lock.writeLock().lock();
+        try {
+            boolean wasQuantized = this.rerankCandidates > 0;
+            this.rerankCandidates = candidates;
+            if (candidates == 0) {
+                documentCodes = new byte[0];
+                documentCodeScales = new float[0];
+            } else if (!wasQuantized) {
+                if ((long) capacity * dimension > Integer.MAX_VALUE) {
+                    // Too many records for one code array: stay on exact scans
+                    this.rerankCandidates = 0;
+                    return;
+                }
+                documentCodes = new byte[capacity * dimension];
+                documentCodeScales = new float[capacity];
+                for (int record = 0; record < idByRecord.size(); record++) {
+                    if (idByRecord.get(record) != null) {
+                        quantizeRecord(record, readVector(record, 0));
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top-k by dot product against the normalized query, reading vectors directly from the
+     * mapped file. Set {@code titleVectors} to rank by title instead of document. Document
+     * scans shortlist on the int8 codes first when re-ranking is enabled.
+     */
+    public List<ScoredId> scan(float[] query, boolean titleVectors, int k) {
+        if (query == null || query.length != dimension || k <= 0) {
+            return Collections.emptyList();
+        }
+
+        float norm = VectorMath.norm(query);
+        if (norm == 0.0f) {
+            return Collections.emptyList();
+        }
+        float[] normalized = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            normalized[i] = query[i] / norm;
+        }
+
+        TopK<ScoredId> best = new TopK<>(k, Comparator.comparingDouble(ScoredId::getSimilarity));
+        lock.readLock().lock();
+        try {
+            int shortlistSize = rerankCandidates;
+            if (!titleVectors && shortlistSize > k && recordById.size() > shortlistSize) {
+                for (int record : shortlist(normalized, shortlistSize)) {
+                    float score = VectorMath.dot(normalized, regionOf(record), offsetOf(record));
+                    best.offer(new ScoredId(idByRecord.get(record), score));
+                }
+                return best.toSortedList();
+            }
+
+            int vectorOffset = titleVectors ? dimension * Float.BYTES : 0;
+            for (int record = 0; record < idByRecord.size(); record++) {
+                String id = idByRecord.get(record);
+                if (id == null) {
+                    continue;
+                }
+                float score = VectorMath.dot(normalized, regionOf(record), offsetOf(record) + vectorOffset);
+                if (best.size() < k || score > best.peekLowest().getSimilarity()) {
+                    best.offer(new ScoredId(id, score));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return best.toSortedList();
+    }
+
+    /**
+     * Visit every live paper with copies of its normalized vectors (title vector is null when absent)
+     */
+    public void forEach(RecordVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int record = 0; record < idByRecord.size(); record++) {
+                String id = idByRecord.get(record);
+                if (id == null) {
+                    continue;
+                }
+                float[] documentVector = readVector(record, 0);
+                float[] titleVector = readVector(record, dimension * Float.BYTES);
+                visitor.visit(id, titleById.get(id), documentVector, isZero(titleVector) ? null : titleVector);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of live papers whose stored title equals the given one
+     */
+    public List<String> idsForTitle(String title) {
+        List<String> ids = new ArrayList<>();
+        if (title == null) {
+            return ids;
+        }
+        String key = sanitize(title);
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, String> entry : titleById.entrySet()) {
+                if (key.equals(entry.getValue())) {
+                    ids.add(entry.getKey());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return recordById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live papers
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return recordById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sum of {@link #recordChecksum} over the live papers
+     */
+    public long getChecksum() {
+        lock.readLock().lock();
+        try {
+            return checksum;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Share of records in the file that were removed or replaced
+     */
+    public double getDeadRatio() {
+        lock.readLock().lock();
+        try {
+            int records = idByRecord.size();
+            return records == 0 ? 0.0 : (double) (records - recordById.size()) / records;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Path getVectorPath() {
+        return vectorPath;
+    }
+
+    public Path getIdTablePath() {
+        return idTablePath;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!vectorChannel.isOpen()) {
+                return;
+            }
+            idTableWriter.close();
+            force();
+            vectorChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void appendRecord(String id, String title, long version, float[] documentVector, float[] titleVector,
+                              boolean normalize) throws IOException {
+        int record = idByRecord.size();
+        if (record >= capacity) {
+            mapRecords(capacity < recordsPerRegion ? Math.min(recordsPerRegion, capacity * 2) : capacity + recordsPerRegion);
+        }
+
+        MappedByteBuffer region = regionOf(record);
+        int offset = offsetOf(record);
+        writeVector(region, offset, documentVector, normalize);
+        writeVector(region, offset + dimension * Float.BYTES, titleVector, normalize);
+        quantizeRecord(record, documentVector);
+
+        // The id line is the commit point: a record without one is ignored on the next open
+        String storedTitle = sanitize(title);
+        idTableWriter.write("A\t" + id + "\t" + version + "\t" + storedTitle);
+        idTableWriter.newLine();
+        idTableWriter.flush();
+
+        idByRecord.add(id);
+        Integer previous = recordById.put(id, record);
+        long delta = recordChecksum(id, version, storedTitle);
+        if (previous != null) {
+            idByRecord.set(previous, null);
+            delta -= recordChecksum(id, versionById.get(id), titleById.get(id));
+        }
+        titleById.put(id, storedTitle);
+        versionById.put(id, version);
+        updateChecksum(delta);
+    }
+
+    private void updateChecksum(long delta) {
+        checksum += delta;
+        header.putLong(CHECKSUM_OFFSET, checksum);
+    }
+
+    private void replay(List<String> lines) {
+        for (String line : lines) {
+            String[] parts = line.split("\t", 4);
+            if (parts.length >= 3 && "A".equals(parts[0])) {
+                String id = parts[1];
+                long version = Long.parseLong(parts[2]);
+                String title = parts.length == 4 ? parts[3] : "";
+                int record = idByRecord.size();
+                idByRecord.add(id);
+                Integer previous = recordById.put(id, record);
+                if (previous != null) {
+                    idByRecord.set(previous, null);
+                    checksum -= recordChecksum(id, versionById.get(id), titleById.get(id));
+                }
+                titleById.put(id, title);
+                versionById.put(id, version);
+                checksum += recordChecksum(id, version, title);
+            } else if (parts.length >= 2 && "D".equals(parts[0])) {
+                Integer record = recordById.remove(parts[1]);
+                if (record != null) {
+                    idByRecord.set(record, null);
+                    checksum -= recordChecksum(parts[1], versionById.remove(parts[1]), titleById.remove(parts[1]));
+                }
+            }
+        }
+    }
+
+    private static List<String> readIdTable(Path idTablePath) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(idTablePath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * First stage of a document scan: records with the highest approximate similarity by int8 code
+     */
+    private List<Integer> shortlist(float[] normalizedQuery, int size) {
+        byte[] queryCode = new byte[dimension];
+        EmbeddingQuantizer.quantize(normalizedQuery, queryCode, 0);
+
+        // The query scale is the same for every record, so rank by record scale x integer dot product
+        TopK<ShortlistEntry> candidates = new TopK<>(size, Comparator.comparingDouble((ShortlistEntry e) -> e.score));
+        for (int record = 0; record < idByRecord.size(); record++) {
+            if (idByRecord.get(record) == null) {
+                continue;
+            }
+            float approximate = EmbeddingQuantizer.dot(documentCodes, record * dimension, queryCode, dimension)
+                * documentCodeScales[record];
+            if (candidates.size() < size || approximate > candidates.peekLowest().score) {
+                candidates.offer(new ShortlistEntry(record, approximate));
+            }
+        }
+
+        List<Integer> records = new ArrayList<>(candidates.size());
+        for (ShortlistEntry candidate : candidates.toSortedList()) {
+            records.add(candidate.record);
+        }
+        return records;
+    }
+
+    private void quantizeRecord(int record, float[] vector) {
+        if (rerankCandidates > 0) {
+            documentCodeScales[record] = EmbeddingQuantizer.quantize(vector, documentCodes, record * dimension);
+        }
+    }
+
+    /**
+     * Map enough regions for {@code records} records. Full regions that are already mapped
+     * are kept; only the last, partial region is remapped as it grows.
+     */
+    private void mapRecords(int records) throws IOException {
+        if (rerankCandidates > 0 && (long) records * dimension > Integer.MAX_VALUE) {
+            setRerankCandidates(0);
+        }
+        boolean quantized = rerankCandidates > 0;
+        int regionCount = (records + recordsPerRegion - 1) / recordsPerRegion;
+        for (int index = 0; index < regionCount; index++) {
+            int regionRecords = Math.min(recordsPerRegion, records - index * recordsPerRegion);
+            long regionSize = (long) regionRecords * recordBytes;
+            if (index < regions.size() && regions.get(index).capacity() == regionSize) {
+                continue;
+            }
+            long position = HEADER_BYTES + (long) index * recordsPerRegion * recordBytes;
+            MappedByteBuffer region = vectorChannel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+            region.order(ByteOrder.LITTLE_ENDIAN);
+            if (index < regions.size()) {
+                regions.set(index, region);
+            } else {
+                regions.add(region);
+            }
+        }
+        capacity = records;
+        if (quantized) {
+            documentCodes = Arrays.copyOf(documentCodes, records * dimension);
+            documentCodeScales = Arrays.copyOf(documentCodeScales, records);
+        }
+    }
+
+    private void force() {
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+        header.force();
+    }
+
+    private MappedByteBuffer regionOf(int record) {
+        return regions.get(record / recordsPerRegion);
+    }
+
+    private int offsetOf(int record) {
+        return (record % recordsPerRegion) * recordBytes;
+    }
+
+    private void writeVector(MappedByteBuffer region, int offset, float[] vector, boolean normalize) {
+        float norm = vector == null ? 0.0f : normalize ? VectorMath.norm(vector) : 1.0f;
+        for (int i = 0; i < dimension; i++) {
+            float value = norm > 0.0f ? vector[i] / norm : 0.0f;
+            region.putFloat(offset + i * Float.BYTES, value);
+        }
+    }
+
+    private float[] readVector(int record, int vectorOffset) {
+        MappedByteBuffer region = regionOf(record);
+        int offset = offsetOf(record) + vectorOffset;
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = region.getFloat(offset + i * Float.BYTES);
+        }
+        return vector;
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0.0f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long fnv(long hash, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String sanitize(String title) {
+        return title == null ? "" : title.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Callback for {@link #forEach(RecordVisitor)}
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(String id, String title, float[] documentVector, float[] titleVector);
+    }
+
+    private static class ShortlistEntry {
+        final int record;
+        final float score;
+
+        ShortlistEntry(int record, float score) {
+            this.record = record;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Paper ID plus cosine similarity in [-1, 1]
+     */
+    public static class ScoredId {
+        private final String id;
+        private final float similarity;
+
+        public ScoredId(String id, float similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public String getId() { return id; }
+        public float getSimilarity() { return similarity; }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * MinHash signatures over shingles of normalized text.
+ *
+ * Text is lower-cased and reduced to runs of letters and digits; content is shingled as
+ * overlapping word k-grams and titles as character trigrams. Each shingle is hashed once
+ * (64-bit FNV-1a) and every signature slot takes the minimum of that hash re-mixed with a
+ * fixed per-slot seed. The seeds are constants because signatures are persisted: changing
+ * them invalidates every stored signature.
+ */
+public final class MinHasher {
+
+    public static final int SIGNATURE_LENGTH = 128;
+    public static final int WORD_SHINGLE_SIZE = 5;
+
+    static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+
+    static {
+        long state = 0x5DEECE66DL;
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            state = mix64(state + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = state;
+        }
+    }
+
+    private MinHasher() {}
+
+    /**
+     * Signature of the word shingles of a document, or null when it has no words
+     */
+    public static int[] contentSignature(String text) {
+        return signature(wordShingleHashes(text));
+    }
+
+    /**
+     * Signature of the character trigrams of a title, or null when it is empty
+     */
+    public static int[] titleSignature(String title) {
+        return signature(charShingleHashes(title, 3));
+    }
+
+    /**
+     * Fraction of signature slots that agree: an unbiased estimate of the Jaccard similarity
+     */
+    public static double estimateJaccard(int[] a, int[] b) {
+        if (a == null || b == null || a.length != b.length || a.length == 0) {
+            return 0.0;
+        }
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Exact Jaccard similarity of the word shingle sets of two texts
+     */
+    public static double exactJaccard(String textA, String textB) {
+        Set<Long> a = new HashSet<>(wordShingleHashes(textA));
+        Set<Long> b = new HashSet<>(wordShingleHashes(textB));
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        int intersection = 0;
+        for (Long hash : a) {
+            if (b.contains(hash)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
+    private static int[] signature(List<Long> shingleHashes) {
+        if (shingleHashes.isEmpty()) {
+            return null;
+        }
+        long[] minimums = new long[SIGNATURE_LENGTH];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (long hash : shingleHashes) {
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                long value = mix64(hash ^ SEEDS[i]) >>> 1;
+                if (value < minimums[i]) {
+                    minimums[i] = value;
+                }
+            }
+        }
+        int[] signature = new int[SIGNATURE_LENGTH];
+        for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+            signature[i] = (int) (minimums[i] ^ (minimums[i] >>> 32));
+        }
+        return signature;
+    }
+
+    private static List<Long> wordShingleHashes(String text) {
+        return wordShingleHashes(text, WORD_SHINGLE_SIZE);
+    }
+
+    /**
+     * 64-bit hashes of the overlapping word k-grams of a text, in document order
+     */
+    static List<Long> wordShingleHashes(String text, int shingleSize) {
+        List<Long> wordHashes = new ArrayList<>();
+        if (text != null) {
+            long hash = FNV_OFFSET;
+            boolean inWord = false;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isLetterOrDigit(c)) {
+                    hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                    inWord = true;
+                } else if (inWord) {
+                    wordHashes.add(hash);
+                    hash = FNV_OFFSET;
+                    inWord = false;
+                }
+            }
+            if (inWord) {
+                wordHashes.add(hash);
+            }
+        }
+
+        List<Long> shingles = new ArrayList<>();
+        if (wordHashes.isEmpty()) {
+            return shingles;
+        }
+        int k = Math.min(shingleSize, wordHashes.size());
+        for (int start = 0; start + k <= wordHashes.size(); start++) {
+            long hash = FNV_OFFSET;
+            for (int j = start; j < start + k; j++) {
+                hash = mix64(hash ^ wordHashes.get(j)) * FNV_PRIME;
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    private static List<Long> charShingleHashes(String text, int k) {
+        List<Long> shingles = new ArrayList<>();
+        if (text == null) {
+            return shingles;
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(Character.toLowerCase(c));
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        if (normalized.length() == 0) {
+            return shingles;
+        }
+        int size = Math.min(k, normalized.length());
+        for (int start = 0; start + size <= normalized.length(); start++) {
+            long hash = FNV_OFFSET;
+            for (int j = start; j < start + size; j++) {
+                hash = (hash ^ normalized.charAt(j)) * FNV_PRIME;
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+
+    /**
+     * SplitMix64 finalizer
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
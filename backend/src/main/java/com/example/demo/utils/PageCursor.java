@@ -0,0 +1,82 @@
+package com.example.demo.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+/**
+ * Opaque keyset-pagination cursor: the (submissionDate, id) of the last item of a page.
+ *
+ * Encoded as URL-safe Base64 of "date|id|crc", where the date is empty for items without one
+ * and crc is the CRC-32 of "date|id". The checksum only catches cursors that were truncated
+ * or edited by hand; it is not a signature, which the cursor does not need because it only
+ * names a position and the page query applies its own filter.
+ */
+public final class PageCursor {
+
+    private static final String INVALID = "Invalid page cursor";
+
+    private final LocalDateTime submissionDate;
+    private final String id;
+
+    /**
+     * @param submissionDate may be null
+     */
+    public PageCursor(LocalDateTime submissionDate, String id) {
+        this.submissionDate = submissionDate;
+        this.id = id;
+    }
+
+    /** Submission date of the last item, null when it had none */
+    public LocalDateTime getSubmissionDate() { return submissionDate; }
+    public String getId() { return id; }
+
+    public String encode() {
+        String payload = (submissionDate != null ? submissionDate.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((payload + "|" + checksum(payload)).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID);
+        }
+        // The date never contains '|', the id might
+        int dateEnd = decoded.indexOf('|');
+        int checksumStart = decoded.lastIndexOf('|');
+        if (dateEnd < 0 || checksumStart <= dateEnd) {
+            throw new IllegalArgumentException(INVALID);
+        }
+        String payload = decoded.substring(0, checksumStart);
+        if (!checksum(payload).equals(decoded.substring(checksumStart + 1))) {
+            throw new IllegalArgumentException(INVALID);
+        }
+        String date = decoded.substring(0, dateEnd);
+        String id = decoded.substring(dateEnd + 1, checksumStart);
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException(INVALID);
+        }
+        if (date.isEmpty()) {
+            return new PageCursor(null, id);
+        }
+        try {
+            return new PageCursor(LocalDateTime.parse(date), id);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(INVALID);
+        }
+    }
+
+    private static String checksum(String payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+}
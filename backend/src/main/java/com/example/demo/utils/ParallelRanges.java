@@ -0,0 +1,69 @@
+package com.example.demo.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * Fork/join reduction over the index range [0, size).
+ *
+ * The range is halved until a piece is at most the batch size, each piece is reduced
+ * sequentially and the partial results are merged left to right, so a merge that keeps the
+ * earlier side on ties gives exactly the sequential result. Ranges no larger than one batch
+ * are reduced on the calling thread without touching the pool.
+ */
+public final class ParallelRanges {
+
+    private ParallelRanges() {
+    }
+
+    /**
+     * Sequential reduction of the indexes [start, end)
+     */
+    @FunctionalInterface
+    public interface RangeReducer<R> {
+        R reduce(int start, int end);
+    }
+
+    /**
+     * @param batchSize largest range reduced without splitting (at least 1)
+     * @param mergeNext combines a partial with the one covering the indexes directly after it
+     */
+    public static <R> R reduce(ForkJoinPool pool, int size, int batchSize,
+                               RangeReducer<R> reducer, BinaryOperator<R> mergeNext) {
+        int batch = Math.max(1, batchSize);
+        if (size <= batch) {
+            return reducer.reduce(0, size);
+        }
+        return pool.invoke(new RangeTask<>(0, size, batch, reducer, mergeNext));
+    }
+
+    private static final class RangeTask<R> extends RecursiveTask<R> {
+        private final int start;
+        private final int end;
+        private final int batchSize;
+        private final RangeReducer<R> reducer;
+        private final BinaryOperator<R> mergeNext;
+
+        RangeTask(int start, int end, int batchSize, RangeReducer<R> reducer, BinaryOperator<R> mergeNext) {
+            this.start = start;
+            this.end = end;
+            this.batchSize = batchSize;
+            this.reducer = reducer;
+            this.mergeNext = mergeNext;
+        }
+
+        @Override
+        protected R compute() {
+            if (end - start <= batchSize) {
+                return reducer.reduce(start, end);
+            }
+            int middle = (start + end) >>> 1;
+            RangeTask<R> left = new RangeTask<>(start, middle, batchSize, reducer, mergeNext);
+            RangeTask<R> right = new RangeTask<>(middle, end, batchSize, reducer, mergeNext);
+            left.fork();
+            R rightResult = right.compute();
+            return mergeNext.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index from winnowing fingerprint hashes to the documents and positions holding them.
+ *
+ * Postings live in primitive arrays: an open-addressing table maps each hash to the head of a
+ * linked list of (document, entry) postings, so a lookup costs one probe per query fingerprint
+ * plus the postings it hits, independent of the number of indexed documents. Hashes held by
+ * more than {@code maxDocumentFrequency} documents (boilerplate such as licence text or
+ * standard headings) are skipped at query time. Replaced or removed documents are tombstoned:
+ * their postings are skipped and no longer counted towards a hash's document frequency, and
+ * once dead postings make up {@code compactRatio} of all postings the arrays are rebuilt from
+ * the live documents. Concurrent reads, exclusive writes.
+ */
+public class PassageIndex {
+
+    private static final int EMPTY = -1;
+    private static final double DEFAULT_COMPACT_RATIO = 0.5;
+
+    private final int gapWords;
+    private final int minFingerprints;
+    private final int maxDocumentFrequency;
+    private final double compactRatio;
+
+    private final List<String> documentIds = new ArrayList<>();
+    // Entries of each ordinal; null once the document is tombstoned
+    private final List<DocumentEntries> documents = new ArrayList<>();
+    private final Map<String, Integer> liveOrdinals = new HashMap<>();
+    private final BitSet deadOrdinals = new BitSet();
+    private int deadPostings = 0;
+
+    // Hash table: key -> head of the posting list and number of live postings
+    private long[] keys = new long[1 << 12];
+    private int[] heads = new int[1 << 12];
+    private int[] counts = new int[1 << 12];
+    private boolean[] used = new boolean[1 << 12];
+    private int distinctKeys = 0;
+
+    // Postings as parallel arrays: document ordinal, entry index within the document, next posting
+    private int[] postingDocument = new int[1 << 14];
+    private int[] postingEntry = new int[1 << 14];
+    private int[] postingNext = new int[1 << 14];
+    private int postingCount = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param gapWords largest word distance between consecutive fingerprints of one passage
+     * @param minFingerprints fingerprints a passage needs before it is reported
+     * @param maxDocumentFrequency documents a hash may appear in before it is ignored as boilerplate
+     */
+    public PassageIndex(int gapWords, int minFingerprints, int maxDocumentFrequency) {
+        this(gapWords, minFingerprints, maxDocumentFrequency, DEFAULT_COMPACT_RATIO);
+    }
+
+    PassageIndex(int gapWords, int minFingerprints, int maxDocumentFrequency, double compactRatio) {
+        this.gapWords = Math.max(1, gapWords);
+        this.minFingerprints = Math.max(1, minFingerprints);
+        this.maxDocumentFrequency = Math.max(1, maxDocumentFrequency);
+        this.compactRatio = compactRatio;
+    }
+
+    /**
+     * Add or replace the fingerprints stored for a document
+     */
+    public void add(String documentId, long[] hashes, int[] positions, int[] starts, int[] ends) {
+        if (documentId == null || hashes == null || hashes.length == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer previous = liveOrdinals.remove(documentId);
+            if (previous != null) {
+                tombstone(previous);
+            }
+            insert(documentId, new DocumentEntries(hashes, positions, starts, ends));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            Integer previous = liveOrdinals.remove(documentId);
+            if (previous == null) {
+                return false;
+            }
+            tombstone(previous);
+            compactIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveOrdinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Postings held in memory, including those of tombstoned documents not yet compacted away
+     */
+    public int postingCount() {
+        lock.readLock().lock();
+        try {
+            return postingCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deadPostingCount() {
+        lock.readLock().lock();
+        try {
+            return deadPostings;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passages shared between the query fingerprints and each indexed document, documents with
+     * the largest share of matched query fingerprints first
+     */
+    public List<DocumentMatch> query(List<Winnower.Fingerprint> query) {
+        List<DocumentMatch> matches = new ArrayList<>();
+        if (query == null || query.isEmpty()) {
+            return matches;
+        }
+
+        Map<Integer, List<int[]>> hitsByDocument = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (int q = 0; q < query.size(); q++) {
+                int slot = find(query.get(q).getHash());
+                if (slot == EMPTY || counts[slot] == 0) {
+                    continue;
+                }
+                // The posting count bounds the document frequency; only count documents when it might be exceeded
+                if (counts[slot] > maxDocumentFrequency && distinctDocuments(slot) > maxDocumentFrequency) {
+                    continue;
+                }
+                for (int p = heads[slot]; p != EMPTY; p = postingNext[p]) {
+                    int ordinal = postingDocument[p];
+                    if (deadOrdinals.get(ordinal)) {
+                        continue;
+                    }
+                    hitsByDocument.computeIfAbsent(ordinal, k -> new ArrayList<>()).add(new int[] { q, postingEntry[p] });
+                }
+            }
+
+            for (Map.Entry<Integer, List<int[]>> entry : hitsByDocument.entrySet()) {
+                DocumentMatch match = buildMatch(entry.getKey(), entry.getValue(), query);
+                if (match != null) {
+                    matches.add(match);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingDouble(DocumentMatch::getCoverage).reversed());
+        return matches;
+    }
+
+    private DocumentMatch buildMatch(int ordinal, List<int[]> hits, List<Winnower.Fingerprint> query) {
+        DocumentEntries source = documents.get(ordinal);
+        hits.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0])
+            : Integer.compare(source.positions[a[1]], source.positions[b[1]]));
+
+        // Greedy chaining: a hit extends an open passage when it follows it closely in both documents
+        List<PassageBuilder> open = new ArrayList<>();
+        List<PassageBuilder> all = new ArrayList<>();
+        for (int[] hit : hits) {
+            Winnower.Fingerprint q = query.get(hit[0]);
+            int sourcePosition = source.positions[hit[1]];
+            PassageBuilder extended = null;
+            for (PassageBuilder passage : open) {
+                int queryGap = q.getPosition() - passage.lastQueryPosition;
+                int sourceGap = sourcePosition - passage.lastSourcePosition;
+                if (queryGap >= 0 && queryGap <= gapWords && sourceGap >= 0 && sourceGap <= gapWords) {
+                    extended = passage;
+                    break;
+                }
+            }
+            if (extended == null) {
+                extended = new PassageBuilder();
+                open.add(extended);
+                all.add(extended);
+            }
+            extended.add(hit[0], q, sourcePosition, source.starts[hit[1]], source.ends[hit[1]]);
+            open.removeIf(passage -> q.getPosition() - passage.lastQueryPosition > gapWords);
+        }
+
+        List<Passage> passages = new ArrayList<>();
+        BitSet matchedQuery = new BitSet(query.size());
+        for (PassageBuilder builder : all) {
+            if (builder.queryIndexes.cardinality() < minFingerprints) {
+                continue;
+            }
+            passages.add(builder.build());
+            matchedQuery.or(builder.queryIndexes);
+        }
+        int matchedFingerprints = matchedQuery.cardinality();
+        if (passages.isEmpty()) {
+            return null;
+        }
+        passages.sort(Comparator.comparingInt(Passage::getQueryStart));
+        return new DocumentMatch(documentIds.get(ordinal), passages, matchedFingerprints,
+            (double) matchedFingerprints / query.size());
+    }
+
+    private int distinctDocuments(int slot) {
+        int distinct = 0;
+        int previous = EMPTY;
+        // Postings of one document are added together, so the list is grouped by document
+        for (int p = heads[slot]; p != EMPTY; p = postingNext[p]) {
+            int ordinal = postingDocument[p];
+            if (ordinal != previous && !deadOrdinals.get(ordinal)) {
+                distinct++;
+            }
+            previous = ordinal;
+        }
+        return distinct;
+    }
+
+    private void insert(String documentId, DocumentEntries entries) {
+        int ordinal = documentIds.size();
+        documentIds.add(documentId);
+        documents.add(entries);
+        liveOrdinals.put(documentId, ordinal);
+        for (int entry = 0; entry < entries.hashes.length; entry++) {
+            addPosting(entries.hashes[entry], ordinal, entry);
+        }
+    }
+
+    /**
+     * Mark a replaced or removed document dead and take its postings out of the live counts
+     */
+    private void tombstone(int ordinal) {
+        DocumentEntries entries = documents.get(ordinal);
+        for (long hash : entries.hashes) {
+            int slot = find(hash);
+            if (slot != EMPTY) {
+                counts[slot]--;
+            }
+        }
+        deadPostings += entries.hashes.length;
+        deadOrdinals.set(ordinal);
+        documents.set(ordinal, null);
+    }
+
+    private void compactIfNeeded() {
+        if (deadPostings > 0 && deadPostings >= postingCount * compactRatio) {
+            compact();
+        }
+    }
+
+    /**
+     * Rebuild the table and postings from the live documents only, renumbering their ordinals
+     */
+    private void compact() {
+        List<String> ids = new ArrayList<>(documentIds);
+        List<DocumentEntries> entries = new ArrayList<>(documents);
+        int livePostings = postingCount - deadPostings;
+
+        documentIds.clear();
+        documents.clear();
+        liveOrdinals.clear();
+        deadOrdinals.clear();
+        keys = new long[1 << 12];
+        heads = new int[1 << 12];
+        counts = new int[1 << 12];
+        used = new boolean[1 << 12];
+        distinctKeys = 0;
+        postingDocument = new int[Math.max(1 << 14, livePostings)];
+        postingEntry = new int[postingDocument.length];
+        postingNext = new int[postingDocument.length];
+        postingCount = 0;
+        deadPostings = 0;
+
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+            if (entries.get(ordinal) != null) {
+                insert(ids.get(ordinal), entries.get(ordinal));
+            }
+        }
+    }
+
+    private void addPosting(long hash, int ordinal, int entry) {
+        if ((distinctKeys + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = slotFor(hash);
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = hash;
+            heads[slot] = EMPTY;
+            counts[slot] = 0;
+            distinctKeys++;
+        }
+        if (postingCount == postingDocument.length) {
+            int grown = postingCount * 2;
+            postingDocument = Arrays.copyOf(postingDocument, grown);
+            postingEntry = Arrays.copyOf(postingEntry, grown);
+            postingNext = Arrays.copyOf(postingNext, grown);
+        }
+        postingDocument[postingCount] = ordinal;
+        postingEntry[postingCount] = entry;
+        postingNext[postingCount] = heads[slot];
+        heads[slot] = postingCount;
+        counts[slot]++;
+        postingCount++;
+    }
+
+    private int find(long hash) {
+        int slot = slotFor(hash);
+        return used[slot] ? slot : EMPTY;
+    }
+
+    /**
+     * Slot holding the hash, or the empty slot where it would go
+     */
+    private int slotFor(long hash) {
+        int mask = keys.length - 1;
+        int slot = (int) MinHasher.mix64(hash) & mask;
+        while (used[slot] && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldCounts = counts;
+        boolean[] oldUsed = used;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        counts = new int[capacity];
+        used = new boolean[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotFor(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static class DocumentEntries {
+        final long[] hashes;
+        final int[] positions;
+        final int[] starts;
+        final int[] ends;
+
+        DocumentEntries(long[] hashes, int[] positions, int[] starts, int[] ends) {
+            this.hashes = hashes;
+            this.positions = positions;
+            this.starts = starts;
+            this.ends = ends;
+        }
+    }
+
+    private static class PassageBuilder {
+        int queryStart = Integer.MAX_VALUE;
+        int queryEnd = 0;
+        int sourceStart = Integer.MAX_VALUE;
+        int sourceEnd = 0;
+        int lastQueryPosition;
+        int lastSourcePosition;
+        final BitSet queryIndexes = new BitSet();
+
+        void add(int queryIndex, Winnower.Fingerprint q, int sourcePosition, int start, int end) {
+            queryIndexes.set(queryIndex);
+            queryStart = Math.min(queryStart, q.getStart());
+            queryEnd = Math.max(queryEnd, q.getEnd());
+            sourceStart = Math.min(sourceStart, start);
+            sourceEnd = Math.max(sourceEnd, end);
+            lastQueryPosition = q.getPosition();
+            lastSourcePosition = sourcePosition;
+        }
+
+        Passage build() {
+            return new Passage(queryStart, queryEnd, sourceStart, sourceEnd, queryIndexes.cardinality());
+        }
+    }
+
+    /**
+     * A shared passage: character spans [start, end) in the query and in the indexed document
+     */
+    public static class Passage {
+        private final int queryStart;
+        private final int queryEnd;
+        private final int sourceStart;
+        private final int sourceEnd;
+        private final int fingerprints;
+
+        public Passage(int queryStart, int queryEnd, int sourceStart, int sourceEnd, int fingerprints) {
+            this.queryStart = queryStart;
+            this.queryEnd = queryEnd;
+            this.sourceStart = sourceStart;
+            this.sourceEnd = sourceEnd;
+            this.fingerprints = fingerprints;
+        }
+
+        public int getQueryStart() { return queryStart; }
+        public int getQueryEnd() { return queryEnd; }
+        public int getSourceStart() { return sourceStart; }
+        public int getSourceEnd() { return sourceEnd; }
+        public int getFingerprints() { return fingerprints; }
+    }
+
+    public static class DocumentMatch {
+        private final String documentId;
+        private final List<Passage> passages;
+        private final int matchedFingerprints;
+        private final double coverage;
+
+        public DocumentMatch(String documentId, List<Passage> passages, int matchedFingerprints, double coverage) {
+            this.documentId = documentId;
+            this.passages = passages;
+            this.matchedFingerprints = matchedFingerprints;
+            this.coverage = coverage;
+        }
+
+        public String getDocumentId() { return documentId; }
+        public List<Passage> getPassages() { return passages; }
+        public int getMatchedFingerprints() { return matchedFingerprints; }
+        /** Fraction of the query's fingerprints that fall in a reported passage */
+        public double getCoverage() { return coverage; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted term dictionary for type-ahead completion.
+ *
+ * Each document contributes a set of terms; the dictionary counts how many documents use
+ * each term. A completion is a range scan of the sorted keys starting at the prefix, so its
+ * cost depends on how many terms share the prefix (bounded by the scan limit), not on the
+ * number of documents. Among the scanned terms the most widely used come first. Concurrent
+ * reads, exclusive writes.
+ */
+public class PrefixIndex {
+
+    private final int maxScan;
+    private final TreeMap<String, Integer> termCounts = new TreeMap<>();
+    private final Map<String, Set<String>> documentTerms = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param maxScan most terms examined per completion, which bounds the cost of short prefixes
+     */
+    public PrefixIndex(int maxScan) {
+        this.maxScan = maxScan;
+    }
+
+    /**
+     * Add or replace the terms of a document
+     */
+    public void put(String documentId, Collection<String> terms) {
+        Set<String> unique = new LinkedHashSet<>(terms);
+        lock.writeLock().lock();
+        try {
+            removeLocked(documentId);
+            if (unique.isEmpty()) {
+                return;
+            }
+            documentTerms.put(documentId, unique);
+            for (String term : unique) {
+                termCounts.merge(term, 1, Integer::sum);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace every document with the given ones, dropping documents that are not among them.
+     * Readers see either the old or the new dictionary, never a mix.
+     */
+    public void replaceAll(Map<String, ? extends Collection<String>> documents) {
+        TreeMap<String, Integer> counts = new TreeMap<>();
+        Map<String, Set<String>> terms = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> document : documents.entrySet()) {
+            Set<String> unique = new LinkedHashSet<>(document.getValue());
+            if (unique.isEmpty()) {
+                continue;
+            }
+            terms.put(document.getKey(), unique);
+            for (String term : unique) {
+                counts.merge(term, 1, Integer::sum);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            termCounts.clear();
+            termCounts.putAll(counts);
+            documentTerms.clear();
+            documentTerms.putAll(terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to limit terms starting with the prefix, most used first
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<Map.Entry<String, Integer>> scanned = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            NavigableMap<String, Integer> range = termCounts.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+            for (Map.Entry<String, Integer> entry : range.entrySet()) {
+                if (scanned.size() >= maxScan) {
+                    break;
+                }
+                scanned.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Stable sort keeps alphabetical order among terms used equally often
+        scanned.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        List<String> completions = new ArrayList<>(Math.min(limit, scanned.size()));
+        for (int i = 0; i < scanned.size() && i < limit; i++) {
+            completions.add(scanned.get(i).getKey());
+        }
+        return completions;
+    }
+
+    /** Distinct terms */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termCounts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Documents with at least one term */
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(String documentId) {
+        Set<String> previous = documentTerms.remove(documentId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous) {
+            termCounts.computeIfPresent(term, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal rank fusion of several rankings of the same kind of ids.
+ *
+ * Every ranking adds 1 / (k + rank) to the score of each id it lists, with 1-based ranks,
+ * so an id near the top of any list surfaces without the lists' own scores having to be
+ * comparable. Ids are ordered by fused score, equal scores by id, so the order does not
+ * depend on the order the rankings were given in.
+ */
+public final class RankFusion {
+
+    private RankFusion() {
+    }
+
+    /**
+     * @param k        damping constant; larger values flatten the advantage of the top ranks
+     * @param rankings id lists, best first; an id should appear at most once per list
+     */
+    public static List<Entry> fuse(int k, List<List<String>> rankings) {
+        Map<String, Entry> fused = new LinkedHashMap<>();
+        for (int source = 0; source < rankings.size(); source++) {
+            List<String> ranking = rankings.get(source);
+            for (int i = 0; i < ranking.size(); i++) {
+                Entry entry = fused.computeIfAbsent(ranking.get(i), id -> new Entry(id, rankings.size()));
+                int rank = i + 1;
+                entry.score += 1.0 / (k + rank);
+                entry.ranks[source] = rank;
+            }
+        }
+
+        List<Entry> ranked = new ArrayList<>(fused.values());
+        ranked.sort((a, b) -> b.score != a.score ? Double.compare(b.score, a.score) : a.id.compareTo(b.id));
+        return ranked;
+    }
+
+    /**
+     * One fused id with its score and its rank in each input ranking
+     */
+    public static final class Entry {
+        private final String id;
+        private final int[] ranks;
+        private double score;
+
+        Entry(String id, int sources) {
+            this.id = id;
+            this.ranks = new int[sources];
+        }
+
+        public String getId() { return id; }
+        public double getScore() { return score; }
+
+        /**
+         * 1-based rank of the id in the given input ranking, or 0 when that ranking does not list it
+         */
+        public int getRank(int ranking) { return ranks[ranking]; }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.utils;
+
+import java.util.Comparator;
+
+/**
+ * An item scored at a position of a candidate list, for ranking with {@link TopK}
+ */
+public final class RankedItem<T> {
+
+    private final int index;
+    private final T item;
+    private final double score;
+
+    public RankedItem(int index, T item, double score) {
+        this.index = index;
+        this.item = item;
+        this.score = score;
+    }
+
+    /**
+     * Higher score ranks higher; on equal scores the earlier candidate ranks higher, so the
+     * ranking does not depend on the order in which partial rankings were merged
+     */
+    public static <T> Comparator<RankedItem<T>> ranking() {
+        return Comparator.<RankedItem<T>>comparingDouble(ranked -> ranked.score)
+            .thenComparing(Comparator.<RankedItem<T>>comparingInt(ranked -> ranked.index).reversed());
+    }
+
+    public int getIndex() { return index; }
+    public T getItem() { return item; }
+    public double getScore() { return score; }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 64-bit SimHash fingerprints of document text.
+ *
+ * Every word 3-gram votes on each of the 64 bits with its own hash, and the fingerprint keeps
+ * the bits that won the vote; texts sharing most of their shingles end up a few bits apart.
+ * For lookup the fingerprint is cut into four 16-bit blocks: two fingerprints within Hamming
+ * distance 3 must agree on at least one whole block, so an exact match on any block key finds
+ * every candidate within that radius.
+ */
+public final class SimHash {
+
+    public static final int SHINGLE_SIZE = 3;
+    public static final int BLOCK_COUNT = 4;
+    public static final int BLOCK_BITS = 64 / BLOCK_COUNT;
+
+    /** Largest radius the block keys are guaranteed to cover */
+    public static final int MAX_BLOCK_RADIUS = BLOCK_COUNT - 1;
+
+    private SimHash() {}
+
+    /**
+     * Fingerprint of the word shingles of a text, or null when it has no words
+     */
+    public static Long fingerprint(String text) {
+        List<Long> shingles = MinHasher.wordShingleHashes(text, SHINGLE_SIZE);
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] votes = new int[64];
+        for (long shingle : shingles) {
+            vote(votes, shingle);
+        }
+        return fromVotes(votes);
+    }
+
+    /**
+     * Add one shingle's vote on every bit
+     */
+    static void vote(int[] votes, long shingleHash) {
+        long hash = MinHasher.mix64(shingleHash);
+        for (int bit = 0; bit < 64; bit++) {
+            votes[bit] += ((hash >>> bit) & 1L) != 0 ? 1 : -1;
+        }
+    }
+
+    static long fromVotes(int[] votes) {
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Number of differing bits between two fingerprints
+     */
+    public static int hammingDistance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    /**
+     * One key per 16-bit block, tagged with the block position so equal values in different
+     * blocks do not collide
+     */
+    public static List<Integer> blockKeys(long fingerprint) {
+        List<Integer> keys = new ArrayList<>(BLOCK_COUNT);
+        for (int block = 0; block < BLOCK_COUNT; block++) {
+            int value = (int) ((fingerprint >>> (block * BLOCK_BITS)) & 0xFFFFL);
+            keys.add((block << BLOCK_BITS) | value);
+        }
+        return keys;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.example.demo.utils;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of the {@link VectorMath} kernels. Only loaded when the
+ * jdk.incubator.vector module is present, so callers must go through VectorMath.
+ */
+final class SimdVectorMath {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdVectorMath() {}
+
+    static String describe() {
+        return "SIMD (jdk.incubator.vector, " + SPECIES.length() + " float lanes)";
+    }
+
+    /**
+     * Dot product of {@code length} elements of {@code a} starting at {@code offset} with {@code b}
+     */
+    static float dot(float[] a, int offset, float[] b, int length) {
+        FloatVector sum = FloatVector.zero(SPECIES);
+        int i = 0;
+        int upper = SPECIES.loopBound(length);
+        for (; i < upper; i += SPECIES.length()) {
+            FloatVector va = FloatVector.fromArray(SPECIES, a, offset + i);
+            FloatVector vb = FloatVector.fromArray(SPECIES, b, i);
+            sum = va.fma(vb, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[offset + i] * b[i];
+        }
+        return result;
+    }
+}
\ No newline at end of file
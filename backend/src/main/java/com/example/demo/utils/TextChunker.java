@@ -0,0 +1,111 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits long text into overlapping windows for chunk-level embeddings.
+ *
+ * Windows end on whitespace where one is close to the nominal boundary so words are not
+ * cut in half, but never by more than the overlap, so consecutive windows always touch
+ * and every character lands in at least one window. When a document would need more
+ * than maxChunks windows the windows themselves are widened (keeping the overlap) until
+ * maxChunks of them tile the whole text.
+ */
+public final class TextChunker {
+
+    private TextChunker() {}
+
+    public static List<TextChunk> split(String text, int chunkSize, int overlap, int maxChunks) {
+        List<TextChunk> chunks = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return chunks;
+        }
+
+        int size = Math.max(1, chunkSize);
+        int length = text.length();
+        if (length <= size) {
+            chunks.add(new TextChunk(0, 0, length, text));
+            return chunks;
+        }
+
+        int shared = Math.max(0, Math.min(overlap, size - 1));
+        int stride = size - shared;
+        int needed = (int) Math.ceil((double) (length - size) / stride) + 1;
+        int limit = Math.max(1, maxChunks);
+        if (needed > limit) {
+            // limit windows of (stride + shared) characters reach exactly from 0 to length
+            stride = (int) Math.ceil((double) (length - shared) / limit);
+            size = stride + shared;
+        }
+        // Moving an end back by at most the overlap keeps it past the next window's start
+        int lookBack = Math.min(size / 10, shared);
+
+        int start = 0;
+        while (start < length && chunks.size() < limit) {
+            int end = Math.min(length, start + size);
+            if (end < length) {
+                end = breakAtWhitespace(text, start, end, lookBack);
+            }
+            chunks.add(new TextChunk(chunks.size(), start, end, text.substring(start, end)));
+            if (end >= length) {
+                break;
+            }
+            start = Math.min(end, startAtWord(text, start + stride, size / 10));
+        }
+        return chunks;
+    }
+
+    private static int breakAtWhitespace(String text, int start, int end, int lookBack) {
+        int floor = Math.max(start + 1, end - lookBack);
+        for (int i = end; i > floor; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Move a window start forward to the beginning of the next word, if one is within reach
+     */
+    private static int startAtWord(String text, int position, int lookAhead) {
+        if (position <= 0 || position >= text.length() || Character.isWhitespace(text.charAt(position - 1))) {
+            return position;
+        }
+        int limit = Math.min(text.length(), position + lookAhead);
+        int i = position;
+        while (i < limit && !Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        if (i == limit) {
+            return position;
+        }
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * One window of the source text with its character offsets [start, end)
+     */
+    public static class TextChunk {
+        private final int index;
+        private final int start;
+        private final int end;
+        private final String text;
+
+        public TextChunk(int index, int start, int end, String text) {
+            this.index = index;
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+
+        public int getIndex() { return index; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+        public String getText() { return text; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.example.demo.utils;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Single-pass cleanup of extracted document text.
+ *
+ * Every UTF-16 code unit is classified once through a precomputed table: whitespace and
+ * Unicode space separators (including no-break and line/paragraph separators) collapse into
+ * one space, control and zero-width characters are dropped, everything else is kept. Leading
+ * and trailing spaces never reach the output. The {@link CleaningWriter} applies the same
+ * rules to a stream, so extractors can write page by page into a fixed buffer that is handed
+ * to any number of {@link TextSink}s.
+ *
+ * {@link #forComparison} is the stricter form used to compare titles and text: only letters
+ * and numbers survive, lower-cased through a second table, separated by single spaces.
+ * Both run over a {@code char[]} in one pass with one allocation for the result, instead of
+ * compiling a regex and copying the whole string for each replaceAll.
+ */
+public final class TextNormalizer {
+
+    private static final byte KEEP = 0;
+    private static final byte SPACE = 1;
+    private static final byte DROP = 2;
+
+    private static final byte[] CLEAN_CLASS = new byte[Character.MAX_VALUE + 1];
+    // Comparison form: letters and digits are kept, spaces collapse, everything else (punctuation too) is dropped
+    private static final byte[] COMPARE_CLASS = new byte[Character.MAX_VALUE + 1];
+    private static final char[] LOWER = new char[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            char ch = (char) c;
+            // Java counts the separators 0x1C-0x1F as whitespace; like the other controls they are dropped
+            if ((c < 0x20 && (c < 0x09 || c > 0x0D)) || (c >= 0x7F && c <= 0x9F)
+                    || (c >= 0x200B && c <= 0x200F) || c == 0x2060 || c == 0xFEFF) {
+                CLEAN_CLASS[c] = DROP;
+            } else if (Character.isWhitespace(ch) || Character.isSpaceChar(ch)) {
+                CLEAN_CLASS[c] = SPACE;
+            } else {
+                CLEAN_CLASS[c] = KEEP;
+            }
+            // Letters and every kind of number (\p{L}\p{N}), so superscripts, fractions and roman numerals survive too
+            int type = Character.getType(ch);
+            if (Character.isLetterOrDigit(ch) || type == Character.LETTER_NUMBER || type == Character.OTHER_NUMBER) {
+                COMPARE_CLASS[c] = KEEP;
+            } else {
+                COMPARE_CLASS[c] = CLEAN_CLASS[c] == SPACE ? SPACE : DROP;
+            }
+            LOWER[c] = Character.toLowerCase(ch);
+        }
+        // String.toLowerCase picks the final form of a capital sigma from its position in the
+        // word; a per-character table cannot, so both lower-case forms compare as the medial one
+        LOWER['\u03C2'] = '\u03C3';
+    }
+
+    private TextNormalizer() {}
+
+    /**
+     * Cleaned copy of a text (never null)
+     */
+    public static String clean(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        int length = text.length();
+        char[] out = new char[length];
+        int size = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte type = CLEAN_CLASS[c];
+            if (type == KEEP) {
+                if (pendingSpace && size > 0) {
+                    out[size++] = ' ';
+                }
+                pendingSpace = false;
+                out[size++] = c;
+            } else if (type == SPACE) {
+                pendingSpace = true;
+            }
+        }
+        return new String(out, 0, size);
+    }
+
+    /**
+     * Lower-cased letters and numbers with single spaces where the text had whitespace;
+     * punctuation is removed without leaving a space (never null)
+     */
+    public static String forComparison(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        int length = text.length();
+        char[] out = new char[length];
+        int size = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            byte type = COMPARE_CLASS[c];
+            if (type == KEEP) {
+                if (pendingSpace && size > 0) {
+                    out[size++] = ' ';
+                }
+                pendingSpace = false;
+                out[size++] = LOWER[c];
+            } else if (type == SPACE) {
+                pendingSpace = true;
+            }
+        }
+        return new String(out, 0, size);
+    }
+
+    /**
+     * Streaming cleaner that forwards cleaned text to the given sinks
+     */
+    public static CleaningWriter cleaningWriter(TextSink... sinks) {
+        return new CleaningWriter(sinks);
+    }
+
+    /**
+     * Writer applying {@link #clean} incrementally; output is buffered in one reusable array
+     * and flushed to the sinks when it fills up and on close
+     */
+    public static class CleaningWriter extends Writer {
+
+        private static final int BUFFER_SIZE = 8192;
+
+        private final TextSink[] sinks;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int size = 0;
+        private boolean pendingSpace = false;
+        private boolean started = false;
+        private long length = 0;
+        private boolean closed = false;
+
+        CleaningWriter(TextSink[] sinks) {
+            this.sinks = Arrays.copyOf(sinks, sinks.length);
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int count) {
+            for (int i = offset; i < offset + count; i++) {
+                accept(chars[i]);
+            }
+        }
+
+        @Override
+        public void write(String text, int offset, int count) {
+            for (int i = offset; i < offset + count; i++) {
+                accept(text.charAt(i));
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            accept((char) c);
+        }
+
+        private void accept(char c) {
+            byte type = CLEAN_CLASS[c];
+            if (type == KEEP) {
+                if (pendingSpace && started) {
+                    put(' ');
+                }
+                pendingSpace = false;
+                started = true;
+                put(c);
+            } else if (type == SPACE) {
+                pendingSpace = true;
+            }
+        }
+
+        private void put(char c) {
+            if (size == BUFFER_SIZE) {
+                drain();
+            }
+            buffer[size++] = c;
+            length++;
+        }
+
+        private void drain() {
+            if (size == 0) {
+                return;
+            }
+            for (TextSink sink : sinks) {
+                sink.write(buffer, 0, size);
+            }
+            size = 0;
+        }
+
+        /**
+         * Characters of cleaned output produced so far
+         */
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public void flush() {
+            drain();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            drain();
+            for (TextSink sink : sinks) {
+                sink.finish();
+            }
+        }
+    }
+}
\ No newline at end of file
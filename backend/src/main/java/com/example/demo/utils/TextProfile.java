@@ -0,0 +1,374 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Word, sentence and paragraph statistics, punctuation and detail markers, and phrase counts
+ * of a text, gathered in one pass.
+ *
+ * Every count matches what the straightforward String code gives: words as
+ * {@code text.split("\\s+")}, sentences as {@code text.split("[.!?]+")}, paragraphs as
+ * {@code text.split("\n\n+")}, phrases as repeated {@code indexOf} on the lower-cased text
+ * (non-overlapping), and title words as {@code contains} on the lower-cased text.
+ */
+public final class TextProfile {
+
+    private final String text;
+    private final Phrases phrases;
+
+    // Non-overlapping occurrences of every phrase, indexed like Phrases.matcher
+    private final int[] phraseCounts;
+    private final int[] nextAllowedStart;
+
+    // Whitespace-separated words of the whole text
+    private int wordCount;
+
+    // Sentences are the pieces between runs of . ! ?
+    private int sentenceCount;
+    // Words of each sentence longer than 10 characters once trimmed
+    private final List<Integer> sentenceLengths = new ArrayList<>();
+    // Lower-cased words of the first leadingSentences sentences
+    private final List<List<String>> leadingSentenceWords = new ArrayList<>();
+
+    // Trimmed [start, end) of the pieces between blank lines
+    private final List<int[]> paragraphs = new ArrayList<>();
+
+    private int periods;
+    private int commas;
+    private boolean hasYear;
+    private boolean hasDecimal;
+    private boolean hasAcronym;
+    private boolean hasPercent;
+
+    private int titleWordCount;
+    private int titleWordsFound;
+
+    private TextProfile(String text, Phrases phrases) {
+        this.text = text;
+        this.phrases = phrases;
+        this.phraseCounts = new int[phrases.matcher.size()];
+        this.nextAllowedStart = new int[phrases.matcher.size()];
+    }
+
+    /**
+     * @param title            words of it longer than 3 characters are looked for in the text; may be null
+     * @param leadingSentences how many leading sentences keep their words
+     */
+    public static TextProfile of(String text, String title, Phrases phrases, int leadingSentences) {
+        TextProfile profile = new TextProfile(text, phrases);
+        AhoCorasick phraseMatcher = phrases.matcher;
+
+        // Significant title words are found by a small automaton scanned alongside the phrases
+        AhoCorasick titleMatcher = null;
+        List<String> significantTitleWords = new ArrayList<>();
+        if (title != null && title.trim().length() > 0) {
+            String[] titleWords = title.toLowerCase().split("\\s+");
+            profile.titleWordCount = titleWords.length;
+            for (String word : titleWords) {
+                if (word.length() > 3) {
+                    significantTitleWords.add(word);
+                }
+            }
+            titleMatcher = new AhoCorasick(significantTitleWords);
+        }
+        boolean[] titleWordFound = new boolean[significantTitleWords.size()];
+
+        int length = text.length();
+        int phraseState = 0;
+        int titleState = 0;
+
+        boolean inWord = false;
+        boolean sawWhitespace = false;
+
+        int sentenceStart = 0;
+        boolean inSentenceDelimiter = false;
+        List<int[]> sentences = new ArrayList<>();
+
+        int paragraphStart = 0;
+        int newlineRun = 0;
+        int newlineRunStart = 0;
+        List<int[]> paragraphPieces = new ArrayList<>();
+
+        int tokenLength = 0;
+        boolean tokenDigits = true;
+        boolean tokenUpper = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            phraseState = phraseMatcher.next(phraseState, c);
+            for (int id : phraseMatcher.matches(phraseState)) {
+                profile.countPhrase(id, i + 1);
+            }
+            if (titleMatcher != null) {
+                titleState = titleMatcher.next(titleState, c);
+                for (int id : titleMatcher.matches(titleState)) {
+                    titleWordFound[id] = true;
+                }
+            }
+
+            boolean whitespace = isWhitespace(c);
+            if (whitespace) {
+                if (i == 0) {
+                    sawWhitespace = true;
+                }
+                inWord = false;
+            } else if (!inWord) {
+                inWord = true;
+                profile.wordCount++;
+            }
+
+            if (c == '.' || c == '!' || c == '?') {
+                if (!inSentenceDelimiter) {
+                    sentences.add(new int[] { sentenceStart, i });
+                    inSentenceDelimiter = true;
+                }
+            } else if (inSentenceDelimiter) {
+                inSentenceDelimiter = false;
+                sentenceStart = i;
+            }
+
+            if (c == '\n') {
+                if (newlineRun == 0) {
+                    newlineRunStart = i;
+                }
+                newlineRun++;
+            } else {
+                if (newlineRun >= 2) {
+                    paragraphPieces.add(new int[] { paragraphStart, newlineRunStart });
+                    paragraphStart = i;
+                }
+                newlineRun = 0;
+            }
+
+            // Word-character runs, as delimited by \\b in a regex
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                tokenLength++;
+                tokenDigits &= c >= '0' && c <= '9';
+                tokenUpper &= c >= 'A' && c <= 'Z';
+            } else {
+                profile.endToken(tokenLength, tokenDigits, tokenUpper);
+                tokenLength = 0;
+                tokenDigits = true;
+                tokenUpper = true;
+            }
+
+            if (c == '.') {
+                profile.periods++;
+                if (i > 0 && i + 1 < length && isAsciiDigit(text.charAt(i - 1)) && isAsciiDigit(text.charAt(i + 1))) {
+                    profile.hasDecimal = true;
+                }
+            } else if (c == ',') {
+                profile.commas++;
+            } else if (c == '%') {
+                profile.hasPercent = true;
+            }
+        }
+        profile.endToken(tokenLength, tokenDigits, tokenUpper);
+
+        // Same counting as String.split: an empty string is one word, a leading separator adds
+        // an empty first word, and trailing empty pieces are dropped
+        if (length == 0) {
+            profile.wordCount = 1;
+        } else if (sawWhitespace && profile.wordCount > 0) {
+            profile.wordCount++;
+        }
+
+        if (!inSentenceDelimiter) {
+            sentences.add(new int[] { sentenceStart, length });
+        }
+        dropTrailingEmpty(sentences);
+        if (length == 0) {
+            // split() of an empty string is the empty string itself
+            sentences.add(new int[] { 0, 0 });
+        }
+        profile.sentenceCount = sentences.size();
+        for (int i = 0; i < sentences.size(); i++) {
+            profile.addSentence(sentences.get(i), i < leadingSentences);
+        }
+
+        if (newlineRun >= 2) {
+            paragraphPieces.add(new int[] { paragraphStart, newlineRunStart });
+        } else {
+            paragraphPieces.add(new int[] { paragraphStart, length });
+        }
+        dropTrailingEmpty(paragraphPieces);
+        if (length == 0) {
+            paragraphPieces.add(new int[] { 0, 0 });
+        }
+        for (int[] piece : paragraphPieces) {
+            profile.paragraphs.add(profile.trim(piece[0], piece[1]));
+        }
+
+        for (boolean found : titleWordFound) {
+            if (found) {
+                profile.titleWordsFound++;
+            }
+        }
+        return profile;
+    }
+
+    private void countPhrase(int id, int end) {
+        int start = end - phrases.matcher.length(id);
+        // Same as repeated indexOf: an occurrence overlapping the previous one is not counted
+        if (start < nextAllowedStart[id]) {
+            return;
+        }
+        if (phrases.caseSensitive[id] && !text.startsWith(phrases.phrase(id), start)) {
+            return;
+        }
+        phraseCounts[id]++;
+        nextAllowedStart[id] = end;
+    }
+
+    private void endToken(int tokenLength, boolean digits, boolean upper) {
+        if (tokenLength == 4 && digits) {
+            hasYear = true;
+        } else if (tokenLength >= 2 && upper) {
+            hasAcronym = true;
+        }
+    }
+
+    private void addSentence(int[] span, boolean keepWords) {
+        int[] trimmed = trim(span[0], span[1]);
+        List<String> words = keepWords ? new ArrayList<>() : null;
+        if (keepWords && span[1] > span[0] && isWhitespace(text.charAt(span[0])) && trimmed[1] > trimmed[0]) {
+            // split() keeps an empty first word when the sentence starts with whitespace
+            words.add("");
+        } else if (keepWords && span[1] == span[0]) {
+            // and an empty sentence is one empty word
+            words.add("");
+        }
+        int trimmedWords = 0;
+        int wordStart = -1;
+        for (int i = span[0]; i <= span[1]; i++) {
+            boolean boundary = i == span[1] || isWhitespace(text.charAt(i));
+            if (!boundary && wordStart < 0) {
+                wordStart = i;
+            } else if (boundary && wordStart >= 0) {
+                if (wordStart >= trimmed[0] && i <= trimmed[1]) {
+                    trimmedWords++;
+                }
+                if (keepWords) {
+                    words.add(text.substring(wordStart, i).toLowerCase());
+                }
+                wordStart = -1;
+            }
+        }
+        if (trimmed[1] - trimmed[0] > 10) { // Skip very short sentences
+            sentenceLengths.add(trimmedWords);
+        }
+        if (keepWords) {
+            leadingSentenceWords.add(words);
+        }
+    }
+
+    public String getText() { return text; }
+    public int getWordCount() { return wordCount; }
+    public int getSentenceCount() { return sentenceCount; }
+    public List<Integer> getSentenceLengths() { return Collections.unmodifiableList(sentenceLengths); }
+    public List<List<String>> getLeadingSentenceWords() { return Collections.unmodifiableList(leadingSentenceWords); }
+    public List<int[]> getParagraphs() { return Collections.unmodifiableList(paragraphs); }
+    public int getPeriods() { return periods; }
+    public int getCommas() { return commas; }
+    public boolean hasYear() { return hasYear; }
+    public boolean hasDecimal() { return hasDecimal; }
+    public boolean hasAcronym() { return hasAcronym; }
+    public boolean hasPercent() { return hasPercent; }
+    public int getTitleWordCount() { return titleWordCount; }
+    public int getTitleWordsFound() { return titleWordsFound; }
+
+    /** Occurrences of one phrase of a group */
+    public int count(int group, int index) {
+        return phraseCounts[phrases.offsets[group] + index];
+    }
+
+    /** Occurrences of all phrases of a group */
+    public int total(int group) {
+        int total = 0;
+        for (int id = phrases.offsets[group]; id < phrases.offsets[group + 1]; id++) {
+            total += phraseCounts[id];
+        }
+        return total;
+    }
+
+    /** Phrases of a group that occur at least once */
+    public int distinct(int group) {
+        int distinct = 0;
+        for (int id = phrases.offsets[group]; id < phrases.offsets[group + 1]; id++) {
+            if (phraseCounts[id] > 0) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    /** Whether the [start, end) span starts with the prefix, ignoring case */
+    public boolean startsWith(int[] span, String prefix) {
+        return span[1] - span[0] >= prefix.length() && text.regionMatches(true, span[0], prefix, 0, prefix.length());
+    }
+
+    /** [start, end) without the characters String.trim() removes */
+    private int[] trim(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return new int[] { start, end };
+    }
+
+    private static void dropTrailingEmpty(List<int[]> pieces) {
+        while (!pieces.isEmpty() && pieces.get(pieces.size() - 1)[1] == pieces.get(pieces.size() - 1)[0]) {
+            pieces.remove(pieces.size() - 1);
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        // The characters of the regex class \\s
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Groups of phrases counted in one automaton; group g owns ids offsets[g] .. offsets[g + 1] - 1.
+     * Phrases match case-insensitively unless their group is marked case-sensitive. A phrase
+     * listed twice in a group is counted once for every listing.
+     */
+    public static final class Phrases {
+        private final List<String> all = new ArrayList<>();
+        private final int[] offsets;
+        private final boolean[] caseSensitive;
+        private final AhoCorasick matcher;
+
+        /**
+         * @param caseSensitiveGroups indexes of the groups whose phrases must match the text's case exactly
+         */
+        public Phrases(List<List<String>> groups, int... caseSensitiveGroups) {
+            offsets = new int[groups.size() + 1];
+            for (int group = 0; group < groups.size(); group++) {
+                offsets[group] = all.size();
+                all.addAll(groups.get(group));
+            }
+            offsets[groups.size()] = all.size();
+
+            caseSensitive = new boolean[all.size()];
+            for (int group : caseSensitiveGroups) {
+                for (int id = offsets[group]; id < offsets[group + 1]; id++) {
+                    caseSensitive[id] = true;
+                }
+            }
+            matcher = new AhoCorasick(all);
+        }
+
+        private String phrase(int id) {
+            return all.get(id);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.utils;
+
+/**
+ * Consumer of text produced incrementally, e.g. by document extraction. The buffer is only
+ * valid for the duration of the call; implementations copy what they need.
+ */
+@FunctionalInterface
+public interface TextSink {
+
+    void write(char[] buffer, int offset, int length);
+
+    /**
+     * Called once after the last write
+     */
+    default void finish() {}
+}
\ No newline at end of file
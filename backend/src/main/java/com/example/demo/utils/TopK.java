@@ -0,0 +1,99 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded top-k selector backed by a min-heap.
+ *
+ * Keeps the k greatest elements according to the comparator while they are offered,
+ * so ranking n items costs O(n log k) time and O(k) memory instead of collecting and
+ * sorting all of them. Not thread-safe; use one instance per thread and {@link #merge}.
+ */
+public class TopK<T> {
+
+    private final int limit;
+    private final Comparator<? super T> comparator;
+    private final PriorityQueue<T> heap;
+    private int offered = 0;
+
+    /**
+     * @param limit      maximum number of elements kept (at least 1)
+     * @param comparator ordering in which greater elements rank higher
+     */
+    public TopK(int limit, Comparator<? super T> comparator) {
+        this.limit = Math.max(1, limit);
+        this.comparator = comparator;
+        this.heap = new PriorityQueue<>(Math.min(this.limit, 1024), comparator);
+    }
+
+    /**
+     * Offer an element; returns true if it is currently among the top k
+     */
+    public boolean offer(T element) {
+        offered++;
+        if (heap.size() < limit) {
+            heap.add(element);
+            return true;
+        }
+        if (comparator.compare(element, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(element);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fold another selector's elements into this one
+     */
+    public TopK<T> merge(TopK<T> other) {
+        for (T element : other.heap) {
+            offer(element);
+        }
+        // offer() counted the other heap's survivors; count everything the other selector saw
+        offered += other.offered - other.heap.size();
+        return this;
+    }
+
+    /**
+     * Lowest ranked element currently kept, or null when empty
+     */
+    public T peekLowest() {
+        return heap.peek();
+    }
+
+    /**
+     * Kept elements, highest ranked first
+     */
+    public List<T> toSortedList() {
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(Collections.reverseOrder(comparator));
+        return sorted;
+    }
+
+    /**
+     * Number of elements kept (at most the limit)
+     */
+    public int size() {
+        return heap.size();
+    }
+
+    /**
+     * Total number of elements offered, including those that did not make the cut
+     */
+    public int getOffered() {
+        return offered;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+}
\ No newline at end of file
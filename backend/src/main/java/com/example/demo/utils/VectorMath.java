@@ -0,0 +1,157 @@
+package com.example.demo.utils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Primitive float vector kernels used for embedding similarity.
+ *
+ * When the JVM is started with {@code --add-modules jdk.incubator.vector} the
+ * dot products run on the JDK Vector API (SIMD); otherwise an unrolled scalar
+ * loop is used. Both paths accumulate in float.
+ */
+public final class VectorMath {
+
+    private static final boolean SIMD_AVAILABLE = detectSimd();
+
+    private VectorMath() {}
+
+    /**
+     * Whether the Vector API kernel is active in this JVM
+     */
+    public static boolean isSimdAvailable() {
+        return SIMD_AVAILABLE;
+    }
+
+    /**
+     * Short description of the active kernel for logging
+     */
+    public static String describeKernel() {
+        return SIMD_AVAILABLE ? SimdVectorMath.describe() : "scalar (unrolled x4)";
+    }
+
+    /**
+     * Dot product of two vectors of equal length
+     *
+     * @throws IllegalArgumentException when the lengths differ, whichever kernel is active
+     */
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vector lengths differ: " + a.length + " and " + b.length);
+        }
+        if (SIMD_AVAILABLE) {
+            return SimdVectorMath.dot(a, 0, b, a.length);
+        }
+        return scalarDot(a, 0, b, a.length);
+    }
+
+    /**
+     * Dot product of a query with a vector stored as consecutive floats in a buffer
+     * (e.g. a memory-mapped file), starting at the given byte offset. Reads in place
+     * without copying the stored vector; the buffer's byte order is respected.
+     */
+    public static float dot(float[] query, ByteBuffer buffer, int byteOffset) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int length = query.length;
+        int upper = length & ~3;
+        int i = 0;
+        for (; i < upper; i += 4) {
+            int position = byteOffset + i * Float.BYTES;
+            s0 += query[i] * buffer.getFloat(position);
+            s1 += query[i + 1] * buffer.getFloat(position + 4);
+            s2 += query[i + 2] * buffer.getFloat(position + 8);
+            s3 += query[i + 3] * buffer.getFloat(position + 12);
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * buffer.getFloat(byteOffset + i * Float.BYTES);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Euclidean (L2) norm of a vector
+     */
+    public static float norm(float[] vector) {
+        return (float) Math.sqrt(dot(vector, vector));
+    }
+
+    /**
+     * Cosine similarity using precomputed norms; returns 0 when either norm is zero
+     */
+    public static float cosine(float[] a, float normA, float[] b, float normB) {
+        if (normA == 0.0f || normB == 0.0f) {
+            return 0.0f;
+        }
+        float similarity = dot(a, b) / (normA * normB);
+        return Math.max(-1.0f, Math.min(1.0f, similarity));
+    }
+
+    /**
+     * Dot product of the query against every row of a row-major matrix.
+     * The matrix holds {@code rows} vectors of {@code query.length} floats laid out contiguously.
+     *
+     * @throws IllegalArgumentException when the matrix or the output is too short for {@code rows}
+     */
+    public static void dotBatch(float[] query, float[] matrix, int rows, float[] out) {
+        int dimension = query.length;
+        if ((long) rows * dimension > matrix.length || rows > out.length) {
+            throw new IllegalArgumentException("Matrix of " + matrix.length + " floats and output of "
+                + out.length + " cannot hold " + rows + " rows of " + dimension);
+        }
+        for (int row = 0; row < rows; row++) {
+            int offset = row * dimension;
+            out[row] = SIMD_AVAILABLE
+                ? SimdVectorMath.dot(matrix, offset, query, dimension)
+                : scalarDot(matrix, offset, query, dimension);
+        }
+    }
+
+    /**
+     * Convert a boxed vector (e.g. from JSON) to a primitive one
+     */
+    public static float[] toFloatArray(List<? extends Number> vector) {
+        if (vector == null) {
+            return null;
+        }
+        float[] result = new float[vector.size()];
+        for (int i = 0; i < result.length; i++) {
+            Number value = vector.get(i);
+            result[i] = value != null ? value.floatValue() : 0.0f;
+        }
+        return result;
+    }
+
+    /**
+     * Dot product of {@code length} elements of {@code a} starting at {@code offset} with {@code b}
+     */
+    static float scalarDot(float[] a, int offset, float[] b, int length) {
+        float s0 = 0.0f, s1 = 0.0f, s2 = 0.0f, s3 = 0.0f;
+        int i = 0;
+        int upper = length & ~3;
+        for (; i < upper; i += 4) {
+            s0 += a[offset + i] * b[i];
+            s1 += a[offset + i + 1] * b[i + 1];
+            s2 += a[offset + i + 2] * b[i + 2];
+            s3 += a[offset + i + 3] * b[i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[offset + i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static boolean detectSimd() {
+        if (Boolean.getBoolean("similarity.simd.disabled")) {
+            return false;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+        try {
+            SimdVectorMath.describe();
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.example.demo.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Document fingerprints by k-gram hashing and winnowing (Schleimer, Wilkerson and Aiken).
+ *
+ * Text is reduced to lower-cased runs of letters and digits; every run of {@code k} consecutive
+ * words is hashed, and from each window of {@code w} consecutive k-gram hashes the minimum is
+ * kept (rightmost on ties, recorded once while it stays the minimum). Any passage of at least
+ * {@code k + w - 1} words shared by two documents yields at least one common fingerprint, while
+ * a document keeps only about {@code 2 / (w + 1)} of its k-grams. Each fingerprint carries the
+ * character span of its k-gram so matches can be mapped back to passages.
+ */
+public final class Winnower {
+
+    public static final int DEFAULT_K = 5;
+    public static final int DEFAULT_WINDOW = 4;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Winnower() {}
+
+    public static List<Fingerprint> fingerprints(String text) {
+        return fingerprints(text, DEFAULT_K, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Winnowed fingerprints of a text in document order; empty when it has fewer than k words
+     */
+    public static List<Fingerprint> fingerprints(String text, int k, int window) {
+        List<Fingerprint> result = new ArrayList<>();
+        if (text == null || k < 1 || window < 1) {
+            return result;
+        }
+
+        // Words as (hash, start, end) in the original text
+        int capacity = Math.max(16, text.length() / 6);
+        long[] wordHashes = new long[capacity];
+        int[] wordStarts = new int[capacity];
+        int[] wordEnds = new int[capacity];
+        int words = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i >= length) {
+                break;
+            }
+            int start = i;
+            long hash = FNV_OFFSET;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                hash = (hash ^ Character.toLowerCase(text.charAt(i))) * FNV_PRIME;
+                i++;
+            }
+            if (words == wordHashes.length) {
+                int grown = words * 2;
+                wordHashes = Arrays.copyOf(wordHashes, grown);
+                wordStarts = Arrays.copyOf(wordStarts, grown);
+                wordEnds = Arrays.copyOf(wordEnds, grown);
+            }
+            wordHashes[words] = hash;
+            wordStarts[words] = start;
+            wordEnds[words] = i;
+            words++;
+        }
+
+        int grams = words - k + 1;
+        if (grams <= 0) {
+            return result;
+        }
+        long[] gramHashes = new long[grams];
+        for (int g = 0; g < grams; g++) {
+            long hash = FNV_OFFSET;
+            for (int j = g; j < g + k; j++) {
+                hash = MinHasher.mix64(hash ^ wordHashes[j]) * FNV_PRIME;
+            }
+            gramHashes[g] = hash;
+        }
+
+        // Short documents are a single window
+        int w = Math.min(window, grams);
+        int lastSelected = -1;
+        for (int windowStart = 0; windowStart + w <= grams; windowStart++) {
+            int minIndex = windowStart;
+            for (int g = windowStart + 1; g < windowStart + w; g++) {
+                if (gramHashes[g] <= gramHashes[minIndex]) {
+                    minIndex = g;
+                }
+            }
+            if (minIndex != lastSelected) {
+                result.add(new Fingerprint(gramHashes[minIndex], minIndex,
+                    wordStarts[minIndex], wordEnds[minIndex + k - 1]));
+                lastSelected = minIndex;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * One selected k-gram: its hash, word position and character span [start, end)
+     */
+    public static class Fingerprint {
+        private final long hash;
+        private final int position;
+        private final int start;
+        private final int end;
+
+        public Fingerprint(long hash, int position, int start, int end) {
+            this.hash = hash;
+            this.position = position;
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getHash() { return hash; }
+        public int getPosition() { return position; }
+        public int getStart() { return start; }
+        public int getEnd() { return end; }
+    }
+}
\ No newline at end of file
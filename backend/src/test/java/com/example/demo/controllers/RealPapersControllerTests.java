@@ -0,0 +1,129 @@
+package com.example.demo.controllers;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.example.demo.models.ResearchPaper;
+import com.example.demo.repositories.ResearchPaperRepository;
+import com.example.demo.services.ResearchPaperService;
+import com.example.demo.utils.PageCursor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * GET /api/public/papers against a service stub that pages through a fixed list the way
+ * ResearchPaperService does: the cursor is decoded with PageCursor, and a cursor it rejects
+ * surfaces as IllegalArgumentException.
+ */
+class RealPapersControllerTests {
+
+	private static final int PAPERS = 5;
+
+	private final List<ResearchPaper> papers = new ArrayList<>();
+	private MockMvc mockMvc;
+	private ResearchPaperService researchPaperService;
+
+	@BeforeEach
+	void setUp() {
+		// Newest first, as the service orders them
+		for (int i = PAPERS; i > 0; i--) {
+			ResearchPaper paper = new ResearchPaper();
+			paper.setId(String.format("65ec6f1e2b7c4a1d9e8f0a%02d", i));
+			paper.setTitle("Paper " + i);
+			paper.setSubmissionDate(LocalDateTime.of(2024, 1, i, 12, 0));
+			papers.add(paper);
+		}
+
+		researchPaperService = mock(ResearchPaperService.class);
+		when(researchPaperService.getViewablePapersPage(nullable(String.class), anyInt()))
+			.thenAnswer(invocation -> page(invocation.getArgument(0), invocation.getArgument(1)));
+		ResearchPaperRepository researchPaperRepository = mock(ResearchPaperRepository.class);
+		when(researchPaperRepository.count()).thenReturn((long) PAPERS);
+		when(researchPaperRepository.countByViewableTrue()).thenReturn((long) PAPERS);
+
+		RealPapersController controller = new RealPapersController();
+		ReflectionTestUtils.setField(controller, "researchPaperService", researchPaperService);
+		ReflectionTestUtils.setField(controller, "researchPaperRepository", researchPaperRepository);
+		mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@Test
+	void theNextCursorRoundTripsToTheFollowingPage() throws Exception {
+		MvcResult first = mockMvc.perform(get("/api/public/papers").param("size", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.papers.length()").value(2))
+			.andExpect(jsonPath("$.papers[0].title").value("Paper 5"))
+			.andExpect(jsonPath("$.hasNext").value(true))
+			.andReturn();
+		String cursor = new ObjectMapper().readTree(first.getResponse().getContentAsString())
+			.get("nextCursor").asText();
+
+		MvcResult second = mockMvc.perform(get("/api/public/papers").param("cursor", cursor).param("size", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.papers[0].title").value("Paper 3"))
+			.andExpect(jsonPath("$.papers[1].title").value("Paper 2"))
+			.andExpect(jsonPath("$.hasNext").value(true))
+			.andReturn();
+		verify(researchPaperService).getViewablePapersPage(cursor, 2);
+		String lastCursor = new ObjectMapper().readTree(second.getResponse().getContentAsString())
+			.get("nextCursor").asText();
+
+		mockMvc.perform(get("/api/public/papers").param("cursor", lastCursor).param("size", "2"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.papers.length()").value(1))
+			.andExpect(jsonPath("$.papers[0].title").value("Paper 1"))
+			.andExpect(jsonPath("$.hasNext").value(false))
+			.andExpect(jsonPath("$.nextCursor").doesNotExist());
+	}
+
+	@Test
+	void aTamperedCursorIsABadRequest() throws Exception {
+		String cursor = new PageCursor(papers.get(1).getSubmissionDate(), papers.get(1).getId()).encode();
+		String tampered = cursor.substring(0, cursor.length() - 3);
+
+		mockMvc.perform(get("/api/public/papers").param("cursor", tampered))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.status").value("error"))
+			.andExpect(jsonPath("$.message").value("Invalid page cursor"));
+	}
+
+	@Test
+	void aCursorThatIsNotBase64IsABadRequest() throws Exception {
+		mockMvc.perform(get("/api/public/papers").param("cursor", "not a cursor!"))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.message").value("Invalid page cursor"));
+	}
+
+	private ResearchPaperService.PaperPage page(String cursor, int size) {
+		int start = 0;
+		if (cursor != null && !cursor.isEmpty()) {
+			String lastId = PageCursor.decode(cursor).getId();
+			while (start < papers.size() && !papers.get(start).getId().equals(lastId)) {
+				start++;
+			}
+			start++;
+		}
+		int end = Math.min(papers.size(), start + size);
+		List<ResearchPaper> page = new ArrayList<>(papers.subList(Math.min(start, end), end));
+		String nextCursor = end < papers.size()
+			? new PageCursor(page.get(page.size() - 1).getSubmissionDate(), page.get(page.size() - 1).getId()).encode()
+			: null;
+		return new ResearchPaperService.PaperPage(page, nextCursor);
+	}
+}
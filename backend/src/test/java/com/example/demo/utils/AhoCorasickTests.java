@@ -0,0 +1,99 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickTests {
+
+	@Test
+	void reportsEveryOccurrenceIncludingOverlappingAndNestedOnes() {
+		AhoCorasick matcher = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+
+		// "she" and "he" both end at index 3, "hers" at index 5
+		assertEquals(Arrays.asList("he@4", "she@4", "hers@6"),
+				occurrences(matcher, Arrays.asList("he", "she", "his", "hers"), "ushers"));
+	}
+
+	@Test
+	void aPhraseOverlappingItselfIsReportedAtEveryEnd() {
+		List<String> phrases = Arrays.asList("aa", "aba");
+		AhoCorasick matcher = new AhoCorasick(phrases);
+
+		assertEquals(Arrays.asList("aa@2", "aa@3", "aa@4"), occurrences(matcher, phrases, "aaaa"));
+		assertEquals(Arrays.asList("aba@3", "aba@5", "aba@7"), occurrences(matcher, phrases, "abababa"));
+	}
+
+	@Test
+	void countingInAProfileSkipsOverlapsLikeRepeatedIndexOf() {
+		List<String> phrases = Arrays.asList("aa", "aba", "ana");
+		TextProfile.Phrases groups = new TextProfile.Phrases(Collections.singletonList(phrases));
+
+		for (String text : Arrays.asList("aaaa", "aaaaa", "abababa", "banana", "ab aba abab", "")) {
+			TextProfile profile = TextProfile.of(text, null, groups, 0);
+			for (int i = 0; i < phrases.size(); i++) {
+				assertEquals(indexOfCount(text, phrases.get(i)), profile.count(0, i), phrases.get(i) + " in " + text);
+			}
+		}
+	}
+
+	@Test
+	void matchesIgnoreCaseOnBothSides() {
+		List<String> phrases = Arrays.asList("Neural Network", "state-of-the-art", "ÜBER");
+		AhoCorasick matcher = new AhoCorasick(phrases);
+
+		assertEquals(Arrays.asList("Neural Network@14", "state-of-the-art@32", "ÜBER@37"),
+				occurrences(matcher, phrases, "NEURAL network, State-Of-The-Art über"));
+	}
+
+	@Test
+	void charactersOutsideEveryPhraseRestartTheMatch() {
+		List<String> phrases = Collections.singletonList("deep learning");
+		AhoCorasick matcher = new AhoCorasick(phrases);
+
+		assertEquals(Collections.emptyList(), occurrences(matcher, phrases, "deep\tlearning deep-learning"));
+		assertEquals(Collections.singletonList("deep learning@18"), occurrences(matcher, phrases, "deep deep learning"));
+	}
+
+	@Test
+	void emptyAndDuplicatePhrasesKeepTheirIds() {
+		List<String> phrases = Arrays.asList("", "substantial", "x", "substantial");
+		AhoCorasick matcher = new AhoCorasick(phrases);
+
+		assertEquals(4, matcher.size());
+		assertEquals(0, matcher.length(0));
+		assertEquals(Arrays.asList("substantial@11", "substantial@11"), occurrences(matcher, phrases, "substantial"));
+		assertTrue(occurrences(matcher, phrases, "").isEmpty());
+	}
+
+	private static List<String> occurrences(AhoCorasick matcher, List<String> phrases, String text) {
+		List<String> found = new ArrayList<>();
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			state = matcher.next(state, text.charAt(i));
+			// Phrases ending at the same index in id order
+			int[] ids = matcher.matches(state).clone();
+			Arrays.sort(ids);
+			for (int id : ids) {
+				found.add(phrases.get(id) + "@" + (i + 1));
+			}
+		}
+		return found;
+	}
+
+	private static int indexOfCount(String text, String phrase) {
+		int count = 0;
+		int index = 0;
+		while ((index = text.indexOf(phrase, index)) != -1) {
+			count++;
+			index += phrase.length();
+		}
+		return count;
+	}
+}
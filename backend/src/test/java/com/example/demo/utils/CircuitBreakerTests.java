@@ -0,0 +1,186 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTests {
+
+	private static final int THRESHOLD = 3;
+	private static final long BACKOFF_MS = 1000;
+	private static final long MAX_BACKOFF_MS = 3000;
+
+	private final AtomicLong now = new AtomicLong(1_000_000L);
+	private final CircuitBreaker breaker = new CircuitBreaker(THRESHOLD, BACKOFF_MS, MAX_BACKOFF_MS, now::get);
+
+	@Test
+	void opensAfterTheThresholdOfConsecutiveFailures() {
+		for (int i = 0; i < THRESHOLD - 1; i++) {
+			assertNull(breaker.recordFailure(breaker.tryAcquire()));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.recordFailure(breaker.tryAcquire()));
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+		assertEquals(1, breaker.getRejectedRequests());
+		assertEquals(BACKOFF_MS, breaker.getRetryInMs());
+	}
+
+	@Test
+	void aSuccessResetsTheFailureCount() {
+		breaker.recordFailure(breaker.tryAcquire());
+		breaker.recordFailure(breaker.tryAcquire());
+		breaker.recordSuccess(breaker.tryAcquire());
+		breaker.recordFailure(breaker.tryAcquire());
+		breaker.recordFailure(breaker.tryAcquire());
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(2, breaker.getConsecutiveFailures());
+	}
+
+	@Test
+	void halfOpenAdmitsOneTrialAndItsSuccessCloses() {
+		open();
+		now.addAndGet(BACKOFF_MS - 1);
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+		now.addAndGet(1);
+		long trial = breaker.tryAcquire();
+		assertNotEquals(CircuitBreaker.REJECTED, trial);
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+
+		CompletableFuture<Boolean> outcome = breaker.awaitTrial();
+		assertFalse(outcome.isDone());
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.recordSuccess(trial));
+		assertTrue(outcome.join());
+		assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+	}
+
+	@Test
+	void aFailedTrialReopensWithTheBackoffDoubledUpToTheMaximum() {
+		open();
+		long[] expectedBackoffs = { 2000, 3000, 3000 };
+		for (long expected : expectedBackoffs) {
+			now.addAndGet(breaker.getRetryInMs());
+			long trial = breaker.tryAcquire();
+			CompletableFuture<Boolean> outcome = breaker.awaitTrial();
+
+			assertEquals(CircuitBreaker.State.OPEN, breaker.recordFailure(trial));
+			assertFalse(outcome.join());
+			assertEquals(expected, breaker.getCurrentBackoffMs());
+			assertEquals(expected, breaker.getRetryInMs());
+		}
+
+		now.addAndGet(breaker.getRetryInMs());
+		breaker.recordSuccess(breaker.tryAcquire());
+		assertEquals(BACKOFF_MS, breaker.getCurrentBackoffMs());
+	}
+
+	@Test
+	void aReleasedTrialFreesTheSlotWithoutDecidingTheState() {
+		open();
+		now.addAndGet(BACKOFF_MS);
+		long trial = breaker.tryAcquire();
+		breaker.release(trial);
+
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.awaitTrial().isDone());
+		assertNotEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+	}
+
+	@Test
+	void aStaleSuccessCannotCloseAHalfOpenBreaker() {
+		long slow = breaker.tryAcquire();
+		open();
+		now.addAndGet(BACKOFF_MS);
+		long trial = breaker.tryAcquire();
+
+		assertNull(breaker.recordSuccess(slow));
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.awaitTrial().isDone());
+
+		assertEquals(CircuitBreaker.State.OPEN, breaker.recordFailure(trial));
+	}
+
+	@Test
+	void aStaleFailureCannotReopenAHalfOpenBreaker() {
+		long slow = breaker.tryAcquire();
+		open();
+		now.addAndGet(BACKOFF_MS);
+		long trial = breaker.tryAcquire();
+
+		assertNull(breaker.recordFailure(slow));
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertEquals(BACKOFF_MS, breaker.getCurrentBackoffMs());
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.recordSuccess(trial));
+	}
+
+	@Test
+	void aStaleReleaseCannotFreeTheTrialSlot() {
+		open();
+		now.addAndGet(BACKOFF_MS);
+		long firstTrial = breaker.tryAcquire();
+		breaker.recordFailure(firstTrial);
+		now.addAndGet(breaker.getRetryInMs());
+		long secondTrial = breaker.tryAcquire();
+
+		// The first trial's permit is from an earlier half-open generation
+		breaker.release(firstTrial);
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire());
+		assertNull(breaker.recordSuccess(firstTrial));
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.recordSuccess(secondTrial));
+	}
+
+	@Test
+	void failuresFromBeforeTheBreakerClosedDoNotCountAgainstTheNewGeneration() {
+		long[] slow = new long[THRESHOLD];
+		for (int i = 0; i < THRESHOLD; i++) {
+			slow[i] = breaker.tryAcquire();
+		}
+		open();
+		now.addAndGet(BACKOFF_MS);
+		breaker.recordSuccess(breaker.tryAcquire());
+
+		for (long permit : slow) {
+			assertNull(breaker.recordFailure(permit));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(0, breaker.getConsecutiveFailures());
+	}
+
+	@Test
+	void probesTurnedAwayAreNotCountedAsRejectedRequests() {
+		open();
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire(false));
+		now.addAndGet(BACKOFF_MS);
+		breaker.tryAcquire();
+		assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquire(false));
+
+		assertEquals(0, breaker.getRejectedRequests());
+	}
+
+	@Test
+	void awaitTrialCompletesAtOnceOutsideHalfOpen() {
+		assertTrue(breaker.awaitTrial().join());
+		open();
+		assertFalse(breaker.awaitTrial().join());
+	}
+
+	private void open() {
+		for (int i = 0; i < THRESHOLD; i++) {
+			breaker.recordFailure(breaker.tryAcquire());
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ContentFingerprintTests {
+
+	private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"
+		+ "éèüöäßÉÜçñøåαβγδΣΩжщЯ中文字日本語";
+	private static final String SEPARATORS = " \n\t.,;:-()[]\"'!?/ —";
+
+	@Test
+	void accumulatorFedInOddSizedPiecesMatchesTheOneShotFingerprint() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 300; trial++) {
+			String text = randomText(random, random.nextInt(trial < 50 ? 40 : 5000));
+			ContentFingerprint expected = ContentFingerprint.of(text);
+			ContentFingerprint streamed = stream(random, text);
+
+			if (expected == null) {
+				assertNull(streamed, "text " + text);
+				continue;
+			}
+			assertNotNull(streamed, "text " + text);
+			assertEquals(expected.getContentHash(), streamed.getContentHash(), "text " + text);
+			assertEquals(expected.getSimHash(), streamed.getSimHash(), "text " + text);
+			assertEquals(expected.getSimHashBlocks(), streamed.getSimHashBlocks());
+		}
+	}
+
+	@Test
+	void textsShorterThanOneShingleStillMatch() {
+		for (String text : new String[] { "a", "Two words", "  three   little words ", "é", "x." }) {
+			ContentFingerprint expected = ContentFingerprint.of(text);
+			ContentFingerprint streamed = stream(new Random(text.length()), text);
+			assertEquals(expected.getContentHash(), streamed.getContentHash(), text);
+			assertEquals(expected.getSimHash(), streamed.getSimHash(), text);
+		}
+	}
+
+	@Test
+	void textWithoutLettersOrDigitsHasNoFingerprint() {
+		assertNull(ContentFingerprint.of(" ..\n-- !"));
+		assertNull(stream(new Random(2), " ..\n-- !"));
+		assertNull(stream(new Random(3), ""));
+	}
+
+	@Test
+	void reformattingKeepsTheFingerprint() {
+		ContentFingerprint original = ContentFingerprint.of("Blockchain verification of research papers, revisited.");
+		ContentFingerprint reflowed = ContentFingerprint.of("BLOCKCHAIN  verification\nof research-papers -- revisited");
+		assertEquals(original.getContentHash(), reflowed.getContentHash());
+		assertEquals(original.getSimHash(), reflowed.getSimHash());
+	}
+
+	/**
+	 * Feed the text through the accumulator in random 1-17 character pieces, each copied to
+	 * a random offset of a larger buffer the way a reader hands over its internal array
+	 */
+	private static ContentFingerprint stream(Random random, String text) {
+		ContentFingerprint.Accumulator accumulator = new ContentFingerprint.Accumulator();
+		char[] buffer = new char[64];
+		int position = 0;
+		while (position < text.length()) {
+			int length = Math.min(text.length() - position, 1 + random.nextInt(17));
+			int offset = random.nextInt(buffer.length - length + 1);
+			text.getChars(position, position + length, buffer, offset);
+			accumulator.write(buffer, offset, length);
+			position += length;
+		}
+		return accumulator.result();
+	}
+
+	private static String randomText(Random random, int length) {
+		StringBuilder text = new StringBuilder(length);
+		while (text.length() < length) {
+			if (random.nextInt(5) == 0) {
+				text.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+			} else {
+				text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+			}
+		}
+		return text.toString();
+	}
+
+}
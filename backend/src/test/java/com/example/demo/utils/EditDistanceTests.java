@@ -0,0 +1,127 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class EditDistanceTests {
+
+	@Test
+	void exactDistanceMatchesTheFullMatrix() {
+		assertEquals(3, EditDistance.distance("kitten", "sitting"));
+		assertEquals(0, EditDistance.distance("", ""));
+		assertEquals(4, EditDistance.distance("", "abcd"));
+		assertEquals(4, EditDistance.distance("abcd", ""));
+
+		Random random = new Random(1);
+		for (int trial = 0; trial < 2000; trial++) {
+			String a = randomString(random, random.nextInt(40));
+			String b = randomString(random, random.nextInt(40));
+			assertEquals(fullMatrix(a, b), EditDistance.distance(a, b), a + " / " + b);
+		}
+	}
+
+	@Test
+	void boundedDistanceIsExactWithinTheBoundAndBoundPlusOneBeyondIt() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 3000; trial++) {
+			String a = randomString(random, random.nextInt(30));
+			// Mostly near-copies so the distance lands on both sides of the bound
+			String b = trial % 3 == 0 ? randomString(random, random.nextInt(30)) : mutate(random, a, random.nextInt(6));
+			int expected = fullMatrix(a, b);
+
+			for (int max = -1; max <= expected + 2; max++) {
+				int bound = Math.max(0, max);
+				int actual = EditDistance.distance(a, b, max);
+				if (expected <= bound) {
+					assertEquals(expected, actual, "max " + max + ": " + a + " / " + b);
+				} else {
+					assertEquals(bound + 1, actual, "max " + max + ": " + a + " / " + b);
+				}
+			}
+		}
+	}
+
+	@Test
+	void boundedDistanceHandlesEdgesOfTheBand() {
+		// Length difference alone exceeds the bound
+		assertEquals(3, EditDistance.distance("abcdef", "abc", 2));
+		assertEquals(3, EditDistance.distance("abcdef", "abc", 3));
+		// Edits at the very start and end of the strings, on the band's boundary
+		assertEquals(2, EditDistance.distance("xbcdey", "abcdez", 2));
+		assertEquals(2, EditDistance.distance("abcdef", "cdef", 2));
+		assertEquals(2, EditDistance.distance("abcdef", "abcd", 2));
+		assertEquals(2, EditDistance.distance("abcdef", "abcd", 1));
+		// Zero bound: equal or not
+		assertEquals(0, EditDistance.distance("same", "same", 0));
+		assertEquals(1, EditDistance.distance("same", "sane", 0));
+		// Empty against non-empty
+		assertEquals(3, EditDistance.distance("", "abc", 5));
+		assertEquals(2, EditDistance.distance("", "abc", 1));
+	}
+
+	@Test
+	void thresholdedPercentageMatchesTheFormulaOrIsZero() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 2000; trial++) {
+			String a = randomString(random, 1 + random.nextInt(60));
+			String b = mutate(random, a, random.nextInt(12));
+			int maxLength = Math.max(a.length(), b.length());
+			double expected = ((double) (maxLength - fullMatrix(a, b)) / maxLength) * 100.0;
+
+			assertEquals(expected, EditDistance.similarityPercentage(a, b));
+			for (double minimum : new double[] { 0.0, 50.0, 70.0, 90.0, 95.0, 100.0, expected }) {
+				double actual = EditDistance.similarityPercentage(a, b, minimum);
+				assertEquals(expected >= minimum ? expected : 0.0, actual, "min " + minimum + ": " + a + " / " + b);
+			}
+		}
+		assertEquals(100.0, EditDistance.similarityPercentage("", "", 95.0));
+	}
+
+	/**
+	 * Textbook (n+1) x (m+1) dynamic programme
+	 */
+	private static int fullMatrix(String a, String b) {
+		int[][] dp = new int[a.length() + 1][b.length() + 1];
+		for (int i = 0; i <= a.length(); i++) {
+			dp[i][0] = i;
+		}
+		for (int j = 0; j <= b.length(); j++) {
+			dp[0][j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				int substitution = dp[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+				dp[i][j] = Math.min(substitution, Math.min(dp[i - 1][j], dp[i][j - 1]) + 1);
+			}
+		}
+		return dp[a.length()][b.length()];
+	}
+
+	// A three-letter alphabet makes accidental matches, and so ties in the band, common
+	private static String randomString(Random random, int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append((char) ('a' + random.nextInt(3)));
+		}
+		return text.toString();
+	}
+
+	private static String mutate(Random random, String text, int edits) {
+		StringBuilder mutated = new StringBuilder(text);
+		for (int i = 0; i < edits; i++) {
+			int operation = mutated.length() == 0 ? 1 : random.nextInt(3);
+			int at = random.nextInt(mutated.length() + (operation == 1 ? 1 : 0));
+			char c = (char) ('a' + random.nextInt(3));
+			switch (operation) {
+				case 0 -> mutated.setCharAt(at, c);
+				case 1 -> mutated.insert(at, c);
+				default -> mutated.deleteCharAt(at);
+			}
+		}
+		return mutated.toString();
+	}
+
+}
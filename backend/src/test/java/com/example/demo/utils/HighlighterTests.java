@@ -0,0 +1,71 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HighlighterTests {
+
+	@Test
+	void escapesMarkupAroundAndBetweenWords() {
+		Set<String> terms = Highlighter.queryTerms("script");
+
+		assertEquals("&lt;<mark>script</mark>&gt;alert(&quot;x&quot;)&lt;/<mark>script</mark>&gt;",
+			Highlighter.highlight("<script>alert(\"x\")</script>", terms));
+		assertEquals("Tom &amp; Jerry&#39;s &lt;b&gt;", Highlighter.highlight("Tom & Jerry's <b>", terms));
+	}
+
+	@Test
+	void aQueryTermCannotInjectMarkup() {
+		Set<String> terms = Highlighter.queryTerms("<mark> <img onerror=x>");
+
+		// Only the letters of a term are kept, and the markup around a marked word stays escaped
+		assertEquals("&lt;<mark>img</mark> src=&quot;a&quot;&gt; <mark>marked</mark>",
+			Highlighter.highlight("<img src=\"a\"> marked", terms));
+	}
+
+	@Test
+	void marksWordsThatShareAPrefixWithAQueryTerm() {
+		Set<String> terms = Highlighter.queryTerms("networks learn");
+
+		assertEquals("<mark>Neural</mark> <mark>Network</mark> for <mark>Learning</mark>",
+			Highlighter.highlight("Neural Network for Learning", new HashSet<>(Arrays.asList("neural", "networks", "learn"))));
+		assertEquals("<mark>Network</mark>-based <mark>learning</mark>, ne",
+			Highlighter.highlight("Network-based learning, ne", terms));
+	}
+
+	@Test
+	void ignoresNegatedAndSingleLetterTerms() {
+		assertEquals(new HashSet<>(Arrays.asList("graph", "ai")), Highlighter.queryTerms("graph -neural a AI"));
+	}
+
+	@Test
+	void snippetsStartNearTheFirstMatchOnAWordBoundary() {
+		String text = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, and then blockchain ledgers appear here.";
+		Set<String> terms = Highlighter.queryTerms("blockchain");
+
+		assertEquals("...then <mark>blockchain</mark> ledgers...", Highlighter.snippet(text, terms, 20));
+		assertEquals("Lorem ipsum dolor sit...", Highlighter.snippet(text, Highlighter.queryTerms("zebra"), 20));
+		assertEquals(text, Highlighter.snippet(text, Highlighter.queryTerms("zebra"), 1000));
+	}
+
+	@Test
+	void snippetsAreEscapedToo() {
+		assertEquals("a &lt; b &amp;&amp; <mark>graph</mark>", Highlighter.snippet("a < b && graph", Highlighter.queryTerms("graph"), 100));
+	}
+
+	@Test
+	void nullAndEmptyTextsHaveNoHighlight() {
+		Set<String> terms = Highlighter.queryTerms("graph");
+
+		assertNull(Highlighter.highlight(null, terms));
+		assertNull(Highlighter.snippet(null, terms, 100));
+		assertNull(Highlighter.snippet("", terms, 100));
+		assertEquals("", Highlighter.highlight("", terms));
+	}
+}
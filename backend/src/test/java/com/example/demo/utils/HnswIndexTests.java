@@ -0,0 +1,174 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class HnswIndexTests {
+
+	private static final int DIMENSION = 64;
+	private static final int K = 10;
+
+	@Test
+	void findsTheExactNearestNeighboursOfMostQueries() {
+		Random random = new Random(7);
+		List<float[]> vectors = randomVectors(random, 5000);
+		HnswIndex index = newIndex();
+		for (int i = 0; i < vectors.size(); i++) {
+			index.add(key(i), vectors.get(i));
+		}
+
+		double recall = recall(index, vectors, randomVectors(random, 100));
+		assertTrue(recall >= 0.95, "recall@10 was " + recall);
+	}
+
+	@Test
+	void removedKeysAreNeverReturned() {
+		Random random = new Random(11);
+		List<float[]> vectors = randomVectors(random, 1000);
+		HnswIndex index = newIndex();
+		for (int i = 0; i < vectors.size(); i++) {
+			index.add(key(i), vectors.get(i));
+		}
+		for (int i = 0; i < vectors.size(); i += 2) {
+			assertTrue(index.remove(key(i)));
+		}
+		assertFalse(index.remove(key(0)));
+		assertEquals(500, index.size());
+
+		for (int i = 0; i < vectors.size(); i += 2) {
+			// The removed vector itself is the best match if tombstones leak into results
+			for (HnswIndex.SearchResult result : index.search(vectors.get(i), K)) {
+				assertEquals(1, Integer.parseInt(result.getKey().substring(1)) % 2, "removed key " + result.getKey() + " returned");
+			}
+		}
+	}
+
+	@Test
+	void compactionRestoresRecallAfterRepeatedReplacement() {
+		Random random = new Random(13);
+		List<float[]> vectors = randomVectors(random, 5000);
+		HnswIndex index = newIndex();
+		for (int i = 0; i < vectors.size(); i++) {
+			index.add(key(i), vectors.get(i));
+		}
+
+		// Replace half of the corpus three times; every replacement leaves a tombstone
+		for (int round = 0; round < 3; round++) {
+			for (int i = round % 2; i < vectors.size(); i += 2) {
+				vectors.set(i, randomVector(random));
+				index.add(key(i), vectors.get(i));
+			}
+		}
+		assertEquals(5000, index.size());
+		assertTrue(index.getTombstoneRatio() > 0.5);
+
+		assertTrue(index.compact());
+		assertEquals(0.0, index.getTombstoneRatio());
+		assertEquals(5000, index.size());
+
+		double recall = recall(index, vectors, randomVectors(random, 100));
+		assertTrue(recall >= 0.95, "recall@10 after compaction was " + recall);
+	}
+
+	@Test
+	void reAddingAnUnchangedVectorLeavesNoTombstone() {
+		HnswIndex index = newIndex();
+		float[] vector = randomVector(new Random(17));
+		index.add("a", vector);
+		index.add("a", vector.clone());
+
+		assertEquals(1, index.size());
+		assertEquals(0.0, index.getTombstoneRatio());
+	}
+
+	@Test
+	void replacedVectorIsFoundUnderItsNewValue() {
+		Random random = new Random(19);
+		HnswIndex index = newIndex();
+		List<float[]> vectors = randomVectors(random, 200);
+		for (int i = 0; i < vectors.size(); i++) {
+			index.add(key(i), vectors.get(i));
+		}
+		float[] replacement = randomVector(random);
+		index.add(key(5), replacement);
+
+		assertEquals(key(5), index.search(replacement, 1).get(0).getKey());
+		assertTrue(index.compact());
+		assertEquals(key(5), index.search(replacement, 1).get(0).getKey());
+		assertEquals(200, index.size());
+	}
+
+	private static HnswIndex newIndex() {
+		return new HnswIndex(16, 200, 100);
+	}
+
+	private static String key(int i) {
+		return "p" + i;
+	}
+
+	/**
+	 * Share of the brute-force top-k found by the index, over all queries
+	 */
+	private static double recall(HnswIndex index, List<float[]> vectors, List<float[]> queries) {
+		int found = 0;
+		for (float[] query : queries) {
+			Set<String> exact = exactTopK(vectors, query);
+			for (HnswIndex.SearchResult result : index.search(query, K)) {
+				if (exact.contains(result.getKey())) {
+					found++;
+				}
+			}
+		}
+		return (double) found / (queries.size() * K);
+	}
+
+	private static Set<String> exactTopK(List<float[]> vectors, float[] query) {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < vectors.size(); i++) {
+			ids.add(i);
+		}
+		ids.sort(Comparator.comparingDouble((Integer i) -> -cosine(vectors.get(i), query)));
+		Set<String> top = new HashSet<>();
+		for (int i = 0; i < K; i++) {
+			top.add(key(ids.get(i)));
+		}
+		return top;
+	}
+
+	private static double cosine(float[] a, float[] b) {
+		double dot = 0, normA = 0, normB = 0;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return dot / Math.sqrt(normA * normB);
+	}
+
+	private static List<float[]> randomVectors(Random random, int count) {
+		List<float[]> vectors = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			vectors.add(randomVector(random));
+		}
+		return vectors;
+	}
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+}
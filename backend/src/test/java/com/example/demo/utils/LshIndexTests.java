@@ -0,0 +1,110 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LshIndexTests {
+
+	// The bands and rows configured in application.properties
+	private static final int CONTENT_BANDS = 16;
+	private static final int CONTENT_ROWS = 8;
+	private static final int TITLE_BANDS = 42;
+	private static final int TITLE_ROWS = 3;
+
+	@Test
+	void contentBandsFindNearDuplicatesAtTheExpectedRate() {
+		Random random = new Random(1);
+		for (double similarity : new double[] { 0.8, 0.9, 0.95 }) {
+			double recall = candidateRate(random, CONTENT_BANDS, CONTENT_ROWS, similarity, 500);
+			// 1 - (1 - J^r)^b: 0.947 at 0.8, over 0.999 at 0.9
+			assertTrue(recall >= expectedRate(CONTENT_BANDS, CONTENT_ROWS, similarity) - 0.04,
+				"recall " + recall + " at " + similarity);
+		}
+		assertTrue(candidateRate(random, CONTENT_BANDS, CONTENT_ROWS, 0.3, 500) < 0.02);
+	}
+
+	@Test
+	void titleBandsFindLooselySimilarTitles() {
+		Random random = new Random(2);
+		for (double similarity : new double[] { 0.4, 0.5, 0.7 }) {
+			double recall = candidateRate(random, TITLE_BANDS, TITLE_ROWS, similarity, 500);
+			// 0.93 at 0.4, 0.996 at 0.5
+			assertTrue(recall >= expectedRate(TITLE_BANDS, TITLE_ROWS, similarity) - 0.04,
+				"recall " + recall + " at " + similarity);
+		}
+	}
+
+	@Test
+	void titlesWithATypoAreCandidatesOfEachOther() {
+		LshIndex index = new LshIndex(TITLE_BANDS, TITLE_ROWS);
+		index.add("a", MinHasher.titleSignature("Blockchain based verification of research papers"));
+		index.add("b", MinHasher.titleSignature("A survey of graph neural networks"));
+
+		List<LshIndex.Match> matches = index.query(MinHasher.titleSignature("Blockchain-based verfication of research paper"), 0.0);
+		assertEquals("a", matches.get(0).getKey());
+		assertTrue(matches.stream().noneMatch(match -> match.getKey().equals("b") && match.getSimilarity() > 0.3));
+	}
+
+	@Test
+	void replacedAndRemovedKeysLeaveNoStaleBuckets() {
+		Random random = new Random(3);
+		LshIndex index = new LshIndex(CONTENT_BANDS, CONTENT_ROWS);
+		int[] first = randomSignature(random);
+		int[] second = randomSignature(random);
+
+		index.add("p", first);
+		index.add("p", second);
+		assertEquals(1, index.size());
+		assertTrue(index.query(first, 0.0).isEmpty());
+		assertEquals(1.0, index.query(second, 0.0).get(0).getSimilarity());
+
+		assertTrue(index.remove("p"));
+		assertFalse(index.remove("p"));
+		assertTrue(index.query(second, 0.0).isEmpty());
+		assertEquals(0, index.size());
+	}
+
+	/**
+	 * Share of pairs whose signatures agree slot by slot with the given probability (their
+	 * MinHash Jaccard) that come back as candidates of one another
+	 */
+	private static double candidateRate(Random random, int bands, int rows, double similarity, int pairs) {
+		LshIndex index = new LshIndex(bands, rows);
+		int[][] queries = new int[pairs][];
+		for (int i = 0; i < pairs; i++) {
+			int[] stored = randomSignature(random);
+			queries[i] = new int[stored.length];
+			for (int slot = 0; slot < stored.length; slot++) {
+				queries[i][slot] = random.nextDouble() < similarity ? stored[slot] : random.nextInt();
+			}
+			index.add("p" + i, stored);
+		}
+		int found = 0;
+		for (int i = 0; i < pairs; i++) {
+			String key = "p" + i;
+			if (index.query(queries[i], 0.0).stream().anyMatch(match -> match.getKey().equals(key))) {
+				found++;
+			}
+		}
+		return (double) found / pairs;
+	}
+
+	private static double expectedRate(int bands, int rows, double similarity) {
+		return 1.0 - Math.pow(1.0 - Math.pow(similarity, rows), bands);
+	}
+
+	private static int[] randomSignature(Random random) {
+		int[] signature = new int[MinHasher.SIGNATURE_LENGTH];
+		for (int i = 0; i < signature.length; i++) {
+			signature[i] = random.nextInt();
+		}
+		return signature;
+	}
+
+}
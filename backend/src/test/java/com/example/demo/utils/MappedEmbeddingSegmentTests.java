@@ -0,0 +1,180 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedEmbeddingSegmentTests {
+
+	private static final int DIMENSION = 16;
+	// 16 dims x 2 vectors x 4 bytes = 128-byte records, so 10 records per region
+	private static final long REGION_BYTES = 10 * 128;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recordsSpanningSeveralRegionsScanLikeBruteForce() throws IOException {
+		Random random = new Random(5);
+		List<float[]> vectors = new ArrayList<>();
+		try (MappedEmbeddingSegment segment = create()) {
+			for (int i = 0; i < 1000; i++) {
+				float[] vector = randomVector(random);
+				vectors.add(vector);
+				segment.append(key(i), "title " + i, i, vector, randomVector(random));
+			}
+			assertBestMatch(segment, vectors, random);
+		}
+
+		try (MappedEmbeddingSegment reopened = open()) {
+			assertEquals(1000, reopened.size());
+			assertBestMatch(reopened, vectors, random);
+		}
+	}
+
+	@Test
+	void checksumChangesWhenAPaperIsReplacedWithoutChangingTheCount() throws IOException {
+		Random random = new Random(6);
+		long before;
+		try (MappedEmbeddingSegment segment = create()) {
+			segment.append("a", "first", 1, randomVector(random), null);
+			segment.append("b", "second", 1, randomVector(random), null);
+			before = segment.getChecksum();
+			assertEquals(MappedEmbeddingSegment.recordChecksum("a", 1, "first")
+				+ MappedEmbeddingSegment.recordChecksum("b", 1, "second"), before);
+
+			segment.append("b", "second", 2, randomVector(random), null);
+			assertEquals(2, segment.size());
+			assertNotEquals(before, segment.getChecksum());
+			assertEquals(MappedEmbeddingSegment.recordChecksum("a", 1, "first")
+				+ MappedEmbeddingSegment.recordChecksum("b", 2, "second"), segment.getChecksum());
+
+			segment.remove("b");
+			assertEquals(MappedEmbeddingSegment.recordChecksum("a", 1, "first"), segment.getChecksum());
+		}
+
+		try (MappedEmbeddingSegment reopened = open()) {
+			assertEquals(MappedEmbeddingSegment.recordChecksum("a", 1, "first"), reopened.getChecksum());
+		}
+	}
+
+	@Test
+	void openRejectsAVectorFileThatDoesNotMatchItsIdTable() throws IOException {
+		Random random = new Random(7);
+		try (MappedEmbeddingSegment segment = create()) {
+			segment.append("a", "first", 1, randomVector(random), null);
+		}
+		// A vector file from another segment, as left by a swap interrupted between the two files
+		Path otherVectors = directory.resolve("other.vec");
+		try (MappedEmbeddingSegment other = MappedEmbeddingSegment.create(otherVectors, directory.resolve("other.ids"), DIMENSION, REGION_BYTES)) {
+			other.append("b", "second", 1, randomVector(random), null);
+		}
+
+		assertThrows(IOException.class, () -> MappedEmbeddingSegment.open(otherVectors, directory.resolve("segment.ids"), REGION_BYTES));
+	}
+
+	@Test
+	void compactionKeepsOnlyLiveRecordsAndTheirVectors() throws IOException {
+		Random random = new Random(8);
+		List<float[]> vectors = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			vectors.add(randomVector(random));
+		}
+
+		long checksum;
+		try (MappedEmbeddingSegment segment = create()) {
+			for (int round = 0; round < 3; round++) {
+				for (int i = 0; i < 100; i++) {
+					segment.append(key(i), "title " + i, round, round == 2 ? vectors.get(i) : randomVector(random), null);
+				}
+			}
+			for (int i = 0; i < 100; i += 4) {
+				segment.remove(key(i));
+			}
+			assertTrue(segment.getDeadRatio() > 0.7, "dead ratio " + segment.getDeadRatio());
+			checksum = segment.getChecksum();
+
+			segment.compactTo(directory.resolve("compact.vec"), directory.resolve("compact.ids")).close();
+		}
+
+		try (MappedEmbeddingSegment compacted = MappedEmbeddingSegment.open(
+				directory.resolve("compact.vec"), directory.resolve("compact.ids"), REGION_BYTES)) {
+			assertEquals(75, compacted.size());
+			assertEquals(0.0, compacted.getDeadRatio());
+			assertEquals(checksum, compacted.getChecksum());
+			for (int i = 1; i < 100; i += 4) {
+				List<MappedEmbeddingSegment.ScoredId> best = compacted.scan(vectors.get(i), false, 1);
+				assertEquals(key(i), best.get(0).getId());
+				assertEquals(1.0f, best.get(0).getSimilarity(), 1e-5f);
+			}
+		}
+	}
+
+	@Test
+	void releasingTheInt8CodesKeepsScansExactAndReenablingRequantizes() throws IOException {
+		Random random = new Random(9);
+		List<float[]> vectors = new ArrayList<>();
+		try (MappedEmbeddingSegment segment = create()) {
+			segment.setRerankCandidates(20);
+			for (int i = 0; i < 500; i++) {
+				float[] vector = randomVector(random);
+				vectors.add(vector);
+				segment.append(key(i), "title " + i, i, vector, null);
+			}
+			assertBestMatch(segment, vectors, random);
+
+			segment.setRerankCandidates(0);
+			for (int i = 500; i < 600; i++) {
+				float[] vector = randomVector(random);
+				vectors.add(vector);
+				segment.append(key(i), "title " + i, i, vector, null);
+			}
+			assertBestMatch(segment, vectors, random);
+
+			// Records appended while the codes were released are quantized again
+			segment.setRerankCandidates(20);
+			for (int i = 500; i < 600; i++) {
+				assertEquals(key(i), segment.scan(vectors.get(i), false, 1).get(0).getId());
+			}
+		}
+	}
+
+	private void assertBestMatch(MappedEmbeddingSegment segment, List<float[]> vectors, Random random) {
+		for (int trial = 0; trial < 50; trial++) {
+			int expected = random.nextInt(vectors.size());
+			List<MappedEmbeddingSegment.ScoredId> best = segment.scan(vectors.get(expected), false, 1);
+			assertEquals(key(expected), best.get(0).getId());
+		}
+	}
+
+	private MappedEmbeddingSegment create() throws IOException {
+		return MappedEmbeddingSegment.create(directory.resolve("segment.vec"), directory.resolve("segment.ids"), DIMENSION, REGION_BYTES);
+	}
+
+	private MappedEmbeddingSegment open() throws IOException {
+		return MappedEmbeddingSegment.open(directory.resolve("segment.vec"), directory.resolve("segment.ids"), REGION_BYTES);
+	}
+
+	private static String key(int i) {
+		return "p" + i;
+	}
+
+	private static float[] randomVector(Random random) {
+		float[] vector = new float[DIMENSION];
+		for (int i = 0; i < DIMENSION; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MinHasherTests {
+
+	@Test
+	void estimatedJaccardTracksTheExactShingleJaccard() {
+		Random random = new Random(1);
+		double totalError = 0.0;
+		int pairs = 0;
+		for (double edited : new double[] { 0.0, 0.01, 0.03, 0.05, 0.1, 0.2, 0.4 }) {
+			for (int trial = 0; trial < 10; trial++) {
+				List<String> words = randomWords(random, 400 + random.nextInt(600));
+				String original = String.join(" ", words);
+				String variant = String.join(" ", edit(random, words, edited));
+
+				double exact = MinHasher.exactJaccard(original, variant);
+				double estimate = MinHasher.estimateJaccard(MinHasher.contentSignature(original), MinHasher.contentSignature(variant));
+				// 128 slots: standard error sqrt(J(1 - J) / 128) is at most 0.045
+				assertEquals(exact, estimate, 0.15, "edited " + edited);
+				totalError += Math.abs(exact - estimate);
+				pairs++;
+			}
+		}
+		assertTrue(totalError / pairs < 0.04, "mean error " + totalError / pairs);
+	}
+
+	@Test
+	void signaturesIgnoreCasePunctuationAndSpacing() {
+		int[] plain = MinHasher.contentSignature("the quick brown fox jumps over the lazy dog again");
+		int[] noisy = MinHasher.contentSignature("The  QUICK brown-fox, jumps over\nthe lazy dog... again!");
+		assertArrayEquals(plain, noisy);
+		assertEquals(1.0, MinHasher.estimateJaccard(plain, noisy));
+
+		assertArrayEquals(MinHasher.titleSignature("Deep Learning: A Survey"), MinHasher.titleSignature("deep learning a survey"));
+	}
+
+	@Test
+	void textsWithoutWordsHaveNoSignature() {
+		assertNull(MinHasher.contentSignature(""));
+		assertNull(MinHasher.contentSignature(" ... -- !"));
+		assertNull(MinHasher.titleSignature(null));
+		assertEquals(0.0, MinHasher.estimateJaccard(null, new int[MinHasher.SIGNATURE_LENGTH]));
+	}
+
+	private static List<String> edit(Random random, List<String> words, double fraction) {
+		List<String> edited = new ArrayList<>(words);
+		for (int i = 0; i < edited.size(); i++) {
+			if (random.nextDouble() < fraction) {
+				edited.set(i, randomWord(random));
+			}
+		}
+		return edited;
+	}
+
+	private static List<String> randomWords(Random random, int count) {
+		List<String> words = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			words.add(randomWord(random));
+		}
+		return words;
+	}
+
+	private static String randomWord(Random random) {
+		StringBuilder word = new StringBuilder();
+		int length = 3 + random.nextInt(8);
+		for (int i = 0; i < length; i++) {
+			word.append((char) ('a' + random.nextInt(26)));
+		}
+		return word.toString();
+	}
+
+}
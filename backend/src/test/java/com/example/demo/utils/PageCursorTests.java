@@ -0,0 +1,104 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+class PageCursorTests {
+
+	private static final LocalDateTime DATE = LocalDateTime.of(2024, 3, 9, 14, 5, 7, 123_000_000);
+	private static final String ID = "65ec6f1e2b7c4a1d9e8f0a12";
+
+	@Test
+	void roundTripsTheLastItemsPosition() {
+		PageCursor decoded = PageCursor.decode(new PageCursor(DATE, ID).encode());
+
+		assertEquals(DATE, decoded.getSubmissionDate());
+		assertEquals(ID, decoded.getId());
+	}
+
+	@Test
+	void roundTripsAnItemWithoutASubmissionDate() {
+		PageCursor decoded = PageCursor.decode(new PageCursor(null, ID).encode());
+
+		assertNull(decoded.getSubmissionDate());
+		assertEquals(ID, decoded.getId());
+	}
+
+	@Test
+	void roundTripsIdsWithSeparatorsAndWholeSecondDates() {
+		LocalDateTime wholeMinute = LocalDateTime.of(2023, 12, 31, 23, 59);
+		PageCursor decoded = PageCursor.decode(new PageCursor(wholeMinute, "a|b|c").encode());
+
+		assertEquals(wholeMinute, decoded.getSubmissionDate());
+		assertEquals("a|b|c", decoded.getId());
+	}
+
+	@Test
+	void encodesToUrlSafeCharactersOnly() {
+		String cursor = new PageCursor(DATE, "??>>~~" + ID).encode();
+
+		assertEquals(cursor, cursor.replaceAll("[^A-Za-z0-9_-]", ""));
+	}
+
+	@Test
+	void rejectsCursorsThatAreNotBase64() {
+		assertInvalid("not a cursor!");
+		assertInvalid("abc$def");
+	}
+
+	@Test
+	void rejectsAnEditedCharacter() {
+		String cursor = new PageCursor(DATE, ID).encode();
+		for (int i = 0; i < cursor.length(); i++) {
+			char replacement = cursor.charAt(i) == 'A' ? 'B' : 'A';
+			String edited = cursor.substring(0, i) + replacement + cursor.substring(i + 1);
+			assertInvalid(edited);
+		}
+	}
+
+	@Test
+	void rejectsATruncatedCursor() {
+		String cursor = new PageCursor(DATE, ID).encode();
+		for (int length = 0; length < cursor.length(); length++) {
+			String truncated = cursor.substring(0, length);
+			assertInvalid(truncated);
+		}
+	}
+
+	@Test
+	void rejectsAHandMadeCursorWithoutTheChecksum() {
+		// The format cursors had before they carried a checksum
+		assertInvalid(encode("2024-03-09T14:05:07.123|" + ID));
+		assertInvalid(encode("|" + ID));
+	}
+
+	@Test
+	void rejectsAMalformedPayloadEvenWithAMatchingChecksum() {
+		assertInvalid(withChecksum("yesterday|" + ID));
+		assertInvalid(withChecksum("2024-03-09T14:05:07|"));
+		assertInvalid(withChecksum(ID));
+	}
+
+	private static void assertInvalid(String cursor) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor));
+		assertEquals("Invalid page cursor", e.getMessage());
+	}
+
+	private static String withChecksum(String payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload.getBytes(StandardCharsets.UTF_8));
+		return encode(payload + "|" + String.format("%08x", crc.getValue()));
+	}
+
+	private static String encode(String decoded) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(decoded.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,148 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Top-k scoring split across a pool the way verification scores candidates: every range
+ * keeps its best candidate and a bounded heap, and ranges are merged left to right.
+ */
+class ParallelRangesTests {
+
+	private static final int TOP = 10;
+
+	// Workers are daemon threads, so the pool does not outlive the test JVM
+	private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+	@Test
+	void parallelTopKMatchesTheSequentialScanIncludingTies() {
+		Random random = new Random(3);
+		for (int size : new int[] { 100, 257, 1000, 5000 }) {
+			// Few distinct scores, so most of the top k are ties broken by candidate order
+			double[] scores = new double[size];
+			for (int i = 0; i < size; i++) {
+				scores[i] = random.nextInt(8) * 12.5;
+			}
+			Partial sequential = scoreRange(scores, 0, size);
+
+			for (int batchSize : new int[] { 1, 7, 64, size - 1 }) {
+				Partial parallel = ParallelRanges.reduce(POOL, size, batchSize,
+						(start, end) -> scoreRange(scores, start, end), Partial::merge);
+
+				String label = "size " + size + ", batch " + batchSize;
+				assertEquals(indexes(sequential), indexes(parallel), label);
+				assertEquals(sequential.bestIndex, parallel.bestIndex, label);
+				assertEquals(sequential.bestScore, parallel.bestScore, 0.0, label);
+				assertEquals(sequential.matches.getOffered(), parallel.matches.getOffered(), label);
+			}
+		}
+	}
+
+	@Test
+	void equalScoresRankByCandidateOrder() {
+		double[] scores = new double[300];
+		Arrays.fill(scores, 50.0);
+		scores[299] = 60.0;
+
+		Partial parallel = ParallelRanges.reduce(POOL, scores.length, 16,
+				(start, end) -> scoreRange(scores, start, end), Partial::merge);
+
+		List<Integer> expected = new ArrayList<>();
+		expected.add(299);
+		for (int i = 0; i < TOP - 1; i++) {
+			expected.add(i);
+		}
+		assertEquals(expected, indexes(parallel));
+		assertEquals(299, parallel.bestIndex);
+
+		scores[299] = 50.0;
+		Partial tied = ParallelRanges.reduce(POOL, scores.length, 16,
+				(start, end) -> scoreRange(scores, start, end), Partial::merge);
+		assertEquals(0, tied.bestIndex);
+	}
+
+	@Test
+	void rangesUpToOneBatchAreScoredOnTheCallingThread() {
+		Thread caller = Thread.currentThread();
+		for (int size : new int[] { 0, 1, 32 }) {
+			double[] scores = new double[size];
+			for (int i = 0; i < size; i++) {
+				scores[i] = (i * 37) % 11;
+			}
+			AtomicInteger calls = new AtomicInteger();
+			Partial result = ParallelRanges.reduce(POOL, size, 32, (start, end) -> {
+				calls.incrementAndGet();
+				assertEquals(caller, Thread.currentThread());
+				return scoreRange(scores, start, end);
+			}, Partial::merge);
+
+			assertEquals(1, calls.get());
+			assertEquals(indexes(scoreRange(scores, 0, size)), indexes(result));
+			assertEquals(size, result.matches.getOffered());
+		}
+	}
+
+	@Test
+	void largerRangesAreSplitIntoPiecesOfAtMostOneBatch() {
+		List<int[]> pieces = Collections.synchronizedList(new ArrayList<>());
+		Integer covered = ParallelRanges.reduce(POOL, 1000, 64, (start, end) -> {
+			pieces.add(new int[] { start, end });
+			return end - start;
+		}, Integer::sum);
+
+		assertEquals(1000, covered.intValue());
+		assertTrue(pieces.size() > 1);
+		for (int[] piece : pieces) {
+			assertTrue(piece[1] - piece[0] <= 64);
+		}
+	}
+
+	/**
+	 * Sequential scan of [start, end): offers every candidate, keeps the first best one
+	 */
+	private static Partial scoreRange(double[] scores, int start, int end) {
+		Partial partial = new Partial();
+		for (int i = start; i < end; i++) {
+			partial.matches.offer(new RankedItem<>(i, "paper-" + i, scores[i]));
+			if (scores[i] > partial.bestScore) {
+				partial.bestScore = scores[i];
+				partial.bestIndex = i;
+			}
+		}
+		return partial;
+	}
+
+	private static List<Integer> indexes(Partial partial) {
+		List<Integer> indexes = new ArrayList<>();
+		for (RankedItem<String> match : partial.matches.toSortedList()) {
+			indexes.add(match.getIndex());
+		}
+		return indexes;
+	}
+
+	private static final class Partial {
+		final TopK<RankedItem<String>> matches = new TopK<>(TOP, RankedItem.ranking());
+		int bestIndex = -1;
+		double bestScore = -1.0;
+
+		Partial merge(Partial next) {
+			// Strictly greater, so on ties the earlier candidate wins as in a sequential scan
+			if (next.bestScore > bestScore) {
+				bestScore = next.bestScore;
+				bestIndex = next.bestIndex;
+			}
+			matches.merge(next.matches);
+			return this;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class PassageIndexTests {
+
+	private static final int GAP_WORDS = Winnower.DEFAULT_K + Winnower.DEFAULT_WINDOW;
+
+	@Test
+	void aCopiedPassageIsChainedIntoOneSpanWithOffsetsInBothTexts() {
+		Random random = new Random(1);
+		String passage = words(random, 200);
+		String source = words(random, 300) + " " + passage + " " + words(random, 300);
+		String submission = words(random, 50) + " " + passage + " " + words(random, 500);
+
+		PassageIndex index = new PassageIndex(GAP_WORDS, 3, 50);
+		add(index, "source", source);
+		add(index, "other", words(random, 1000));
+
+		List<PassageIndex.DocumentMatch> matches = index.query(Winnower.fingerprints(submission));
+		assertEquals(1, matches.size());
+		assertEquals("source", matches.get(0).getDocumentId());
+		assertEquals(1, matches.get(0).getPassages().size());
+
+		PassageIndex.Passage found = matches.get(0).getPassages().get(0);
+		int queryStart = submission.indexOf(passage);
+		int sourceStart = source.indexOf(passage);
+		assertSpanWithin(found.getQueryStart(), found.getQueryEnd(), queryStart, queryStart + passage.length());
+		assertSpanWithin(found.getSourceStart(), found.getSourceEnd(), sourceStart, sourceStart + passage.length());
+		// Both spans cover the same words
+		assertEquals(submission.substring(found.getQueryStart(), found.getQueryEnd()),
+			source.substring(found.getSourceStart(), found.getSourceEnd()));
+		assertTrue(found.getQueryEnd() - found.getQueryStart() > passage.length() * 0.9);
+	}
+
+	@Test
+	void separatePassagesStaySeparateAndComeBackInQueryOrder() {
+		Random random = new Random(2);
+		String first = words(random, 60);
+		String second = words(random, 60);
+		String source = first + " " + words(random, 400) + " " + second;
+		// Swapped order and far apart in the submission
+		String submission = second + " " + words(random, 400) + " " + first;
+
+		PassageIndex index = new PassageIndex(GAP_WORDS, 3, 50);
+		add(index, "source", source);
+
+		List<PassageIndex.Passage> passages = index.query(Winnower.fingerprints(submission)).get(0).getPassages();
+		assertEquals(2, passages.size());
+		assertTrue(passages.get(0).getQueryStart() < passages.get(1).getQueryStart());
+		assertTrue(passages.get(0).getSourceStart() > passages.get(1).getSourceStart());
+		assertSpanWithin(passages.get(0).getQueryStart(), passages.get(0).getQueryEnd(), 0, second.length());
+		assertSpanWithin(passages.get(1).getSourceStart(), passages.get(1).getSourceEnd(), 0, first.length());
+	}
+
+	@Test
+	void passagesBelowTheFingerprintMinimumAreNotReported() {
+		Random random = new Random(3);
+		// Nine shared words guarantee one common fingerprint but rarely three
+		String shared = words(random, 9);
+		PassageIndex index = new PassageIndex(GAP_WORDS, 6, 50);
+		add(index, "source", words(random, 200) + " " + shared + " " + words(random, 200));
+
+		assertTrue(index.query(Winnower.fingerprints(words(random, 100) + " " + shared)).isEmpty());
+	}
+
+	@Test
+	void removedAndReplacedDocumentsNoLongerMatch() {
+		Random random = new Random(4);
+		String original = words(random, 300);
+		String replacement = words(random, 300);
+		PassageIndex index = new PassageIndex(GAP_WORDS, 3, 50);
+		add(index, "a", original);
+		add(index, "b", original);
+
+		add(index, "a", replacement);
+		assertEquals(List.of("b"), ids(index.query(Winnower.fingerprints(original))));
+		assertEquals(List.of("a"), ids(index.query(Winnower.fingerprints(replacement))));
+
+		assertTrue(index.remove("b"));
+		assertFalse(index.remove("b"));
+		assertTrue(index.query(Winnower.fingerprints(original)).isEmpty());
+		assertEquals(1, index.size());
+	}
+
+	@Test
+	void deadDocumentsDoNotCountTowardsTheBoilerplateLimit() {
+		Random random = new Random(5);
+		String boilerplate = words(random, 100);
+		// Compaction disabled so the tombstoned postings stay in the lists
+		PassageIndex index = new PassageIndex(GAP_WORDS, 3, 3, 2.0);
+		for (int i = 0; i < 4; i++) {
+			add(index, "p" + i, boilerplate + " " + words(random, 100));
+		}
+		assertTrue(index.query(Winnower.fingerprints(boilerplate)).isEmpty(), "4 documents exceed the limit of 3");
+
+		index.remove("p0");
+		assertEquals(3, index.query(Winnower.fingerprints(boilerplate)).size());
+
+		// Replacing a document keeps it counted once
+		add(index, "p1", boilerplate + " " + words(random, 100));
+		assertEquals(3, index.query(Winnower.fingerprints(boilerplate)).size());
+		assertTrue(index.deadPostingCount() > 0);
+	}
+
+	@Test
+	void compactionDropsDeadPostingsAndKeepsResults() {
+		Random random = new Random(6);
+		PassageIndex index = new PassageIndex(GAP_WORDS, 3, 50, 0.5);
+		List<String> texts = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			texts.add(words(random, 300));
+			add(index, "p" + i, texts.get(i));
+		}
+		int livePostings = index.postingCount();
+
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 20; i += 2) {
+				add(index, "p" + i, texts.get(i));
+			}
+			assertTrue(index.deadPostingCount() < index.postingCount() * 0.5);
+			assertTrue(index.postingCount() <= livePostings * 2, "postings " + index.postingCount());
+		}
+		index.remove("p1");
+
+		assertEquals(19, index.size());
+		for (int i = 0; i < 20; i++) {
+			List<String> found = ids(index.query(Winnower.fingerprints(texts.get(i))));
+			assertEquals(i == 1 ? List.of() : List.of("p" + i), found);
+		}
+	}
+
+	private static void assertSpanWithin(int start, int end, int regionStart, int regionEnd) {
+		assertTrue(start >= regionStart && end <= regionEnd && start < end,
+			"[" + start + ", " + end + ") outside [" + regionStart + ", " + regionEnd + ")");
+	}
+
+	private static List<String> ids(List<PassageIndex.DocumentMatch> matches) {
+		List<String> ids = new ArrayList<>();
+		matches.forEach(match -> ids.add(match.getDocumentId()));
+		return ids;
+	}
+
+	private static void add(PassageIndex index, String id, String text) {
+		List<Winnower.Fingerprint> fingerprints = Winnower.fingerprints(text);
+		int size = fingerprints.size();
+		long[] hashes = new long[size];
+		int[] positions = new int[size];
+		int[] starts = new int[size];
+		int[] ends = new int[size];
+		for (int i = 0; i < size; i++) {
+			hashes[i] = fingerprints.get(i).getHash();
+			positions[i] = fingerprints.get(i).getPosition();
+			starts[i] = fingerprints.get(i).getStart();
+			ends[i] = fingerprints.get(i).getEnd();
+		}
+		index.add(id, hashes, positions, starts, ends);
+	}
+
+	private static String words(Random random, int count) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				text.append(' ');
+			}
+			for (int c = 3 + random.nextInt(7); c > 0; c--) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+		}
+		return text.toString();
+	}
+
+}
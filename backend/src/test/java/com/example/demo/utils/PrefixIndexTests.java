@@ -0,0 +1,105 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTests {
+
+	private final PrefixIndex index = new PrefixIndex(100);
+
+	@Test
+	void completesByPrefixMostUsedFirstThenAlphabetically() {
+		index.put("a", Arrays.asList("neural", "network", "learning"));
+		index.put("b", Arrays.asList("network", "networks", "graph"));
+		index.put("c", Arrays.asList("network", "neural"));
+
+		assertEquals(Arrays.asList("network", "neural", "networks"), index.complete("ne", 10));
+		assertEquals(Arrays.asList("network", "neural"), index.complete("ne", 2));
+		assertEquals(Arrays.asList("network", "networks"), index.complete("network", 10));
+		assertEquals(Collections.emptyList(), index.complete("z", 10));
+	}
+
+	@Test
+	void putReplacesADocumentsTerms() {
+		index.put("a", Arrays.asList("graph", "neural"));
+		index.put("a", Arrays.asList("graph", "learning"));
+
+		assertEquals(Collections.emptyList(), index.complete("neu", 10));
+		assertEquals(Arrays.asList("learning"), index.complete("le", 10));
+		assertEquals(2, index.size());
+		assertEquals(1, index.documentCount());
+	}
+
+	@Test
+	void removeDropsTermsNoOtherDocumentUses() {
+		index.put("a", Arrays.asList("graph", "neural"));
+		index.put("b", Arrays.asList("graph"));
+		index.remove("a");
+
+		assertEquals(Collections.emptyList(), index.complete("neu", 10));
+		assertEquals(Arrays.asList("graph"), index.complete("g", 10));
+		assertEquals(1, index.documentCount());
+
+		index.remove("b");
+		index.remove("missing");
+		assertEquals(0, index.size());
+		assertEquals(0, index.documentCount());
+	}
+
+	@Test
+	void countsEachTermOncePerDocument() {
+		index.put("a", Arrays.asList("graph", "graph", "graph"));
+		index.put("b", Arrays.asList("grammar"));
+		index.put("c", Arrays.asList("grammar"));
+
+		assertEquals(Arrays.asList("grammar", "graph"), index.complete("gra", 10));
+	}
+
+	@Test
+	void aDocumentWithoutTermsIsNotCounted() {
+		index.put("a", Arrays.asList("graph"));
+		index.put("a", Collections.emptyList());
+
+		assertEquals(0, index.documentCount());
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void replaceAllDropsDocumentsThatAreNotInTheNewSet() {
+		index.put("deleted", Arrays.asList("obsolete", "graph"));
+		index.put("kept", Arrays.asList("graph", "old"));
+
+		Map<String, List<String>> documents = new LinkedHashMap<>();
+		documents.put("kept", Arrays.asList("graph", "learning"));
+		documents.put("added", Arrays.asList("learning", "graph"));
+		documents.put("empty", Collections.emptyList());
+		index.replaceAll(documents);
+
+		assertEquals(Collections.emptyList(), index.complete("obs", 10));
+		assertEquals(Collections.emptyList(), index.complete("old", 10));
+		assertEquals(Arrays.asList("graph", "learning"), index.complete("", 10));
+		assertEquals(2, index.documentCount());
+
+		// Counts start over rather than adding to the old ones
+		index.remove("kept");
+		index.remove("added");
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void theScanLimitBoundsTheTermsConsidered() {
+		PrefixIndex bounded = new PrefixIndex(2);
+		bounded.put("a", Arrays.asList("aa", "ab", "ac"));
+		bounded.put("b", Arrays.asList("ac"));
+
+		// "ac" is the most used but lies beyond the first two terms of the range
+		assertEquals(Arrays.asList("aa", "ab"), bounded.complete("a", 10));
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RankFusionTests {
+
+	private static final int K = 60;
+
+	@Test
+	void scoresAddOneOverKPlusRankFromEveryRankingThatListsTheId() {
+		List<RankFusion.Entry> fused = RankFusion.fuse(K, Arrays.asList(
+				Arrays.asList("a", "b", "c"),
+				Arrays.asList("c", "a"),
+				Collections.emptyList()));
+
+		assertEquals(Arrays.asList("a", "c", "b"), ids(fused));
+		RankFusion.Entry a = fused.get(0);
+		assertEquals(1.0 / (K + 1) + 1.0 / (K + 2), a.getScore(), 1e-12);
+		assertEquals(1, a.getRank(0));
+		assertEquals(2, a.getRank(1));
+		assertEquals(0, a.getRank(2));
+		RankFusion.Entry c = fused.get(1);
+		assertEquals(1.0 / (K + 3) + 1.0 / (K + 1), c.getScore(), 1e-12);
+		RankFusion.Entry b = fused.get(2);
+		assertEquals(1.0 / (K + 2), b.getScore(), 1e-12);
+		assertEquals(0, b.getRank(1));
+	}
+
+	@Test
+	void anIdNearTheTopOfEveryListBeatsOneThatTopsASingleList() {
+		List<RankFusion.Entry> fused = RankFusion.fuse(K, Arrays.asList(
+				Arrays.asList("solo", "both"),
+				Arrays.asList("both", "other")));
+
+		assertEquals("both", fused.get(0).getId());
+	}
+
+	@Test
+	void equalScoresAreOrderedByIdWhateverTheOrderOfTheRankings() {
+		// "x" and "y" each hold rank 1 in one list and rank 2 in the other
+		List<List<String>> rankings = Arrays.asList(Arrays.asList("y", "x"), Arrays.asList("x", "y"));
+		List<RankFusion.Entry> fused = RankFusion.fuse(K, rankings);
+		List<List<String>> swapped = new ArrayList<>(rankings);
+		Collections.reverse(swapped);
+
+		assertEquals(fused.get(0).getScore(), fused.get(1).getScore(), 0.0);
+		assertEquals(Arrays.asList("x", "y"), ids(fused));
+		assertEquals(Arrays.asList("x", "y"), ids(RankFusion.fuse(K, swapped)));
+	}
+
+	@Test
+	void withOnlyTheLexicalRankingTheOrderIsTheLexicalOrder() {
+		// What search returns when the query embedding timed out or Ollama is down
+		List<String> lexical = Arrays.asList("p9", "p1", "p5", "p3", "p7");
+		List<RankFusion.Entry> fused = RankFusion.fuse(K, Arrays.asList(
+				lexical, Collections.emptyList(), Collections.emptyList()));
+
+		assertEquals(lexical, ids(fused));
+		for (int i = 0; i < fused.size(); i++) {
+			assertEquals(i + 1, fused.get(i).getRank(0));
+			assertEquals(0, fused.get(i).getRank(1));
+			assertEquals(0, fused.get(i).getRank(2));
+		}
+	}
+
+	@Test
+	void noRankingsFuseToNothing() {
+		assertTrue(RankFusion.fuse(K, Arrays.asList(Collections.emptyList(), Collections.emptyList())).isEmpty());
+	}
+
+	private static List<String> ids(List<RankFusion.Entry> fused) {
+		List<String> ids = new ArrayList<>();
+		for (RankFusion.Entry entry : fused) {
+			ids.add(entry.getId());
+		}
+		return ids;
+	}
+}
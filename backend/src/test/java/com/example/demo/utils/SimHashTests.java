@@ -0,0 +1,124 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class SimHashTests {
+
+	@Test
+	void fingerprintsWithinTheBlockRadiusShareABlockKey() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 10_000; trial++) {
+			long fingerprint = random.nextLong();
+			long near = flipBits(random, fingerprint, random.nextInt(SimHash.MAX_BLOCK_RADIUS + 1));
+			Set<Integer> shared = new HashSet<>(SimHash.blockKeys(fingerprint));
+			shared.retainAll(SimHash.blockKeys(near));
+			assertFalse(shared.isEmpty(), Long.toHexString(fingerprint) + " vs " + Long.toHexString(near));
+		}
+	}
+
+	@Test
+	void oneFlipPerBlockIsBeyondTheGuaranteedRadius() {
+		long fingerprint = 0x0123456789ABCDEFL;
+		long far = fingerprint;
+		for (int block = 0; block < SimHash.BLOCK_COUNT; block++) {
+			far ^= 1L << (block * SimHash.BLOCK_BITS + block);
+		}
+		assertEquals(SimHash.BLOCK_COUNT, SimHash.hammingDistance(fingerprint, far));
+		Set<Integer> shared = new HashSet<>(SimHash.blockKeys(fingerprint));
+		shared.retainAll(SimHash.blockKeys(far));
+		assertTrue(shared.isEmpty());
+	}
+
+	@Test
+	void equalBlockValuesInDifferentPositionsGetDifferentKeys() {
+		// Every block holds 0xABCD
+		List<Integer> keys = SimHash.blockKeys(0xABCDABCDABCDABCDL);
+		assertEquals(SimHash.BLOCK_COUNT, new HashSet<>(keys).size());
+		assertNotEquals(SimHash.blockKeys(0xABCDL).get(0), SimHash.blockKeys(0xABCDL << SimHash.BLOCK_BITS).get(1));
+	}
+
+	@Test
+	void blockKeyLookupFindsExactlyWhatABruteForceScanFinds() {
+		Random random = new Random(2);
+		List<Long> stored = new ArrayList<>();
+		Map<Integer, List<Integer>> byKey = new HashMap<>();
+		for (int i = 0; i < 5000; i++) {
+			// Clusters of near variants so the radius actually matters
+			long fingerprint = i % 5 == 0 || stored.isEmpty()
+				? random.nextLong()
+				: flipBits(random, stored.get(random.nextInt(stored.size())), random.nextInt(8));
+			stored.add(fingerprint);
+			for (int key : SimHash.blockKeys(fingerprint)) {
+				byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+			}
+		}
+
+		for (int trial = 0; trial < 500; trial++) {
+			long query = flipBits(random, stored.get(random.nextInt(stored.size())), random.nextInt(6));
+			Set<Integer> found = new HashSet<>();
+			for (int key : SimHash.blockKeys(query)) {
+				for (int candidate : byKey.getOrDefault(key, List.of())) {
+					if (SimHash.hammingDistance(query, stored.get(candidate)) <= SimHash.MAX_BLOCK_RADIUS) {
+						found.add(candidate);
+					}
+				}
+			}
+			Set<Integer> expected = new HashSet<>();
+			for (int i = 0; i < stored.size(); i++) {
+				if (SimHash.hammingDistance(query, stored.get(i)) <= SimHash.MAX_BLOCK_RADIUS) {
+					expected.add(i);
+				}
+			}
+			assertEquals(expected, found);
+		}
+	}
+
+	@Test
+	void lightlyEditedTextStaysNearAndUnrelatedTextDoesNot() {
+		Random random = new Random(3);
+		StringBuilder original = new StringBuilder();
+		StringBuilder unrelated = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			original.append(word(random)).append(' ');
+			unrelated.append(word(random)).append(' ');
+		}
+		String edited = original.toString().replaceFirst("\\S+", "changed");
+
+		long fingerprint = SimHash.fingerprint(original.toString());
+		assertTrue(SimHash.hammingDistance(fingerprint, SimHash.fingerprint(edited)) <= SimHash.MAX_BLOCK_RADIUS);
+		assertTrue(SimHash.hammingDistance(fingerprint, SimHash.fingerprint(unrelated.toString())) > SimHash.MAX_BLOCK_RADIUS);
+	}
+
+	private static long flipBits(Random random, long fingerprint, int count) {
+		Set<Integer> bits = new HashSet<>();
+		while (bits.size() < count) {
+			bits.add(random.nextInt(64));
+		}
+		for (int bit : bits) {
+			fingerprint ^= 1L << bit;
+		}
+		return fingerprint;
+	}
+
+	private static String word(Random random) {
+		StringBuilder word = new StringBuilder();
+		for (int i = 3 + random.nextInt(6); i > 0; i--) {
+			word.append((char) ('a' + random.nextInt(26)));
+		}
+		return word.toString();
+	}
+
+}
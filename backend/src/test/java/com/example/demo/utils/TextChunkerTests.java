@@ -0,0 +1,89 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TextChunkerTests {
+
+	@Test
+	void windowsCoverEveryCharacterWithinTheChunkLimit() {
+		Random random = new Random(1);
+		// 750k characters would need ~208 windows of 4000 with 400 overlap, so the cap of 128 applies
+		String text = randomWords(random, 750_000);
+		List<TextChunker.TextChunk> chunks = TextChunker.split(text, 4000, 400, 128);
+
+		assertEquals(128, chunks.size());
+		assertTiles(text, chunks);
+	}
+
+	@Test
+	void windowsTileTheTextForAnySizeOverlapAndLimit() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 300; trial++) {
+			String text = random.nextBoolean() ? randomWords(random, 1 + random.nextInt(20_000)) : randomLetters(random, 1 + random.nextInt(20_000));
+			int size = 1 + random.nextInt(3000);
+			int overlap = random.nextInt(size + 10);
+			int limit = 1 + random.nextInt(40);
+			List<TextChunker.TextChunk> chunks = TextChunker.split(text, size, overlap, limit);
+
+			assertTrue(chunks.size() <= limit, chunks.size() + " chunks, limit " + limit);
+			assertTiles(text, chunks);
+		}
+	}
+
+	@Test
+	void uncappedWindowsKeepTheConfiguredSizeAndBreakOnWhitespace() {
+		String text = randomWords(new Random(3), 50_000);
+		List<TextChunker.TextChunk> chunks = TextChunker.split(text, 4000, 400, 128);
+
+		assertTiles(text, chunks);
+		for (int i = 0; i < chunks.size() - 1; i++) {
+			TextChunker.TextChunk chunk = chunks.get(i);
+			assertTrue(chunk.getEnd() - chunk.getStart() <= 4000);
+			assertTrue(Character.isWhitespace(text.charAt(chunk.getEnd() - 1)), "window " + i + " ends mid-word");
+		}
+	}
+
+	private static void assertTiles(String text, List<TextChunker.TextChunk> chunks) {
+		assertEquals(0, chunks.get(0).getStart());
+		assertEquals(text.length(), chunks.get(chunks.size() - 1).getEnd());
+		for (int i = 0; i < chunks.size(); i++) {
+			TextChunker.TextChunk chunk = chunks.get(i);
+			assertEquals(i, chunk.getIndex());
+			assertEquals(text.substring(chunk.getStart(), chunk.getEnd()), chunk.getText());
+			if (i > 0) {
+				TextChunker.TextChunk previous = chunks.get(i - 1);
+				assertTrue(chunk.getStart() > previous.getStart(), "window " + i + " does not advance");
+				assertTrue(chunk.getStart() <= previous.getEnd(), "gap before window " + i);
+			}
+		}
+	}
+
+	private static String randomWords(Random random, int length) {
+		StringBuilder text = new StringBuilder(length);
+		while (text.length() < length) {
+			int word = 1 + random.nextInt(12);
+			for (int i = 0; i < word && text.length() < length; i++) {
+				text.append((char) ('a' + random.nextInt(26)));
+			}
+			if (text.length() < length) {
+				text.append(random.nextInt(10) == 0 ? '\n' : ' ');
+			}
+		}
+		return text.toString();
+	}
+
+	private static String randomLetters(Random random, int length) {
+		StringBuilder text = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			text.append((char) ('a' + random.nextInt(26)));
+		}
+		return text.toString();
+	}
+
+}
@@ -0,0 +1,228 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The table-driven normalizer against the regex chains it replaced, which are kept below as
+ * {@code legacy*}. Where the output differs on purpose the test says so.
+ */
+class TextNormalizerTests {
+
+	@Test
+	void forComparisonMatchesTheOldChainOnPunctuation() {
+		String[] texts = {
+			"Deep-Learning: A Survey (2nd ed.)",
+			"co-operation, re-use; U.S.A. and the E.U.",
+			"C++, C#--50% of 3.14, \"quoted\" 'text'",
+			"e-mail me@example.com or path\\to\\file?x=1#y",
+			"What? Why! [1] {2} <3> ~4~ `5` |6| ^7^ _8_",
+			"«Guillemets» „Anführung“ ‘curly’—em–en dash…",
+			"!!!",
+		};
+		for (String text : texts) {
+			assertEquals(legacyForComparison(text), TextNormalizer.forComparison(text));
+		}
+	}
+
+	@Test
+	void punctuationBetweenSpacesNoLongerLeavesADoubleSpace() {
+		assertEquals("neural  networks", legacyForComparison("Neural - Networks"));
+		assertEquals("neural networks", TextNormalizer.forComparison("Neural - Networks"));
+		assertEquals("a b c", TextNormalizer.forComparison("a : b ( c )"));
+	}
+
+	@Test
+	void forComparisonMatchesTheOldChainOnAsciiWhitespace() {
+		String[] texts = {
+			"  leading and trailing  ",
+			"tabs\tand\t\tnewlines\nand\r\nwindows\rbreaks",
+			"vertical\u000Btab and form\ffeed",
+			"\n\n\t ",
+			"zero\u200Bwidth\uFEFFjoiners\u200Dvanish",
+			"record\u001Eand\u001Funit separators",
+		};
+		for (String text : texts) {
+			assertEquals(legacyForComparison(text), TextNormalizer.forComparison(text));
+		}
+	}
+
+	@Test
+	void unicodeSpacesSeparateWordsInsteadOfJoiningThem() {
+		// \s is ASCII-only, so the old chain deleted these like punctuation and glued the words
+		String[] spaces = { "\u00A0", "\u2003", "\u2009", "\u202F", "\u2028", "\u2029", "\u3000" };
+		for (String space : spaces) {
+			String text = "Deep" + space + "Learning";
+			assertEquals("deeplearning", legacyForComparison(text));
+			assertEquals("deep learning", TextNormalizer.forComparison(text));
+		}
+	}
+
+	@Test
+	void forComparisonMatchesTheOldChainOnLigaturesAndCaseFolding() {
+		String[] texts = {
+			"ﬁnite ﬂow ﬀ ﬃ ﬄ ﬆ",
+			"Œuvre Æther Straße ǅemal Ǉ",
+			"ÉTUDE NAÏVE DES RÉSEAUX",
+			"ΑΛΦΑ βήτα ΓΆΜΜΑ",
+			"ПРИВЕТ мир ЁЖ",
+			"Temperature in K and Å",
+			"中文标题 日本語のタイトル 한국어",
+			"MiXeD CaSe 123 ABC",
+		};
+		for (String text : texts) {
+			assertEquals(legacyForComparison(text), TextNormalizer.forComparison(text));
+		}
+	}
+
+	@Test
+	void forComparisonKeepsEveryKindOfNumber() {
+		String[] texts = { "H₂O and x² with ½cup", "Chapter Ⅻ ⅷ", "①②③ ٣ ४" };
+		for (String text : texts) {
+			assertEquals(legacyForComparison(text), TextNormalizer.forComparison(text));
+		}
+	}
+
+	@Test
+	void aFinalSigmaComparesLikeTheCapital() {
+		// The old chain lower-cased "ΛΟΓΟΣ" to "λογος" by context; the table folds both sigmas to σ
+		assertEquals(legacyForComparison("ΛΟΓΟΣ"), legacyForComparison("λογος"));
+		assertEquals(TextNormalizer.forComparison("ΛΟΓΟΣ"), TextNormalizer.forComparison("λογος"));
+		assertEquals("λογοσ", TextNormalizer.forComparison("λογος"));
+	}
+
+	@Test
+	void aDottedCapitalIFoldsToAPlainI() {
+		// String.toLowerCase expands it to i + U+0307, which then no longer matched "istanbul"
+		assertNotEquals(legacyForComparison("İstanbul"), legacyForComparison("istanbul"));
+		assertEquals("istanbul", TextNormalizer.forComparison("İstanbul"));
+	}
+
+	@Test
+	void forComparisonDoesNotDependOnTheDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		try {
+			Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+			assertEquals("title", TextNormalizer.forComparison("TITLE"));
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+
+	@Test
+	void normalizeTitleMatchesTheOldAsciiOnlyFormOnAsciiTitles() {
+		String[] titles = {
+			"A Blockchain-Based Framework for Thesis Verification",
+			"  Deep   Learning:\tA Survey (2nd ed.)  ",
+			"Using C++ & Python for 3D Modelling!",
+			"re-use,re-cycle",
+		};
+		for (String title : titles) {
+			assertEquals(legacyNormalizeTitle(title), TextNormalizer.forComparison(title));
+		}
+	}
+
+	@Test
+	void titlesKeepTheirNonAsciiLetters() {
+		String title = "Étude naïve des réseaux";
+
+		assertEquals("tude nave des rseaux", legacyNormalizeTitle(title));
+		assertEquals("étude naïve des réseaux", TextNormalizer.forComparison(title));
+		assertEquals("学位论文", TextNormalizer.forComparison("学位论文"));
+		assertEquals("", legacyNormalizeTitle("学位论文"));
+	}
+
+	@Test
+	void cleanMatchesTheOldPdfCleanupOnAsciiText() {
+		String[] texts = {
+			"  Page 1\r\n\r\nIntroduction\tand   background\n",
+			"line\rbreaks\nof\r\nevery kind",
+			"bell\u0007and\u0000null\u001Cfile\u001Funit\u007Fgone",
+			"Punctuation, kept: (as-is)!",
+			"",
+		};
+		for (String text : texts) {
+			assertEquals(legacyClean(text), TextNormalizer.clean(text));
+		}
+	}
+
+	@Test
+	void cleanCollapsesUnicodeSpacesAndDropsInvisibleCharacters() {
+		// The old PDF cleanup kept these; clean() is what the other extractors already used
+		assertEquals("a b c d", TextNormalizer.clean("a\u00A0b\u2003c\u3000d"));
+		assertEquals("joined", TextNormalizer.clean("jo\u200Bin\uFEFFed\u0085"));
+		assertEquals("a b", TextNormalizer.clean("a \u0001 b"));
+		assertEquals("a  b", legacyClean("a \u0001 b"));
+	}
+
+	@Test
+	void nullAndEmptyTextsNormalizeToEmpty() {
+		assertEquals("", TextNormalizer.clean(null));
+		assertEquals("", TextNormalizer.clean(""));
+		assertEquals("", TextNormalizer.forComparison(null));
+		assertEquals("", TextNormalizer.forComparison(" \t-- "));
+	}
+
+	@Test
+	void theCleaningWriterMatchesCleanAcrossWritesAndBufferRefills() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			text.append("  word").append(i).append(i % 7 == 0 ? "\r\n\u00A0" : "\t").append('\u200B');
+		}
+		String expected = TextNormalizer.clean(text.toString());
+
+		StringBuilder streamed = new StringBuilder();
+		int[] finished = new int[1];
+		TextSink sink = new TextSink() {
+			@Override
+			public void write(char[] buffer, int offset, int length) {
+				streamed.append(buffer, offset, length);
+			}
+
+			@Override
+			public void finish() {
+				finished[0]++;
+			}
+		};
+		TextNormalizer.CleaningWriter writer = TextNormalizer.cleaningWriter(sink);
+		for (int start = 0; start < text.length(); start += 37) {
+			writer.write(text.toString(), start, Math.min(37, text.length() - start));
+		}
+		writer.close();
+		writer.close();
+
+		assertEquals(expected, streamed.toString());
+		assertEquals(expected.length(), writer.length());
+		assertEquals(1, finished[0]);
+	}
+
+	/** ThesisVerificationService / ResearchPaperService normalizeTextForComparison */
+	private static String legacyForComparison(String text) {
+		return text.replaceAll("\\s+", " ")
+			.replaceAll("[^\\p{L}\\p{N}\\s]", "")
+			.toLowerCase()
+			.trim();
+	}
+
+	/** SimilarityService.normalizeTitle */
+	private static String legacyNormalizeTitle(String title) {
+		return title.toLowerCase()
+			.replaceAll("[^a-zA-Z0-9\\s]", "")
+			.replaceAll("\\s+", " ")
+			.trim();
+	}
+
+	/** PDFTextExtractorService.cleanText */
+	private static String legacyClean(String text) {
+		text = text.replaceAll("\\s+", " ");
+		text = text.replaceAll("\\r\\n", " ");
+		text = text.replaceAll("\\n", " ");
+		text = text.replaceAll("\\r", " ");
+		text = text.replaceAll("[\\x00-\\x1F\\x7F]", "");
+		return text.trim();
+	}
+}
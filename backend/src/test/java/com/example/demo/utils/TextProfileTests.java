@@ -0,0 +1,243 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the one-pass profile with the split/indexOf/contains code the AI-detection
+ * heuristics used before, on the phrase lists AIDetectionService counts.
+ */
+class TextProfileTests {
+
+	private static final List<String> COMPLEX_WORDS = Arrays.asList(
+			"utilize", "facilitate", "demonstrate", "comprehensive", "substantial",
+			"significant", "innovative", "substantial", "extensive", "inherent");
+	private static final List<String> TRANSITIONS = Arrays.asList(
+			"furthermore", "moreover", "additionally", "consequently", "therefore", "however");
+	private static final List<String> GENERIC_PHRASES = Arrays.asList(
+			"it is important to note", "it should be mentioned", "one must consider",
+			"it is worth highlighting", "it cannot be denied");
+	private static final List<String> DETAIL_TERMS = Arrays.asList(
+			"algorithm", "methodology", "experiment", "results", "analysis");
+
+	private static final int COMPLEX_WORD_GROUP = 0;
+	private static final int TRANSITION_GROUP = 1;
+	private static final int GENERIC_PHRASE_GROUP = 2;
+	private static final int DETAIL_TERM_GROUP = 3;
+	private static final int LEADING_SENTENCES = 20;
+
+	private static final TextProfile.Phrases PHRASES = new TextProfile.Phrases(
+			Arrays.asList(COMPLEX_WORDS, TRANSITIONS, GENERIC_PHRASES, DETAIL_TERMS), DETAIL_TERM_GROUP);
+
+	private static final List<String> CORPUS = Arrays.asList(
+			"",
+			"   ",
+			"One substantial change.",
+			"  Leading spaces. Substantial, SUBSTANTIAL and substantially more!!! However? however...",
+			"We utilize a comprehensive methodology. Furthermore, the Results are significant. "
+					+ "It is important to note that it should be mentioned twice. It cannot be denied. "
+					+ "One must consider the ALGORITHM; the results hold in 2021 with 12.5% error.",
+			"First paragraph starts here and runs on for a while without stopping at all.\n\n"
+					+ "The second one follows after a blank line.\n\n\n\n"
+					+ "  In the third, leading spaces are trimmed away from the paragraph start.\n"
+					+ "Still the third.\n\n",
+			"a.b!c?d... e . . f\t\tg\r\nh\u000Bi\fj",
+			"...starts with dots. Then! ? the rest\n\n\n",
+			"Moreover moreover MOREOVER furthermore,therefore;however: consequently additionally.",
+			"Extensive inherent extensive. Facilitate demonstrate innovative. Utilize utilize. "
+					+ "Short. Tiny? Another sentence that is long enough. And one more that counts! "
+					+ "Nine. Ten sentences here in this test. Eleven. Twelve is the last one here.");
+
+	private static final List<String> TITLES = Arrays.asList(
+			null,
+			"",
+			"A Study of Substantial Change",
+			"Deep deep Learning for the Win",
+			"RESULTS of an Algorithm",
+			"Leading   spaces   and   tabs\tin   title");
+
+	@Test
+	void wordSentenceAndParagraphStatisticsMatchTheSplitCode() {
+		for (String text : CORPUS) {
+			TextProfile profile = TextProfile.of(text, null, PHRASES, LEADING_SENTENCES);
+			String[] sentences = text.split("[.!?]+");
+
+			assertEquals(text.split("\\s+").length, profile.getWordCount(), text);
+			assertEquals(sentences.length, profile.getSentenceCount(), text);
+			assertEquals(legacySentenceLengths(sentences), profile.getSentenceLengths(), text);
+			assertEquals(legacyLeadingWords(sentences), profile.getLeadingSentenceWords(), text);
+			assertEquals(legacyParagraphs(text), paragraphs(profile), text);
+			assertEquals(indexOfCount(text, "."), profile.getPeriods(), text);
+			assertEquals(indexOfCount(text, ","), profile.getCommas(), text);
+		}
+	}
+
+	@Test
+	void phraseCountsMatchIndexOfOnTheLowerCasedText() {
+		for (String text : CORPUS) {
+			TextProfile profile = TextProfile.of(text, null, PHRASES, LEADING_SENTENCES);
+			String lowerText = text.toLowerCase();
+
+			int complexWordCount = 0;
+			for (String word : COMPLEX_WORDS) {
+				complexWordCount += indexOfCount(lowerText, word);
+			}
+			int transitionCount = 0;
+			for (String transition : TRANSITIONS) {
+				transitionCount += indexOfCount(lowerText, transition);
+			}
+			int genericCount = 0;
+			for (String phrase : GENERIC_PHRASES) {
+				if (lowerText.contains(phrase)) {
+					genericCount++;
+				}
+			}
+
+			assertEquals(complexWordCount, profile.total(COMPLEX_WORD_GROUP), text);
+			assertEquals(transitionCount, profile.total(TRANSITION_GROUP), text);
+			assertEquals(genericCount, profile.distinct(GENERIC_PHRASE_GROUP), text);
+		}
+	}
+
+	@Test
+	void theDuplicateSubstantialIsCountedOncePerListing() {
+		TextProfile profile = TextProfile.of("Substantial gains, substantially more. substantial",
+				null, PHRASES, LEADING_SENTENCES);
+
+		assertEquals(3, profile.count(COMPLEX_WORD_GROUP, 4));
+		assertEquals(3, profile.count(COMPLEX_WORD_GROUP, 7));
+		assertEquals(6, profile.total(COMPLEX_WORD_GROUP));
+		assertEquals(2, profile.distinct(COMPLEX_WORD_GROUP));
+	}
+
+	@Test
+	void detailTermsMatchTheTextsCase() {
+		for (String text : CORPUS) {
+			TextProfile profile = TextProfile.of(text, null, PHRASES, LEADING_SENTENCES);
+			int contained = 0;
+			for (String term : DETAIL_TERMS) {
+				if (text.contains(term)) {
+					contained++;
+				}
+			}
+			assertEquals(contained, profile.distinct(DETAIL_TERM_GROUP), text);
+		}
+
+		TextProfile upperCase = TextProfile.of("The ALGORITHM and its Results", null, PHRASES, LEADING_SENTENCES);
+		assertEquals(0, upperCase.distinct(DETAIL_TERM_GROUP));
+	}
+
+	@Test
+	void titleWordsMatchTheContainsCode() {
+		for (String text : CORPUS) {
+			for (String title : TITLES) {
+				TextProfile profile = TextProfile.of(text, title, PHRASES, LEADING_SENTENCES);
+				String label = title + " / " + text;
+
+				if (title == null || title.trim().isEmpty()) {
+					assertEquals(0, profile.getTitleWordCount(), label);
+					assertEquals(0, profile.getTitleWordsFound(), label);
+					continue;
+				}
+				// Every split piece counts towards the total, short words and repeats included
+				String[] titleWords = title.toLowerCase().split("\\s+");
+				int relevantCount = 0;
+				for (String word : titleWords) {
+					if (word.length() > 3 && text.toLowerCase().contains(word)) {
+						relevantCount++;
+					}
+				}
+				assertEquals(titleWords.length, profile.getTitleWordCount(), label);
+				assertEquals(relevantCount, profile.getTitleWordsFound(), label);
+			}
+		}
+	}
+
+	@Test
+	void aRepeatedTitleWordCountsEveryTime() {
+		TextProfile profile = TextProfile.of("deep networks", "Deep deep Learning", PHRASES, LEADING_SENTENCES);
+
+		assertEquals(3, profile.getTitleWordCount());
+		assertEquals(2, profile.getTitleWordsFound());
+	}
+
+	@Test
+	void detailMarkersMatchTheRegexesOnSingleLineText() {
+		for (String text : CORPUS) {
+			if (text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+				continue;
+			}
+			TextProfile profile = TextProfile.of(text, null, PHRASES, LEADING_SENTENCES);
+
+			assertEquals(text.matches(".*\\b\\d{4}\\b.*"), profile.hasYear(), text);
+			assertEquals(text.matches(".*\\d+\\.\\d+.*"), profile.hasDecimal(), text);
+			assertEquals(text.matches(".*\\b[A-Z]{2,}\\b.*"), profile.hasAcronym(), text);
+			assertEquals(text.contains("%"), profile.hasPercent(), text);
+		}
+	}
+
+	@Test
+	void detailMarkersAreFoundAcrossLineBreaks() {
+		// String.matches with ".*" never matched multi-line text; the profile looks at all of it
+		String text = "Measured in\n2021 by the\nNASA team at 3.5 units";
+		TextProfile profile = TextProfile.of(text, null, PHRASES, LEADING_SENTENCES);
+
+		assertFalse(text.matches(".*\\b\\d{4}\\b.*"));
+		assertTrue(profile.hasYear());
+		assertEquals(Pattern.compile("\\d+\\.\\d+").matcher(text).find(), profile.hasDecimal());
+		assertEquals(Pattern.compile("\\b[A-Z]{2,}\\b").matcher(text).find(), profile.hasAcronym());
+	}
+
+	private static List<Integer> legacySentenceLengths(String[] sentences) {
+		List<Integer> lengths = new ArrayList<>();
+		for (String sentence : sentences) {
+			String trimmed = sentence.trim();
+			if (trimmed.length() > 10) {
+				lengths.add(trimmed.split("\\s+").length);
+			}
+		}
+		return lengths;
+	}
+
+	private static List<List<String>> legacyLeadingWords(String[] sentences) {
+		List<List<String>> words = new ArrayList<>();
+		for (int i = 0; i < Math.min(sentences.length, LEADING_SENTENCES); i++) {
+			words.add(Arrays.asList(sentences[i].toLowerCase().split("\\s+")));
+		}
+		return words;
+	}
+
+	private static List<String> legacyParagraphs(String text) {
+		List<String> paragraphs = new ArrayList<>();
+		for (String paragraph : text.split("\n\n+")) {
+			paragraphs.add(paragraph.trim());
+		}
+		return paragraphs;
+	}
+
+	private static List<String> paragraphs(TextProfile profile) {
+		List<String> paragraphs = new ArrayList<>();
+		for (int[] span : profile.getParagraphs()) {
+			paragraphs.add(profile.getText().substring(span[0], span[1]));
+		}
+		return paragraphs;
+	}
+
+	private static int indexOfCount(String text, String substring) {
+		int count = 0;
+		int index = 0;
+		while ((index = text.indexOf(substring, index)) != -1) {
+			count++;
+			index += substring.length();
+		}
+		return count;
+	}
+}
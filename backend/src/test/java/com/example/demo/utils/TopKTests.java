@@ -0,0 +1,122 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TopKTests {
+
+	private static final Comparator<Item> BY_SCORE = Comparator.comparingInt(Item::score);
+	// Ties broken by the lower index ranking higher, which makes the expected result unique
+	private static final Comparator<Item> BY_SCORE_THEN_INDEX = BY_SCORE.thenComparing(Comparator.comparingInt(Item::index).reversed());
+
+	@Test
+	void keepsTheSameElementsInTheSameOrderAsAFullSort() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 500; trial++) {
+			// Scores from a small range so most inputs contain ties, including at the cut
+			List<Item> items = randomItems(random, random.nextInt(200), 1 + random.nextInt(20));
+			int k = 1 + random.nextInt(30);
+
+			TopK<Item> top = new TopK<>(k, BY_SCORE_THEN_INDEX);
+			items.forEach(top::offer);
+
+			assertEquals(fullSort(items, k), top.toSortedList(), "k " + k + ", n " + items.size());
+			assertEquals(items.size(), top.getOffered());
+		}
+	}
+
+	@Test
+	void tiedScoresAtTheCutKeepTheRightScoresWhateverElementsAreChosen() {
+		Random random = new Random(2);
+		for (int trial = 0; trial < 500; trial++) {
+			List<Item> items = randomItems(random, 1 + random.nextInt(200), 1 + random.nextInt(5));
+			int k = 1 + random.nextInt(30);
+
+			TopK<Item> top = new TopK<>(k, BY_SCORE);
+			items.forEach(top::offer);
+			List<Item> kept = top.toSortedList();
+
+			assertEquals(scores(fullSort(items, k)), scores(kept));
+			assertTrue(items.containsAll(kept));
+			assertEquals(kept.size(), kept.stream().distinct().count());
+		}
+	}
+
+	@Test
+	void mergedSelectorsMatchOneSelectorOverAllElements() {
+		Random random = new Random(3);
+		for (int trial = 0; trial < 200; trial++) {
+			List<Item> items = randomItems(random, random.nextInt(500), 1 + random.nextInt(50));
+			int k = 1 + random.nextInt(40);
+			int parts = 1 + random.nextInt(8);
+
+			List<TopK<Item>> partials = new ArrayList<>();
+			for (int part = 0; part < parts; part++) {
+				partials.add(new TopK<>(k, BY_SCORE_THEN_INDEX));
+			}
+			for (Item item : items) {
+				partials.get(random.nextInt(parts)).offer(item);
+			}
+			TopK<Item> merged = partials.get(0);
+			for (int part = 1; part < parts; part++) {
+				merged.merge(partials.get(part));
+			}
+
+			assertEquals(fullSort(items, k), merged.toSortedList());
+			assertEquals(items.size(), merged.getOffered());
+		}
+	}
+
+	@Test
+	void offerReportsWhetherTheElementMadeTheCut() {
+		TopK<Item> top = new TopK<>(2, BY_SCORE);
+		assertTrue(top.offer(new Item(0, 5)));
+		assertTrue(top.offer(new Item(1, 3)));
+		assertFalse(top.offer(new Item(2, 1)));
+		// Equal to the lowest kept score does not displace it
+		assertFalse(top.offer(new Item(3, 3)));
+		assertTrue(top.offer(new Item(4, 4)));
+		assertEquals(4, top.peekLowest().score());
+		assertEquals(2, top.size());
+
+		TopK<Item> empty = new TopK<>(0, BY_SCORE);
+		assertEquals(1, empty.getLimit());
+		assertTrue(empty.isEmpty());
+		assertNull(empty.peekLowest());
+	}
+
+	private static List<Item> fullSort(List<Item> items, int k) {
+		List<Item> sorted = new ArrayList<>(items);
+		sorted.sort(BY_SCORE_THEN_INDEX.reversed());
+		return new ArrayList<>(sorted.subList(0, Math.min(k, sorted.size())));
+	}
+
+	private static List<Integer> scores(List<Item> items) {
+		List<Integer> scores = new ArrayList<>(items.size());
+		for (Item item : items) {
+			scores.add(item.score());
+		}
+		return scores;
+	}
+
+	private static List<Item> randomItems(Random random, int count, int distinctScores) {
+		List<Item> items = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			items.add(new Item(i, random.nextInt(distinctScores)));
+		}
+		return items;
+	}
+
+	private record Item(int index, int score) {
+	}
+
+}
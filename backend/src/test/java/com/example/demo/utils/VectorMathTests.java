@@ -0,0 +1,154 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import jdk.incubator.vector.FloatVector;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the SIMD and the scalar kernel directly, so both are checked whichever one
+ * VectorMath picked in this JVM. The build adds jdk.incubator.vector to the test JVM.
+ */
+class VectorMathTests {
+
+	private static final int LANES = FloatVector.SPECIES_PREFERRED.length();
+
+	private static final int[] LENGTHS = {
+			0, 1, 3, LANES - 1, LANES, LANES + 1, 2 * LANES, 2 * LANES + 3, 4 * LANES - 1, 100, 384, 768, 1023, 1024 };
+
+	@Test
+	void simdAndScalarDotAgreeOnLaneMultiplesAndRemainders() {
+		Random random = new Random(7);
+		for (int length : LENGTHS) {
+			float[] a = randomVector(random, length);
+			float[] b = randomVector(random, length);
+			double expected = exactDot(a, 0, b, length);
+			double tolerance = tolerance(a, 0, b, length);
+
+			assertEquals(expected, SimdVectorMath.dot(a, 0, b, length), tolerance, "simd, length " + length);
+			assertEquals(expected, VectorMath.scalarDot(a, 0, b, length), tolerance, "scalar, length " + length);
+			assertEquals(expected, VectorMath.dot(a, b), tolerance, "active kernel, length " + length);
+		}
+	}
+
+	@Test
+	void kernelsAgreeAtAnOffsetIntoARowMajorMatrix() {
+		Random random = new Random(11);
+		for (int dimension : LENGTHS) {
+			int rows = 3;
+			float[] query = randomVector(random, dimension);
+			float[] matrix = randomVector(random, rows * dimension);
+			float[] out = new float[rows];
+			VectorMath.dotBatch(query, matrix, rows, out);
+
+			for (int row = 0; row < rows; row++) {
+				int offset = row * dimension;
+				double expected = exactDot(matrix, offset, query, dimension);
+				double tolerance = tolerance(matrix, offset, query, dimension);
+				assertEquals(expected, SimdVectorMath.dot(matrix, offset, query, dimension), tolerance);
+				assertEquals(expected, VectorMath.scalarDot(matrix, offset, query, dimension), tolerance);
+				assertEquals(expected, out[row], tolerance, "row " + row + ", dimension " + dimension);
+			}
+		}
+	}
+
+	@Test
+	void bufferDotMatchesTheArrayDotInEitherByteOrder() {
+		Random random = new Random(13);
+		for (int length : LENGTHS) {
+			float[] query = randomVector(random, length);
+			float[] stored = randomVector(random, length);
+			double expected = exactDot(query, 0, stored, length);
+			for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+				ByteBuffer buffer = ByteBuffer.allocate(8 + length * Float.BYTES).order(order);
+				for (int i = 0; i < length; i++) {
+					buffer.putFloat(8 + i * Float.BYTES, stored[i]);
+				}
+				assertEquals(expected, VectorMath.dot(query, buffer, 8), tolerance(query, 0, stored, length),
+						order + ", length " + length);
+			}
+		}
+	}
+
+	@Test
+	void cosineAgreesWithTheExactValueAndStaysInRange() {
+		Random random = new Random(17);
+		for (int length : LENGTHS) {
+			if (length == 0) {
+				continue;
+			}
+			float[] a = randomVector(random, length);
+			float[] b = randomVector(random, length);
+			double exactNormA = Math.sqrt(exactDot(a, 0, a, length));
+			double exactNormB = Math.sqrt(exactDot(b, 0, b, length));
+			double expected = exactDot(a, 0, b, length) / (exactNormA * exactNormB);
+
+			assertEquals(expected, VectorMath.cosine(a, VectorMath.norm(a), b, VectorMath.norm(b)), 1e-4,
+					"length " + length);
+			float self = VectorMath.cosine(a, VectorMath.norm(a), a, VectorMath.norm(a));
+			assertEquals(1.0, self, 1e-5);
+			assertTrue(self <= 1.0f);
+		}
+	}
+
+	@Test
+	void zeroVectorsHaveZeroNormAndZeroCosine() {
+		for (int length : LENGTHS) {
+			float[] zero = new float[length];
+			float[] other = randomVector(new Random(length), length);
+
+			assertEquals(0.0f, SimdVectorMath.dot(zero, 0, other, length));
+			assertEquals(0.0f, VectorMath.scalarDot(zero, 0, other, length));
+			assertEquals(0.0f, VectorMath.norm(zero));
+			assertEquals(0.0f, VectorMath.cosine(zero, 0.0f, other, VectorMath.norm(other)));
+			assertEquals(0.0f, VectorMath.cosine(other, VectorMath.norm(other), zero, 0.0f));
+		}
+	}
+
+	@Test
+	void mismatchedLengthsAreRejected() {
+		float[] shorter = new float[LANES + 1];
+		float[] longer = new float[2 * LANES + 1];
+
+		assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(shorter, longer));
+		assertThrows(IllegalArgumentException.class, () -> VectorMath.dot(longer, shorter));
+		assertThrows(IllegalArgumentException.class, () -> VectorMath.cosine(shorter, 1.0f, longer, 1.0f));
+		assertThrows(IllegalArgumentException.class,
+				() -> VectorMath.dotBatch(shorter, new float[2 * shorter.length - 1], 2, new float[2]));
+		assertThrows(IllegalArgumentException.class,
+				() -> VectorMath.dotBatch(shorter, new float[2 * shorter.length], 2, new float[1]));
+	}
+
+	private static float[] randomVector(Random random, int length) {
+		float[] vector = new float[length];
+		for (int i = 0; i < length; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static double exactDot(float[] a, int offset, float[] b, int length) {
+		double sum = 0.0;
+		for (int i = 0; i < length; i++) {
+			sum += (double) a[offset + i] * b[i];
+		}
+		return sum;
+	}
+
+	/**
+	 * Error bound of float summation: n + 1 machine epsilons of the sum of the absolute products
+	 */
+	private static double tolerance(float[] a, int offset, float[] b, int length) {
+		double magnitude = 0.0;
+		for (int i = 0; i < length; i++) {
+			magnitude += Math.abs((double) a[offset + i] * b[i]);
+		}
+		return 1e-6 + magnitude * (length + 1) * Math.ulp(1.0f);
+	}
+}
@@ -0,0 +1,112 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class WinnowerTests {
+
+	private static final int K = Winnower.DEFAULT_K;
+	private static final int W = Winnower.DEFAULT_WINDOW;
+
+	@Test
+	void anySharedPassageOfKPlusWMinusOneWordsYieldsACommonFingerprint() {
+		Random random = new Random(1);
+		for (int trial = 0; trial < 500; trial++) {
+			List<String> shared = words(random, K + W - 1);
+			String a = join(words(random, random.nextInt(200)), shared, words(random, random.nextInt(200)));
+			String b = join(words(random, random.nextInt(200)), shared, words(random, random.nextInt(200)));
+
+			Set<Long> hashesOfA = new HashSet<>();
+			Winnower.fingerprints(a).forEach(fingerprint -> hashesOfA.add(fingerprint.getHash()));
+			assertTrue(Winnower.fingerprints(b).stream().anyMatch(fingerprint -> hashesOfA.contains(fingerprint.getHash())));
+		}
+	}
+
+	@Test
+	void fingerprintsPointAtTheirKGramInTheOriginalText() {
+		Random random = new Random(2);
+		String text = noisy(random, words(random, 500));
+		List<String> normalizedWords = List.of(ContentFingerprint.normalize(text).split(" "));
+
+		List<Winnower.Fingerprint> fingerprints = Winnower.fingerprints(text);
+		int previousPosition = -1;
+		for (Winnower.Fingerprint fingerprint : fingerprints) {
+			assertTrue(fingerprint.getPosition() > previousPosition, "positions must increase");
+			previousPosition = fingerprint.getPosition();
+
+			String span = ContentFingerprint.normalize(text.substring(fingerprint.getStart(), fingerprint.getEnd()));
+			String gram = String.join(" ", normalizedWords.subList(fingerprint.getPosition(), fingerprint.getPosition() + K));
+			assertEquals(gram, span);
+			assertTrue(Character.isLetterOrDigit(text.charAt(fingerprint.getStart())));
+			assertTrue(Character.isLetterOrDigit(text.charAt(fingerprint.getEnd() - 1)));
+		}
+
+		// Winnowing keeps about 2 / (w + 1) of the k-grams
+		double density = (double) fingerprints.size() / (normalizedWords.size() - K + 1);
+		assertEquals(2.0 / (W + 1), density, 0.1);
+	}
+
+	@Test
+	void caseAndPunctuationDoNotChangeTheHashes() {
+		Random random = new Random(3);
+		List<String> words = words(random, 100);
+		String plain = String.join(" ", words);
+		String noisy = noisy(random, words).toUpperCase();
+		assertEquals(hashes(Winnower.fingerprints(plain)), hashes(Winnower.fingerprints(noisy)));
+	}
+
+	@Test
+	void shortTextsAreOneWindowAndTextsUnderKWordsHaveNone() {
+		assertTrue(Winnower.fingerprints("only four words here").isEmpty());
+		assertTrue(Winnower.fingerprints(null).isEmpty());
+		assertEquals(1, Winnower.fingerprints("exactly five words are here").size());
+		List<Winnower.Fingerprint> six = Winnower.fingerprints("six words make exactly two grams");
+		assertFalse(six.isEmpty());
+		assertTrue(six.size() <= 2);
+	}
+
+	private static List<Long> hashes(List<Winnower.Fingerprint> fingerprints) {
+		List<Long> hashes = new ArrayList<>();
+		fingerprints.forEach(fingerprint -> hashes.add(fingerprint.getHash()));
+		return hashes;
+	}
+
+	private static String noisy(Random random, List<String> words) {
+		StringBuilder text = new StringBuilder();
+		for (String word : words) {
+			text.append(word).append(random.nextInt(6) == 0 ? ",\n  " : random.nextInt(8) == 0 ? " - " : " ");
+		}
+		return text.toString();
+	}
+
+	@SafeVarargs
+	private static String join(List<String>... parts) {
+		List<String> all = new ArrayList<>();
+		for (List<String> part : parts) {
+			all.addAll(part);
+		}
+		return String.join(" ", all);
+	}
+
+	private static List<String> words(Random random, int count) {
+		List<String> words = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			StringBuilder word = new StringBuilder();
+			for (int c = 3 + random.nextInt(7); c > 0; c--) {
+				word.append((char) ('a' + random.nextInt(26)));
+			}
+			words.add(word.toString());
+		}
+		return words;
+	}
+
+}